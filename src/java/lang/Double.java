@@ -25,6 +25,8 @@
 
 package java.lang;
 
+import java.util.Objects;
+
 import jdk.internal.HotSpotIntrinsicCandidate;
 import jdk.internal.math.DoubleConsts;
 import jdk.internal.math.FloatingDecimal;
@@ -504,6 +506,47 @@ public final class Double extends Number implements Comparable<Double> {
         return FloatingDecimal.parseDouble(s);
     }
     
+    /**
+     * Parses the {@link CharSequence} argument as a {@code double},
+     * beginning at the specified {@code beginIndex} and extending to
+     * {@code endIndex - 1}. The subsequence is interpreted exactly as by
+     * {@link #parseDouble(String)}. Plain decimal numbers such as
+     * {@code 12.5} or {@code -3.25e4}, whose significant digits form an
+     * integer below 2<sup>53</sup> and whose decimal exponent is at most
+     * 22 in magnitude, are converted without creating an intermediate
+     * string.
+     *
+     * <p>The method does not take steps to guard against the
+     * {@code CharSequence} being mutated while parsing.
+     *
+     * @param s          the {@code CharSequence} containing the {@code double}
+     *                   representation to be parsed
+     * @param beginIndex the beginning index, inclusive.
+     * @param endIndex   the ending index, exclusive.
+     *
+     * @return the {@code double} value represented by the subsequence.
+     *
+     * @throws NullPointerException      if {@code s} is null.
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *                                   negative, or if {@code beginIndex} is greater than
+     *                                   {@code endIndex} or if {@code endIndex} is greater than
+     *                                   {@code s.length()}.
+     * @throws NumberFormatException     if the subsequence does not contain
+     *                                   a parsable {@code double}.
+     * @see java.lang.Double#parseDouble(String)
+     * @since 11
+     */
+    // 将字符序列s的[beginIndex, endIndex)部分解析为double值
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex) throws NumberFormatException {
+        s = Objects.requireNonNull(s);
+        
+        if(beginIndex<0 || beginIndex>endIndex || endIndex>s.length()) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        return FloatingDecimal.parseDouble(s, beginIndex, endIndex);
+    }
+    
     /*▲ 逆字符串化 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -793,6 +793,19 @@ public final class Long extends Number implements Comparable<Long> {
             if(i >= endIndex) { // Cannot have lone "+", "-" or ""
                 throw NumberFormatException.forCharSequence(s, beginIndex, endIndex, i);
             }
+            // 十进制下，不超过18位的数字不会溢出，此时无需逐位检查溢出（非ASCII数字仍交给Character.digit处理）
+            if(radix == 10 && endIndex - i<=18) {
+                long result = 0;
+                for(; i<endIndex; i++) {
+                    char ch = s.charAt(i);
+                    int digit = (ch>='0' && ch<='9') ? ch - '0' : Character.digit(ch, 10);
+                    if(digit<0) {
+                        throw NumberFormatException.forCharSequence(s, beginIndex, endIndex, i);
+                    }
+                    result = result * 10 + digit;
+                }
+                return negative ? -result : result;
+            }
             long multmin = limit / radix;
             long result = 0;
             while(i<endIndex) {
@@ -814,6 +827,105 @@ public final class Long extends Number implements Comparable<Long> {
         }
     }
     
+    /**
+     * Parses the ASCII characters of the {@code byte} array argument as a
+     * signed {@code long} in the specified {@code radix}, beginning at the
+     * specified {@code beginIndex} and extending to {@code endIndex - 1}.
+     * Each byte is interpreted as the ISO-8859-1 character with the same
+     * value, so the bytes must be ASCII digits of the radix except that
+     * the first byte may be an ASCII minus sign {@code '-'} or plus sign
+     * {@code '+'}. This allows parsing fields of a byte-oriented protocol
+     * without first decoding them into a {@code String}.
+     *
+     * @param ascii      the {@code byte} array containing the {@code long}
+     *                   representation to be parsed
+     * @param beginIndex the beginning index, inclusive.
+     * @param endIndex   the ending index, exclusive.
+     * @param radix      the radix to be used while parsing {@code ascii}.
+     *
+     * @return the signed {@code long} represented by the subrange in
+     * the specified radix.
+     *
+     * @throws NullPointerException      if {@code ascii} is null.
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *                                   negative, or if {@code beginIndex} is greater than
+     *                                   {@code endIndex} or if {@code endIndex} is greater than
+     *                                   {@code ascii.length}.
+     * @throws NumberFormatException     if the subrange does not
+     *                                   contain a parsable {@code long} in the specified
+     *                                   {@code radix}, or if {@code radix} is either smaller than
+     *                                   {@link java.lang.Character#MIN_RADIX} or larger than
+     *                                   {@link java.lang.Character#MAX_RADIX}.
+     * @see #parseLong(CharSequence, int, int, int)
+     * @since 11
+     */
+    // 按radix进制形式将字节数组ascii的[beginIndex, endIndex)部分（视为ASCII字符）解析为long值
+    public static long parseLong(byte[] ascii, int beginIndex, int endIndex, int radix) throws NumberFormatException {
+        ascii = Objects.requireNonNull(ascii);
+        
+        if(beginIndex<0 || beginIndex>endIndex || endIndex>ascii.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if(radix<Character.MIN_RADIX) {
+            throw new NumberFormatException("radix " + radix + " less than Character.MIN_RADIX");
+        }
+        if(radix>Character.MAX_RADIX) {
+            throw new NumberFormatException("radix " + radix + " greater than Character.MAX_RADIX");
+        }
+        
+        boolean negative = false;
+        int i = beginIndex;
+        long limit = -Long.MAX_VALUE;
+        
+        if(i<endIndex) {
+            byte firstByte = ascii[i];
+            if(firstByte<'0') { // Possible leading "+" or "-"
+                if(firstByte == '-') {
+                    negative = true;
+                    limit = Long.MIN_VALUE;
+                } else if(firstByte != '+') {
+                    throw NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, i);
+                }
+                i++;
+            }
+            if(i >= endIndex) { // Cannot have lone "+", "-" or ""
+                throw NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, i);
+            }
+            
+            // 十进制下，不超过18位的数字不会溢出，此时无需逐位检查溢出
+            if(radix == 10 && endIndex - i<=18) {
+                long result = 0;
+                for(; i<endIndex; i++) {
+                    int digit = ascii[i] - '0';
+                    if(digit<0 || digit>9) {
+                        throw NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, i);
+                    }
+                    result = result * 10 + digit;
+                }
+                return negative ? -result : result;
+            }
+            
+            long multmin = limit / radix;
+            long result = 0;
+            while(i<endIndex) {
+                // Accumulating negatively avoids surprises near MAX_VALUE
+                int digit = Character.digit((char) (ascii[i] & 0xff), radix);
+                if(digit<0 || result<multmin) {
+                    throw NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, i);
+                }
+                result *= radix;
+                if(result<limit + digit) {
+                    throw NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, i);
+                }
+                i++;
+                result -= digit;
+            }
+            return negative ? result : -result;
+        } else {
+            throw NumberFormatException.forInputString("");
+        }
+    }
+    
     /**
      * Parses the string argument as an unsigned {@code long} in the
      * radix specified by the second argument.  An unsigned integer
@@ -80,4 +80,23 @@ class NumberFormatException extends IllegalArgumentException {
                 + (errorIndex - beginIndex) + " in: \""
                 + s.subSequence(beginIndex, endIndex) + "\"");
     }
+
+    /**
+     * Factory method for making a {@code NumberFormatException}
+     * given the specified ASCII input which caused the error.
+     *
+     * @param   ascii        the input causing the error
+     * @param   beginIndex   the beginning index, inclusive.
+     * @param   endIndex     the ending index, exclusive.
+     * @param   errorIndex   the index of the first error in ascii
+     */
+    static NumberFormatException forAsciiBytes(byte[] ascii,
+            int beginIndex, int endIndex, int errorIndex) {
+        StringBuilder sb = new StringBuilder(endIndex - beginIndex);
+        for (int i = beginIndex; i < endIndex; i++) {
+            sb.append((char)(ascii[i] & 0xff));
+        }
+        return new NumberFormatException("Error at index "
+                + (errorIndex - beginIndex) + " in: \"" + sb + "\"");
+    }
 }
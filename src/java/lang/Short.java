@@ -440,6 +440,99 @@ public final class Short extends Number implements Comparable<Short> {
         return parseShort(s, 10);
     }
     
+    /**
+     * Parses the {@link CharSequence} argument as a signed {@code short} in
+     * the specified {@code radix}, beginning at the specified
+     * {@code beginIndex} and extending to {@code endIndex - 1}.
+     *
+     * <p>The method does not take steps to guard against the
+     * {@code CharSequence} being mutated while parsing.
+     *
+     * @param s          the {@code CharSequence} containing the {@code short}
+     *                   representation to be parsed
+     * @param beginIndex the beginning index, inclusive.
+     * @param endIndex   the ending index, exclusive.
+     * @param radix      the radix to be used while parsing {@code s}.
+     *
+     * @return the signed {@code short} represented by the subsequence in
+     * the specified radix.
+     *
+     * @throws NullPointerException      if {@code s} is null.
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *                                   negative, or if {@code beginIndex} is greater than
+     *                                   {@code endIndex} or if {@code endIndex} is greater than
+     *                                   {@code s.length()}.
+     * @throws NumberFormatException     if the {@code CharSequence} does not
+     *                                   contain a parsable {@code short} in the specified
+     *                                   {@code radix}, or if {@code radix} is either smaller than
+     *                                   {@link java.lang.Character#MIN_RADIX} or larger than
+     *                                   {@link java.lang.Character#MAX_RADIX}.
+     * @see Integer#parseInt(CharSequence, int, int, int)
+     * @since 11
+     */
+    // 按radix进制形式将字符序列s的[beginIndex, endIndex)部分解析为short值
+    public static short parseShort(CharSequence s, int beginIndex, int endIndex, int radix) throws NumberFormatException {
+        int i = Integer.parseInt(s, beginIndex, endIndex, radix);
+        if(i<MIN_VALUE || i>MAX_VALUE)
+            throw new NumberFormatException("Value out of range. Value:\"" + s.subSequence(beginIndex, endIndex) + "\" Radix:" + radix);
+        return (short) i;
+    }
+    
+    /**
+     * Parses the ASCII characters of the {@code byte} array argument as a
+     * signed {@code short} in the specified {@code radix}, beginning at the
+     * specified {@code beginIndex} and extending to {@code endIndex - 1}.
+     *
+     * @param ascii      the {@code byte} array containing the {@code short}
+     *                   representation to be parsed
+     * @param beginIndex the beginning index, inclusive.
+     * @param endIndex   the ending index, exclusive.
+     * @param radix      the radix to be used while parsing {@code ascii}.
+     *
+     * @return the signed {@code short} represented by the subrange in
+     * the specified radix.
+     *
+     * @throws NullPointerException      if {@code ascii} is null.
+     * @throws IndexOutOfBoundsException if {@code beginIndex} is
+     *                                   negative, or if {@code beginIndex} is greater than
+     *                                   {@code endIndex} or if {@code endIndex} is greater than
+     *                                   {@code ascii.length}.
+     * @throws NumberFormatException     if the subrange does not
+     *                                   contain a parsable {@code short} in the specified
+     *                                   {@code radix}, or if {@code radix} is either smaller than
+     *                                   {@link java.lang.Character#MIN_RADIX} or larger than
+     *                                   {@link java.lang.Character#MAX_RADIX}.
+     * @see Integer#parseInt(byte[], int, int, int)
+     * @since 11
+     */
+    // 按radix进制形式将字节数组ascii的[beginIndex, endIndex)部分（视为ASCII字符）解析为short值
+    public static short parseShort(byte[] ascii, int beginIndex, int endIndex, int radix) throws NumberFormatException {
+        int i = Integer.parseInt(ascii, beginIndex, endIndex, radix);
+        if(i<MIN_VALUE || i>MAX_VALUE)
+            throw outOfRange(ascii, beginIndex, endIndex, radix);
+        return (short) i;
+    }
+    
+    // 为超出short范围的输入构造异常，异常信息取自输入本身，错误位置为数值首次超出范围的那个数字
+    private static NumberFormatException outOfRange(byte[] ascii, int beginIndex, int endIndex, int radix) {
+        int j = beginIndex;
+        boolean negative = ascii[j] == '-';
+        if(negative || ascii[j] == '+') {
+            j++;
+        }
+        
+        // 输入已被Integer.parseInt校验过，这里的每个字节都是有效数字，且累加值不会溢出int
+        int limit = negative ? -MIN_VALUE : MAX_VALUE;
+        for(int value = 0; j<endIndex - 1; j++) {
+            value = value * radix + Character.digit(ascii[j], radix);
+            if(value>limit) {
+                break;
+            }
+        }
+        
+        return NumberFormatException.forAsciiBytes(ascii, beginIndex, endIndex, j);
+    }
+    
     /*▲ 逆字符串化 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -42,6 +42,13 @@ import static java.lang.String.checkOffset;
 // LATIN1-String
 final class StringLatin1 {
     
+    /*
+     * 子串长度不小于HORSPOOL_MIN_NEEDLE，且待搜索区域长度不小于HORSPOOL_MIN_HAYSTACK时，
+     * 查找子串改用Horspool算法，否则构造位移表的开销得不偿失
+     */
+    static final int HORSPOOL_MIN_NEEDLE = 16;
+    static final int HORSPOOL_MIN_HAYSTACK = 512;
+    
     /*▼ 获取char/char[] ████████████████████████████████████████████████████████████████████████████████┓ */
     
     // 将LATIN1-String内部的字节转换为char后返回
@@ -544,6 +551,10 @@ final class StringLatin1 {
     public static int indexOf(byte[] value, int valueCount, byte[] str, int strCount, int fromIndex) {
         byte first = str[0];
         int max = (valueCount - strCount);
+        // 子串较长时，失配后可以跳过多个字符
+        if(strCount >= HORSPOOL_MIN_NEEDLE && max - fromIndex >= HORSPOOL_MIN_HAYSTACK) {
+            return indexOfHorspool(value, str, strCount, fromIndex, max);
+        }
         for(int i = fromIndex; i <= max; i++) {
             // Look for first character.
             if(value[i] != first) {
@@ -565,6 +576,38 @@ final class StringLatin1 {
         return -1;
     }
     
+    /*
+     * 使用Horspool算法比对两个Latin1-String，返回子串str在主串value中第一次出现的位置
+     * 每次先比对窗口的最后一个字符，随后依据该字符在子串中最后出现的位置(不含子串末尾)右移窗口
+     */
+    private static int indexOfHorspool(byte[] value, byte[] str, int strCount, int fromIndex, int max) {
+        int last = strCount - 1;
+        
+        // 坏字符位移表：未在子串前last个字符中出现的字符可以让窗口整体越过
+        int[] shift = new int[256];
+        Arrays.fill(shift, strCount);
+        for(int k = 0; k<last; k++) {
+            shift[str[k] & 0xff] = last - k;
+        }
+        
+        byte lastByte = str[last];
+        for(int i = fromIndex; i <= max; ) {
+            byte b = value[i + last];
+            if(b == lastByte) {
+                int k = 0;
+                while(k<last && value[i + k] == str[k]) {
+                    k++;
+                }
+                if(k == last) {
+                    return i;
+                }
+            }
+            i += shift[b & 0xff];
+        }
+        
+        return -1;
+    }
+    
     /*
      * 比对两个Latin1-String，返回子串tgt在主串src中最后一次出现的位置
      * 搜索时只比对主串的前srcCount个字符和子串的前tgtCount个字符，且从主串的fromIndex索引处向前搜索
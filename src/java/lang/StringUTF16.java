@@ -985,6 +985,10 @@ final class StringUTF16 {
         char first = getChar(str, 0);   // 子串第一个字符
         // 主串长度-子串长度
         int max = (valueCount - strCount);
+        // 子串较长时，失配后可以跳过多个字符
+        if(strCount >= StringLatin1.HORSPOOL_MIN_NEEDLE && max - fromIndex >= StringLatin1.HORSPOOL_MIN_HAYSTACK) {
+            return indexOfHorspool(value, str, false, strCount, fromIndex, max);
+        }
         for(int i = fromIndex; i <= max; i++) {
             // 用i遍历主串，直到主串和子串第一个字符相等为止
             if(getChar(value, i) != first) {
@@ -1038,6 +1042,10 @@ final class StringUTF16 {
         
         char first = (char) (tgt[0] & 0xff);    // 子串第一个字符
         int max = (srcCount - tgtCount);
+        // 子串较长时，失配后可以跳过多个字符
+        if(tgtCount >= StringLatin1.HORSPOOL_MIN_NEEDLE && max - fromIndex >= StringLatin1.HORSPOOL_MIN_HAYSTACK) {
+            return indexOfHorspool(src, tgt, true, tgtCount, fromIndex, max);
+        }
         for(int i = fromIndex; i <= max; i++) {
             // Look for first character.
             if(getChar(src, i) != first) {
@@ -1059,6 +1067,47 @@ final class StringUTF16 {
         return -1;
     }
     
+    /*
+     * 使用Horspool算法在UTF16-String主串value中查找子串str，返回其第一次出现的下标
+     * 子串为Latin1-String时latin1为true，否则为UTF16-String
+     *
+     * 位移表只按字符的低8位分桶，同一个桶中的字符取最小的位移，因此位移总是保守的
+     */
+    private static int indexOfHorspool(byte[] value, byte[] str, boolean latin1, int strCount, int fromIndex, int max) {
+        int last = strCount - 1;
+        
+        // 坏字符位移表：低8位未在子串前last个字符中出现的字符可以让窗口整体越过
+        int[] shift = new int[256];
+        Arrays.fill(shift, strCount);
+        for(int k = 0; k<last; k++) {
+            char c = latin1 ? (char) (str[k] & 0xff) : getChar(str, k);
+            shift[c & 0xff] = last - k;
+        }
+        
+        char lastChar = latin1 ? (char) (str[last] & 0xff) : getChar(str, last);
+        for(int i = fromIndex; i <= max; ) {
+            char c = getChar(value, i + last);
+            if(c == lastChar) {
+                int k = 0;
+                if(latin1) {
+                    while(k<last && getChar(value, i + k) == (str[k] & 0xff)) {
+                        k++;
+                    }
+                } else {
+                    while(k<last && getChar(value, i + k) == getChar(str, k)) {
+                        k++;
+                    }
+                }
+                if(k == last) {
+                    return i;
+                }
+            }
+            i += shift[c & 0xff];
+        }
+        
+        return -1;
+    }
+    
     /**
      * 比对UTF16-String主串src和Latin1子串tgt，返回子串tgt在主串src中最后一次出现的下标
      * 搜索时只比对主串的前srcCount个字符和子串的前tgtCount个字符，且从主串的fromIndex索引处向前搜索
@@ -248,6 +248,16 @@ public abstract class Buffer {
             public void truncate(Buffer buf) {
                 buf.truncate();
             }
+            
+            @Override
+            public void reserveMemory(long size, int cap) {
+                Bits.reserveMemory(size, cap);
+            }
+            
+            @Override
+            public void unreserveMemory(long size, int cap) {
+                Bits.unreserveMemory(size, cap);
+            }
         });
     }
     
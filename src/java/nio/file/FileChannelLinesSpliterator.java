@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
@@ -39,23 +40,35 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import sun.nio.cs.SingleByte;
 
 /**
- * A file-based lines spliterator, leveraging a shared mapped byte buffer and
- * associated file channel, covering lines of a file for character encodings
+ * A file-based lines spliterator, leveraging mapped byte buffer windows and
+ * an associated file channel, covering lines of a file for character encodings
  * where line feed characters can be easily identified from character encoded
  * bytes.
  *
  * <p>
  * When the root spliterator is first split a mapped byte buffer will be created
- * over the file for it's size that was observed when the stream was created.
+ * over the covered range of the file, as observed when the stream was created.
  * Thus a mapped byte buffer is only required for parallel stream execution.
- * Sub-spliterators will share that mapped byte buffer.  Splitting will use the
- * mapped byte buffer to find the closest line feed characters(s) to the left or
- * right of the mid-point of covered range of bytes of the file.  If a line feed
- * is found then the spliterator is split with returned spliterator containing
- * the identified line feed characters(s) at the end of it's covered range of
- * bytes.
+ * If the covered range is too large to be indexed by a single byte buffer
+ * then only a window of {@link #SPLIT_WINDOW_SIZE} bytes around the mid-point
+ * is mapped, so files larger than {@code Integer.MAX_VALUE} bytes can be split
+ * as well.  Sub-spliterators will share a mapped byte buffer whenever it covers
+ * their mid-point.  Splitting will use the mapped byte buffer to find the
+ * closest line feed characters(s) to the left or right of the mid-point of
+ * covered range of bytes of the file.  If a line feed is found then the
+ * spliterator is split with returned spliterator containing the identified
+ * line feed characters(s) at the end of it's covered range of bytes.
+ *
+ * <p>
+ * Line feeds are searched in code units of the charset: single bytes for
+ * UTF-8, US-ASCII, ISO-8859-1 and the table driven single-byte charsets in
+ * which the line feed and carriage return each decode from a unique byte, and
+ * aligned pairs of bytes for UTF-16.  A UTF-16 byte order mark is resolved
+ * once, when the root spliterator is created, so that every sub-spliterator
+ * decodes its range with the same byte order.
  *
  * <p>
  * Traversing will create a buffered reader, derived from the file channel, for
@@ -66,17 +79,8 @@ import java.util.function.Consumer;
 // 基于文件行的流迭代器
 final class FileChannelLinesSpliterator implements Spliterator<String> {
     
-    private final FileChannel fileChannel;  // 文件通道
-    private int index;          // 文件通道内容的起始游标
-    private final int fence;    // 文件通道内容的上限游标
-    
-    // Non-null when traversing
-    private BufferedReader reader;  // 用于读取给定的文件通道
-    
-    // Null before first split, non-null when splitting, null when traversing
-    private ByteBuffer buffer;      // 文件映射内存
-    
-    private final Charset charset;  // 字符集
+    /** The size of the window mapped around the mid-point when the covered range cannot be mapped at once */
+    static final int SPLIT_WINDOW_SIZE = 1 << 20;   // 覆盖范围过大时，在中点附近映射的窗口大小
     
     static final Set<String> SUPPORTED_CHARSET_NAMES;   // 当前迭代器支持的字符集，用于解码
     
@@ -87,19 +91,96 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
     }
     
-    FileChannelLinesSpliterator(FileChannel fileChannel, Charset charset, int index, int fence) {
+    private final FileChannel fileChannel;  // 文件通道
+    private long index;         // 文件通道内容的起始游标
+    private final long fence;   // 文件通道内容的上限游标
+    
+    private final Charset charset;  // 字符集（已消除字节序标记的歧义）
+    private final int unit;         // 码元的字节数：1或2
+    private final boolean bigEndian;// 双字节码元是否为大端序
+    private final int lf;           // '\n'对应的码元
+    private final int cr;           // '\r'对应的码元，不存在时为-1
+    private final int bufferSize;   // 读取时的缓冲区大小，<=0时使用默认值
+    
+    // Non-null when traversing
+    private BufferedReader reader;  // 用于读取给定的文件通道
+    
+    // Null before first split, non-null when splitting, null when traversing
+    private ByteBuffer buffer;      // 文件映射内存（窗口）
+    private long bufferBase;        // 映射窗口在文件中的起始位置
+    
+    private FileChannelLinesSpliterator(FileChannel fileChannel, Charset charset, int unit, boolean bigEndian, int lf, int cr, int bufferSize, long index, long fence, ByteBuffer buffer, long bufferBase) {
         this.fileChannel = fileChannel;
         this.charset = charset;
+        this.unit = unit;
+        this.bigEndian = bigEndian;
+        this.lf = lf;
+        this.cr = cr;
+        this.bufferSize = bufferSize;
         this.index = index;
         this.fence = fence;
+        this.buffer = buffer;
+        this.bufferBase = bufferBase;
     }
     
-    private FileChannelLinesSpliterator(FileChannel fileChannel, Charset charset, int index, int fence, ByteBuffer buffer) {
-        this.fileChannel = fileChannel;
-        this.buffer = buffer;
-        this.charset = charset;
-        this.index = index;
-        this.fence = fence;
+    /**
+     * Returns {@code true} if lines encoded with the given charset can be
+     * split by this spliterator.
+     */
+    // 判断当前迭代器是否可以分割以指定字符集编码的文件
+    static boolean isSupported(Charset cs) {
+        if(SUPPORTED_CHARSET_NAMES.contains(cs.name()) || isUTF16(cs)) {
+            return true;
+        }
+        
+        return singleByteTerminators(cs) != null;
+    }
+    
+    /**
+     * Creates a spliterator covering the first {@code length} bytes of the
+     * file, or returns {@code null} if the charset is not supported.
+     *
+     * @param bufferSize the size of the buffers used when traversing, or a
+     *                   value {@code <= 0} for the default size
+     */
+    // 创建覆盖文件前length个字节的流迭代器，如果字符集不受支持，返回null
+    static FileChannelLinesSpliterator create(FileChannel fc, Charset cs, long length, int bufferSize) throws IOException {
+        if(SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            return new FileChannelLinesSpliterator(fc, cs, 1, true, '\n', '\r', bufferSize, 0, length, null, 0);
+        }
+        
+        if(isUTF16(cs)) {
+            long start = 0;
+            boolean bigEndian = cs.name().equals("UTF-16BE");
+            
+            if(cs.name().equals("UTF-16")) {
+                // 消除字节序标记：其后的内容按标记指示的字节序解码，无标记时按大端序解码
+                bigEndian = true;
+                if(length >= 2) {
+                    ByteBuffer bom = ByteBuffer.allocate(2);
+                    while(bom.hasRemaining() && fc.read(bom, bom.position()) >= 0) {
+                    }
+                    int b0 = bom.get(0) & 0xFF, b1 = bom.get(1) & 0xFF;
+                    if(b0 == 0xFE && b1 == 0xFF) {
+                        start = 2;
+                    } else if(b0 == 0xFF && b1 == 0xFE) {
+                        start = 2;
+                        bigEndian = false;
+                    }
+                }
+            }
+            
+            Charset decodeAs = bigEndian ? StandardCharsets.UTF_16BE : StandardCharsets.UTF_16LE;
+            
+            return new FileChannelLinesSpliterator(fc, decodeAs, 2, bigEndian, '\n', '\r', bufferSize, start, length, null, 0);
+        }
+        
+        int[] terminators = singleByteTerminators(cs);
+        if(terminators == null) {
+            return null;
+        }
+        
+        return new FileChannelLinesSpliterator(fc, cs, 1, true, terminators[0], terminators[1], bufferSize, 0, length, null, 0);
     }
     
     // 分割文件内容，返回的迭代器包含了文件的前半部分
@@ -110,55 +191,64 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
             return null;
         }
         
-        ByteBuffer buf;
-        if((buf = buffer) == null) {
-            // 获取一块文件映射内存
-            buf = buffer = getMappedByteBuffer();
+        final long hi = fence, lo = index;
+        
+        // 中点需要与码元对齐
+        long mid = lo + (((hi - lo) >>> 1) & -unit);
+        if(mid<=lo) {
+            return null;
         }
         
-        final int hi = fence, lo = index;
+        // 确保中点附近已被映射
+        ByteBuffer buf = mapAround(lo, hi, mid);
+        
+        // 在映射窗口内可以检查的范围
+        final long limitLo = Math.max(lo, bufferBase);
+        final long limitHi = Math.min(hi, bufferBase + buf.limit());
         
         // Check if line separator hits the mid point
-        int mid = (lo + hi) >>> 1;
-        int c = buf.get(mid);
-        if(c == '\n') {
-            mid++;
-        } else if(c == '\r') {
+        int c = unitAt(buf, mid);
+        if(c == lf) {
+            mid += unit;
+        } else if(c == cr) {
+            mid += unit;
             // Check if a line separator of "\r\n"
-            if(++mid<hi && buf.get(mid) == '\n') {
-                mid++;
+            if(mid + unit<=limitHi && unitAt(buf, mid) == lf) {
+                mid += unit;
             }
         } else {
             // TODO give up after a certain distance from the mid point?
             // Scan to the left and right of the mid point
-            int midL = mid - 1;
-            int midR = mid + 1;
+            long midL = mid - unit;
+            long midR = mid + unit;
             mid = 0;
-            while(midL>lo && midR<hi) {
+            while(midL>limitLo && midR + 2 * unit<=limitHi) {
                 // Sample to the left
-                c = buf.get(midL--);
-                if(c == '\n' || c == '\r') {
+                c = unitAt(buf, midL);
+                midL -= unit;
+                if(c == lf || c == cr) {
                     // If c is "\r" then no need to check for "\r\n"
                     // since the subsequent value was previously checked
-                    mid = midL + 2;
+                    mid = midL + 2 * unit;
                     break;
                 }
                 
                 // Sample to the right
-                c = buf.get(midR++);
-                if(c == '\n' || c == '\r') {
+                c = unitAt(buf, midR);
+                midR += unit;
+                if(c == lf || c == cr) {
                     mid = midR;
                     // Check if line-separator is "\r\n"
-                    if(c == '\r' && mid<hi && buf.get(mid) == '\n') {
-                        mid++;
+                    if(c == cr && unitAt(buf, mid) == lf) {
+                        mid += unit;
                     }
                     break;
                 }
             }
         }
-    
+        
         // The left spliterator will have the line-separator at the end
-        return (mid>lo && mid<hi) ? new FileChannelLinesSpliterator(fileChannel, charset, lo, index = mid, buf) : null;
+        return (mid>lo && mid<hi) ? new FileChannelLinesSpliterator(fileChannel, charset, unit, bigEndian, lf, cr, bufferSize, lo, index = mid, buf, bufferBase) : null;
     }
     
     // 尝试用action消费目标通道的下一行
@@ -214,7 +304,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
             @Override
             public int read(ByteBuffer dst) throws IOException {
                 // 计算待读字节数量
-                int bytesToRead = fence - index;
+                long bytesToRead = fence - index;
                 if(bytesToRead == 0) {
                     return -1;
                 }
@@ -229,7 +319,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
                      */
                     int oldLimit = dst.limit();
                     // 设置新上限，目的是限制填充进来的字节长度
-                    dst.limit(dst.position() + bytesToRead);
+                    dst.limit(dst.position() + (int) bytesToRead);
                     // 从文件通道的index处读取，读到的数据填充到dst中
                     bytesRead = fileChannel.read(dst, index);
                     // 恢复旧上限
@@ -268,9 +358,9 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         CharsetDecoder charsetDecoder = charset.newDecoder();
         
         // 构造一个输入流解码器(继承了Reader)
-        Reader reader = Channels.newReader(channel, charsetDecoder, -1);
+        Reader reader = Channels.newReader(channel, charsetDecoder, bufferSize>0 ? bufferSize : -1);
     
-        return new BufferedReader(reader);
+        return bufferSize>0 ? new BufferedReader(reader, bufferSize) : new BufferedReader(reader);
     }
     
     // 返回读到的一行内容
@@ -287,8 +377,54 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         }
     }
     
+    // 返回文件中pos处的码元，pos必须位于映射窗口内
+    private int unitAt(ByteBuffer buf, long pos) {
+        int i = (int) (pos - bufferBase);
+        if(unit == 1) {
+            return buf.get(i) & 0xFF;
+        }
+        
+        int b0 = buf.get(i) & 0xFF, b1 = buf.get(i + 1) & 0xFF;
+        
+        return bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+    }
+    
+    /**
+     * Returns a mapped byte buffer covering the mid-point of the range
+     * {@code [lo, hi)}, reusing the current one if it covers the mid-point
+     * with enough slack on both sides to find a nearby line feed.
+     */
+    // 返回一块覆盖中点mid的文件映射内存，如果已有的映射窗口足够，则直接复用
+    private ByteBuffer mapAround(long lo, long hi, long mid) {
+        long half = SPLIT_WINDOW_SIZE >>> 1;
+        long from = Math.max(lo, mid - half);
+        long to = Math.min(hi, mid + half);
+        
+        ByteBuffer buf = buffer;
+        if(buf != null && bufferBase<=from && to<=bufferBase + buf.limit()) {
+            return buf;
+        }
+        
+        // 覆盖范围可以一次映射时，映射整个范围，以便子迭代器共享
+        if(hi - lo<=Integer.MAX_VALUE) {
+            from = lo;
+            to = hi;
+        } else {
+            // 窗口起点需要与码元对齐
+            from -= (from - lo) % unit;
+        }
+        
+        buffer = map(fileChannel, from, to - from);
+        bufferBase = from;
+        
+        return buffer;
+    }
+    
+    /**
+     * Maps a read-only window of the file.
+     */
     // 返回一块文件映射内存(经过了包装，加入了内存清理操作)
-    private ByteBuffer getMappedByteBuffer() {
+    static MappedByteBuffer map(FileChannel fileChannel, long position, long size) {
         // TODO can the mapped byte buffer be explicitly unmapped?
         // It's possible, via a shared-secret mechanism, when either
         // 1) the spliterator starts traversing, although traversal can
@@ -297,10 +433,54 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         // 2) when the stream is closed using some shared holder to pass
         //    the mapped byte buffer when it is created.
         try {
-            return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fence);
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
         } catch(IOException e) {
             throw new UncheckedIOException(e);
         }
     }
     
+    // 判断cs是否为UTF-16字符集
+    private static boolean isUTF16(Charset cs) {
+        String name = cs.name();
+        return name.equals("UTF-16") || name.equals("UTF-16BE") || name.equals("UTF-16LE");
+    }
+    
+    /**
+     * For a table driven single-byte charset, returns the bytes that decode
+     * to a line feed and to a carriage return (or {@code -1} if there is no
+     * such byte), or {@code null} if the charset is not a single-byte charset
+     * or its line terminators are not uniquely identifiable bytes.
+     */
+    // 对于单字节字符集，返回解码为'\n'和'\r'的字节，如果cs不是单字节字符集或行终止符无法唯一识别，返回null
+    private static int[] singleByteTerminators(Charset cs) {
+        CharsetDecoder decoder;
+        try {
+            decoder = cs.newDecoder();
+        } catch(UnsupportedOperationException e) {
+            return null;
+        }
+        
+        if(!(decoder instanceof SingleByte.Decoder)) {
+            return null;
+        }
+        
+        int lf = -1, cr = -1;
+        for(int b = 0; b<256; b++) {
+            char c = ((SingleByte.Decoder) decoder).decode((byte) b);
+            if(c == '\n') {
+                if(lf != -1) {
+                    return null;
+                }
+                lf = b;
+            } else if(c == '\r') {
+                if(cr != -1) {
+                    return null;
+                }
+                cr = b;
+            }
+        }
+        
+        return lf == -1 ? null : new int[]{lf, cr};
+    }
+    
 }
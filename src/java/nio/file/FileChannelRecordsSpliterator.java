@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A file-based records spliterator, the byte oriented sibling of
+ * {@link FileChannelLinesSpliterator}, covering the records of a file that
+ * are separated by a single delimiter byte.  Records are returned as byte
+ * arrays without the delimiter; a delimiter at the very end of the covered
+ * range does not start an empty record.
+ *
+ * <p>
+ * Splitting maps a window of the file around the mid-point of the covered
+ * range, in the same manner as {@code FileChannelLinesSpliterator}, and
+ * splits after the delimiter closest to the mid-point.  Traversing reads the
+ * covered range with positional reads into a heap buffer, after which no
+ * further splitting can be performed.
+ *
+ * <p>
+ * A spliterator created by {@link #sequential} is used when the size of the
+ * file is not known, as for the files of procfs and sysfs, which report a
+ * size of zero, and for pipes.  It reads the channel from its current
+ * position until the end of stream is reached, and never splits.
+ */
+// 基于文件记录的流迭代器，记录之间以单个字节分隔
+final class FileChannelRecordsSpliterator implements Spliterator<byte[]> {
+    
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    
+    private final FileChannel fileChannel;  // 文件通道
+    private long index;         // 文件通道内容的起始游标
+    private final long fence;   // 文件通道内容的上限游标
+    
+    private final byte delimiter;   // 记录分隔符
+    private final int bufferSize;   // 读取时的缓冲区大小
+    
+    private final boolean sequential;   // 是否顺序读取（文件长度未知）
+    
+    // Non-null when traversing
+    private ByteBuffer readBuffer;  // 读取缓冲区
+    
+    // Null before first split, non-null when splitting, null when traversing
+    private ByteBuffer buffer;      // 文件映射内存（窗口）
+    private long bufferBase;        // 映射窗口在文件中的起始位置
+    
+    FileChannelRecordsSpliterator(FileChannel fileChannel, byte delimiter, int bufferSize, long index, long fence) {
+        this(fileChannel, delimiter, bufferSize, index, fence, null, 0, false);
+    }
+    
+    private FileChannelRecordsSpliterator(FileChannel fileChannel, byte delimiter, int bufferSize, long index, long fence, ByteBuffer buffer, long bufferBase, boolean sequential) {
+        this.fileChannel = fileChannel;
+        this.delimiter = delimiter;
+        this.bufferSize = bufferSize>0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+        this.index = index;
+        this.fence = fence;
+        this.buffer = buffer;
+        this.bufferBase = bufferBase;
+        this.sequential = sequential;
+    }
+    
+    // 返回一个顺序读取fileChannel的流迭代器，用于长度未知的文件，该迭代器不可分割
+    static FileChannelRecordsSpliterator sequential(FileChannel fileChannel, byte delimiter, int bufferSize) {
+        return new FileChannelRecordsSpliterator(fileChannel, delimiter, bufferSize, 0, Long.MAX_VALUE, null, 0, true);
+    }
+    
+    // 分割文件内容，返回的迭代器包含了文件的前半部分
+    @Override
+    public Spliterator<byte[]> trySplit() {
+        // 必须确保文件还没被读取之前进行分割，且文件长度已知
+        if(sequential || readBuffer != null) {
+            return null;
+        }
+        
+        final long hi = fence, lo = index;
+        
+        long mid = (lo + hi) >>> 1;
+        if(mid<=lo) {
+            return null;
+        }
+        
+        // 确保中点附近已被映射
+        ByteBuffer buf = mapAround(lo, hi, mid);
+        
+        // 在映射窗口内可以检查的范围
+        final long limitLo = Math.max(lo, bufferBase);
+        final long limitHi = Math.min(hi, bufferBase + buf.limit());
+        
+        if(byteAt(buf, mid) == delimiter) {
+            mid++;
+        } else {
+            // Scan to the left and right of the mid point
+            long midL = mid - 1;
+            long midR = mid + 1;
+            mid = 0;
+            while(midL>limitLo && midR<limitHi) {
+                // Sample to the left
+                if(byteAt(buf, midL--) == delimiter) {
+                    mid = midL + 2;
+                    break;
+                }
+                
+                // Sample to the right
+                if(byteAt(buf, midR++) == delimiter) {
+                    mid = midR;
+                    break;
+                }
+            }
+        }
+        
+        // The left spliterator will have the delimiter at the end
+        return (mid>lo && mid<hi) ? new FileChannelRecordsSpliterator(fileChannel, delimiter, bufferSize, lo, index = mid, buf, bufferBase, false) : null;
+    }
+    
+    // 尝试用action消费目标通道的下一条记录
+    @Override
+    public boolean tryAdvance(Consumer<? super byte[]> action) {
+        byte[] record = readRecord();
+        
+        if(record != null) {
+            action.accept(record);
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
+    // 尝试用action消费目标通道的每一条记录
+    @Override
+    public void forEachRemaining(Consumer<? super byte[]> action) {
+        byte[] record;
+        while((record = readRecord()) != null) {
+            action.accept(record);
+        }
+    }
+    
+    // 返回剩余可读的字节数量（可能是估算值）
+    @Override
+    public long estimateSize() {
+        if(sequential) {
+            return Long.MAX_VALUE;
+        }
+        
+        return fence - index + (readBuffer == null ? 0 : readBuffer.remaining());
+    }
+    
+    // 返回当前情境中的元素数量（精确值）
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+    
+    // 返回当前流迭代器的参数
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+    
+    // 返回读到的一条记录，不包含分隔符；没有更多记录时返回null
+    private byte[] readRecord() {
+        ByteBuffer rb = readBuffer;
+        if(rb == null) {
+            rb = readBuffer = ByteBuffer.allocate(bufferSize);
+            rb.flip();
+            buffer = null;
+        }
+        
+        byte[] pending = null;  // 跨越缓冲区边界的记录
+        int pendingLength = 0;
+        
+        for(; ; ) {
+            if(!rb.hasRemaining() && !fill(rb)) {
+                return pending == null ? null : Arrays.copyOf(pending, pendingLength);
+            }
+            
+            byte[] a = rb.array();
+            int from = rb.position(), to = rb.limit();
+            
+            for(int i = from; i<to; i++) {
+                if(a[i] == delimiter) {
+                    rb.position(i + 1);
+                    if(pending == null) {
+                        return Arrays.copyOfRange(a, from, i);
+                    }
+                    pending = append(pending, pendingLength, a, from, i - from);
+                    return Arrays.copyOf(pending, pendingLength + i - from);
+                }
+            }
+            
+            // 没有遇到分隔符，暂存已读内容
+            if(pending == null) {
+                pending = new byte[Math.max(to - from, 16)];
+            }
+            pending = append(pending, pendingLength, a, from, to - from);
+            pendingLength += to - from;
+            rb.position(to);
+        }
+    }
+    
+    // 从文件通道读取下一批字节到rb，没有更多字节时返回false
+    private boolean fill(ByteBuffer rb) {
+        long bytesToRead = fence - index;
+        if(bytesToRead<=0) {
+            return false;
+        }
+        
+        rb.clear();
+        if(bytesToRead<rb.capacity()) {
+            rb.limit((int) bytesToRead);
+        }
+        
+        int bytesRead;
+        try {
+            // 长度未知时从通道的当前位置读取，以便支持管道等不可定位的通道
+            bytesRead = sequential ? fileChannel.read(rb) : fileChannel.read(rb, index);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rb.flip();
+        
+        // 已经没有数据可读了
+        if(bytesRead<=0) {
+            index = fence;
+            return false;
+        }
+        
+        index += bytesRead;
+        
+        return true;
+    }
+    
+    // 将src[from, from+len)追加到dst[0, length)之后，必要时扩容
+    private static byte[] append(byte[] dst, int length, byte[] src, int from, int len) {
+        int newLength = length + len;
+        if(newLength>dst.length) {
+            if(newLength<0) {
+                throw new OutOfMemoryError("Required record length too large");
+            }
+            dst = Arrays.copyOf(dst, Math.max(newLength, dst.length + (dst.length >> 1)));
+        }
+        System.arraycopy(src, from, dst, length, len);
+        return dst;
+    }
+    
+    // 返回文件中pos处的字节，pos必须位于映射窗口内
+    private byte byteAt(ByteBuffer buf, long pos) {
+        return buf.get((int) (pos - bufferBase));
+    }
+    
+    // 返回一块覆盖中点mid的文件映射内存，如果已有的映射窗口足够，则直接复用
+    private ByteBuffer mapAround(long lo, long hi, long mid) {
+        long half = FileChannelLinesSpliterator.SPLIT_WINDOW_SIZE >>> 1;
+        long from = Math.max(lo, mid - half);
+        long to = Math.min(hi, mid + half);
+        
+        ByteBuffer buf = buffer;
+        if(buf != null && bufferBase<=from && to<=bufferBase + buf.limit()) {
+            return buf;
+        }
+        
+        // 覆盖范围可以一次映射时，映射整个范围，以便子迭代器共享
+        if(hi - lo<=Integer.MAX_VALUE) {
+            from = lo;
+            to = hi;
+        }
+        
+        buffer = FileChannelLinesSpliterator.map(fileChannel, from, to - from);
+        bufferBase = from;
+        
+        return buffer;
+    }
+    
+}
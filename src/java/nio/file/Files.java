@@ -907,21 +907,62 @@ public final class Files {
      * @see java.io.BufferedReader#lines()
      * @since 1.8
      */
-    // 返回基于指定文件的行的流，cs为指定文件的字符编码，接受UTF_8/ISO_8859/US_ASCII类型
+    // 返回基于指定文件的行的流，cs为指定文件的字符编码
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
+        return lines(path, cs, -1);
+    }
+    
+    /**
+     * Read all lines from a file as a {@code Stream}, using buffers of
+     * approximately the given size to read and decode the file.
+     *
+     * <p> This method behaves as {@link #lines(Path, Charset)} in every other
+     * respect.  Large buffers reduce the number of read operations when each
+     * part of a parallel stream is traversed, which is useful for very large
+     * files on storage with a high per-request latency.
+     *
+     * @param path       the path to the file
+     * @param cs         the charset to use for decoding
+     * @param bufferHint the suggested size, in bytes, of the buffers used to
+     *                   read the file, or a value {@code <= 0} for the default
+     *                   size
+     *
+     * @return the lines from the file as a {@code Stream}
+     *
+     * @throws IOException       if an I/O error occurs opening the file
+     * @throws SecurityException In the case of the default provider, and a security manager is
+     *                           installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *                           method is invoked to check read access to the file.
+     * @apiNote This method must be used within a try-with-resources statement or similar
+     * control structure to ensure that the stream's open file is closed promptly
+     * after the stream's operations have completed.
+     * @implNote In addition to the charsets listed for {@link #lines(Path, Charset)},
+     * this implementation treats {@code UTF-16}, {@code UTF-16BE}, {@code UTF-16LE}
+     * and those table driven single-byte charsets of the platform in which
+     * {@code '\n'} is decoded from exactly one byte value, and {@code '\r'}
+     * from at most one, as <em>line-optimal</em>.  Single-byte charsets that
+     * map several byte values to a line terminator, such as {@code IBM037},
+     * are not.  Files of any size are split, including files larger than
+     * {@code Integer.MAX_VALUE} bytes; those are mapped in windows around the
+     * split points rather than as a whole.
+     * @see #lines(Path, Charset)
+     * @since 11
+     */
+    // 返回基于指定文件的行的流，cs为指定文件的字符编码，bufferHint为读取文件时建议使用的缓冲区大小
+    public static Stream<String> lines(Path path, Charset cs, int bufferHint) throws IOException {
         /*
          * Use the good splitting spliterator if:
-         * 1) the path is associated with the default file system;
-         * 2) the character set is supported; and
-         * 3) the file size is such that all bytes can be indexed by int values (this limitation is imposed by ByteBuffer)
+         * 1) the path is associated with the default file system; and
+         * 2) the character set is supported.
+         * Files of any size are supported, the spliterator maps windows of large files when splitting.
          */
-        if(path.getFileSystem() == FileSystems.getDefault() && FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+        if(path.getFileSystem() == FileSystems.getDefault() && FileChannelLinesSpliterator.isSupported(cs)) {
     
             // 创建一个File Channel，默认为只读
             FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
     
-            // 返回指定文件的流，该文件以FileChannel的形式给出。如果过大，返回null
-            Stream<String> stream = createFileChannelLinesStream(fc, cs);
+            // 返回指定文件的流，该文件以FileChannel的形式给出。如果长度未知，返回null
+            Stream<String> stream = createFileChannelLinesStream(fc, cs, bufferHint);
             if(stream != null) {
                 return stream;
             }
@@ -929,12 +970,90 @@ public final class Files {
             fc.close();
         }
     
-        BufferedReader reader = Files.newBufferedReader(path, cs);
+        BufferedReader reader = bufferHint>0 ? new BufferedReader(new InputStreamReader(newInputStream(path), cs.newDecoder()), bufferHint) : Files.newBufferedReader(path, cs);
     
         // 返回指定文件的流，该文件以BufferedReader的形式给出
         return createBufferedReaderLinesStream(reader);
     }
     
+    /**
+     * Read all records from a file as a {@code Stream}, where records are
+     * separated by the given delimiter byte.  Each record is returned as a
+     * byte array that does not include the delimiter.  A delimiter at the end
+     * of the file does not start an additional, empty record, in the same way
+     * that a line terminator at the end of the file does not start an empty
+     * line in {@link #lines(Path, Charset)}.
+     *
+     * <p> Records are not decoded, so this method can be used for binary files
+     * and for text files whose charset is not <em>line-optimal</em> but whose
+     * records are nonetheless separated by a distinct byte, such as {@code '\0'}
+     * or {@code '\n'} in most ASCII based encodings.
+     *
+     * <p> The returned stream contains a reference to an open file. The file
+     * is closed by closing the stream.  The stream source's spliterator has
+     * the same good splitting properties as the spliterator of a
+     * <em>line-optimal</em> charset, for files of any size.  A file whose
+     * size is reported as zero, such as a file of a pseudo file system or a
+     * named pipe, is read sequentially instead, as in
+     * {@link #lines(Path, Charset, int)}.
+     *
+     * <p> After this method returns, then any subsequent I/O exception that
+     * occurs while reading from the file is wrapped in an
+     * {@link UncheckedIOException} that will be thrown from the
+     * {@link java.util.stream.Stream} method that caused the read to take
+     * place.
+     *
+     * @param path      the path to the file
+     * @param delimiter the byte that separates records
+     *
+     * @return the records from the file as a {@code Stream}
+     *
+     * @throws IOException                   if an I/O error occurs opening the file
+     * @throws UnsupportedOperationException if the file system of the path does
+     *                                       not support file channels
+     * @throws SecurityException             In the case of the default provider, and a security manager is
+     *                                       installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *                                       method is invoked to check read access to the file.
+     * @apiNote This method must be used within a try-with-resources statement or similar
+     * control structure to ensure that the stream's open file is closed promptly
+     * after the stream's operations have completed.
+     * @see #lines(Path, Charset, int)
+     * @since 11
+     */
+    // 返回基于指定文件的记录的流，记录之间以delimiter分隔，每条记录以字节数组的形式给出
+    public static Stream<byte[]> records(Path path, byte delimiter) throws IOException {
+        // 创建一个File Channel，默认为只读
+        FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+        
+        try {
+            // Obtaining the size from the FileChannel is much faster than obtaining using path.toFile().length()
+            long length = fc.size();
+            
+            /*
+             * FileChannel.size() may in certain circumstances return zero for a non-zero length file,
+             * as for procfs and sysfs files and for pipes, so read such files sequentially.
+             */
+            // 基于文件记录的流迭代器
+            Spliterator<byte[]> spliterator = length>0 ? new FileChannelRecordsSpliterator(fc, delimiter, -1, 0, length) : FileChannelRecordsSpliterator.sequential(fc, delimiter, -1);
+            
+            // 构造处于源头(head)阶段的流(引用类型版本)
+            Stream<byte[]> stream = StreamSupport.stream(spliterator, false);
+            
+            // 为stream注册关闭回调：当stream关闭时，顺便将通道一起关闭
+            return stream.onClose(Files.asUncheckedRunnable(fc));
+        } catch(Error | RuntimeException | IOException e) {
+            try {
+                fc.close();
+            } catch(IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch(Throwable ignore) {
+                }
+            }
+            throw e;
+        }
+    }
+    
     /*▲ 流式操作 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -3890,20 +4009,22 @@ public final class Files {
         };
     }
     
-    // 返回指定文件的流，该文件以FileChannel的形式给出。如果过大，返回null
-    private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs) throws IOException {
+    // 返回指定文件的流，该文件以FileChannel的形式给出。如果长度未知，返回null
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs, int bufferSize) throws IOException {
         try {
             // Obtaining the size from the FileChannel is much faster than obtaining using path.toFile().length()
             long length = fc.size();
     
             // FileChannel.size() may in certain circumstances return zero for a non-zero length file so disallow this case.
-            if(length<=0 || length>Integer.MAX_VALUE) {
-                // 如果文件太大，则返回null
+            if(length<=0) {
                 return null;
             }
     
             // 基于文件行的流迭代器
-            Spliterator<String> spliterator = new FileChannelLinesSpliterator(fc, cs, 0, (int) length);
+            Spliterator<String> spliterator = FileChannelLinesSpliterator.create(fc, cs, length, bufferSize);
+            if(spliterator == null) {
+                return null;
+            }
     
             // 构造处于源头(head)阶段的流(引用类型版本)
             Stream<String> stream = StreamSupport.stream(spliterator, false);
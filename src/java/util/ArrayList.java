@@ -32,6 +32,7 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import jdk.internal.misc.SharedSecrets;
 
@@ -856,6 +857,18 @@ found:
         modCount++;
     }
     
+    // 按提取的long键对当前顺序表内的元素进行稳定排序
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sortByLongKey(ToLongFunction<? super E> keyExtractor) {
+        final int expectedModCount = modCount;
+        Arrays.sortByLongKey((E[]) elementData, 0, size, keyExtractor);
+        if(modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+    
     
     /**
      * Trims the capacity of this {@code ArrayList} instance to be the
@@ -42,6 +42,7 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -1054,6 +1055,68 @@ public class Arrays {
         }
     }
     
+    /**
+     * Sorts the specified array of objects according to the order of the
+     * {@code long} keys extracted from them by the specified function.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>The result is the same as that of
+     * {@code Arrays.sort(a, Comparator.comparingLong(keyExtractor))}, but the
+     * key of each element is extracted exactly once and no comparator is
+     * invoked, which avoids the cost of a (possibly megamorphic) comparator
+     * call for each of the <i>n log(n)</i> comparisons.
+     *
+     * @param <T>          the class of the objects to be sorted
+     * @param a            the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     *
+     * @throws NullPointerException if the array or the key extractor is null
+     * @implNote The keys are copied into a {@code long[]} and sorted, along
+     * with the original positions of the elements, by a least significant
+     * digit radix sort; the elements are then rearranged into the sorted
+     * positions.  The algorithm requires working space for about three
+     * {@code long}s and one object reference per element.
+     * @since 11
+     */
+    // 按提取的long键对数组元素进行稳定排序，每个元素只提取一次键，不调用比较器
+    public static <T> void sortByLongKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        sortByLongKey(a, 0, a.length, keyExtractor);
+    }
+    
+    /**
+     * Sorts the specified range of the specified array of objects according
+     * to the order of the {@code long} keys extracted from them by the
+     * specified function.  The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @param <T>          the class of the objects to be sorted
+     * @param a            the array to be sorted
+     * @param fromIndex    the index of the first element (inclusive) to be
+     *                     sorted
+     * @param toIndex      the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *                                        {@code toIndex > a.length}
+     * @throws NullPointerException           if the array or the key extractor is null
+     * @implNote See {@link #sortByLongKey(Object[], ToLongFunction)}.
+     * @since 11
+     */
+    // 按提取的long键对数组指定范围的元素进行稳定排序
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByLongKey(T[] a, int fromIndex, int toIndex, ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sortByLongKey(a, fromIndex, toIndex, (ToLongFunction<Object>) keyExtractor, false);
+    }
+    
     /*▲ 排序 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -1849,6 +1912,264 @@ public class Arrays {
         }
     }
     
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>This method produces the same result as {@link #parallelSort(int[])},
+     * but sorts by examining the bits of the elements rather than by
+     * comparing them, which is considerably faster for large arrays.
+     *
+     * @param a the array to be sorted
+     *
+     * @implNote The sorting algorithm is a least significant digit radix sort
+     * on 8-bit digits.  Each pass counts the digits of, and then moves, fixed
+     * chunks of the array in parallel; digits that are the same for all
+     * elements, such as the high-order bytes of timestamps, are skipped.  If
+     * the length of the specified array is less than a minimum size, it is
+     * sorted using the appropriate {@link Arrays#sort(int[]) Arrays.sort}
+     * method.  The algorithm requires a working space equal to the size of
+     * the original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     * @since 11
+     */
+    // 将数组元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(int[] a) {
+        ArraysParallelRadixSort.sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts the specified range of the array into ascending numerical order,
+     * using a parallel radix sort.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex   the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or {@code toIndex > a.length}
+     * @implNote See {@link #parallelRadixSort(int[])}.  The algorithm requires
+     * a working space equal to the size of the specified range.
+     * @since 11
+     */
+    // 将数组指定范围的元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sort(a, fromIndex, toIndex);
+    }
+    
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>This method produces the same result as {@link #parallelSort(long[])},
+     * but sorts by examining the bits of the elements rather than by
+     * comparing them, which is considerably faster for large arrays.
+     *
+     * @param a the array to be sorted
+     *
+     * @implNote The sorting algorithm is a least significant digit radix sort
+     * on 8-bit digits.  Each pass counts the digits of, and then moves, fixed
+     * chunks of the array in parallel; digits that are the same for all
+     * elements, such as the high-order bytes of timestamps, are skipped.  If
+     * the length of the specified array is less than a minimum size, it is
+     * sorted using the appropriate {@link Arrays#sort(long[]) Arrays.sort}
+     * method.  The algorithm requires a working space equal to the size of
+     * the original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     * @since 11
+     */
+    // 将数组元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(long[] a) {
+        ArraysParallelRadixSort.sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts the specified range of the array into ascending numerical order,
+     * using a parallel radix sort.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex   the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or {@code toIndex > a.length}
+     * @implNote See {@link #parallelRadixSort(long[])}.  The algorithm requires
+     * a working space equal to the size of the specified range.
+     * @since 11
+     */
+    // 将数组指定范围的元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sort(a, fromIndex, toIndex);
+    }
+    
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>This method uses the same total order as {@link #parallelSort(float[])}:
+     * {@code -0.0f} is treated as less than value {@code 0.0f} and
+     * {@code Float.NaN} is considered greater than any other value and all
+     * {@code Float.NaN} values are considered equal.
+     *
+     * @param a the array to be sorted
+     *
+     * @implNote NaN values are first moved to the end of the array.  The other
+     * elements are then sorted by a least significant digit radix sort on the
+     * 8-bit digits of their bit patterns, with negative values' bits inverted;
+     * see {@link #parallelRadixSort(int[])}.  The algorithm requires a working
+     * space equal to the size of the original array.  The
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     * @since 11
+     */
+    // 将数组元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(float[] a) {
+        ArraysParallelRadixSort.sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts the specified range of the array into ascending numerical order,
+     * using a parallel radix sort.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This method uses the same total order as {@link #parallelSort(float[])}.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex   the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or {@code toIndex > a.length}
+     * @implNote See {@link #parallelRadixSort(float[])}.  The algorithm requires
+     * a working space equal to the size of the specified range.
+     * @since 11
+     */
+    // 将数组指定范围的元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sort(a, fromIndex, toIndex);
+    }
+    
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>This method uses the same total order as {@link #parallelSort(double[])}:
+     * {@code -0.0d} is treated as less than value {@code 0.0d} and
+     * {@code Double.NaN} is considered greater than any other value and all
+     * {@code Double.NaN} values are considered equal.
+     *
+     * @param a the array to be sorted
+     *
+     * @implNote NaN values are first moved to the end of the array.  The other
+     * elements are then sorted by a least significant digit radix sort on the
+     * 8-bit digits of their bit patterns, with negative values' bits inverted;
+     * see {@link #parallelRadixSort(long[])}.  The algorithm requires a working
+     * space equal to the size of the original array.  The
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     * @since 11
+     */
+    // 将数组元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(double[] a) {
+        ArraysParallelRadixSort.sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts the specified range of the array into ascending numerical order,
+     * using a parallel radix sort.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This method uses the same total order as {@link #parallelSort(double[])}.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex   the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or {@code toIndex > a.length}
+     * @implNote See {@link #parallelRadixSort(double[])}.  The algorithm requires
+     * a working space equal to the size of the specified range.
+     * @since 11
+     */
+    // 将数组指定范围的元素按升序并行排列（基数排序）
+    public static void parallelRadixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sort(a, fromIndex, toIndex);
+    }
+    
+    /**
+     * Sorts the specified array of objects according to the order of the
+     * {@code long} keys extracted from them by the specified function, in
+     * parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>The key extractor may be invoked concurrently from several threads,
+     * and so must be stateless.
+     *
+     * @param <T>          the class of the objects to be sorted
+     * @param a            the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     *
+     * @throws NullPointerException if the array or the key extractor is null
+     * @implNote Key extraction, the radix sort of the keys described in
+     * {@link #sortByLongKey(Object[], ToLongFunction)}, and the final
+     * rearrangement of the elements are all split into chunks that run in
+     * parallel.  The {@link ForkJoinPool#commonPool() ForkJoin common pool}
+     * is used to execute any parallel tasks.
+     * @since 11
+     */
+    // 按提取的long键对数组元素进行稳定的并行排序
+    public static <T> void parallelSortByLongKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        parallelSortByLongKey(a, 0, a.length, keyExtractor);
+    }
+    
+    /**
+     * Sorts the specified range of the specified array of objects according
+     * to the order of the {@code long} keys extracted from them by the
+     * specified function, in parallel.  The range to be sorted extends from
+     * index {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @param <T>          the class of the objects to be sorted
+     * @param a            the array to be sorted
+     * @param fromIndex    the index of the first element (inclusive) to be
+     *                     sorted
+     * @param toIndex      the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *                                        {@code toIndex > a.length}
+     * @throws NullPointerException           if the array or the key extractor is null
+     * @implNote See {@link #parallelSortByLongKey(Object[], ToLongFunction)}.
+     * @since 11
+     */
+    // 按提取的long键对数组指定范围的元素进行稳定的并行排序
+    @SuppressWarnings("unchecked")
+    public static <T> void parallelSortByLongKey(T[] a, int fromIndex, int toIndex, ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        ArraysParallelRadixSort.sortByLongKey(a, fromIndex, toIndex, (ToLongFunction<Object>) keyExtractor, true);
+    }
+    
     /*▲ 并行排序 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
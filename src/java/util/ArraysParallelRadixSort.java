@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Parallel LSD radix sort for the {@code Arrays.parallelRadixSort}
+ * methods.
+ *
+ * Keys are mapped to unsigned integers whose order is the numerical
+ * order of the elements: the sign bit of an {@code int} or {@code long}
+ * is flipped, and a {@code float} or {@code double} has all its bits
+ * flipped if negative, or only its sign bit otherwise, which makes
+ * {@code -0.0} sort before {@code 0.0}.  NaNs are moved to the end of
+ * the range beforehand, as in DualPivotQuicksort, so all NaNs sort after
+ * all other values.
+ *
+ * The range is sorted 8 bits at a time, from the least significant
+ * digit, alternating between the array and a workspace of the same
+ * length.  A first sweep computes the histogram of every digit; digits
+ * that are the same for all elements (for example the high bytes of
+ * timestamps) are skipped.  Each remaining pass is stable and has two
+ * parallel phases over fixed chunks of the source: counting digits per
+ * chunk and scattering each chunk to its own precomputed offsets.
+ * Chunks run as tasks in the ForkJoin common pool.
+ *
+ * Ranges shorter than MIN_RADIX_SORT are sorted with DualPivotQuicksort.
+ *
+ * The same passes sort object arrays by a long key for the
+ * {@code Arrays.sortByLongKey} methods: the keys are extracted once into a
+ * long[], sorted together with an int[] of original positions, and the
+ * elements are then permuted by position.  As LSD radix sort is stable,
+ * so is the resulting sort, and no Comparator is ever invoked.
+ */
+/*package*/ final class ArraysParallelRadixSort {
+    
+    /** Bits per digit. */
+    static final int RADIX_BITS = 8;
+    
+    /** Number of buckets per digit. */
+    static final int RADIX = 1 << RADIX_BITS;
+    
+    static final int MASK = RADIX - 1;
+    
+    /** Ranges shorter than this are sorted with DualPivotQuicksort. */
+    static final int MIN_RADIX_SORT = 1 << 12;
+    
+    /** Minimum number of elements per chunk. */
+    static final int MIN_CHUNK = 1 << 16;
+    
+    /** Keyed ranges shorter than this are sorted by insertion. */
+    static final int INSERTION_SORT_THRESHOLD = 32;
+    
+    private ArraysParallelRadixSort() {
+    }
+    
+    
+    
+    /*▼ 排序 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 对a[from, to)执行基数排序
+    static void sort(int[] a, int from, int to) {
+        if(to - from<MIN_RADIX_SORT) {
+            DualPivotQuicksort.sort(a, from, to - 1, null, 0, 0);
+            return;
+        }
+        new IntSorter(a, from, to).sort();
+    }
+    
+    // 对a[from, to)执行基数排序
+    static void sort(long[] a, int from, int to) {
+        if(to - from<MIN_RADIX_SORT) {
+            DualPivotQuicksort.sort(a, from, to - 1, null, 0, 0);
+            return;
+        }
+        new LongSorter(a, from, to).sort();
+    }
+    
+    // 对a[from, to)执行基数排序，NaN排在最后
+    static void sort(float[] a, int from, int to) {
+        // 将NaN移动到末尾
+        int hi = to;
+        for(int k = to - 1; k >= from; k--) {
+            float ak = a[k];
+            if(ak != ak) {
+                a[k] = a[--hi];
+                a[hi] = ak;
+            }
+        }
+        
+        if(hi - from<MIN_RADIX_SORT) {
+            DualPivotQuicksort.sort(a, from, hi - 1, null, 0, 0);
+            return;
+        }
+        new FloatSorter(a, from, hi).sort();
+    }
+    
+    // 对a[from, to)执行基数排序，NaN排在最后
+    static void sort(double[] a, int from, int to) {
+        // 将NaN移动到末尾
+        int hi = to;
+        for(int k = to - 1; k >= from; k--) {
+            double ak = a[k];
+            if(ak != ak) {
+                a[k] = a[--hi];
+                a[hi] = ak;
+            }
+        }
+        
+        if(hi - from<MIN_RADIX_SORT) {
+            DualPivotQuicksort.sort(a, from, hi - 1, null, 0, 0);
+            return;
+        }
+        new DoubleSorter(a, from, hi).sort();
+    }
+    
+    /**
+     * Sorts a[from, to) by the keys extracted by keyExtractor, stably.  If
+     * parallel, keys are extracted, sorted and applied in the ForkJoin common
+     * pool, so keyExtractor may be called concurrently.
+     */
+    // 按keyExtractor提取的long键对a[from, to)进行稳定排序
+    static void sortByLongKey(Object[] a, int from, int to, ToLongFunction<Object> keyExtractor, boolean parallel) {
+        int n = to - from;
+        if(n<2) {
+            return;
+        }
+        
+        LongIndexSorter s = new LongIndexSorter(n, parallel && n >= MIN_RADIX_SORT);
+        long[] keys = s.src;
+        int[] idx = s.srcIdx;
+        
+        // 提取键，并记录元素的原始位置
+        s.forEachChunk(c -> {
+            for(int i = s.start(c), e = s.end(c); i<e; i++) {
+                keys[i] = keyExtractor.applyAsLong(a[from + i]);
+                idx[i] = i;
+            }
+        });
+        
+        if(n<INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, idx, n);
+        } else {
+            s.sort();
+        }
+        
+        // 按排序后的原始位置重排元素
+        Object[] tmp = Arrays.copyOfRange(a, from, to);
+        s.forEachChunk(c -> {
+            for(int i = s.start(c), e = s.end(c); i<e; i++) {
+                a[from + i] = tmp[idx[i]];
+            }
+        });
+    }
+    
+    // 对键与位置执行稳定的插入排序
+    private static void insertionSort(long[] keys, int[] idx, int n) {
+        for(int i = 1; i<n; i++) {
+            long k = keys[i];
+            int x = idx[i];
+            int j = i - 1;
+            for(; j >= 0 && keys[j]>k; j--) {
+                keys[j + 1] = keys[j];
+                idx[j + 1] = idx[j];
+            }
+            keys[j + 1] = k;
+            idx[j + 1] = x;
+        }
+    }
+    
+    /*▲ 排序 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * The pass structure shared by all element types.  Subclasses hold the
+     * source and destination arrays and implement the per-chunk loops.
+     */
+    // 基数排序的执行框架，子类负责具体类型的计数与分发
+    abstract static class Sorter {
+        /** Number of elements, chunks, and elements per chunk. */
+        final int n, chunks, chunkSize;
+        
+        /** Number of digits in a key. */
+        final int passes;
+        
+        /** Per chunk: histograms of all digits, later turned into scatter offsets. */
+        final int[][] counts;
+        
+        /** Whether the sorted elements currently are in the workspace. */
+        boolean swapped;
+        
+        Sorter(int n, int passes) {
+            this(n, passes, true);
+        }
+        
+        Sorter(int n, int passes, boolean parallel) {
+            int p = parallel ? ForkJoinPool.getCommonPoolParallelism() : 1;
+            int c = Math.max(1, Math.min(p << 2, n / MIN_CHUNK));
+            this.n = n;
+            this.chunks = c;
+            this.chunkSize = (n + c - 1) / c;
+            this.passes = passes;
+            this.counts = new int[c][passes << RADIX_BITS];
+        }
+        
+        /** Counts the digits of all passes in a chunk of the source. */
+        abstract void countAll(int chunk, int[] hist);
+        
+        /** Counts the digits of one pass in a chunk of the source. */
+        abstract void count(int chunk, int pass, int[] hist);
+        
+        /** Moves a chunk of the source to the destination, at the given offsets. */
+        abstract void scatter(int chunk, int pass, int[] offsets);
+        
+        /** Exchanges the source and the destination. */
+        abstract void swap();
+        
+        /** Copies a chunk of the workspace back to the array. */
+        abstract void copyBack(int chunk);
+        
+        final int start(int chunk) {
+            return chunk * chunkSize;
+        }
+        
+        final int end(int chunk) {
+            return Math.min(n, (chunk + 1) * chunkSize);
+        }
+        
+        final void sort() {
+            forEachChunk(c -> countAll(c, counts[c]));
+            
+            // 某一位上所有元素的数字都相同时，跳过该轮
+            boolean[] skip = new boolean[passes];
+            for(int pass = 0; pass<passes; pass++) {
+                int base = pass << RADIX_BITS;
+                for(int d = 0; d<RADIX; d++) {
+                    long total = 0L;
+                    for(int c = 0; c<chunks; c++) {
+                        total += counts[c][base + d];
+                    }
+                    if(total == n) {
+                        skip[pass] = true;
+                        break;
+                    }
+                    if(total != 0L) {
+                        break;
+                    }
+                }
+            }
+            
+            boolean counted = true;
+            for(int pass = 0; pass<passes; pass++) {
+                if(skip[pass]) {
+                    continue;
+                }
+                
+                final int p = pass;
+                int base = pass << RADIX_BITS;
+                
+                // 首轮直接使用初始统计的结果，后续各轮数据已移动，需要重新统计
+                if(!counted) {
+                    forEachChunk(c -> count(c, p, counts[c]));
+                }
+                counted = false;
+                
+                // 计算每个块中每个桶的起始位置：先按数字，再按块的顺序，以保证排序稳定
+                int sum = 0;
+                for(int d = base; d<base + RADIX; d++) {
+                    for(int c = 0; c<chunks; c++) {
+                        int t = counts[c][d];
+                        counts[c][d] = sum;
+                        sum += t;
+                    }
+                }
+                
+                forEachChunk(c -> scatter(c, p, counts[c]));
+                swap();
+                swapped = !swapped;
+            }
+            
+            if(swapped) {
+                forEachChunk(this::copyBack);
+            }
+        }
+        
+        // 对每个块执行op，块数大于1时在ForkJoin公共池中并行执行
+        final void forEachChunk(IntConsumer op) {
+            if(chunks == 1) {
+                op.accept(0);
+            } else {
+                new ChunkTask(op, 0, chunks).invoke();
+            }
+        }
+    }
+    
+    /** Applies an action to a range of chunk indices, splitting in halves. */
+    static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 4863241082352146920L;
+        
+        final IntConsumer op;
+        final int lo, hi;
+        
+        ChunkTask(IntConsumer op, int lo, int hi) {
+            this.op = op;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        protected void compute() {
+            if(hi - lo>1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ChunkTask(op, lo, mid), new ChunkTask(op, mid, hi));
+            } else {
+                op.accept(lo);
+            }
+        }
+    }
+    
+    
+    
+    /*
+     * The sorters for each element type are identical to each other
+     * except for the type declarations and the key function.
+     */
+    
+    /** int support class */
+    static final class IntSorter extends Sorter {
+        final int[] a;
+        final int base;
+        int[] src, dst;
+        int srcBase, dstBase;
+        
+        IntSorter(int[] a, int from, int to) {
+            super(to - from, Integer.SIZE / RADIX_BITS);
+            this.a = a;
+            this.base = from;
+            this.src = a;
+            this.srcBase = from;
+            this.dst = new int[n];
+        }
+        
+        // 翻转符号位，使无符号顺序与有符号顺序一致
+        static int key(int x) {
+            return x ^ Integer.MIN_VALUE;
+        }
+        
+        void countAll(int chunk, int[] hist) {
+            int[] s = src;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                int k = key(s[i]);
+                for(int h = 0; h<hist.length; h += RADIX, k >>>= RADIX_BITS) {
+                    hist[h + (k & MASK)]++;
+                }
+            }
+        }
+        
+        void count(int chunk, int pass, int[] hist) {
+            int[] s = src;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            Arrays.fill(hist, h, h + RADIX, 0);
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                hist[h + ((key(s[i]) >>> shift) & MASK)]++;
+            }
+        }
+        
+        void scatter(int chunk, int pass, int[] offsets) {
+            int[] s = src, d = dst;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS, db = dstBase;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                int x = s[i];
+                d[db + offsets[h + ((key(x) >>> shift) & MASK)]++] = x;
+            }
+        }
+        
+        void swap() {
+            int[] t = src;
+            src = dst;
+            dst = t;
+            int tb = srcBase;
+            srcBase = dstBase;
+            dstBase = tb;
+        }
+        
+        void copyBack(int chunk) {
+            System.arraycopy(src, srcBase + start(chunk), a, base + start(chunk), end(chunk) - start(chunk));
+        }
+    }
+    
+    /** long support class */
+    static final class LongSorter extends Sorter {
+        final long[] a;
+        final int base;
+        long[] src, dst;
+        int srcBase, dstBase;
+        
+        LongSorter(long[] a, int from, int to) {
+            super(to - from, Long.SIZE / RADIX_BITS);
+            this.a = a;
+            this.base = from;
+            this.src = a;
+            this.srcBase = from;
+            this.dst = new long[n];
+        }
+        
+        // 翻转符号位，使无符号顺序与有符号顺序一致
+        static long key(long x) {
+            return x ^ Long.MIN_VALUE;
+        }
+        
+        void countAll(int chunk, int[] hist) {
+            long[] s = src;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                long k = key(s[i]);
+                for(int h = 0; h<hist.length; h += RADIX, k >>>= RADIX_BITS) {
+                    hist[h + ((int) k & MASK)]++;
+                }
+            }
+        }
+        
+        void count(int chunk, int pass, int[] hist) {
+            long[] s = src;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            Arrays.fill(hist, h, h + RADIX, 0);
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                hist[h + ((int) (key(s[i]) >>> shift) & MASK)]++;
+            }
+        }
+        
+        void scatter(int chunk, int pass, int[] offsets) {
+            long[] s = src, d = dst;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS, db = dstBase;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                long x = s[i];
+                d[db + offsets[h + ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+        }
+        
+        void swap() {
+            long[] t = src;
+            src = dst;
+            dst = t;
+            int tb = srcBase;
+            srcBase = dstBase;
+            dstBase = tb;
+        }
+        
+        void copyBack(int chunk) {
+            System.arraycopy(src, srcBase + start(chunk), a, base + start(chunk), end(chunk) - start(chunk));
+        }
+    }
+    
+    /** float support class */
+    static final class FloatSorter extends Sorter {
+        final float[] a;
+        final int base;
+        float[] src, dst;
+        int srcBase, dstBase;
+        
+        FloatSorter(float[] a, int from, int to) {
+            super(to - from, Integer.SIZE / RADIX_BITS);
+            this.a = a;
+            this.base = from;
+            this.src = a;
+            this.srcBase = from;
+            this.dst = new float[n];
+        }
+        
+        // 负数翻转所有位，非负数只翻转符号位，使无符号顺序与数值顺序一致（-0.0f排在0.0f之前）
+        static int key(float x) {
+            int bits = Float.floatToRawIntBits(x);
+            return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+        }
+        
+        void countAll(int chunk, int[] hist) {
+            float[] s = src;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                int k = key(s[i]);
+                for(int h = 0; h<hist.length; h += RADIX, k >>>= RADIX_BITS) {
+                    hist[h + (k & MASK)]++;
+                }
+            }
+        }
+        
+        void count(int chunk, int pass, int[] hist) {
+            float[] s = src;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            Arrays.fill(hist, h, h + RADIX, 0);
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                hist[h + ((key(s[i]) >>> shift) & MASK)]++;
+            }
+        }
+        
+        void scatter(int chunk, int pass, int[] offsets) {
+            float[] s = src, d = dst;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS, db = dstBase;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                float x = s[i];
+                d[db + offsets[h + ((key(x) >>> shift) & MASK)]++] = x;
+            }
+        }
+        
+        void swap() {
+            float[] t = src;
+            src = dst;
+            dst = t;
+            int tb = srcBase;
+            srcBase = dstBase;
+            dstBase = tb;
+        }
+        
+        void copyBack(int chunk) {
+            System.arraycopy(src, srcBase + start(chunk), a, base + start(chunk), end(chunk) - start(chunk));
+        }
+    }
+    
+    /** double support class */
+    static final class DoubleSorter extends Sorter {
+        final double[] a;
+        final int base;
+        double[] src, dst;
+        int srcBase, dstBase;
+        
+        DoubleSorter(double[] a, int from, int to) {
+            super(to - from, Long.SIZE / RADIX_BITS);
+            this.a = a;
+            this.base = from;
+            this.src = a;
+            this.srcBase = from;
+            this.dst = new double[n];
+        }
+        
+        // 负数翻转所有位，非负数只翻转符号位，使无符号顺序与数值顺序一致（-0.0d排在0.0d之前）
+        static long key(double x) {
+            long bits = Double.doubleToRawLongBits(x);
+            return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+        }
+        
+        void countAll(int chunk, int[] hist) {
+            double[] s = src;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                long k = key(s[i]);
+                for(int h = 0; h<hist.length; h += RADIX, k >>>= RADIX_BITS) {
+                    hist[h + ((int) k & MASK)]++;
+                }
+            }
+        }
+        
+        void count(int chunk, int pass, int[] hist) {
+            double[] s = src;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            Arrays.fill(hist, h, h + RADIX, 0);
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                hist[h + ((int) (key(s[i]) >>> shift) & MASK)]++;
+            }
+        }
+        
+        void scatter(int chunk, int pass, int[] offsets) {
+            double[] s = src, d = dst;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS, db = dstBase;
+            for(int i = srcBase + start(chunk), e = srcBase + end(chunk); i<e; i++) {
+                double x = s[i];
+                d[db + offsets[h + ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+        }
+        
+        void swap() {
+            double[] t = src;
+            src = dst;
+            dst = t;
+            int tb = srcBase;
+            srcBase = dstBase;
+            dstBase = tb;
+        }
+        
+        void copyBack(int chunk) {
+            System.arraycopy(src, srcBase + start(chunk), a, base + start(chunk), end(chunk) - start(chunk));
+        }
+    }
+    
+    /**
+     * long keys with an int payload of original positions; only the
+     * positions are copied back, as the keys are not needed afterwards.
+     */
+    static final class LongIndexSorter extends Sorter {
+        final int[] idx;
+        long[] src, dst;
+        int[] srcIdx, dstIdx;
+        
+        LongIndexSorter(int n, boolean parallel) {
+            super(n, Long.SIZE / RADIX_BITS, parallel);
+            this.src = new long[n];
+            this.srcIdx = this.idx = new int[n];
+            // 插入排序不需要工作空间
+            if(n >= INSERTION_SORT_THRESHOLD) {
+                this.dst = new long[n];
+                this.dstIdx = new int[n];
+            }
+        }
+        
+        void countAll(int chunk, int[] hist) {
+            long[] s = src;
+            for(int i = start(chunk), e = end(chunk); i<e; i++) {
+                long k = LongSorter.key(s[i]);
+                for(int h = 0; h<hist.length; h += RADIX, k >>>= RADIX_BITS) {
+                    hist[h + ((int) k & MASK)]++;
+                }
+            }
+        }
+        
+        void count(int chunk, int pass, int[] hist) {
+            long[] s = src;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            Arrays.fill(hist, h, h + RADIX, 0);
+            for(int i = start(chunk), e = end(chunk); i<e; i++) {
+                hist[h + ((int) (LongSorter.key(s[i]) >>> shift) & MASK)]++;
+            }
+        }
+        
+        void scatter(int chunk, int pass, int[] offsets) {
+            long[] s = src, d = dst;
+            int[] si = srcIdx, di = dstIdx;
+            int shift = pass * RADIX_BITS, h = pass << RADIX_BITS;
+            for(int i = start(chunk), e = end(chunk); i<e; i++) {
+                long x = s[i];
+                int j = offsets[h + ((int) (LongSorter.key(x) >>> shift) & MASK)]++;
+                d[j] = x;
+                di[j] = si[i];
+            }
+        }
+        
+        void swap() {
+            long[] t = src;
+            src = dst;
+            dst = t;
+            int[] ti = srcIdx;
+            srcIdx = dstIdx;
+            dstIdx = ti;
+        }
+        
+        void copyBack(int chunk) {
+            System.arraycopy(srcIdx, start(chunk), idx, start(chunk), end(chunk) - start(chunk));
+        }
+    }
+    
+}
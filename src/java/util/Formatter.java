@@ -48,6 +48,7 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.spi.NumberFormatProvider;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.Objects;
@@ -2646,13 +2647,21 @@ public final class Formatter implements Closeable, Flushable {
      */
     public Formatter format(Locale l, String format, Object ... args) {
         ensureOpen();
+        print(parse(format), l, args);
+        return this;
+    }
 
+    /**
+     * Prints the given parsed format string, recording any
+     * {@code IOException} thrown by the destination in
+     * {@link #lastException}.
+     */
+    private void print(List<FormatString> fsa, Locale l, Object[] args) {
         // index of last argument referenced
         int last = -1;
         // last ordinary index
         int lasto = -1;
 
-        List<FormatString> fsa = parse(format);
         for (FormatString fs : fsa) {
             int index = fs.index();
             try {
@@ -2683,7 +2692,394 @@ public final class Formatter implements Closeable, Flushable {
                 lastException = x;
             }
         }
-        return this;
+    }
+
+    /**
+     * Compiles the given format string into a reusable {@link Template},
+     * using the {@linkplain Locale#getDefault(Locale.Category) default
+     * locale} for {@linkplain Locale.Category#FORMAT formatting}.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled template
+     *
+     * @see #compile(Locale, String)
+     * @since 11
+     */
+    public static Template compile(String format) {
+        return compile(Locale.getDefault(Locale.Category.FORMAT), format);
+    }
+
+    /**
+     * Compiles the given format string into a reusable {@link Template}
+     * that formats using the given locale.
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled template
+     *
+     * @since 11
+     */
+    public static Template compile(Locale l, String format) {
+        return new Template(l, Objects.requireNonNull(format));
+    }
+
+    /**
+     * A format string parsed once for repeated use.
+     *
+     * <p> Formatting through a template produces the same output, and
+     * throws the same exceptions for incompatible arguments, as
+     * {@link Formatter#format(Locale, String, Object...)} with the
+     * template's locale and format string, but skips scanning the format
+     * string and validating its specifiers on every call.  Output is
+     * written directly to a caller-supplied {@code StringBuilder} or
+     * {@code Appendable}.
+     *
+     * <p> The {@code formatTo} overloads taking a single {@code int},
+     * {@code long}, {@code float} or {@code double} format templates that
+     * refer to one argument.  Integer conversions of an {@code int} or
+     * {@code long} and floating-point conversions of a {@code float} or
+     * {@code double} are formatted without boxing the value; any other
+     * conversion of that argument behaves as if the boxed value had been
+     * given.  A {@code byte}, {@code short} or {@code char} argument is
+     * widened to {@code int} by overload resolution and is formatted as an
+     * {@code Integer}; box it explicitly to format it as its own type.
+     *
+     * <p> Templates are immutable and safe for use by multiple concurrent
+     * threads.  A template keeps one parsed copy of its format string for
+     * reuse; threads formatting while that copy is in use parse a private
+     * copy instead.
+     *
+     * @see Formatter#compile(Locale, String)
+     * @since 11
+     */
+    public static final class Template {
+        private final Locale l;
+        private final String format;
+        private final AtomicReference<Compiled> idle;
+
+        private Template(Locale l, String format) {
+            this.l = l;
+            this.format = format;
+            // parse eagerly so that syntax errors surface at compile time
+            this.idle = new AtomicReference<>(new Compiled(l, format));
+        }
+
+        /**
+         * Returns the locale used by this template.
+         *
+         * @return  {@code null} if no localization is applied, otherwise a
+         *          locale
+         */
+        public Locale locale() {
+            return l;
+        }
+
+        /**
+         * Returns the format string this template was compiled from.
+         *
+         * @return  The format string
+         */
+        public String format() {
+            return format;
+        }
+
+        /**
+         * Returns a string formatted with this template and the given
+         * arguments.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Object... args) {
+            return formatTo(new StringBuilder(), args).toString();
+        }
+
+        /**
+         * Appends the result of formatting the given arguments to the given
+         * {@code StringBuilder}.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments or there are insufficient arguments
+         *
+         * @return  {@code sb}
+         */
+        public StringBuilder formatTo(StringBuilder sb, Object... args) {
+            try {
+                formatTo((Appendable) sb, args);
+            } catch (IOException x) {
+                throw new InternalError(x);
+            }
+            return sb;
+        }
+
+        /**
+         * Appends the result of formatting the given arguments to the given
+         * {@code Appendable}.
+         *
+         * @param  a
+         *         The destination
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments or there are insufficient arguments
+         *
+         * @throws  IOException
+         *          If the destination throws {@code IOException}
+         */
+        public void formatTo(Appendable a, Object... args) throws IOException {
+            Compiled c = acquire(a);
+            try {
+                c.f.print(c.fsa, l, args);
+                c.rethrow();
+            } finally {
+                release(c);
+            }
+        }
+
+        /**
+         * Appends the result of formatting the given {@code int} to the
+         * given {@code StringBuilder}.  The template must refer to exactly
+         * one argument.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  value
+         *         The argument
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the argument
+         *          or refers to a second argument
+         *
+         * @return  {@code sb}
+         */
+        public StringBuilder formatTo(StringBuilder sb, int value) {
+            return formatSingle(sb, INT, value);
+        }
+
+        /**
+         * Appends the result of formatting the given {@code long} to the
+         * given {@code StringBuilder}.  The template must refer to exactly
+         * one argument.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  value
+         *         The argument
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the argument
+         *          or refers to a second argument
+         *
+         * @return  {@code sb}
+         */
+        public StringBuilder formatTo(StringBuilder sb, long value) {
+            return formatSingle(sb, LONG, value);
+        }
+
+        /**
+         * Appends the result of formatting the given {@code float} to the
+         * given {@code StringBuilder}.  The template must refer to exactly
+         * one argument.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  value
+         *         The argument
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the argument
+         *          or refers to a second argument
+         *
+         * @return  {@code sb}
+         */
+        public StringBuilder formatTo(StringBuilder sb, float value) {
+            return formatSingle(sb, FLOAT, Float.floatToRawIntBits(value));
+        }
+
+        /**
+         * Appends the result of formatting the given {@code double} to the
+         * given {@code StringBuilder}.  The template must refer to exactly
+         * one argument.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  value
+         *         The argument
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the argument
+         *          or refers to a second argument
+         *
+         * @return  {@code sb}
+         */
+        public StringBuilder formatTo(StringBuilder sb, double value) {
+            return formatSingle(sb, DOUBLE, Double.doubleToRawLongBits(value));
+        }
+
+        // primitive types accepted by formatSingle
+        private static final int INT = 0, LONG = 1, FLOAT = 2, DOUBLE = 3;
+
+        /**
+         * Formats a single primitive argument whose type is given by
+         * {@code type} and whose value, or its raw bits for floating-point
+         * types, is held in {@code bits}.  Integer conversions of integral
+         * values and floating-point conversions of floating-point values go
+         * through the primitive printers; every other conversion is given
+         * the boxed value, exactly as {@code format} would be.
+         */
+        private StringBuilder formatSingle(StringBuilder sb, int type, long bits) {
+            Compiled c = acquire(sb);
+            try {
+                for (FormatString fs : c.fsa) {
+                    if (!c.checkSingleArgument(fs)) {
+                        fs.print(null, l);
+                        continue;
+                    }
+                    FormatSpecifier spec = (FormatSpecifier) fs;
+                    boolean integer = !spec.dt && Conversion.isInteger(spec.c);
+                    boolean floating = !spec.dt && Conversion.isFloat(spec.c);
+                    switch (type) {
+                    case INT:
+                        if (integer)
+                            spec.print((int) bits, l);
+                        else
+                            spec.print(Integer.valueOf((int) bits), l);
+                        break;
+                    case LONG:
+                        if (integer)
+                            spec.print(bits, l);
+                        else
+                            spec.print(Long.valueOf(bits), l);
+                        break;
+                    case FLOAT:
+                        float f = Float.intBitsToFloat((int) bits);
+                        if (floating)
+                            spec.print(f, l);
+                        else
+                            spec.print(Float.valueOf(f), l);
+                        break;
+                    default:
+                        double d = Double.longBitsToDouble(bits);
+                        if (floating)
+                            spec.print(d, l);
+                        else
+                            spec.print(Double.valueOf(d), l);
+                        break;
+                    }
+                }
+            } catch (IOException x) {
+                throw new InternalError(x);
+            } finally {
+                release(c);
+            }
+            return sb;
+        }
+
+        /**
+         * Returns the format string this template was compiled from.
+         */
+        public String toString() {
+            return format;
+        }
+
+        private Compiled acquire(Appendable a) {
+            Compiled c = idle.getAndSet(null);
+            if (c == null)
+                c = new Compiled(l, format);
+            c.f.a = Objects.requireNonNull(a);
+            return c;
+        }
+
+        private void release(Compiled c) {
+            c.f.a = null;
+            c.last = -1;
+            c.lasto = -1;
+            idle.set(c);
+        }
+    }
+
+    /**
+     * A parsed format string together with the formatter its specifiers
+     * print through.  Owned by one thread at a time.
+     */
+    private static final class Compiled {
+        final Formatter f;
+        final List<FormatString> fsa;
+        // index of last argument referenced by the single-argument
+        // formatTo methods, and their last ordinary index
+        int last = -1;
+        int lasto = -1;
+
+        Compiled(Locale l, String format) {
+            f = new Formatter(l, null);
+            fsa = f.parse(format);
+        }
+
+        void rethrow() throws IOException {
+            IOException x = f.lastException;
+            if (x != null) {
+                f.lastException = null;
+                throw x;
+            }
+        }
+
+        /**
+         * Returns true if the given format string consumes an argument,
+         * checking that the argument is the first one.
+         */
+        boolean checkSingleArgument(FormatString fs) {
+            switch (fs.index()) {
+            case -2:  // fixed string, "%n", or "%%"
+                return false;
+            case -1:  // relative index
+                break;
+            case 0:  // ordinary index
+                last = ++lasto;
+                break;
+            default:  // explicit index
+                last = fs.index() - 1;
+                break;
+            }
+            if (last != 0)
+                throw new MissingFormatArgumentException(fs.toString());
+            return true;
+        }
     }
 
     // %[argument_index$][flags][width][.precision][t]conversion
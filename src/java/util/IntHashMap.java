@@ -0,0 +1,716 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A hash table mapping primitive {@code int} keys to primitive {@code int}
+ * values.  Unlike {@code HashMap<Integer, Integer>}, no {@code Node} and no
+ * boxed {@code Integer} is allocated per mapping: keys and values are kept
+ * in two parallel {@code int[]} arrays addressed by <i>open addressing</i>
+ * with linear probing.
+ *
+ * <p>Since there is no {@code null} for a primitive value, absent mappings
+ * are reported through a configurable <i>no-entry value</i> (by default
+ * {@code 0}), which is returned by {@link #get(int)}, {@link #put(int, int)}
+ * and {@link #remove(int)} when no mapping exists.  Use
+ * {@link #containsKey(int)} or {@link #getOrDefault(int, int)} to
+ * distinguish an absent mapping from one whose value equals the no-entry
+ * value.
+ *
+ * <p>This class makes no guarantees as to the order of the map.  Removal
+ * uses backward-shift deletion, so no tombstones accumulate and probe
+ * sequences stay short under heavy churn.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are
+ * <i>fail-fast</i> on a best-effort basis, in the same way as those of
+ * {@link HashMap}.
+ *
+ * @see HashMap
+ * @see LongHashMap
+ * @see LongObjectHashMap
+ * @since 11
+ */
+// IntHashMap结构：开放寻址（线性探测）哈希表，key与value分别存储在两个int数组中，不装箱
+public class IntHashMap {
+    
+    /** The default initial capacity - MUST be a power of two. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    
+    /** The maximum capacity, MUST be a power of two <= 1<<30. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    
+    /** The load factor used when none specified in constructor. */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    
+    /**
+     * The key used to mark a free slot.  A mapping whose key equals
+     * {@code FREE_KEY} is stored outside of the table.
+     */
+    private static final int FREE_KEY = 0;  // 空槽标记，key为0的映射单独存储
+    
+    private int[] keys;     // 存储key的哈希数组，长度总是2的冪
+    private int[] values;   // 存储value的哈希数组，与keys一一对应
+    
+    private boolean hasFreeKey; // 是否存在key为0的映射
+    private int freeValue;      // key为0的映射对应的value
+    
+    private int size;       // 映射数量（包括key为0的映射）
+    private int threshold;  // 扩容阈值
+    private int mask;       // 哈希数组长度-1
+    
+    private final float loadFactor;     // 装载因子
+    private final int noEntryValue;     // 不存在映射时返回的值
+    
+    transient int modCount; // 记录结构的修改次数，用于快速失败
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Constructs an empty {@code IntHashMap} with the default initial
+     * capacity (16), the default load factor (0.75) and a no-entry value
+     * of {@code 0}.
+     */
+    public IntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+    
+    /**
+     * Constructs an empty {@code IntHashMap} with the specified initial
+     * capacity, the default load factor (0.75) and a no-entry value of
+     * {@code 0}.
+     *
+     * @param initialCapacity the initial capacity.
+     *
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public IntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, 0);
+    }
+    
+    /**
+     * Constructs an empty {@code IntHashMap} with the specified initial
+     * capacity, load factor and no-entry value.
+     *
+     * @param initialCapacity the initial capacity
+     * @param loadFactor      the load factor, in the range {@code (0, 1)}
+     * @param noEntryValue    the value reported for absent keys
+     *
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *                                  or the load factor is not in {@code (0, 1)}
+     */
+    public IntHashMap(int initialCapacity, float loadFactor, int noEntryValue) {
+        if(initialCapacity<0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        
+        if(!(loadFactor>0 && loadFactor<1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        
+        int cap = tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, Math.ceil(initialCapacity / loadFactor)));
+        allocate(cap);
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or the
+     * no-entry value if there was no mapping for {@code key}.
+     */
+    // 将指定的元素（key-value）存入IntHashMap，并返回旧值，不存在旧值时返回noEntryValue
+    public int put(int key, int value) {
+        if(key == FREE_KEY) {
+            int old = hasFreeKey ? freeValue : noEntryValue;
+            if(!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+                modCount++;
+            }
+            freeValue = value;
+            return old;
+        }
+        
+        int[] ks = keys;
+        int m = mask;
+        int i = hash(key) & m;
+        int k;
+        
+        // 线性探测，直到遇到空槽或同位元素
+        while((k = ks[i]) != FREE_KEY) {
+            if(k == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & m;
+        }
+        
+        ks[i] = key;
+        values[i] = value;
+        modCount++;
+        if(++size>threshold) {
+            resize(keys.length << 1);
+        }
+        
+        return noEntryValue;
+    }
+    
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * associated value with the results of the given remapping function.
+     * The remapping function receives the old value first and the given
+     * value second; no boxing takes place.
+     *
+     * @param key               key with which the resulting value is to be associated
+     * @param value             the value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     *
+     * @return the new value associated with the specified key
+     *
+     * @throws NullPointerException if the remapping function is null
+     */
+    // 插入/合并：key不存在时存入value，否则存入remappingFunction(旧值, value)，返回新值
+    public int merge(int key, int value, IntBinaryOperator remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        
+        if(key == FREE_KEY) {
+            if(hasFreeKey) {
+                return freeValue = remappingFunction.applyAsInt(freeValue, value);
+            }
+            hasFreeKey = true;
+            size++;
+            modCount++;
+            return freeValue = value;
+        }
+        
+        int[] ks = keys;
+        int m = mask;
+        int i = hash(key) & m;
+        int k;
+        
+        while((k = ks[i]) != FREE_KEY) {
+            if(k == key) {
+                int mc = modCount;
+                int v = remappingFunction.applyAsInt(values[i], value);
+                if(mc != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return values[i] = v;
+            }
+            i = (i + 1) & m;
+        }
+        
+        ks[i] = key;
+        values[i] = value;
+        modCount++;
+        if(++size>threshold) {
+            resize(keys.length << 1);
+        }
+        
+        return value;
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * no-entry value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     *
+     * @return the value to which the specified key is mapped, or the
+     * no-entry value if this map contains no mapping for the key
+     */
+    // 根据指定的key获取对应的value，不存在时返回noEntryValue
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+    
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     *
+     * @return the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回指定的默认值
+    public int getOrDefault(int key, int defaultValue) {
+        if(key == FREE_KEY) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        
+        int i = indexOf(key);
+        return i<0 ? defaultValue : values[i];
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     *
+     * @return the previous value associated with {@code key}, or the
+     * no-entry value if there was no mapping for {@code key}.
+     */
+    // 移除拥有指定key的元素，返回被移除元素的值，不存在时返回noEntryValue
+    public int remove(int key) {
+        if(key == FREE_KEY) {
+            if(!hasFreeKey) {
+                return noEntryValue;
+            }
+            hasFreeKey = false;
+            size--;
+            modCount++;
+            return freeValue;
+        }
+        
+        int i = indexOf(key);
+        if(i<0) {
+            return noEntryValue;
+        }
+        
+        int old = values[i];
+        shiftKeys(i, null);
+        size--;
+        modCount++;
+        return old;
+    }
+    
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    // 清空IntHashMap中所有映射，不缩小哈希数组
+    public void clear() {
+        if(size>0) {
+            modCount++;
+            size = 0;
+            hasFreeKey = false;
+            Arrays.fill(keys, FREE_KEY);
+        }
+    }
+    
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key The key whose presence in this map is to be tested
+     *
+     * @return {@code true} if this map contains a mapping for the specified key.
+     */
+    // 判断IntHashMap中是否存在指定key的元素
+    public boolean containsKey(int key) {
+        if(key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return indexOf(key) >= 0;
+    }
+    
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Performs the given action for each mapping in this map until all
+     * mappings have been processed or the action throws an exception.
+     *
+     * @param action The action to be performed for each mapping
+     *
+     * @throws NullPointerException            if the specified action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *                                         modified during iteration
+     */
+    // 遍历IntHashMap中的元素，并对其应用action操作，不装箱
+    public void forEach(IntIntConsumer action) {
+        Objects.requireNonNull(action);
+        
+        int mc = modCount;
+        
+        if(hasFreeKey) {
+            action.accept(FREE_KEY, freeValue);
+        }
+        
+        int[] ks = keys;
+        int[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != FREE_KEY) {
+                action.accept(ks[i], vs[i]);
+            }
+        }
+        
+        if(modCount != mc) {
+            throw new ConcurrentModificationException();
+        }
+    }
+    
+    /**
+     * Returns a {@link PrimitiveIterator.OfInt} over the keys of this map.
+     * The iterator supports {@code remove}.
+     *
+     * @return an iterator over the keys of this map
+     */
+    // 返回key的迭代器
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyIterator();
+    }
+    
+    /**
+     * Returns a {@link Spliterator.OfInt} over the keys of this map.
+     *
+     * <p>The spliterator reports {@link Spliterator#SIZED},
+     * {@link Spliterator#DISTINCT} and {@link Spliterator#NONNULL}.
+     *
+     * @return a spliterator over the keys of this map
+     */
+    // 返回key的可分割迭代器
+    public Spliterator.OfInt keySpliterator() {
+        return Spliterators.spliterator(keyIterator(), size, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+    
+    /**
+     * Returns a sequential {@code IntStream} over the keys of this map.
+     *
+     * @return a stream of the keys of this map
+     */
+    // 返回key的流
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+    
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    // 获取IntHashMap中的元素数量
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    // 判断IntHashMap是否为空
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Returns the value reported for absent keys.
+     *
+     * @return the no-entry value of this map
+     */
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+    
+    /**
+     * Returns a string representation of this map, in the same form as
+     * {@link AbstractMap#toString()}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        forEach((k, v) -> sj.add(k + "=" + v));
+        return sj.toString();
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Spreads the bits of the key.  Linear probing is sensitive to
+     * clustering of consecutive keys, so a multiplicative (Fibonacci)
+     * hash is applied before the high bits are folded into the low ones.
+     */
+    // 计算key的哈希值，使连续的key分散到哈希数组的不同位置
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    // 根据预期的容量cap计算出哈希数组的实际容量（2的冪），至少为2
+    static int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(cap, 2) - 1);
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+    
+    // 返回key在哈希数组中的下标，不存在时返回-1（key不能为FREE_KEY）
+    private int indexOf(int key) {
+        int[] ks = keys;
+        int m = mask;
+        int i = hash(key) & m;
+        int k;
+        
+        while((k = ks[i]) != FREE_KEY) {
+            if(k == key) {
+                return i;
+            }
+            i = (i + 1) & m;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Backward-shift deletion: closes the gap at {@code pos} by moving
+     * back any later entry of the same probe run whose home slot does
+     * not lie cyclically in {@code (pos, slot]}.
+     *
+     * If {@code it} is non-null, entries that wrap around the end of the
+     * table into the part already visited by that iterator are handed to
+     * it, so that they are still returned exactly once.
+     */
+    // 删除下标pos处的元素，并将同一探测序列中后续的元素前移以填补空缺
+    private void shiftKeys(int pos, KeyIterator it) {
+        int[] ks = keys;
+        int[] vs = values;
+        int m = mask;
+        
+        for(; ; ) {
+            int last = pos;
+            pos = (pos + 1) & m;
+            int k;
+            
+            for(; ; ) {
+                if((k = ks[pos]) == FREE_KEY) {
+                    ks[last] = FREE_KEY;
+                    return;
+                }
+                
+                int slot = hash(k) & m;
+                
+                // 元素的原始位置不在(last, pos]区间内时，可以将其前移到last处
+                if(last<=pos ? (last >= slot || slot>pos) : (last >= slot && slot>pos)) {
+                    break;
+                }
+                
+                pos = (pos + 1) & m;
+            }
+            
+            // 从哈希数组开头环绕过来的元素会被移动到迭代器已访问过的区域，需交给迭代器稍后返回
+            if(it != null && pos<last) {
+                it.addWrapped(k);
+            }
+            
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+    
+    // 分配容量为cap的哈希数组
+    private void allocate(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        mask = cap - 1;
+        threshold = (cap == MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 : Math.min(cap - 1, (int) (cap * loadFactor));
+    }
+    
+    // 扩容，并将旧元素重新散列到新的哈希数组中
+    private void resize(int newCap) {
+        if(keys.length == MAXIMUM_CAPACITY) {
+            if(size >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("IntHashMap is full");
+            }
+            return;
+        }
+        
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        
+        allocate(newCap);
+        
+        int[] ks = keys;
+        int[] vs = values;
+        int m = mask;
+        
+        for(int j = 0; j<oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if(k != FREE_KEY) {
+                int i = hash(k) & m;
+                while(ks[i] != FREE_KEY) {
+                    i = (i + 1) & m;
+                }
+                ks[i] = k;
+                vs[i] = oldValues[j];
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Iterates the table from the highest slot down, so that
+     * backward-shift deletion in {@link #remove()} only ever moves entries
+     * into slots already visited.  The only exception are entries that
+     * wrap around the end of the table; those are collected and returned
+     * once the scan is over.
+     */
+    // key的迭代器，先返回key为0的映射（如果存在），再按哈希数组下标从高到低返回其它key
+    final class KeyIterator implements PrimitiveIterator.OfInt {
+        static final int NONE = -1;     // 尚未返回元素，或上次返回的元素已被移除
+        static final int FREE = -2;     // 上次返回的是key为0的映射
+        static final int WRAPPED = -3;  // 上次返回的是环绕元素
+        
+        int pos = keys.length;          // 向下扫描，下一个待检查的下标是pos-1
+        int last = NONE;                // 上次返回元素的下标，或上述标记
+        int lastKey;                    // 上次返回的环绕元素的key
+        int remaining = hasFreeKey ? size - 1 : size;   // 哈希数组中尚未返回的元素数量
+        boolean freePending = hasFreeKey;   // 是否还未返回key为0的映射
+        int[] wrapped;                  // 因后移删除而环绕到已访问区域的key
+        int wrappedCount;
+        int expectedModCount = modCount;
+        
+        @Override
+        public boolean hasNext() {
+            return freePending || remaining>0;
+        }
+        
+        @Override
+        public int nextInt() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            
+            if(freePending) {
+                freePending = false;
+                last = FREE;
+                return FREE_KEY;
+            }
+            
+            remaining--;
+            
+            int[] ks = keys;
+            for(; ; ) {
+                // 哈希数组已扫描完，返回环绕元素
+                if(--pos<0) {
+                    last = WRAPPED;
+                    return lastKey = wrapped[--wrappedCount];
+                }
+                
+                if(ks[pos] != FREE_KEY) {
+                    last = pos;
+                    return ks[pos];
+                }
+            }
+        }
+        
+        @Override
+        public void remove() {
+            if(last == NONE) {
+                throw new IllegalStateException();
+            }
+            
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            
+            if(last == FREE) {
+                IntHashMap.this.remove(FREE_KEY);
+            } else if(last == WRAPPED) {
+                IntHashMap.this.remove(lastKey);
+            } else {
+                shiftKeys(last, this);
+                size--;
+                modCount++;
+            }
+            
+            last = NONE;
+            expectedModCount = modCount;
+        }
+        
+        // 记录一个环绕元素，扫描结束后再返回
+        void addWrapped(int k) {
+            if(wrapped == null) {
+                wrapped = new int[2];
+            } else if(wrappedCount == wrapped.length) {
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            }
+            wrapped[wrappedCount++] = k;
+        }
+    }
+    
+}
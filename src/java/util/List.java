@@ -25,6 +25,7 @@
 
 package java.util;
 
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 /**
@@ -798,6 +799,41 @@ public interface List<E> extends Collection<E> {
         }
     }
     
+    /**
+     * Sorts this list according to the order of the {@code long} keys
+     * extracted from its elements by the specified function.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.  The result is the
+     * same as that of {@code sort(Comparator.comparingLong(keyExtractor))},
+     * but the key of each element is extracted exactly once and no
+     * comparator is invoked.
+     *
+     * @implSpec
+     * The default implementation obtains an array containing all elements in
+     * this list, sorts the array with
+     * {@link Arrays#sortByLongKey(Object[], ToLongFunction)}, and then
+     * iterates over this list resetting each element from the corresponding
+     * position in the array.
+     *
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the key extractor is null
+     * @throws UnsupportedOperationException if the list's list-iterator does
+     *         not support the {@code set} operation
+     * @since 11
+     */
+    // 按提取的long键对当前线性表内的元素进行稳定排序
+    @SuppressWarnings("unchecked")
+    default void sortByLongKey(ToLongFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.sortByLongKey(a, (ToLongFunction<Object>) keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+    
     /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
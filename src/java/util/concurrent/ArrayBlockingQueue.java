@@ -312,6 +312,41 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
     }
     
     
+    /**
+     * Inserts all elements of the specified collection at the tail of this
+     * queue, waiting for space to become available as necessary.  As many
+     * elements as fit are copied in under a single lock hold, and waiting
+     * consumers are signalled once per such batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，队满时线程被阻塞，每次持锁时尽可能多地入队
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        insertAll(checkedArray(c), false, 0L);
+    }
+    
+    /**
+     * Inserts elements of the specified collection at the tail of this
+     * queue, waiting up to the specified wait time in total for space to
+     * become available.  As many elements as fit are copied in under a
+     * single lock hold, and waiting consumers are signalled once per such
+     * batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，队满时阻塞一段时间，返回成功入队的元素数量
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        Object[] a = checkedArray(c);
+        return insertAll(a, true, unit.toNanos(timeout));
+    }
+    
+    
     /**
      * Inserts the specified element at the tail of this queue if it is
      * possible to do so immediately without exceeding the queue's capacity,
@@ -956,6 +991,98 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         notEmpty.signal();
     }
     
+    /**
+     * Copies {@code n} elements of {@code a} starting at {@code from} to the
+     * current put position, advances, and signals once.
+     * Call only when holding lock, with at least {@code n} free slots.
+     */
+    // 批量入队，非线程安全，仅内部使用
+    private void enqueueAll(Object[] a, int from, int n) {
+        // assert lock.isHeldByCurrentThread();
+        // assert items.length - count >= n;
+        
+        final Object[] items = this.items;
+        
+        // 可能需要分两段复制（轮转）
+        int first = Math.min(n, items.length - putIndex);
+        System.arraycopy(a, from, items, putIndex, first);
+        System.arraycopy(a, from + first, items, 0, n - first);
+        
+        putIndex += n;
+        if(putIndex >= items.length) {
+            putIndex -= items.length;
+        }
+        
+        count += n;
+        
+        // 唤醒出队线程：出队操作不会级联唤醒，故批量入队时唤醒所有等待者
+        if(n == 1) {
+            notEmpty.signal();
+        } else {
+            notEmpty.signalAll();
+        }
+    }
+    
+    /**
+     * Inserts the elements of {@code a}, blocking while the queue is full,
+     * at most for {@code nanos} if {@code timed}.
+     */
+    // 批量入队，返回成功入队的元素数量
+    private int insertAll(Object[] a, boolean timed, long nanos) throws InterruptedException {
+        if(a.length == 0) {
+            return 0;
+        }
+        
+        int i = 0;
+        final ReentrantLock lock = this.lock;
+        
+        // 申请独占锁，不允许阻塞带有中断标记的线程
+        lock.lockInterruptibly();
+        try {
+            while(i<a.length) {
+                int room = items.length - count;
+                
+                // 如果队列满了，需要阻塞“入队”线程
+                if(room == 0) {
+                    if(!timed) {
+                        notFull.await();
+                    } else if(nanos<=0L) {
+                        break;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                    continue;
+                }
+                
+                int n = Math.min(room, a.length - i);
+                enqueueAll(a, i, n);
+                i += n;
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        return i;
+    }
+    
+    /**
+     * Returns the elements of {@code c} as an array, rejecting null elements
+     * before anything is inserted.
+     */
+    // 返回容器中元素组成的数组，不允许包含null元素
+    private Object[] checkedArray(Collection<? extends E> c) {
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        Object[] a = c.toArray();
+        for(Object e : a) {
+            Objects.requireNonNull(e);
+        }
+        
+        return a;
+    }
+    
     /**
      * Extracts element at current take position, advances, and signals.
      * Call only when holding lock.
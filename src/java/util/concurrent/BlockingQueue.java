@@ -274,6 +274,99 @@ public interface BlockingQueue<E> extends Queue<E> {
     // 入队，无法入队时扩容，或阻塞一段时间，超时后无法入队则返回false
     boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException;
     
+    
+    /**
+     * Inserts all elements of the specified collection into this queue,
+     * in the order returned by its iterator, waiting for space to become
+     * available as necessary.
+     *
+     * <p>Implementations are encouraged to insert as many elements as fit
+     * under a single acquisition of their internal lock, and to wake
+     * waiting consumers once per batch rather than once per element.
+     *
+     * @implSpec
+     * The default implementation calls {@link #put(Object)} for each
+     * element in turn.
+     *
+     * @param c the elements to add
+     *
+     * @throws InterruptedException     if interrupted while waiting, in which
+     *                                  case some elements may have been inserted
+     * @throws ClassCastException       if the class of an element prevents
+     *                                  it from being added to this queue
+     * @throws NullPointerException     if the specified collection or any of
+     *                                  its elements is null
+     * @throws IllegalArgumentException if the specified collection is this queue,
+     *                                  or some property of an element prevents
+     *                                  it from being added to this queue
+     * @since 11
+     */
+    // 批量入队，无法入队时阻塞
+    default void putAll(Collection<? extends E> c) throws InterruptedException {
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        for(E e : c) {
+            put(e);
+        }
+    }
+    
+    /**
+     * Inserts elements of the specified collection into this queue, in the
+     * order returned by its iterator, waiting up to the specified wait time
+     * in total for space to become available.  Insertion stops at the first
+     * element for which no space became available in time; the elements
+     * before it remain inserted.
+     *
+     * <p>Implementations are encouraged to insert as many elements as fit
+     * under a single acquisition of their internal lock, and to wake
+     * waiting consumers once per batch rather than once per element.
+     *
+     * @implSpec
+     * The default implementation calls {@link #offer(Object, long, TimeUnit)}
+     * for each element in turn with the remaining wait time.
+     *
+     * @param c       the elements to add
+     * @param timeout how long to wait in total before giving up, in units of
+     *                {@code unit}
+     * @param unit    a {@code TimeUnit} determining how to interpret the
+     *                {@code timeout} parameter
+     *
+     * @return the number of elements inserted, which is the size of the
+     * collection unless the waiting time elapsed
+     *
+     * @throws InterruptedException     if interrupted while waiting, in which
+     *                                  case some elements may have been inserted
+     * @throws ClassCastException       if the class of an element prevents
+     *                                  it from being added to this queue
+     * @throws NullPointerException     if the specified collection or any of
+     *                                  its elements is null
+     * @throws IllegalArgumentException if the specified collection is this queue,
+     *                                  or some property of an element prevents
+     *                                  it from being added to this queue
+     * @since 11
+     */
+    // 批量入队，无法入队时阻塞一段时间，返回成功入队的元素数量
+    default int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        int n = 0;
+        
+        for(E e : c) {
+            if(!offer(e, nanos, TimeUnit.NANOSECONDS)) {
+                break;
+            }
+            n++;
+            nanos = deadline - System.nanoTime();
+        }
+        
+        return n;
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -0,0 +1,1263 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache bounded by entry count or total weight, with optional
+ * time-based expiration.  Entries are held in a {@link ConcurrentHashMap};
+ * the eviction policy is maintained on the side so that cache hits never
+ * contend on a shared lock.
+ *
+ * <p>Reads record the accessed entry in one of several striped, lossy,
+ * lock-free ring buffers; writes record a task in a concurrent queue.  The
+ * buffers are replayed against the policy in batches by whichever thread
+ * manages to acquire the eviction lock with {@code tryLock}, so no caller
+ * ever waits for another to finish maintenance.  A dropped read record only
+ * makes the policy slightly less precise, never incorrect.
+ *
+ * <p>The policy is <em>Window TinyLFU</em>: new entries enter a small LRU
+ * admission window (1% of the maximum); entries leaving the window are
+ * admitted into the segmented-LRU main space only if a {@link FrequencySketch
+ * frequency sketch} estimates that they are used more often than the entry
+ * they would displace.  This keeps one-hit wonders and scans from flushing
+ * the frequently used working set, which a plain LRU such as
+ * {@link java.util.LinkedHashMap#removeEldestEntry} cannot do.
+ *
+ * <p>Expired entries are never returned.  They are removed during
+ * maintenance and, if expiration is enabled, periodically by a
+ * {@link ScheduledThreadPoolExecutor} so that an idle cache does not keep
+ * stale values reachable.  A cache only weakly references itself from the
+ * scheduled task, so an unreferenced cache can still be collected.
+ *
+ * <p>Hit, miss and eviction counts are kept in {@link LongAdder}s.
+ *
+ * <p>Neither keys nor values may be {@code null}.
+ *
+ * <pre> {@code
+ * BoundedCache<String, Session> sessions = BoundedCache.<String, Session>newBuilder()
+ *     .maximumSize(100_000)
+ *     .expireAfterAccess(Duration.ofMinutes(30))
+ *     .build();
+ * Session s = sessions.get(id, this::loadSession);}</pre>
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of mapped values
+ *
+ * @see ConcurrentHashMap
+ * @since 11
+ */
+// 有界并发缓存：数据存储在ConcurrentHashMap中，淘汰策略为W-TinyLFU，读写记录先进入缓冲区，再批量应用到淘汰策略
+public class BoundedCache<K, V> {
+    
+    /** Node is not linked into any policy queue. */
+    static final int NONE = 0;
+    /** Node is in the admission window. */
+    static final int WINDOW = 1;
+    /** Node is in the probationary segment of the main space. */
+    static final int PROBATION = 2;
+    /** Node is in the protected segment of the main space. */
+    static final int PROTECTED = 3;
+    
+    /** The percentage of the maximum weight given to the admission window. */
+    static final double WINDOW_PERCENT = 0.01;
+    
+    /** The percentage of the main space given to the protected segment. */
+    static final double PROTECTED_PERCENT = 0.80;
+    
+    /** Number of read buffers, a power of two. */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+    static final int READ_BUFFERS = Math.min(64, Integer.highestOneBit(Math.max(1, NCPU) * 4 - 1) << 1);
+    
+    /** The smallest period of the scheduled clean-up. */
+    static final long MIN_CLEANUP_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    final ConcurrentHashMap<K, Node<K, V>> data;    // 缓存的数据
+    
+    final long maximum;                         // 最大权重（未设置权重函数时即最大条目数）
+    final ToIntBiFunction<? super K, ? super V> weigher;   // 权重函数，为null时每个条目权重为1
+    final long expireAfterWriteNanos;           // 写入后过期时间，0表示不过期
+    final long expireAfterAccessNanos;          // 访问后过期时间，0表示不过期
+    
+    final ReadBuffer<K, V>[] readBuffers;       // 分段的读缓冲区，记录被访问的节点
+    final ConcurrentLinkedQueue<Runnable> writeBuffer;  // 写缓冲区，记录待应用到淘汰策略的写操作
+    
+    final ReentrantLock evictionLock = new ReentrantLock(); // 维护淘汰策略时使用的锁
+    
+    /* 以下字段只在持有evictionLock时访问 */
+    final AccessOrder<K, V> window = new AccessOrder<>();       // 准入窗口，LRU顺序
+    final AccessOrder<K, V> probation = new AccessOrder<>();    // 主空间的试用区，LRU顺序
+    final AccessOrder<K, V> protectedQueue = new AccessOrder<>();   // 主空间的保护区，LRU顺序
+    Node<K, V> writeHead, writeTail;            // 按写入时间排序的双向链表
+    long weightedSize;                          // 已纳入淘汰策略的总权重
+    final long windowMaximum;                   // 准入窗口的最大权重
+    final long protectedMaximum;                // 保护区的最大权重
+    final FrequencySketch sketch;               // 访问频率估计
+    
+    final LongAdder hitCount = new LongAdder();     // 命中次数
+    final LongAdder missCount = new LongAdder();    // 未命中次数
+    final LongAdder evictionCount = new LongAdder();    // 因超出容量而淘汰的条目数
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @SuppressWarnings("unchecked")
+    BoundedCache(Builder<? super K, ? super V> builder) {
+        this.maximum = builder.maximum;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        
+        this.data = new ConcurrentHashMap<>(builder.initialCapacity);
+        
+        this.readBuffers = (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[READ_BUFFERS];
+        for(int i = 0; i<READ_BUFFERS; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+        this.writeBuffer = new ConcurrentLinkedQueue<>();
+        
+        this.windowMaximum = Math.max(1L, (long) (maximum * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_PERCENT);
+        
+        this.sketch = new FrequencySketch();
+        if(weigher == null && maximum != Long.MAX_VALUE) {
+            sketch.ensureCapacity(maximum);
+        } else {
+            sketch.ensureCapacity(builder.initialCapacity);
+        }
+        
+        // 启用了过期策略时，周期性地清理过期条目
+        long period = Math.min(expireAfterWriteNanos == 0 ? Long.MAX_VALUE : expireAfterWriteNanos, expireAfterAccessNanos == 0 ? Long.MAX_VALUE : expireAfterAccessNanos);
+        if(period != Long.MAX_VALUE) {
+            ScheduledExecutorService scheduler = builder.scheduler != null ? builder.scheduler : SchedulerHolder.SCHEDULER;
+            CleanupTask.schedule(this, scheduler, Math.max(MIN_CLEANUP_PERIOD_NANOS, period >>> 1));
+        }
+    }
+    
+    /**
+     * Returns a new builder for a {@code BoundedCache}.  Without further
+     * configuration the built cache is unbounded and never expires.
+     *
+     * @param <K> the type of keys of the cache
+     * @param <V> the type of values of the cache
+     *
+     * @return a new builder
+     */
+    // 返回缓存的构建器
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>();
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the value associated with {@code key} in this cache, or
+     * {@code null} if there is no cached value for {@code key} or it has
+     * expired.
+     *
+     * @param key the key whose associated value is to be returned
+     *
+     * @return the value to which the specified key is mapped, or {@code null}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    // 返回key对应的value，不存在或已过期时返回null
+    public V getIfPresent(Object key) {
+        Node<K, V> node = data.get(key);
+        if(node == null) {
+            missCount.increment();
+            return null;
+        }
+        
+        long now = System.nanoTime();
+        if(hasExpired(node, now)) {
+            missCount.increment();
+            removeExpired(node);
+            return null;
+        }
+        
+        V value = node.value;
+        hitCount.increment();
+        afterRead(node, now);
+        return value;
+    }
+    
+    /**
+     * Returns the value associated with {@code key} in this cache, first
+     * computing it with {@code mappingFunction} and entering it into this
+     * cache if necessary.  As with {@link ConcurrentHashMap#computeIfAbsent},
+     * the computation is performed at most once per absent key and other
+     * updates of the same key are blocked while it is in progress.
+     *
+     * @param key             key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     *
+     * @return the current (existing or computed) value associated with
+     * the specified key, or null if the computed value is null
+     *
+     * @throws NullPointerException if the specified key or mappingFunction is null
+     */
+    // 返回key对应的value，不存在或已过期时使用mappingFunction计算新值并存入缓存
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(mappingFunction);
+        
+        long now = System.nanoTime();
+        Node<K, V> node = data.get(key);
+        if(node != null && !hasExpired(node, now)) {
+            V value = node.value;
+            hitCount.increment();
+            afterRead(node, now);
+            return value;
+        }
+        
+        missCount.increment();
+        
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] replaced = (Node<K, V>[]) new Node<?, ?>[2];    // [0]是被替换的过期节点，[1]是新建的节点
+        
+        node = data.compute(key, (k, prior) -> {
+            if(prior != null && !hasExpired(prior, now)) {
+                return prior;
+            }
+            
+            V value = mappingFunction.apply(k);
+            if(prior != null) {
+                // 在compute内部标记被替换的节点，使并发的put不会写入已脱离data的节点
+                retire(prior);
+                replaced[0] = prior;
+            }
+            if(value == null) {
+                return null;
+            }
+            
+            return replaced[1] = new Node<>(k, value, weigh(k, value), now);
+        });
+        
+        if(replaced[0] != null) {
+            afterWrite(new RemovalTask(replaced[0]));
+        }
+        
+        if(replaced[1] != null) {
+            afterWrite(new AddTask(replaced[1]));
+        } else if(node != null) {
+            afterRead(node, now);
+        }
+        
+        return node == null ? null : node.value;
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Associates {@code value} with {@code key} in this cache, replacing any
+     * previously cached value.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no unexpired mapping for {@code key}
+     *
+     * @throws NullPointerException if the specified key or value is null
+     */
+    // 将指定的元素（key-value）存入缓存，返回旧值
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        
+        long now = System.nanoTime();
+        int weight = weigh(key, value);
+        
+        for(; ; ) {
+            Node<K, V> prior = data.get(key);
+            if(prior == null) {
+                Node<K, V> node = new Node<>(key, value, weight, now);
+                prior = data.putIfAbsent(key, node);
+                if(prior == null) {
+                    afterWrite(new AddTask(node));
+                    return null;
+                }
+            }
+            
+            V oldValue;
+            boolean expired;
+            
+            // 对同一节点的更新需要串行化，并与移除操作互斥
+            synchronized(prior) {
+                if(prior.retired) {
+                    continue;
+                }
+                
+                expired = hasExpired(prior, now);
+                oldValue = prior.value;
+                prior.value = value;
+                prior.weight = weight;
+                prior.writeTime = now;
+                prior.accessTime = now;
+            }
+            
+            afterWrite(new UpdateTask(prior));
+            return expired ? null : oldValue;
+        }
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Discards any cached value for {@code key}.
+     *
+     * @param key the key whose mapping is to be removed from the cache
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    // 移除key对应的条目
+    public void invalidate(Object key) {
+        for(; ; ) {
+            Node<K, V> node = data.get(key);
+            if(node == null) {
+                return;
+            }
+            
+            // 如果节点已被并发替换或移除，则重新读取
+            if(removeAndRetire(node)) {
+                afterWrite(new RemovalTask(node));
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Discards all entries in this cache.
+     */
+    // 移除所有条目
+    public void invalidateAll() {
+        for(K key : data.keySet()) {
+            invalidate(key);
+        }
+    }
+    
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the approximate number of entries in this cache.  The value
+     * may include entries that have expired but have not been removed yet.
+     *
+     * @return the estimated number of mappings
+     */
+    // 返回条目数量的估计值
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+    
+    /**
+     * Performs any pending maintenance: replays buffered reads and writes
+     * against the eviction policy, removes expired entries and evicts
+     * entries beyond the maximum.  Maintenance normally happens
+     * automatically; calling this method is only needed to observe its
+     * effects at a precise point, e.g. in tests.
+     */
+    // 立即执行维护工作（应用缓冲区、清理过期条目、淘汰超出容量的条目）
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of times a lookup found an unexpired value.
+     *
+     * @return the number of cache hits
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+    
+    /**
+     * Returns the number of times a lookup found no unexpired value.
+     *
+     * @return the number of cache misses
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+    
+    /**
+     * Returns the number of entries evicted because the cache exceeded its
+     * maximum size or weight.  Expired and invalidated entries are not
+     * counted.
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+    
+    /**
+     * Returns a string identifying this cache, as well as its hit, miss
+     * and eviction counts.
+     *
+     * @return a string identifying this cache, as well as its statistics
+     */
+    public String toString() {
+        return super.toString() + "[size = " + estimatedSize() + ", hits = " + hitCount() + ", misses = " + missCount() + ", evictions = " + evictionCount() + "]";
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 缓冲区 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 记录一次读操作；读缓冲区已满时尝试执行维护
+    void afterRead(Node<K, V> node, long now) {
+        if(expireAfterAccessNanos != 0) {
+            node.accessTime = now;
+        }
+        
+        int h = ThreadLocalRandom.getProbe();
+        if(h == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        
+        if(!readBuffers[h & (READ_BUFFERS - 1)].offer(node)) {
+            tryMaintenance();
+        }
+    }
+    
+    // 记录一次写操作，并尝试执行维护
+    void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        tryMaintenance();
+    }
+    
+    /**
+     * Performs maintenance if the eviction lock is free.  After releasing
+     * the lock, the write buffer is checked again, since a writer whose
+     * {@code tryLock} failed relies on the current holder to apply its task.
+     */
+    // 如果evictionLock空闲，则执行维护
+    void tryMaintenance() {
+        do {
+            if(!evictionLock.tryLock()) {
+                return;
+            }
+            
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while(!writeBuffer.isEmpty());
+    }
+    
+    // 执行维护工作，需持有evictionLock
+    void maintenance() {
+        for(ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this);
+        }
+        
+        Runnable task;
+        while((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        
+        sketch.ensureCapacity(data.mappingCount());
+        
+        expireEntries(System.nanoTime());
+        evictEntries();
+    }
+    
+    /*▲ 缓冲区 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 淘汰策略 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 应用一次读操作：在准入窗口或保护区中移到队尾，在试用区中则晋升到保护区
+    void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        
+        switch(node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                protectedQueue.linkLast(node);
+                node.queue = PROTECTED;
+                demoteFromProtected();
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+            default:
+                // 尚未纳入淘汰策略，或已被移除
+        }
+    }
+    
+    // 保护区超出容量时，将保护区头部的节点降级到试用区
+    void demoteFromProtected() {
+        while(protectedQueue.weight>protectedMaximum) {
+            Node<K, V> node = protectedQueue.head;
+            protectedQueue.unlink(node);
+            probation.linkLast(node);
+            node.queue = PROBATION;
+        }
+    }
+    
+    // 清理过期的条目
+    void expireEntries(long now) {
+        if(expireAfterAccessNanos != 0) {
+            expireFrom(window, now);
+            expireFrom(probation, now);
+            expireFrom(protectedQueue, now);
+        }
+        
+        if(expireAfterWriteNanos != 0) {
+            Node<K, V> node;
+            while((node = writeHead) != null && now - node.writeTime >= expireAfterWriteNanos) {
+                evict(node, false);
+            }
+        }
+    }
+    
+    // 从队列头部开始清理访问后过期的条目
+    void expireFrom(AccessOrder<K, V> queue, long now) {
+        Node<K, V> node;
+        while((node = queue.head) != null && now - node.accessTime >= expireAfterAccessNanos) {
+            evict(node, false);
+        }
+    }
+    
+    /**
+     * Evicts entries while the cache is over its maximum.  The admission
+     * window is first shrunk to its maximum by moving its eldest entries to
+     * the tail of the probation segment; then the most recent of those
+     * candidates competes against the eldest probationary entry, and only
+     * the one estimated to be used more often stays.
+     */
+    // 淘汰超出容量的条目
+    void evictEntries() {
+        // 准入窗口超出容量时，将窗口头部的节点移动到试用区尾部，成为候选者
+        while(window.weight>windowMaximum && window.head != null) {
+            Node<K, V> node = window.head;
+            window.unlink(node);
+            probation.linkLast(node);
+            node.queue = PROBATION;
+        }
+        
+        while(weightedSize>maximum) {
+            Node<K, V> victim = probation.head;
+            Node<K, V> candidate = probation.tail;
+            
+            if(victim == null) {
+                // 试用区为空时，依次从保护区和准入窗口中淘汰
+                victim = protectedQueue.head != null ? protectedQueue.head : window.head;
+                if(victim == null) {
+                    break;
+                }
+                evict(victim, true);
+                continue;
+            }
+            
+            if(candidate == victim) {
+                evict(victim, true);
+                continue;
+            }
+            
+            // 频率更高者留下
+            if(sketch.frequency(candidate.key)>sketch.frequency(victim.key)) {
+                evict(victim, true);
+            } else {
+                evict(candidate, true);
+            }
+        }
+    }
+    
+    // 淘汰指定的节点，sizeEviction指示是否因超出容量而淘汰
+    void evict(Node<K, V> node, boolean sizeEviction) {
+        if(removeAndRetire(node)) {
+            if(sizeEviction) {
+                evictionCount.increment();
+            }
+        }
+        
+        // 即使节点已被并发移除，也立即将其从淘汰策略中移除，稍后的RemovalTask将成为空操作
+        unlinkNode(node);
+    }
+    
+    // 将节点纳入淘汰策略
+    void linkNode(Node<K, V> node) {
+        int weight = node.weight;
+        node.policyWeight = weight;
+        weightedSize += weight;
+        
+        window.linkLast(node);
+        node.queue = WINDOW;
+        
+        linkWriteLast(node);
+    }
+    
+    // 将节点从淘汰策略中移除
+    void unlinkNode(Node<K, V> node) {
+        AccessOrder<K, V> queue = queueOf(node);
+        if(queue == null) {
+            return;
+        }
+        
+        queue.unlink(node);
+        node.queue = NONE;
+        weightedSize -= node.policyWeight;
+        
+        unlinkWrite(node);
+    }
+    
+    // 返回节点所在的队列
+    AccessOrder<K, V> queueOf(Node<K, V> node) {
+        switch(node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            case PROTECTED:
+                return protectedQueue;
+            default:
+                return null;
+        }
+    }
+    
+    // 将节点添加到写入顺序链表尾部
+    void linkWriteLast(Node<K, V> node) {
+        node.nextW = null;
+        node.prevW = writeTail;
+        if(writeTail == null) {
+            writeHead = node;
+        } else {
+            writeTail.nextW = node;
+        }
+        writeTail = node;
+    }
+    
+    // 将节点从写入顺序链表中移除
+    void unlinkWrite(Node<K, V> node) {
+        Node<K, V> prev = node.prevW, next = node.nextW;
+        if(prev == null) {
+            writeHead = next;
+        } else {
+            prev.nextW = next;
+        }
+        if(next == null) {
+            writeTail = prev;
+        } else {
+            next.prevW = prev;
+        }
+        node.prevW = node.nextW = null;
+    }
+    
+    /*▲ 淘汰策略 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 计算条目的权重
+    int weigh(K key, V value) {
+        if(weigher == null) {
+            return 1;
+        }
+        
+        int weight = weigher.applyAsInt(key, value);
+        if(weight<0) {
+            throw new IllegalArgumentException("negative weight");
+        }
+        return weight;
+    }
+    
+    // 判断节点是否已过期
+    boolean hasExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos != 0 && now - node.writeTime >= expireAfterWriteNanos) || (expireAfterAccessNanos != 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+    
+    // 移除已过期的节点
+    void removeExpired(Node<K, V> node) {
+        if(removeAndRetire(node)) {
+            afterWrite(new RemovalTask(node));
+        }
+    }
+    
+    /*
+     * 如果node仍是data中key的映射，则将其移除并标记为已退役，返回true
+     *
+     * 标记在computeIfPresent内部完成，因此对put而言，未退役的节点一定仍在data中，
+     * 不会出现put写入已被移除的节点而更新丢失的情形
+     */
+    boolean removeAndRetire(Node<K, V> node) {
+        boolean[] removed = new boolean[1];
+        data.computeIfPresent(node.key, (k, current) -> {
+            if(current != node) {
+                return current;
+            }
+            retire(node);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+    
+    // 标记节点已从data中移除，与put中对节点的更新互斥
+    static void retire(Node<?, ?> node) {
+        synchronized(node) {
+            node.retired = true;
+        }
+    }
+    
+    
+    
+    /**
+     * A cache entry.  The {@code value}, {@code weight} and timestamps may be
+     * read by any thread; the queue links and {@code policyWeight} are
+     * accessed only while holding the eviction lock.
+     */
+    // 缓存条目
+    static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile boolean retired;   // 是否已从data中移除
+        
+        int queue;                  // 所在的队列
+        int policyWeight;           // 淘汰策略中记录的权重
+        Node<K, V> prev, next;      // 访问顺序链表
+        Node<K, V> prevW, nextW;    // 写入顺序链表
+        
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+    
+    /**
+     * An access-ordered doubly-linked queue with its total weight, guarded
+     * by the eviction lock.
+     */
+    // 访问顺序队列，头部是最久未访问的节点
+    static final class AccessOrder<K, V> {
+        Node<K, V> head, tail;
+        long weight;
+        
+        void linkLast(Node<K, V> node) {
+            node.next = null;
+            node.prev = tail;
+            if(tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.policyWeight;
+        }
+        
+        void unlink(Node<K, V> node) {
+            Node<K, V> p = node.prev, n = node.next;
+            if(p == null) {
+                head = n;
+            } else {
+                p.next = n;
+            }
+            if(n == null) {
+                tail = p;
+            } else {
+                n.prev = p;
+            }
+            node.prev = node.next = null;
+            weight -= node.policyWeight;
+        }
+        
+        void moveToBack(Node<K, V> node) {
+            if(node != tail) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+    }
+    
+    /**
+     * A bounded, lossy, multiple-producer single-consumer ring buffer of
+     * accessed nodes.  An offer that finds the buffer full, or loses the
+     * race for a slot, is simply dropped.
+     */
+    // 读缓冲区：有界、有损的环形缓冲区，多生产者单消费者
+    static final class ReadBuffer<K, V> {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+        
+        final AtomicLong readCounter = new AtomicLong();    // 只由持有evictionLock的线程写入
+        final AtomicLong writeCounter = new AtomicLong();
+        final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(SIZE);
+        
+        // 记录一次读操作，缓冲区已满时返回false
+        boolean offer(Node<K, V> node) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            if(tail - head >= SIZE) {
+                return false;
+            }
+            
+            if(writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & MASK), node);
+            }
+            
+            return true;
+        }
+        
+        // 将缓冲区中的读操作应用到淘汰策略，需持有evictionLock
+        void drain(BoundedCache<K, V> cache) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            
+            for(; head<tail; head++) {
+                int i = (int) (head & MASK);
+                Node<K, V> node = slots.get(i);
+                if(node == null) {
+                    // 生产者已占据该槽位，但尚未写入
+                    break;
+                }
+                slots.lazySet(i, null);
+                cache.onAccess(node);
+            }
+            
+            readCounter.lazySet(head);
+        }
+    }
+    
+    // 将新节点纳入淘汰策略
+    final class AddTask implements Runnable {
+        final Node<K, V> node;
+        
+        AddTask(Node<K, V> node) {
+            this.node = node;
+        }
+        
+        public void run() {
+            // 节点可能在纳入淘汰策略之前就已被移除
+            if(node.retired || node.queue != NONE) {
+                return;
+            }
+            linkNode(node);
+            sketch.increment(node.key);
+        }
+    }
+    
+    // 应用一次更新：调整权重，并视为一次访问
+    final class UpdateTask implements Runnable {
+        final Node<K, V> node;
+        
+        UpdateTask(Node<K, V> node) {
+            this.node = node;
+        }
+        
+        public void run() {
+            AccessOrder<K, V> queue = queueOf(node);
+            if(queue == null) {
+                return;
+            }
+            
+            int delta = node.weight - node.policyWeight;
+            node.policyWeight += delta;
+            queue.weight += delta;
+            weightedSize += delta;
+            
+            unlinkWrite(node);
+            linkWriteLast(node);
+            
+            onAccess(node);
+        }
+    }
+    
+    // 将已移除的节点从淘汰策略中移除
+    final class RemovalTask implements Runnable {
+        final Node<K, V> node;
+        
+        RemovalTask(Node<K, V> node) {
+            this.node = node;
+        }
+        
+        public void run() {
+            unlinkNode(node);
+        }
+    }
+    
+    
+    
+    /**
+     * A probabilistic set of 4-bit counters estimating how often each key
+     * has been used, in the manner of a count-min sketch.  Every key maps
+     * to one counter in each of four 64-bit words; its frequency is the
+     * minimum of those counters.  To let the sketch follow a changing
+     * workload, all counters are halved once the number of increments
+     * reaches ten times the table width ("aging").  Guarded by the eviction
+     * lock.
+     */
+    // 频率估计：每个key对应4个4-bit计数器，取最小值作为其访问频率的估计；计数总和达到阈值时所有计数器减半
+    static final class FrequencySketch {
+        static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+        static final int MAX_TABLE = 1 << 26;
+        
+        long[] table = new long[1];
+        int tableMask;
+        int sampleSize = 10;
+        int size;
+        
+        // 根据预期的条目数量扩大计数器表
+        void ensureCapacity(long expected) {
+            int cap = (int) Math.min(Math.max(expected, 1L), MAX_TABLE);
+            if(table.length >= cap) {
+                return;
+            }
+            
+            int n = Integer.highestOneBit(cap - 1) << 1;
+            table = new long[n];
+            tableMask = n - 1;
+            sampleSize = 10 * n;
+            size = 0;
+        }
+        
+        // 返回key的访问频率估计值，范围是[0, 15]
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int freq = Integer.MAX_VALUE;
+            for(int i = 0; i<4; i++) {
+                int index = indexOf(h, i);
+                int offset = counterOffset(h, i);
+                freq = Math.min(freq, (int) ((table[index] >>> offset) & 0xfL));
+            }
+            return freq;
+        }
+        
+        // 增加key的访问频率计数
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            boolean added = false;
+            for(int i = 0; i<4; i++) {
+                int index = indexOf(h, i);
+                int offset = counterOffset(h, i);
+                long mask = 0xfL << offset;
+                if((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            
+            if(added && ++size == sampleSize) {
+                reset();
+            }
+        }
+        
+        // 所有计数器减半
+        void reset() {
+            int odd = 0;
+            for(int i = 0; i<table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size - (odd >>> 2)) >>> 1;
+        }
+        
+        // 第i个计数器所在的字
+        int indexOf(int h, int i) {
+            long hash = (h + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+        
+        // 第i个计数器在字中的位偏移：每个字包含16个计数器，第i个哈希函数使用其中第i组的4个之一
+        static int counterOffset(int h, int i) {
+            int start = (h & 3) << 2;
+            return (start + i) << 2;
+        }
+        
+        static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+    
+    
+    
+    /**
+     * Periodically performs maintenance of a cache that uses expiration.
+     * The cache is weakly referenced, and the task cancels itself once the
+     * cache has been collected.
+     */
+    // 周期性地清理过期条目的任务
+    static final class CleanupTask implements Runnable {
+        final WeakReference<BoundedCache<?, ?>> cacheRef;
+        volatile Future<?> future;
+        
+        CleanupTask(BoundedCache<?, ?> cache) {
+            cacheRef = new WeakReference<>(cache);
+        }
+        
+        static void schedule(BoundedCache<?, ?> cache, ScheduledExecutorService scheduler, long periodNanos) {
+            CleanupTask task = new CleanupTask(cache);
+            task.future = scheduler.scheduleWithFixedDelay(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+        
+        public void run() {
+            BoundedCache<?, ?> cache = cacheRef.get();
+            if(cache == null) {
+                Future<?> f = future;
+                if(f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+            
+            // 缓存正忙时跳过本次清理，由持锁者完成维护
+            if(cache.evictionLock.tryLock()) {
+                try {
+                    cache.maintenance();
+                } finally {
+                    cache.evictionLock.unlock();
+                }
+            }
+        }
+    }
+    
+    /** Holds the scheduler shared by caches that were not given one. */
+    // 共享的调度器，懒加载
+    static final class SchedulerHolder {
+        static final ScheduledThreadPoolExecutor SCHEDULER;
+        
+        static {
+            SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "BoundedCache-Cleaner");
+                t.setDaemon(true);
+                return t;
+            });
+            SCHEDULER.setRemoveOnCancelPolicy(true);
+        }
+    }
+    
+    
+    
+    /**
+     * A builder of {@link BoundedCache} instances.
+     *
+     * @param <K> the type of keys of the cache
+     * @param <V> the type of values of the cache
+     *
+     * @since 11
+     */
+    // 缓存的构建器
+    public static final class Builder<K, V> {
+        int initialCapacity = 16;
+        long maximum = Long.MAX_VALUE;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos;
+        long expireAfterAccessNanos;
+        ScheduledExecutorService scheduler;
+        
+        Builder() {
+        }
+        
+        /**
+         * Sets the initial capacity of the underlying hash table.
+         *
+         * @param initialCapacity the initial capacity
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code initialCapacity} is negative
+         */
+        public Builder<K, V> initialCapacity(int initialCapacity) {
+            if(initialCapacity<0) {
+                throw new IllegalArgumentException();
+            }
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+        
+        /**
+         * Bounds the cache to the given number of entries.  Must not be
+         * combined with {@link #maximumWeight}.
+         *
+         * @param maximumSize the maximum number of entries
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maximumSize} is negative
+         * @throws IllegalStateException    if a bound was already set
+         */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if(maximumSize<0) {
+                throw new IllegalArgumentException();
+            }
+            if(maximum != Long.MAX_VALUE || weigher != null) {
+                throw new IllegalStateException("maximum already set");
+            }
+            this.maximum = maximumSize;
+            return this;
+        }
+        
+        /**
+         * Bounds the cache to the given total weight, as computed by
+         * {@code weigher} when an entry is written.
+         *
+         * @param maximumWeight the maximum total weight
+         * @param weigher       computes the non-negative weight of an entry
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maximumWeight} is negative
+         * @throws IllegalStateException    if a bound was already set
+         * @throws NullPointerException     if {@code weigher} is null
+         */
+        @SuppressWarnings("unchecked")
+        public <K1 extends K, V1 extends V> Builder<K1, V1> maximumWeight(long maximumWeight, ToIntBiFunction<? super K1, ? super V1> weigher) {
+            Objects.requireNonNull(weigher);
+            if(maximumWeight<0) {
+                throw new IllegalArgumentException();
+            }
+            if(maximum != Long.MAX_VALUE || this.weigher != null) {
+                throw new IllegalStateException("maximum already set");
+            }
+            Builder<K1, V1> self = (Builder<K1, V1>) this;
+            self.maximum = maximumWeight;
+            self.weigher = weigher;
+            return self;
+        }
+        
+        /**
+         * Expires entries once the given duration has elapsed since their
+         * value was last written.
+         *
+         * @param duration the time to live after a write
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code duration} is not positive
+         */
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = toPositiveNanos(duration);
+            return this;
+        }
+        
+        /**
+         * Expires entries once the given duration has elapsed since they
+         * were last read or written.
+         *
+         * @param duration the time to live after an access
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code duration} is not positive
+         */
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = toPositiveNanos(duration);
+            return this;
+        }
+        
+        /**
+         * Sets the executor used to periodically remove expired entries.
+         * If not set, a shared single-threaded daemon
+         * {@link ScheduledThreadPoolExecutor} is used.  Ignored if no
+         * expiration is configured.
+         *
+         * @param scheduler the scheduler
+         *
+         * @return this builder
+         *
+         * @throws NullPointerException if {@code scheduler} is null
+         */
+        public Builder<K, V> scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = Objects.requireNonNull(scheduler);
+            return this;
+        }
+        
+        /**
+         * Builds a cache with the configured settings.
+         *
+         * @param <K1> the type of keys of the cache
+         * @param <V1> the type of values of the cache
+         *
+         * @return a new cache
+         */
+        public <K1 extends K, V1 extends V> BoundedCache<K1, V1> build() {
+            return new BoundedCache<>(this);
+        }
+        
+        private static long toPositiveNanos(Duration duration) {
+            long nanos;
+            try {
+                nanos = duration.toNanos();
+            } catch(ArithmeticException e) {
+                nanos = Long.MAX_VALUE;
+            }
+            if(nanos<=0) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            return nanos;
+        }
+    }
+    
+}
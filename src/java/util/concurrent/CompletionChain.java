@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A chain of synchronous stages that is attached to a
+ * {@link CompletableFuture} as a single completion.
+ *
+ * <p>Each {@code thenApply}, {@code thenAccept}, {@code handle} etc. of a
+ * {@code CompletableFuture} allocates a completion node and a dependent
+ * future, and completing a long chain walks from one future to the next.
+ * A {@code CompletionChain} instead records the stages and, when
+ * {@link #toFuture()} is invoked, pushes a single completion node onto the
+ * source future.  When the source completes, that node runs all stages in
+ * a loop and completes a single dependent future:
+ *
+ * <pre> {@code
+ * CompletableFuture<Reply> reply = CompletionChain.from(rpc.call(request))
+ *     .thenApply(Frame::decode)
+ *     .thenApply(Reply::parse)
+ *     .whenComplete((r, ex) -> metrics.record(r, ex))
+ *     .toFuture();}</pre>
+ *
+ * <p>The stages have the same semantics as the corresponding methods of
+ * {@link CompletionStage}, including how exceptions are propagated, wrapped
+ * in a {@link CompletionException} and passed to {@code handle},
+ * {@code whenComplete} and {@code exceptionally}; only the intermediate
+ * futures are not observable.  With {@link #toFutureAsync(Executor)} the
+ * whole chain is submitted to the executor as one task, instead of one task
+ * per stage as with a sequence of {@code thenApplyAsync} calls.
+ *
+ * <p>A chain is immutable: every method adding a stage returns a new chain
+ * sharing the stages of this one, so a chain prefix may be extended in
+ * several ways and each extension may be attached independently.  A chain
+ * attaches no completion to its source until one of the {@code toFuture}
+ * methods is invoked, and each invocation attaches a new one.
+ *
+ * @param <T> the type of the result of the last stage of this chain
+ *
+ * @see CompletableFuture
+ * @since 11
+ */
+// 同步阶段链：将多个同步阶段融合为上游阶段中的单个下游任务
+public final class CompletionChain<T> {
+    
+    // 阶段类型
+    private static final int APPLY = 0;
+    private static final int ACCEPT = 1;
+    private static final int RUN = 2;
+    private static final int HANDLE = 3;
+    private static final int WHEN_COMPLETE = 4;
+    private static final int EXCEPTIONALLY = 5;
+    
+    private final CompletableFuture<?> source;  // 源头阶段
+    private final CompletionChain<?> prev;      // 上一个阶段，源头为null
+    private final int kind;                     // 当前阶段的类型
+    private final Object action;                // 当前阶段的任务源
+    private final int length;                   // 链上的阶段数量(包括当前阶段)
+    
+    private CompletionChain(CompletableFuture<?> source, CompletionChain<?> prev, int kind, Object action) {
+        this.source = source;
+        this.prev = prev;
+        this.kind = kind;
+        this.action = action;
+        this.length = prev == null ? 0 : prev.length + 1;
+    }
+    
+    /**
+     * Returns an empty chain whose stages will run when the given stage
+     * completes.
+     *
+     * @param source the stage the chain depends on
+     * @param <T>    the type of the result of the source stage
+     *
+     * @return an empty chain depending on {@code source}
+     *
+     * @throws NullPointerException if {@code source} is null
+     */
+    // 返回一个空的阶段链，其阶段会在source完成后执行
+    public static <T> CompletionChain<T> from(CompletionStage<T> source) {
+        return new CompletionChain<>(source.toCompletableFuture(), null, -1, null);
+    }
+    
+    
+    
+    /*▼ 添加阶段 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#thenApply(Function)}.
+     *
+     * @param fn  the function to use to compute the value of the new stage
+     * @param <U> the function's return type
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code fn} is null
+     */
+    // 追加【Function】阶段：上游正常完成时，使用其结果计算新的结果
+    public <U> CompletionChain<U> thenApply(Function<? super T, ? extends U> fn) {
+        return new CompletionChain<>(source, this, APPLY, Objects.requireNonNull(fn));
+    }
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#thenAccept(Consumer)}.
+     *
+     * @param action the action to perform with the value of the previous stage
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code action} is null
+     */
+    // 追加【Consumer】阶段：上游正常完成时，消费其结果
+    public CompletionChain<Void> thenAccept(Consumer<? super T> action) {
+        return new CompletionChain<>(source, this, ACCEPT, Objects.requireNonNull(action));
+    }
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#thenRun(Runnable)}.
+     *
+     * @param action the action to perform
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code action} is null
+     */
+    // 追加【Runnable】阶段：上游正常完成时，执行action
+    public CompletionChain<Void> thenRun(Runnable action) {
+        return new CompletionChain<>(source, this, RUN, Objects.requireNonNull(action));
+    }
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#handle(BiFunction)}.
+     *
+     * @param fn  the function to use to compute the value of the new stage
+     * @param <U> the function's return type
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code fn} is null
+     */
+    // 追加【BiFunction】阶段：无论上游正常完成还是异常完成，都使用其结果与异常计算新的结果
+    public <U> CompletionChain<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+        return new CompletionChain<>(source, this, HANDLE, Objects.requireNonNull(fn));
+    }
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#whenComplete(BiConsumer)}.
+     *
+     * @param action the action to perform
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code action} is null
+     */
+    // 追加【BiConsumer】阶段：无论上游正常完成还是异常完成，都消费其结果与异常，但不改变结果
+    public CompletionChain<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        return new CompletionChain<>(source, this, WHEN_COMPLETE, Objects.requireNonNull(action));
+    }
+    
+    /**
+     * Returns a chain with an additional stage, like
+     * {@link CompletionStage#exceptionally(Function)}.
+     *
+     * @param fn the function to use to compute the value of the new stage
+     *           if the previous stage completed exceptionally
+     *
+     * @return the extended chain
+     *
+     * @throws NullPointerException if {@code fn} is null
+     */
+    // 追加【Function】阶段：上游异常完成时，使用其异常计算新的结果
+    public CompletionChain<T> exceptionally(Function<Throwable, ? extends T> fn) {
+        return new CompletionChain<>(source, this, EXCEPTIONALLY, Objects.requireNonNull(fn));
+    }
+    
+    /*▲ 添加阶段 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 挂载 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Attaches this chain to its source as a single completion, and returns
+     * a new {@code CompletableFuture} that is completed with the outcome of
+     * the last stage.  The stages run in the thread that completes the
+     * source, or in the calling thread if the source is already complete.
+     *
+     * @return the future completed with the outcome of this chain
+     */
+    // 将阶段链挂载到源头阶段，返回的阶段会在所有阶段同步执行完后完成
+    public CompletableFuture<T> toFuture() {
+        return attach(null);
+    }
+    
+    /**
+     * Attaches this chain to its source as a single completion, and returns
+     * a new {@code CompletableFuture} that is completed with the outcome of
+     * the last stage.  All stages run in one task submitted to the default
+     * executor of the source future.
+     *
+     * @return the future completed with the outcome of this chain
+     *
+     * @see CompletableFuture#defaultExecutor()
+     */
+    // 将阶段链挂载到源头阶段，所有阶段作为一个任务提交给源头阶段的默认任务执行器
+    public CompletableFuture<T> toFutureAsync() {
+        return attach(source.defaultExecutor());
+    }
+    
+    /**
+     * Attaches this chain to its source as a single completion, and returns
+     * a new {@code CompletableFuture} that is completed with the outcome of
+     * the last stage.  All stages run in one task submitted to the given
+     * executor.
+     *
+     * @param executor the executor to use for running the stages
+     *
+     * @return the future completed with the outcome of this chain
+     *
+     * @throws NullPointerException if {@code executor} is null
+     */
+    // 将阶段链挂载到源头阶段，所有阶段作为一个任务提交给指定的任务执行器
+    public CompletableFuture<T> toFutureAsync(Executor executor) {
+        return attach(CompletableFuture.screenExecutor(executor));
+    }
+    
+    // 将阶段链挂载到源头阶段，executor为null时同步执行
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<T> attach(Executor executor) {
+        int n = length;
+        int[] kinds = new int[n];
+        Object[] actions = new Object[n];
+        for(CompletionChain<?> c = this; c.prev != null; c = c.prev) {
+            kinds[c.length - 1] = c.kind;
+            actions[c.length - 1] = c.action;
+        }
+        
+        CompletableFuture<Object> upFuture = (CompletableFuture<Object>) source;
+        CompletableFuture<Object> future = upFuture.newIncompleteFuture();
+        
+        // 如果源头阶段已完成，unipush()会立即执行(或提交)该任务
+        upFuture.unipush(new FusedCompletion(executor, future, upFuture, kinds, actions));
+        
+        return (CompletableFuture<T>) (CompletableFuture<?>) future;
+    }
+    
+    /*▲ 挂载 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * The single completion running all stages of a chain.
+     */
+    // 融合后的下游任务：依次执行阶段链上的所有阶段
+    @SuppressWarnings("serial")
+    static final class FusedCompletion extends CompletableFuture.UniCompletion<Object, Object> {
+        int[] kinds;        // 阶段类型
+        Object[] actions;   // 任务源
+        
+        FusedCompletion(Executor executor, CompletableFuture<Object> future, CompletableFuture<Object> upFuture1, int[] kinds, Object[] actions) {
+            super(executor, future, upFuture1);
+            this.kinds = kinds;
+            this.actions = actions;
+        }
+        
+        // 执行所有阶段
+        final CompletableFuture<Object> tryFire(int mode) {
+            CompletableFuture<Object> future = this.future;
+            CompletableFuture<Object> upFuture1 = this.upFuture1;
+            Object upResult1;
+            
+            if(future == null || kinds == null) {
+                return null;
+            }
+            
+            // 如果上游阶段还没有执行结果
+            if(upFuture1 == null || (upResult1 = upFuture1.result) == null) {
+                return null;
+            }
+            
+            if(future.result == null) {
+                try {
+                    // 处理模式是NESTED或SYNC：当前(下游)任务位于上游线程中
+                    if(mode<=0 && !claim()) {
+                        return null;
+                    }
+                    
+                    runStages(future, upResult1, kinds, actions);
+                } catch(Throwable ex) {
+                    // 设置异常结果，例如执行器拒绝了异步任务
+                    future.completeThrowable(ex);
+                }
+            }
+            
+            this.future = null;
+            this.upFuture1 = null;
+            this.kinds = null;
+            this.actions = null;
+            
+            return future.postFire(upFuture1, mode);
+        }
+    }
+    
+    /**
+     * Runs the stages on the raw result of the source and completes the
+     * future.  Like the stages of a CompletableFuture, every stage that ends
+     * exceptionally leaves its exception wrapped in a CompletionException.
+     */
+    // 以源头阶段的执行结果为起点，依次执行各阶段，并设置future的执行结果
+    @SuppressWarnings("unchecked")
+    static void runStages(CompletableFuture<Object> future, Object upResult, int[] kinds, Object[] actions) {
+        Object value = upResult;
+        Throwable ex = null;
+        
+        // 如果上游阶段的任务执行结果是null或异常(被包装到了AltResult中)
+        if(upResult instanceof CompletableFuture.AltResult) {
+            ex = ((CompletableFuture.AltResult) upResult).ex;
+            value = null;
+        }
+        
+        for(int i = 0; i<kinds.length; i++) {
+            Object action = actions[i];
+            try {
+                switch(kinds[i]) {
+                    case APPLY:
+                        if(ex == null) {
+                            value = ((Function<Object, Object>) action).apply(value);
+                        }
+                        break;
+                    case ACCEPT:
+                        if(ex == null) {
+                            ((Consumer<Object>) action).accept(value);
+                            value = null;
+                        }
+                        break;
+                    case RUN:
+                        if(ex == null) {
+                            ((Runnable) action).run();
+                            value = null;
+                        }
+                        break;
+                    case HANDLE:
+                        value = ((BiFunction<Object, Throwable, Object>) action).apply(value, ex);
+                        ex = null;
+                        break;
+                    case WHEN_COMPLETE:
+                        try {
+                            ((BiConsumer<Object, Throwable>) action).accept(value, ex);
+                        } catch(Throwable t) {
+                            if(ex == null) {
+                                ex = t;
+                            } else if(ex != t) {
+                                ex.addSuppressed(t);
+                            }
+                        }
+                        break;
+                    case EXCEPTIONALLY:
+                        if(ex != null) {
+                            value = ((Function<Throwable, Object>) action).apply(ex);
+                            ex = null;
+                        }
+                        break;
+                    default:
+                        throw new AssertionError(kinds[i]);
+                }
+            } catch(Throwable t) {
+                ex = t;
+            }
+            
+            // 与阶段的执行结果一致：异常完成的阶段没有值，且异常会被包装为CompletionException
+            if(ex != null) {
+                value = null;
+                if(!(ex instanceof CompletionException)) {
+                    ex = new CompletionException(ex);
+                }
+            }
+        }
+        
+        if(ex == null) {
+            future.completeValue(value);
+        } else {
+            future.completeThrowable(ex);
+        }
+    }
+    
+}
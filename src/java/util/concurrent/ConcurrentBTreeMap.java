@@ -0,0 +1,2435 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A scalable concurrent {@link ConcurrentNavigableMap} implementation
+ * based on a B+-tree.  The map is sorted according to the
+ * {@linkplain Comparable natural ordering} of its keys, or by a
+ * {@link Comparator} provided at map creation time, depending on which
+ * constructor is used.
+ *
+ * <p>Mappings are stored in fat leaf nodes, each holding up to 64 keys
+ * and values in sorted parallel arrays, and leaves are linked to their
+ * right siblings.  Compared to {@link ConcurrentSkipListMap}, which
+ * allocates at least one node per mapping and chases a pointer per key
+ * comparison, this makes lookups and, above all, ascending range scans
+ * touch far fewer cache lines, and uses considerably less memory for
+ * large maps.  The {@code containsKey}, {@code get}, {@code put} and
+ * {@code remove} operations and their variants take <i>log(n)</i> time.
+ *
+ * <p>Lookups do not write to shared memory: a reader descends the
+ * (immutable) inner nodes and reads a leaf under an optimistic
+ * {@link StampedLock} stamp, retrying under the read lock only if the leaf
+ * was modified meanwhile.  Updates lock just the leaf they change.  Each
+ * leaf records the key range it covers, so readers and writers that race
+ * with a leaf split simply move right along the sibling links, as in
+ * Lehman and Yao's B-link trees.  Splits themselves, which happen about
+ * once every few dozen insertions, are serialized; inner nodes are
+ * replaced copy-on-write.  Leaves are not merged when they become empty;
+ * their space is reused by later insertions into the same key range.
+ *
+ * <p>A map with sorted contents can be built in linear time with the
+ * {@link #ConcurrentBTreeMap(SortedMap)} constructor, which fills leaves
+ * directly instead of inserting one mapping at a time.  When keys are
+ * inserted in ascending order, as with time-series data, leaves are split
+ * at their end and so remain full.
+ *
+ * <p>Iterators and spliterators are
+ * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+ * Ascending iteration, and {@code forEach} over the map and its ascending
+ * submaps, walk the linked leaves and copy each leaf once; descending
+ * iteration performs one search per element and is slower.
+ *
+ * <p>All {@code Map.Entry} pairs returned by methods in this class
+ * and its views represent snapshots of mappings at the time they were
+ * produced. They do <em>not</em> support the {@code Entry.setValue}
+ * method.
+ *
+ * <p>Beware that bulk operations {@code putAll}, {@code equals},
+ * {@code toArray}, {@code containsValue}, and {@code clear} are
+ * <em>not</em> guaranteed to be performed atomically.
+ *
+ * <p>This class and its views and iterators implement all of the
+ * <em>optional</em> methods of the {@link Map} and {@link Iterator}
+ * interfaces. Like most other concurrent collections, this class does
+ * <em>not</em> permit the use of {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see ConcurrentSkipListMap
+ * @since 11
+ */
+// 基于B+树的并发有序映射：叶子结点存放有序的键值数组并通过兄弟指针相连，读操作使用乐观读，写操作只锁定单个叶子
+public class ConcurrentBTreeMap<K, V> extends AbstractMap<K, V> implements ConcurrentNavigableMap<K, V>, Serializable {
+    
+    private static final long serialVersionUID = 5395468063219410311L;
+    
+    /** Maximum number of mappings in a leaf. */
+    static final int LEAF_CAPACITY = 64;
+    
+    /** Maximum number of children of an inner node. */
+    static final int INNER_CAPACITY = 64;
+    
+    /** Mappings per leaf, and children per inner node, when bulk loading. */
+    static final int BULK_LEAF_FILL = LEAF_CAPACITY * 7 / 8;
+    static final int BULK_INNER_FILL = INNER_CAPACITY * 7 / 8;
+    
+    /** Deeper than any tree with fewer than 2^63 mappings. */
+    private static final int MAX_HEIGHT = 64;
+    
+    // 查找操作
+    private static final int EQ = 0;     // 等于
+    private static final int GE = 1;     // 大于等于
+    private static final int GT = 2;     // 大于
+    private static final int LE = 3;     // 小于等于
+    private static final int LT = 4;     // 小于
+    private static final int FIRST = 5;  // 最小
+    private static final int LAST = 6;   // 最大
+    
+    // 迭代器返回的元素类型
+    static final int KEYS = 0;
+    static final int VALUES = 1;
+    static final int ENTRIES = 2;
+    
+    // 在叶子中查找的结果：需要移动到右兄弟、需要转到键更小的叶子、叶子已被废弃需要从根结点重新查找
+    private static final Object RIGHT = new Object();
+    private static final Object LEFT = new Object();
+    private static final Object RESTART = new Object();
+    
+    /**
+     * The comparator used to maintain order in this map, or null if
+     * using natural ordering.
+     *
+     * @serial
+     */
+    final Comparator<? super K> comparator;
+    
+    /** The root, a leaf or an inner node. */
+    private transient volatile Node root;
+    
+    /** Serializes leaf splits and clear. */
+    private transient ReentrantLock structureLock;
+    
+    /** Number of mappings. */
+    private transient LongAdder count;
+    
+    /** Lazily initialized views. */
+    private transient KeySet<K, V> keySet;
+    private transient Values<K, V> values;
+    private transient EntrySet<K, V> entrySet;
+    private transient SubMap<K, V> descendingMap;
+    
+    
+    // VarHandle mechanics
+    private static final VarHandle CHILD = MethodHandles.arrayElementVarHandle(Node[].class);
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Constructs a new, empty map, sorted according to the
+     * {@linkplain Comparable natural ordering} of the keys.
+     */
+    public ConcurrentBTreeMap() {
+        this.comparator = null;
+        initialize(new Leaf<>(null, null, null));
+    }
+    
+    /**
+     * Constructs a new, empty map, sorted according to the specified
+     * comparator.
+     *
+     * @param comparator the comparator that will be used to order this map.
+     *                   If {@code null}, the {@linkplain Comparable natural
+     *                   ordering} of the keys will be used.
+     */
+    public ConcurrentBTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        initialize(new Leaf<>(null, null, null));
+    }
+    
+    /**
+     * Constructs a new map containing the same mappings as the given map,
+     * sorted according to the {@linkplain Comparable natural ordering} of
+     * the keys.
+     *
+     * @param m the map whose mappings are to be placed in this map
+     *
+     * @throws ClassCastException   if the keys in {@code m} are not
+     *                              {@link Comparable}, or are not mutually comparable
+     * @throws NullPointerException if the specified map or any of its keys
+     *                              or values are null
+     */
+    public ConcurrentBTreeMap(Map<? extends K, ? extends V> m) {
+        this.comparator = null;
+        initialize(new Leaf<>(null, null, null));
+        putAll(m);
+    }
+    
+    /**
+     * Constructs a new map containing the same mappings and using the same
+     * ordering as the specified sorted map.  The map is bulk-loaded: leaves
+     * and inner nodes are filled directly from the sorted mappings, in
+     * linear time, leaving some room in each leaf for later insertions.
+     *
+     * @param m the sorted map whose mappings are to be placed in this map,
+     *          and whose comparator is to be used to sort this map
+     *
+     * @throws NullPointerException if the specified sorted map or any of
+     *                              its keys or values are null
+     */
+    public ConcurrentBTreeMap(SortedMap<K, ? extends V> m) {
+        this.comparator = m.comparator();
+        initialize(bulkLoad(m.entrySet().iterator()));
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with the specified key, or
+     * {@code null} if there was no mapping for the key
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        return doPut(key, value, false);
+    }
+    
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        return doPut(key, value, true);
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return (V) doGet(key);
+    }
+    
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or the given defaultValue if this map contains no mapping for the key.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if this map contains
+     *                     no mapping for the given key
+     *
+     * @return the mapping for the key, if present; else the defaultValue
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        V v;
+        return (v = get(key)) == null ? defaultValue : v;
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key for which mapping should be removed
+     *
+     * @return the previous value associated with the specified key, or
+     * {@code null} if there was no mapping for the key
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        return doRemove(key, null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        if(key == null) {
+            throw new NullPointerException();
+        }
+        return value != null && doRemove(key, value) != null;
+    }
+    
+    /**
+     * Removes all of the mappings from this map.  Mappings inserted
+     * concurrently with {@code clear} may or may not survive it.
+     */
+    public void clear() {
+        structureLock.lock();
+        try {
+            Leaf<K, V> leaf = leftmostLeaf();
+            root = new Leaf<>(null, null, null);
+            
+            // 废弃旧树的所有叶子，持有旧叶子的读写操作会从新的根结点重新开始
+            while(leaf != null) {
+                Leaf<K, V> next;
+                leaf.lock.writeLock();
+                try {
+                    leaf.dead = true;
+                    count.add(-leaf.size);
+                    Arrays.fill(leaf.keys, 0, leaf.size, null);
+                    Arrays.fill(leaf.vals, 0, leaf.size, null);
+                    leaf.size = 0;
+                    next = leaf.next;
+                } finally {
+                    leaf.lock.tryUnlockWrite();
+                }
+                leaf = next;
+            }
+        } finally {
+            structureLock.unlock();
+        }
+    }
+    
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 替换 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V replace(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        return doReplace(key, null, value);
+    }
+    
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if(oldValue == null || newValue == null) {
+            throw new NullPointerException();
+        }
+        return doReplace(key, oldValue, newValue) != null;
+    }
+    
+    /*▲ 替换 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified
+     * key.
+     *
+     * @param key key whose presence in this map is to be tested
+     *
+     * @return {@code true} if this map contains a mapping for the specified key
+     *
+     * @throws ClassCastException   if the specified key cannot be compared
+     *                              with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return doGet(key) != null;
+    }
+    
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This operation requires time linear in the
+     * map size.
+     *
+     * @param value value whose presence in this map is to be tested
+     *
+     * @return {@code true} if a mapping to {@code value} exists;
+     * {@code false} otherwise
+     *
+     * @throws NullPointerException if the specified value is null
+     */
+    public boolean containsValue(Object value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        Iterator<V> it = new Iter<>(null, false, null, false, false, VALUES);
+        while(it.hasNext()) {
+            if(value.equals(it.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 视图 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns a {@link NavigableSet} view of the keys contained in this map.
+     * The set's iterator returns the keys in ascending order.
+     *
+     * @return a navigable set view of the keys in this map
+     */
+    public NavigableSet<K> keySet() {
+        KeySet<K, V> ks;
+        if((ks = keySet) != null) {
+            return ks;
+        }
+        return keySet = new KeySet<>(this);
+    }
+    
+    public NavigableSet<K> navigableKeySet() {
+        return keySet();
+    }
+    
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+    
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection's iterator returns the values in ascending order
+     * of the corresponding keys.
+     *
+     * @return a collection view of the values in this map
+     */
+    public Collection<V> values() {
+        Values<K, V> vs;
+        if((vs = values) != null) {
+            return vs;
+        }
+        return values = new Values<>(this);
+    }
+    
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set's iterator returns the entries in ascending key order.
+     * The entries do not support {@code setValue}.
+     *
+     * @return a set view of the mappings contained in this map,
+     * sorted in ascending key order
+     */
+    public Set<Map.Entry<K, V>> entrySet() {
+        EntrySet<K, V> es;
+        if((es = entrySet) != null) {
+            return es;
+        }
+        return entrySet = new EntrySet<>(this);
+    }
+    
+    /*▲ 视图 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Performs the given action for each mapping in this map, in ascending
+     * key order, by walking the linked leaves.
+     *
+     * @param action the action to be performed for each entry
+     *
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if(action == null) {
+            throw new NullPointerException();
+        }
+        forEachInRange(null, false, null, false, action);
+    }
+    
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the number of key-value mappings in this map.  If this map
+     * contains more than {@code Integer.MAX_VALUE} elements, it
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of elements in this map
+     */
+    public int size() {
+        long c = count.sum();
+        return (c >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (c<0L) ? 0 : (int) c;
+    }
+    
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return findNear(null, FIRST) == null;
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 序列化 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Saves this map to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     *
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The key (Object) and value (Object) for each
+     * key-value mapping represented by the map, followed by
+     * {@code null}. The key-value mappings are emitted in key-order
+     * (as determined by the Comparator, or by the keys' natural
+     * ordering if no Comparator).
+     */
+    private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+        s.defaultWriteObject();
+        
+        Iterator<Map.Entry<K, V>> it = new Iter<>(null, false, null, false, false, ENTRIES);
+        while(it.hasNext()) {
+            Map.Entry<K, V> e = it.next();
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+        s.writeObject(null);
+    }
+    
+    /**
+     * Reconstitutes this map from a stream (that is, deserializes it).
+     *
+     * @param s the stream
+     *
+     * @throws ClassNotFoundException if the class of a serialized object
+     *                                could not be found
+     * @throws java.io.IOException    if an I/O error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(final java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        
+        List<Map.Entry<K, V>> list = new ArrayList<>();
+        for(; ; ) {
+            K k = (K) s.readObject();
+            if(k == null) {
+                break;
+            }
+            V v = (V) s.readObject();
+            list.add(new AbstractMap.SimpleImmutableEntry<>(k, v));
+        }
+        
+        initialize(bulkLoad(list.iterator()));
+    }
+    
+    /*▲ 序列化 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ NavigableMap/SortedMap ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+    
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K firstKey() {
+        Map.Entry<K, V> e = findNear(null, FIRST);
+        if(e == null) {
+            throw new NoSuchElementException();
+        }
+        return e.getKey();
+    }
+    
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K lastKey() {
+        Map.Entry<K, V> e = findNear(null, LAST);
+        if(e == null) {
+            throw new NoSuchElementException();
+        }
+        return e.getKey();
+    }
+    
+    /**
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public K lowerKey(K key) {
+        return keyOrNull(lowerEntry(key));
+    }
+    
+    /**
+     * @param key the key
+     *
+     * @return the least key greater than {@code key}, or {@code null} if
+     * there is no such key
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public K higherKey(K key) {
+        return keyOrNull(higherEntry(key));
+    }
+    
+    /**
+     * @param key the key
+     *
+     * @return the greatest key less than or equal to {@code key}, or
+     * {@code null} if there is no such key
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public K floorKey(K key) {
+        return keyOrNull(floorEntry(key));
+    }
+    
+    /**
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the least
+     * key in this map, or {@code null} if the map is empty.
+     * The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     */
+    public Map.Entry<K, V> firstEntry() {
+        return findNear(null, FIRST);
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the greatest
+     * key in this map, or {@code null} if the map is empty.
+     * The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     */
+    public Map.Entry<K, V> lastEntry() {
+        return findNear(null, LAST);
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the greatest key
+     * strictly less than the given key, or {@code null} if there is
+     * no such key. The returned entry does <em>not</em> support the
+     * {@code Entry.setValue} method.
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return findNear(requireKey(key), LT);
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the least key
+     * strictly greater than the given key, or {@code null} if there
+     * is no such key. The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     *
+     * @param key the key
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<K, V> higherEntry(K key) {
+        return findNear(requireKey(key), GT);
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the greatest key
+     * less than or equal to the given key, or {@code null} if there
+     * is no such key. The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     *
+     * @param key the key
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<K, V> floorEntry(K key) {
+        return findNear(requireKey(key), LE);
+    }
+    
+    /**
+     * Returns a key-value mapping associated with the least key
+     * greater than or equal to the given key, or {@code null} if
+     * there is no such entry. The returned entry does <em>not</em>
+     * support the {@code Entry.setValue} method.
+     *
+     * @throws ClassCastException   {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return findNear(requireKey(key), GE);
+    }
+    
+    /**
+     * Removes and returns a key-value mapping associated with
+     * the least key in this map, or {@code null} if the map is empty.
+     * The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     */
+    public Map.Entry<K, V> pollFirstEntry() {
+        for(; ; ) {
+            Map.Entry<K, V> e = findNear(null, FIRST);
+            if(e == null || remove(e.getKey(), e.getValue())) {
+                return e;
+            }
+        }
+    }
+    
+    /**
+     * Removes and returns a key-value mapping associated with
+     * the greatest key in this map, or {@code null} if the map is empty.
+     * The returned entry does <em>not</em> support
+     * the {@code Entry.setValue} method.
+     */
+    public Map.Entry<K, V> pollLastEntry() {
+        for(; ; ) {
+            Map.Entry<K, V> e = findNear(null, LAST);
+            if(e == null || remove(e.getKey(), e.getValue())) {
+                return e;
+            }
+        }
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code fromKey} or {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if(fromKey == null || toKey == null) {
+            throw new NullPointerException();
+        }
+        return new SubMap<>(this, fromKey, fromInclusive, toKey, toInclusive, false);
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code fromKey} or {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        if(toKey == null) {
+            throw new NullPointerException();
+        }
+        return new SubMap<>(this, null, false, toKey, inclusive, false);
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code fromKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        if(fromKey == null) {
+            throw new NullPointerException();
+        }
+        return new SubMap<>(this, fromKey, inclusive, null, false, false);
+    }
+    
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException     if {@code fromKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentNavigableMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+    
+    public ConcurrentNavigableMap<K, V> descendingMap() {
+        ConcurrentNavigableMap<K, V> dm;
+        if((dm = descendingMap) != null) {
+            return dm;
+        }
+        return descendingMap = new SubMap<>(this, null, false, null, false, true);
+    }
+    
+    /*▲ NavigableMap/SortedMap ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 查找 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 初始化非final的transient字段，构造器与反序列化共用
+    private void initialize(Node root) {
+        this.structureLock = new ReentrantLock();
+        this.count = new LongAdder();
+        long n = 0L;
+        for(Leaf<K, V> leaf = leftmostLeaf(root); leaf != null; leaf = leaf.next) {
+            n += leaf.size;
+        }
+        this.count.add(n);
+        this.root = root;
+    }
+    
+    /**
+     * Descends the inner nodes to the leaf covering {@code key}, or, if
+     * {@code strict}, to the leaf covering the keys just below
+     * {@code key}.  As inner nodes may lag behind leaf splits, the
+     * returned leaf may lie to the left of the right one.
+     */
+    // 从根结点下降到key所在的叶子；strict为true时，下降到小于key的键所在的叶子
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> findLeaf(Object key, boolean strict) {
+        Comparator<? super K> c = comparator;
+        Node n = root;
+        while(n instanceof Inner) {
+            Inner in = (Inner) n;
+            Object[] seps = in.keys;
+            
+            // 计算不大于（或小于）key的分隔键的数量，即应当进入的子结点下标
+            int lo = 0, hi = seps.length;
+            while(lo<hi) {
+                int mid = (lo + hi) >>> 1;
+                int r = cpr(c, seps[mid], key);
+                if(r<0 || (r == 0 && !strict)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            
+            n = (Node) CHILD.getAcquire(in.children, lo);
+        }
+        return (Leaf<K, V>) n;
+    }
+    
+    // 返回最左侧的叶子
+    private Leaf<K, V> leftmostLeaf() {
+        return leftmostLeaf(root);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Leaf<K, V> leftmostLeaf(Node n) {
+        while(n instanceof Inner) {
+            n = (Node) CHILD.getAcquire(((Inner) n).children, 0);
+        }
+        return (Leaf<K, V>) n;
+    }
+    
+    // 返回最右侧的叶子（可能尚未反映最近的分裂，调用者需要继续向右移动）
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> rightmostLeaf() {
+        Node n = root;
+        while(n instanceof Inner) {
+            Node[] children = ((Inner) n).children;
+            n = (Node) CHILD.getAcquire(children, children.length - 1);
+        }
+        return (Leaf<K, V>) n;
+    }
+    
+    // 查找key对应的值，不存在时返回null
+    private Object doGet(Object key) {
+        if(key == null) {
+            throw new NullPointerException();
+        }
+        
+        Leaf<K, V> leaf = findLeaf(key, false);
+        for(; ; ) {
+            Object r = readLeaf(leaf, key, EQ);
+            if(r == RIGHT) {
+                leaf = leaf.next;
+            } else if(r == RESTART) {
+                leaf = findLeaf(key, false);
+            } else {
+                return r;
+            }
+        }
+    }
+    
+    /**
+     * Returns the entry related to {@code key} as specified by {@code op},
+     * or {@code null} if there is none.
+     */
+    // 查找与key满足op关系的键值对
+    private Map.Entry<K, V> findNear(Object key, int op) {
+        Leaf<K, V> leaf = startLeaf(key, op);
+        for(; ; ) {
+            Object r = readLeaf(leaf, key, op);
+            if(r == RIGHT) {
+                leaf = leaf.next;
+            } else if(r == LEFT) {
+                // 当前叶子中没有更小的键，转到覆盖该叶子下界以下的键的叶子
+                key = leaf.lowKey;
+                op = LT;
+                leaf = findLeaf(key, true);
+            } else if(r == RESTART) {
+                leaf = startLeaf(key, op);
+            } else {
+                @SuppressWarnings("unchecked")
+                Map.Entry<K, V> e = (Map.Entry<K, V>) r;
+                return e;
+            }
+        }
+    }
+    
+    // 返回op操作开始查找的叶子
+    private Leaf<K, V> startLeaf(Object key, int op) {
+        switch(op) {
+            case FIRST:
+                return leftmostLeaf();
+            case LAST:
+                return rightmostLeaf();
+            default:
+                return findLeaf(key, op == LT);
+        }
+    }
+    
+    /**
+     * Reads a leaf under an optimistic stamp, falling back to the read lock
+     * if the leaf was written meanwhile.  Exceptions thrown while reading an
+     * inconsistent snapshot are ignored.
+     */
+    // 在叶子上执行查找，先使用乐观读，失败后改用读锁
+    private Object readLeaf(Leaf<K, V> leaf, Object key, int op) {
+        StampedLock lock = leaf.lock;
+        
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0L) {
+            Object r;
+            try {
+                r = searchLeaf(leaf, key, op);
+            } catch(RuntimeException e) {
+                if(lock.validate(stamp)) {
+                    throw e;
+                }
+                r = null;
+            }
+            if(lock.validate(stamp)) {
+                return r;
+            }
+        }
+        
+        stamp = lock.readLock();
+        try {
+            return searchLeaf(leaf, key, op);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Searches a leaf.  Returns the value (for EQ) or an entry, null if
+     * there is none, or one of RIGHT, LEFT and RESTART.
+     */
+    // 在叶子中执行查找，返回查找结果或后续动作
+    private Object searchLeaf(Leaf<K, V> leaf, Object key, int op) {
+        if(leaf.dead) {
+            return RESTART;
+        }
+        
+        Comparator<? super K> c = comparator;
+        Object[] keys = leaf.keys;
+        int n = leaf.size;
+        Object high = leaf.highKey;
+        
+        switch(op) {
+            case FIRST:
+                if(n>0) {
+                    return entryAt(leaf, 0);
+                }
+                return high == null ? null : RIGHT;
+            
+            case LAST:
+                if(high != null) {
+                    return RIGHT;
+                }
+                if(n>0) {
+                    return entryAt(leaf, n - 1);
+                }
+                return leaf.lowKey == null ? null : LEFT;
+            
+            case LT:
+                if(high != null && cpr(c, key, high)>0) {
+                    return RIGHT;
+                }
+                break;
+            
+            default:
+                if(high != null && cpr(c, key, high) >= 0) {
+                    return RIGHT;
+                }
+        }
+        
+        int idx = search(c, keys, n, key);
+        int i;
+        switch(op) {
+            case EQ:
+                return idx >= 0 ? leaf.vals[idx] : null;
+            
+            case GE:
+            case GT:
+                i = idx >= 0 ? (op == GE ? idx : idx + 1) : -idx - 1;
+                if(i<n) {
+                    return entryAt(leaf, i);
+                }
+                return high == null ? null : RIGHT;
+            
+            default:    // LE, LT
+                i = idx >= 0 ? (op == LE ? idx : idx - 1) : -idx - 2;
+                if(i >= 0) {
+                    return entryAt(leaf, i);
+                }
+                return leaf.lowKey == null ? null : LEFT;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map.Entry<K, V> entryAt(Leaf<K, V> leaf, int i) {
+        return new AbstractMap.SimpleImmutableEntry<>((K) leaf.keys[i], (V) leaf.vals[i]);
+    }
+    
+    // 在keys[0, n)中二分查找key，找到时返回下标，否则返回-(插入位置+1)
+    static int search(Comparator<?> c, Object[] keys, int n, Object key) {
+        int lo = 0, hi = n - 1;
+        while(lo<=hi) {
+            int mid = (lo + hi) >>> 1;
+            int r = cpr(c, keys[mid], key);
+            if(r<0) {
+                lo = mid + 1;
+            } else if(r>0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+    
+    /*▲ 查找 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 更新 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the leaf covering {@code key}, write-locked.
+     */
+    // 获取key所在的叶子，并对其加写锁
+    private Leaf<K, V> lockLeaf(Object key) {
+        if(key == null) {
+            throw new NullPointerException();
+        }
+        
+        Comparator<? super K> c = comparator;
+        Leaf<K, V> leaf = findLeaf(key, false);
+        for(; ; ) {
+            leaf.lock.writeLock();
+            Leaf<K, V> next;
+            try {
+                if(leaf.dead) {
+                    next = null;
+                } else {
+                    Object high = leaf.highKey;
+                    if(high == null || cpr(c, key, high)<0) {
+                        return leaf;
+                    }
+                    next = leaf.next;
+                }
+            } catch(RuntimeException | Error e) {
+                leaf.lock.tryUnlockWrite();
+                throw e;
+            }
+            leaf.lock.tryUnlockWrite();
+            leaf = (next != null) ? next : findLeaf(key, false);
+        }
+    }
+    
+    // 插入或更新
+    @SuppressWarnings("unchecked")
+    private V doPut(K key, V value, boolean onlyIfAbsent) {
+        for(; ; ) {
+            Leaf<K, V> leaf = lockLeaf(key);
+            try {
+                int n = leaf.size;
+                int idx = search(comparator, leaf.keys, n, key);
+                if(idx >= 0) {
+                    V old = (V) leaf.vals[idx];
+                    if(!onlyIfAbsent) {
+                        leaf.vals[idx] = value;
+                    }
+                    return old;
+                }
+                
+                if(n<LEAF_CAPACITY) {
+                    int i = -idx - 1;
+                    System.arraycopy(leaf.keys, i, leaf.keys, i + 1, n - i);
+                    System.arraycopy(leaf.vals, i, leaf.vals, i + 1, n - i);
+                    leaf.keys[i] = key;
+                    leaf.vals[i] = value;
+                    leaf.size = n + 1;
+                    count.increment();
+                    return null;
+                }
+            } finally {
+                leaf.lock.tryUnlockWrite();
+            }
+            
+            // 叶子已满，先分裂再重试
+            split(key);
+        }
+    }
+    
+    // 移除key的映射；value不为null时，仅在当前值与其相等时移除
+    @SuppressWarnings("unchecked")
+    private V doRemove(Object key, Object value) {
+        Leaf<K, V> leaf = lockLeaf(key);
+        try {
+            int n = leaf.size;
+            int idx = search(comparator, leaf.keys, n, key);
+            if(idx<0) {
+                return null;
+            }
+            
+            V old = (V) leaf.vals[idx];
+            if(value != null && !value.equals(old)) {
+                return null;
+            }
+            
+            System.arraycopy(leaf.keys, idx + 1, leaf.keys, idx, n - idx - 1);
+            System.arraycopy(leaf.vals, idx + 1, leaf.vals, idx, n - idx - 1);
+            leaf.keys[n - 1] = null;
+            leaf.vals[n - 1] = null;
+            leaf.size = n - 1;
+            count.decrement();
+            return old;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+    
+    // 替换key的值；expect不为null时，仅在当前值与其相等时替换
+    @SuppressWarnings("unchecked")
+    private V doReplace(Object key, Object expect, V value) {
+        Leaf<K, V> leaf = lockLeaf(key);
+        try {
+            int idx = search(comparator, leaf.keys, leaf.size, key);
+            if(idx<0) {
+                return null;
+            }
+            
+            V old = (V) leaf.vals[idx];
+            if(expect != null && !expect.equals(old)) {
+                return null;
+            }
+            
+            leaf.vals[idx] = value;
+            return old;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+    
+    /**
+     * Splits the full leaf covering {@code key}, unless another thread has
+     * already made room in it, and posts the new separator to the inner
+     * nodes.
+     */
+    // 分裂key所在的已满叶子，并将新的分隔键插入到内部结点中
+    private void split(Object key) {
+        Comparator<? super K> c = comparator;
+        
+        structureLock.lock();
+        try {
+            Leaf<K, V> leaf = lockLeaf(key);
+            Object sep;
+            Leaf<K, V> right;
+            try {
+                int n = leaf.size;
+                if(n<LEAF_CAPACITY) {
+                    return;
+                }
+                
+                Object[] keys = leaf.keys;
+                Object[] vals = leaf.vals;
+                
+                // 按升序追加时在末尾分裂，使左侧叶子保持满载；否则在中间分裂
+                int mid;
+                if(cpr(c, key, keys[n - 1])>0) {
+                    mid = n;
+                    sep = key;
+                } else {
+                    mid = n >>> 1;
+                    sep = keys[mid];
+                }
+                
+                right = new Leaf<>(sep, leaf.highKey, leaf.next);
+                int rn = n - mid;
+                System.arraycopy(keys, mid, right.keys, 0, rn);
+                System.arraycopy(vals, mid, right.vals, 0, rn);
+                right.size = rn;
+                
+                Arrays.fill(keys, mid, n, null);
+                Arrays.fill(vals, mid, n, null);
+                leaf.size = mid;
+                leaf.highKey = sep;
+                leaf.next = right;  // 发布右兄弟
+            } finally {
+                leaf.lock.tryUnlockWrite();
+            }
+            
+            insertSeparator(leaf, sep, right);
+        } finally {
+            structureLock.unlock();
+        }
+    }
+    
+    /**
+     * Inserts {@code sep} and {@code right} next to {@code leaf} in the
+     * inner nodes, splitting them as needed.  Modified inner nodes are
+     * copied; only the copy is published, by a single reference store,
+     * so readers always see consistent inner nodes.  Called with the
+     * structure lock held.
+     */
+    // 将分隔键sep与新叶子right插入到leaf的父结点中，必要时逐层分裂内部结点
+    private void insertSeparator(Leaf<K, V> leaf, Object sep, Leaf<K, V> right) {
+        Comparator<? super K> c = comparator;
+        
+        // 记录从根结点到leaf的路径，此时内部结点尚未包含sep，因此会下降到leaf
+        Inner[] path = new Inner[MAX_HEIGHT];
+        int[] index = new int[MAX_HEIGHT];
+        int depth = 0;
+        Node n = root;
+        while(n instanceof Inner) {
+            Inner in = (Inner) n;
+            int i = -search(c, in.keys, in.keys.length, sep) - 1;
+            path[depth] = in;
+            index[depth++] = i;
+            n = in.children[i];
+        }
+        assert n == leaf;
+        
+        Node left = leaf;
+        Node extra = right;
+        Object up = sep;
+        
+        for(int d = depth - 1; d >= 0; d--) {
+            Inner p = path[d];
+            int i = index[d];
+            int m = p.children.length;
+            
+            Object[] nk = new Object[m];
+            Node[] nc = new Node[m + 1];
+            System.arraycopy(p.keys, 0, nk, 0, i);
+            nk[i] = up;
+            System.arraycopy(p.keys, i, nk, i + 1, m - 1 - i);
+            System.arraycopy(p.children, 0, nc, 0, i);
+            nc[i] = left;
+            nc[i + 1] = extra;
+            System.arraycopy(p.children, i + 1, nc, i + 2, m - 1 - i);
+            
+            if(nc.length<=INNER_CAPACITY) {
+                // 无需继续分裂，将新结点替换到父结点中
+                Inner np = new Inner(nk, nc);
+                if(d == 0) {
+                    root = np;
+                } else {
+                    CHILD.setRelease(path[d - 1].children, index[d - 1], np);
+                }
+                return;
+            }
+            
+            // 内部结点已满，分裂为两个；在末尾插入时使左侧结点保持满载
+            int half = (i + 2 == nc.length) ? nc.length - 1 : nc.length >>> 1;
+            left = new Inner(Arrays.copyOfRange(nk, 0, half - 1), Arrays.copyOfRange(nc, 0, half));
+            up = nk[half - 1];
+            extra = new Inner(Arrays.copyOfRange(nk, half, nk.length), Arrays.copyOfRange(nc, half, nc.length));
+        }
+        
+        // 根结点分裂，树长高一层
+        root = new Inner(new Object[]{up}, new Node[]{left, extra});
+    }
+    
+    /**
+     * Builds a tree from mappings in ascending key order, filling leaves
+     * and inner nodes to about 7/8 of their capacity.
+     */
+    // 由有序的键值对批量构建B+树
+    private Node bulkLoad(Iterator<? extends Map.Entry<K, ? extends V>> it) {
+        Comparator<? super K> c = comparator;
+        
+        List<Node> level = new ArrayList<>();
+        List<Object> lows = new ArrayList<>();
+        
+        Leaf<K, V> leaf = new Leaf<>(null, null, null);
+        level.add(leaf);
+        lows.add(null);
+        Object prev = null;
+        
+        while(it.hasNext()) {
+            Map.Entry<K, ? extends V> e = it.next();
+            K k = e.getKey();
+            V v = e.getValue();
+            if(k == null || v == null) {
+                throw new NullPointerException();
+            }
+            if(prev != null && cpr(c, prev, k) >= 0) {
+                throw new IllegalStateException("out of order");
+            }
+            prev = k;
+            
+            if(leaf.size == BULK_LEAF_FILL) {
+                Leaf<K, V> next = new Leaf<>(k, null, null);
+                leaf.highKey = k;
+                leaf.next = next;
+                leaf = next;
+                level.add(leaf);
+                lows.add(k);
+            }
+            leaf.keys[leaf.size] = k;
+            leaf.vals[leaf.size++] = v;
+        }
+        
+        // 自底向上逐层构建内部结点
+        while(level.size()>1) {
+            List<Node> parents = new ArrayList<>();
+            List<Object> parentLows = new ArrayList<>();
+            int size = level.size();
+            for(int from = 0; from<size; ) {
+                int to = Math.min(size, from + BULK_INNER_FILL);
+                // 避免最后一个结点只有一个孩子
+                if(size - to == 1) {
+                    to--;
+                }
+                Node[] children = level.subList(from, to).toArray(new Node[0]);
+                Object[] seps = lows.subList(from + 1, to).toArray();
+                parents.add(new Inner(seps, children));
+                parentLows.add(lows.get(from));
+                from = to;
+            }
+            level = parents;
+            lows = parentLows;
+        }
+        
+        return level.get(0);
+    }
+    
+    /*▲ 更新 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Performs the given action for each mapping within the given bounds,
+     * in ascending order, copying one leaf at a time.
+     */
+    // 按升序遍历指定范围内的键值对，每次复制一个叶子
+    @SuppressWarnings("unchecked")
+    void forEachInRange(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, BiConsumer<? super K, ? super V> action) {
+        Comparator<? super K> c = comparator;
+        Object from = lo;
+        boolean fromInclusive = loInclusive;
+        Leaf<K, V> leaf = (lo == null) ? leftmostLeaf() : findLeaf(lo, false);
+        
+        while(leaf != null) {
+            Batch b = snapshot(leaf);
+            if(b == null) {
+                // 叶子已被废弃，从当前位置重新开始
+                leaf = (from == null) ? leftmostLeaf() : findLeaf(from, false);
+                continue;
+            }
+            
+            for(int i = 0; i<b.size; i++) {
+                Object k = b.keys[i];
+                if(from != null) {
+                    int r = cpr(c, k, from);
+                    if(r<0 || (r == 0 && !fromInclusive)) {
+                        continue;
+                    }
+                }
+                if(hi != null) {
+                    int r = cpr(c, k, hi);
+                    if(r>0 || (r == 0 && !hiInclusive)) {
+                        return;
+                    }
+                }
+                action.accept((K) k, (V) b.vals[i]);
+                from = k;
+                fromInclusive = false;
+            }
+            
+            leaf = (Leaf<K, V>) b.next;
+        }
+    }
+    
+    /**
+     * Returns a consistent copy of the leaf, or null if the leaf is dead.
+     */
+    // 返回叶子的一致性快照，叶子已被废弃时返回null
+    private Batch snapshot(Leaf<K, V> leaf) {
+        StampedLock lock = leaf.lock;
+        
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0L) {
+            Batch b = copyLeaf(leaf);
+            if(lock.validate(stamp)) {
+                return b;
+            }
+        }
+        
+        stamp = lock.readLock();
+        try {
+            return copyLeaf(leaf);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private static Batch copyLeaf(Leaf<?, ?> leaf) {
+        if(leaf.dead) {
+            return null;
+        }
+        int n = leaf.size;
+        return new Batch(Arrays.copyOf(leaf.keys, n), Arrays.copyOf(leaf.vals, n), n, leaf.next);
+    }
+    
+    // 校验并返回key
+    private static Object requireKey(Object key) {
+        if(key == null) {
+            throw new NullPointerException();
+        }
+        return key;
+    }
+    
+    private static <K, V> K keyOrNull(Map.Entry<K, V> e) {
+        return (e == null) ? null : e.getKey();
+    }
+    
+    /**
+     * Compares using comparator or natural ordering if null.
+     * Called only by methods that have performed required type checks.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int cpr(Comparator c, Object x, Object y) {
+        return (c != null) ? c.compare(x, y) : ((Comparable) x).compareTo(y);
+    }
+    
+    static <E> List<E> toList(Collection<E> c) {
+        // Using size() here would be a pessimization.
+        ArrayList<E> list = new ArrayList<E>();
+        for(E e : c) {
+            list.add(e);
+        }
+        return list;
+    }
+    
+    
+    
+    /** Base class of tree nodes. */
+    abstract static class Node {
+    }
+    
+    /**
+     * An inner node: {@code children[i]} covers the keys in
+     * {@code [keys[i - 1], keys[i])}.  Inner nodes are never modified once
+     * published, except that a child reference may be replaced by a copy
+     * of that child.
+     */
+    // 内部结点，只包含分隔键与子结点，发布后不再修改（子结点引用可以被替换为该子结点的副本）
+    static final class Inner extends Node {
+        final Object[] keys;
+        final Node[] children;
+        
+        Inner(Object[] keys, Node[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+    }
+    
+    /**
+     * A leaf: holds the mappings with keys in {@code [lowKey, highKey)},
+     * in sorted order.  All fields but {@code lowKey} are written under the
+     * write lock, and read either under the read lock or optimistically.
+     */
+    // 叶子结点，存放[lowKey, highKey)范围内的键值对
+    static final class Leaf<K, V> extends Node {
+        final StampedLock lock = new StampedLock();
+        final Object[] keys = new Object[LEAF_CAPACITY];
+        final Object[] vals = new Object[LEAF_CAPACITY];
+        int size;
+        
+        /** Inclusive lower bound of the keys of this leaf, or null; immutable. */
+        final Object lowKey;
+        
+        /** Exclusive upper bound of the keys of this leaf, or null; only lowered, by splits. */
+        Object highKey;
+        
+        /** Right sibling, or null for the rightmost leaf. */
+        volatile Leaf<K, V> next;
+        
+        /** Set when the leaf has been detached by clear. */
+        boolean dead;
+        
+        Leaf(Object lowKey, Object highKey, Leaf<K, V> next) {
+            this.lowKey = lowKey;
+            this.highKey = highKey;
+            this.next = next;
+        }
+    }
+    
+    /** A copy of the mappings of a leaf. */
+    static final class Batch {
+        final Object[] keys;
+        final Object[] vals;
+        final int size;
+        final Leaf<?, ?> next;
+        
+        Batch(Object[] keys, Object[] vals, int size, Leaf<?, ?> next) {
+            this.keys = keys;
+            this.vals = vals;
+            this.size = size;
+            this.next = next;
+        }
+    }
+    
+    
+    
+    /**
+     * Iterator over the mappings in a key range.  Ascending iterators copy
+     * one leaf at a time and then walk to its right sibling; descending
+     * iterators search for each next key.
+     */
+    // 指定范围内键值对的迭代器
+    final class Iter<T> implements Iterator<T> {
+        final Object lo, hi;
+        final boolean loInclusive, hiInclusive, descending;
+        final int kind;
+        
+        /** Where to resume: the last key passed, or the range bound. */
+        Object from;
+        boolean fromInclusive;
+        
+        /** Current leaf copy, for ascending iteration. */
+        Batch batch;
+        int index;
+        Leaf<K, V> nextLeaf;
+        
+        Object nextKey, nextValue;
+        Object lastReturned;
+        
+        Iter(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, boolean descending, int kind) {
+            this.lo = lo;
+            this.hi = hi;
+            this.loInclusive = loInclusive;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+            this.kind = kind;
+            if(descending) {
+                from = hi;
+                fromInclusive = hiInclusive;
+            } else {
+                from = lo;
+                fromInclusive = loInclusive;
+                nextLeaf = (lo == null) ? leftmostLeaf() : findLeaf(lo, false);
+            }
+            advance();
+        }
+        
+        public final boolean hasNext() {
+            return nextKey != null;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public T next() {
+            Object k = nextKey, v = nextValue;
+            if(k == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = k;
+            advance();
+            switch(kind) {
+                case KEYS:
+                    return (T) k;
+                case VALUES:
+                    return (T) v;
+                default:
+                    return (T) new AbstractMap.SimpleImmutableEntry<>(k, v);
+            }
+        }
+        
+        public final void remove() {
+            Object k = lastReturned;
+            if(k == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentBTreeMap.this.remove(k);
+            lastReturned = null;
+        }
+        
+        // 预取下一个键值对
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            Comparator<? super K> c = comparator;
+            
+            if(descending) {
+                Map.Entry<K, V> e = (from == null) ? findNear(null, LAST) : findNear(from, fromInclusive ? LE : LT);
+                if(e == null || (lo != null && isBelow(c, e.getKey()))) {
+                    nextKey = nextValue = null;
+                } else {
+                    nextKey = from = e.getKey();
+                    nextValue = e.getValue();
+                    fromInclusive = false;
+                }
+                return;
+            }
+            
+            for(; ; ) {
+                Batch b = batch;
+                if(b != null) {
+                    while(index<b.size) {
+                        Object k = b.keys[index];
+                        Object v = b.vals[index++];
+                        if(from != null) {
+                            int r = cpr(c, k, from);
+                            if(r<0 || (r == 0 && !fromInclusive)) {
+                                continue;
+                            }
+                        }
+                        if(hi != null) {
+                            int r = cpr(c, k, hi);
+                            if(r>0 || (r == 0 && !hiInclusive)) {
+                                break;
+                            }
+                        }
+                        nextKey = from = k;
+                        nextValue = v;
+                        fromInclusive = false;
+                        return;
+                    }
+                }
+                
+                Leaf<K, V> leaf = nextLeaf;
+                if(leaf == null || (b != null && index<b.size)) {
+                    // 遍历结束，或已超出上界
+                    nextKey = nextValue = null;
+                    batch = null;
+                    return;
+                }
+                
+                b = snapshot(leaf);
+                if(b == null) {
+                    nextLeaf = (from == null) ? leftmostLeaf() : findLeaf(from, false);
+                    continue;
+                }
+                batch = b;
+                index = 0;
+                nextLeaf = (Leaf<K, V>) b.next;
+            }
+        }
+        
+        private boolean isBelow(Comparator<? super K> c, Object k) {
+            int r = cpr(c, k, lo);
+            return r<0 || (r == 0 && !loInclusive);
+        }
+    }
+    
+    // 各视图与子映射返回的迭代器
+    @SuppressWarnings("unchecked")
+    static <K, V, T> Iterator<T> iterator(ConcurrentNavigableMap<K, V> m, int kind) {
+        if(m instanceof ConcurrentBTreeMap) {
+            return ((ConcurrentBTreeMap<K, V>) m).new Iter<>(null, false, null, false, false, kind);
+        }
+        SubMap<K, V> sm = (SubMap<K, V>) m;
+        return sm.m.new Iter<>(sm.lo, sm.loInclusive, sm.hi, sm.hiInclusive, sm.isDescending, kind);
+    }
+    
+    // 各视图返回的可分割迭代器
+    static <T> Spliterator<T> spliterator(ConcurrentNavigableMap<?, ?> m, Iterator<T> it, int characteristics) {
+        return Spliterators.spliteratorUnknownSize(it, characteristics | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+    }
+    
+    
+    
+    /* View classes are static, delegating to a ConcurrentNavigableMap to allow use by SubMaps. */
+    
+    // key的集合
+    static final class KeySet<K, V> extends AbstractSet<K> implements NavigableSet<K> {
+        final ConcurrentNavigableMap<K, V> m;
+        
+        KeySet(ConcurrentNavigableMap<K, V> map) {
+            m = map;
+        }
+        
+        public int size() {
+            return m.size();
+        }
+        
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+        
+        public boolean contains(Object o) {
+            return m.containsKey(o);
+        }
+        
+        public boolean remove(Object o) {
+            return m.remove(o) != null;
+        }
+        
+        public void clear() {
+            m.clear();
+        }
+        
+        public K lower(K e) {
+            return m.lowerKey(e);
+        }
+        
+        public K floor(K e) {
+            return m.floorKey(e);
+        }
+        
+        public K ceiling(K e) {
+            return m.ceilingKey(e);
+        }
+        
+        public K higher(K e) {
+            return m.higherKey(e);
+        }
+        
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+        
+        public K first() {
+            return m.firstKey();
+        }
+        
+        public K last() {
+            return m.lastKey();
+        }
+        
+        public K pollFirst() {
+            return keyOrNull(m.pollFirstEntry());
+        }
+        
+        public K pollLast() {
+            return keyOrNull(m.pollLastEntry());
+        }
+        
+        public Iterator<K> iterator() {
+            return ConcurrentBTreeMap.iterator(m, KEYS);
+        }
+        
+        public boolean equals(Object o) {
+            if(o == this) {
+                return true;
+            }
+            
+            if(!(o instanceof Set)) {
+                return false;
+            }
+            
+            Collection<?> c = (Collection<?>) o;
+            try {
+                return containsAll(c) && c.containsAll(this);
+            } catch(ClassCastException | NullPointerException unused) {
+                return false;
+            }
+        }
+        
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+        
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+        
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+        
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+        
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+        
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+        
+        public NavigableSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        
+        public NavigableSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+        
+        public NavigableSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+        
+        public NavigableSet<K> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+        
+        public Spliterator<K> spliterator() {
+            // 只有自然顺序才能声明SORTED，否则getComparator()无法返回正确的比较器
+            int sorted = (m.comparator() == null) ? Spliterator.SORTED : 0;
+            return ConcurrentBTreeMap.spliterator(m, iterator(), Spliterator.DISTINCT | sorted);
+        }
+    }
+    
+    // value的集合
+    static final class Values<K, V> extends AbstractCollection<V> {
+        final ConcurrentNavigableMap<K, V> m;
+        
+        Values(ConcurrentNavigableMap<K, V> map) {
+            m = map;
+        }
+        
+        public Iterator<V> iterator() {
+            return ConcurrentBTreeMap.iterator(m, VALUES);
+        }
+        
+        public int size() {
+            return m.size();
+        }
+        
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+        
+        public boolean contains(Object o) {
+            return m.containsValue(o);
+        }
+        
+        public void clear() {
+            m.clear();
+        }
+        
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+        
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+        
+        public Spliterator<V> spliterator() {
+            return ConcurrentBTreeMap.spliterator(m, iterator(), 0);
+        }
+    }
+    
+    // key-value的集合
+    static final class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
+        final ConcurrentNavigableMap<K, V> m;
+        
+        EntrySet(ConcurrentNavigableMap<K, V> map) {
+            m = map;
+        }
+        
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return ConcurrentBTreeMap.iterator(m, ENTRIES);
+        }
+        
+        public boolean contains(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            V v = m.get(e.getKey());
+            return v != null && v.equals(e.getValue());
+        }
+        
+        public boolean remove(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return m.remove(e.getKey(), e.getValue());
+        }
+        
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+        
+        public int size() {
+            return m.size();
+        }
+        
+        public void clear() {
+            m.clear();
+        }
+        
+        public boolean equals(Object o) {
+            if(o == this) {
+                return true;
+            }
+            
+            if(!(o instanceof Set)) {
+                return false;
+            }
+            
+            Collection<?> c = (Collection<?>) o;
+            try {
+                return containsAll(c) && c.containsAll(this);
+            } catch(ClassCastException | NullPointerException unused) {
+                return false;
+            }
+        }
+        
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+        
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+        
+        public Spliterator<Map.Entry<K, V>> spliterator() {
+            return ConcurrentBTreeMap.spliterator(m, iterator(), Spliterator.DISTINCT);
+        }
+    }
+    
+    
+    
+    /**
+     * Submaps returned by {@link ConcurrentBTreeMap} submap operations
+     * represent a subrange of mappings of their underlying maps.
+     * Instances of this class support all methods of their underlying
+     * maps, differing in that mappings outside their range are ignored,
+     * and attempts to add mappings outside their ranges result in {@link
+     * IllegalArgumentException}.
+     */
+    // 子映射，表示底层映射中一个范围内的键值对
+    static final class SubMap<K, V> extends AbstractMap<K, V> implements ConcurrentNavigableMap<K, V>, Serializable {
+        private static final long serialVersionUID = -7647078645895051609L;
+        
+        /** Underlying map */
+        final ConcurrentBTreeMap<K, V> m;
+        
+        /** lower bound key, or null if from start */
+        final K lo;
+        
+        /** upper bound key, or null if to end */
+        final K hi;
+        
+        /** inclusion flag for lo */
+        final boolean loInclusive;
+        
+        /** inclusion flag for hi */
+        final boolean hiInclusive;
+        
+        /** direction */
+        final boolean isDescending;
+        
+        // Lazily initialized view holders
+        private transient KeySet<K, V> keySetView;
+        private transient Values<K, V> valuesView;
+        private transient EntrySet<K, V> entrySetView;
+        
+        /**
+         * Creates a new submap, initializing all fields.
+         */
+        SubMap(ConcurrentBTreeMap<K, V> map, K fromKey, boolean fromInclusive, K toKey, boolean toInclusive, boolean isDescending) {
+            if(fromKey != null && toKey != null && cpr(map.comparator, fromKey, toKey)>0) {
+                throw new IllegalArgumentException("inconsistent range");
+            }
+            this.m = map;
+            this.lo = fromKey;
+            this.hi = toKey;
+            this.loInclusive = fromInclusive;
+            this.hiInclusive = toInclusive;
+            this.isDescending = isDescending;
+        }
+        
+        /*  ----------------  Utilities -------------- */
+        
+        boolean tooLow(Object key) {
+            int c;
+            return lo != null && ((c = cpr(m.comparator, key, lo))<0 || (c == 0 && !loInclusive));
+        }
+        
+        boolean tooHigh(Object key) {
+            int c;
+            return hi != null && ((c = cpr(m.comparator, key, hi))>0 || (c == 0 && !hiInclusive));
+        }
+        
+        boolean inBounds(Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+        
+        void checkKeyBounds(K key) {
+            if(key == null) {
+                throw new NullPointerException();
+            }
+            if(!inBounds(key)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+        }
+        
+        // 范围内最小的键值对
+        Map.Entry<K, V> lowestEntry() {
+            Map.Entry<K, V> e = (lo == null) ? m.findNear(null, FIRST) : m.findNear(lo, loInclusive ? GE : GT);
+            return (e == null || tooHigh(e.getKey())) ? null : e;
+        }
+        
+        // 范围内最大的键值对
+        Map.Entry<K, V> highestEntry() {
+            Map.Entry<K, V> e = (hi == null) ? m.findNear(null, LAST) : m.findNear(hi, hiInclusive ? LE : LT);
+            return (e == null || tooLow(e.getKey())) ? null : e;
+        }
+        
+        // 在范围内按升序语义查找与key满足op关系的键值对
+        Map.Entry<K, V> absNear(K key, int op) {
+            if(key == null) {
+                throw new NullPointerException();
+            }
+            if(op == GE || op == GT) {
+                if(tooLow(key)) {
+                    return lowestEntry();
+                }
+                Map.Entry<K, V> e = m.findNear(key, op);
+                return (e == null || tooHigh(e.getKey())) ? null : e;
+            } else {
+                if(tooHigh(key)) {
+                    return highestEntry();
+                }
+                Map.Entry<K, V> e = m.findNear(key, op);
+                return (e == null || tooLow(e.getKey())) ? null : e;
+            }
+        }
+        
+        Map.Entry<K, V> removeLowest() {
+            for(; ; ) {
+                Map.Entry<K, V> e = lowestEntry();
+                if(e == null || m.remove(e.getKey(), e.getValue())) {
+                    return e;
+                }
+            }
+        }
+        
+        Map.Entry<K, V> removeHighest() {
+            for(; ; ) {
+                Map.Entry<K, V> e = highestEntry();
+                if(e == null || m.remove(e.getKey(), e.getValue())) {
+                    return e;
+                }
+            }
+        }
+        
+        /* ----------------  Map API methods -------------- */
+        
+        public boolean containsKey(Object key) {
+            if(key == null) {
+                throw new NullPointerException();
+            }
+            return inBounds(key) && m.containsKey(key);
+        }
+        
+        public V get(Object key) {
+            if(key == null) {
+                throw new NullPointerException();
+            }
+            return (!inBounds(key)) ? null : m.get(key);
+        }
+        
+        public V put(K key, V value) {
+            checkKeyBounds(key);
+            return m.put(key, value);
+        }
+        
+        public V remove(Object key) {
+            return (!inBounds(key)) ? null : m.remove(key);
+        }
+        
+        public int size() {
+            long count = 0;
+            for(Iterator<K> it = ConcurrentBTreeMap.iterator(this, KEYS); it.hasNext(); it.next()) {
+                ++count;
+            }
+            return count >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+        }
+        
+        public boolean isEmpty() {
+            return lowestEntry() == null;
+        }
+        
+        public boolean containsValue(Object value) {
+            if(value == null) {
+                throw new NullPointerException();
+            }
+            for(Iterator<V> it = ConcurrentBTreeMap.iterator(this, VALUES); it.hasNext(); ) {
+                if(value.equals(it.next())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        public void clear() {
+            for(Iterator<K> it = ConcurrentBTreeMap.iterator(this, KEYS); it.hasNext(); ) {
+                m.remove(it.next());
+            }
+        }
+        
+        /**
+         * Performs the given action for each mapping in this submap, in
+         * the order of this submap.  Ascending submaps walk the linked
+         * leaves of the underlying map from the lower bound.
+         */
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            if(action == null) {
+                throw new NullPointerException();
+            }
+            if(!isDescending) {
+                m.forEachInRange(lo, loInclusive, hi, hiInclusive, action);
+            } else {
+                for(Iterator<Map.Entry<K, V>> it = ConcurrentBTreeMap.iterator(this, ENTRIES); it.hasNext(); ) {
+                    Map.Entry<K, V> e = it.next();
+                    action.accept(e.getKey(), e.getValue());
+                }
+            }
+        }
+        
+        /* ----------------  ConcurrentMap API methods -------------- */
+        
+        public V putIfAbsent(K key, V value) {
+            checkKeyBounds(key);
+            return m.putIfAbsent(key, value);
+        }
+        
+        public boolean remove(Object key, Object value) {
+            return inBounds(key) && m.remove(key, value);
+        }
+        
+        public boolean replace(K key, V oldValue, V newValue) {
+            checkKeyBounds(key);
+            return m.replace(key, oldValue, newValue);
+        }
+        
+        public V replace(K key, V value) {
+            checkKeyBounds(key);
+            return m.replace(key, value);
+        }
+        
+        /* ----------------  SortedMap API methods -------------- */
+        
+        public Comparator<? super K> comparator() {
+            Comparator<? super K> cmp = m.comparator();
+            if(isDescending) {
+                return Collections.reverseOrder(cmp);
+            } else {
+                return cmp;
+            }
+        }
+        
+        /**
+         * Utility to create submaps, where given bounds override
+         * unbounded(null) ones and/or are checked against bounded ones.
+         */
+        SubMap<K, V> newSubMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            Comparator<? super K> cmp = m.comparator;
+            if(isDescending) { // flip senses
+                K tk = fromKey;
+                fromKey = toKey;
+                toKey = tk;
+                boolean ti = fromInclusive;
+                fromInclusive = toInclusive;
+                toInclusive = ti;
+            }
+            if(lo != null) {
+                if(fromKey == null) {
+                    fromKey = lo;
+                    fromInclusive = loInclusive;
+                } else {
+                    int c = cpr(cmp, fromKey, lo);
+                    if(c<0 || (c == 0 && !loInclusive && fromInclusive)) {
+                        throw new IllegalArgumentException("key out of range");
+                    }
+                }
+            }
+            if(hi != null) {
+                if(toKey == null) {
+                    toKey = hi;
+                    toInclusive = hiInclusive;
+                } else {
+                    int c = cpr(cmp, toKey, hi);
+                    if(c>0 || (c == 0 && !hiInclusive && toInclusive)) {
+                        throw new IllegalArgumentException("key out of range");
+                    }
+                }
+            }
+            return new SubMap<K, V>(m, fromKey, fromInclusive, toKey, toInclusive, isDescending);
+        }
+        
+        public SubMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            if(fromKey == null || toKey == null) {
+                throw new NullPointerException();
+            }
+            return newSubMap(fromKey, fromInclusive, toKey, toInclusive);
+        }
+        
+        public SubMap<K, V> headMap(K toKey, boolean inclusive) {
+            if(toKey == null) {
+                throw new NullPointerException();
+            }
+            return newSubMap(null, false, toKey, inclusive);
+        }
+        
+        public SubMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            if(fromKey == null) {
+                throw new NullPointerException();
+            }
+            return newSubMap(fromKey, inclusive, null, false);
+        }
+        
+        public SubMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+        
+        public SubMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+        
+        public SubMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+        
+        public SubMap<K, V> descendingMap() {
+            return new SubMap<K, V>(m, lo, loInclusive, hi, hiInclusive, !isDescending);
+        }
+        
+        /* ----------------  Relational methods -------------- */
+        
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return absNear(key, isDescending ? LE : GE);
+        }
+        
+        public K ceilingKey(K key) {
+            return keyOrNull(ceilingEntry(key));
+        }
+        
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return absNear(key, isDescending ? GT : LT);
+        }
+        
+        public K lowerKey(K key) {
+            return keyOrNull(lowerEntry(key));
+        }
+        
+        public Map.Entry<K, V> floorEntry(K key) {
+            return absNear(key, isDescending ? GE : LE);
+        }
+        
+        public K floorKey(K key) {
+            return keyOrNull(floorEntry(key));
+        }
+        
+        public Map.Entry<K, V> higherEntry(K key) {
+            return absNear(key, isDescending ? LT : GT);
+        }
+        
+        public K higherKey(K key) {
+            return keyOrNull(higherEntry(key));
+        }
+        
+        public K firstKey() {
+            Map.Entry<K, V> e = firstEntry();
+            if(e == null) {
+                throw new NoSuchElementException();
+            }
+            return e.getKey();
+        }
+        
+        public K lastKey() {
+            Map.Entry<K, V> e = lastEntry();
+            if(e == null) {
+                throw new NoSuchElementException();
+            }
+            return e.getKey();
+        }
+        
+        public Map.Entry<K, V> firstEntry() {
+            return isDescending ? highestEntry() : lowestEntry();
+        }
+        
+        public Map.Entry<K, V> lastEntry() {
+            return isDescending ? lowestEntry() : highestEntry();
+        }
+        
+        public Map.Entry<K, V> pollFirstEntry() {
+            return isDescending ? removeHighest() : removeLowest();
+        }
+        
+        public Map.Entry<K, V> pollLastEntry() {
+            return isDescending ? removeLowest() : removeHighest();
+        }
+        
+        /* ---------------- Submap Views -------------- */
+        
+        public NavigableSet<K> keySet() {
+            KeySet<K, V> ks;
+            if((ks = keySetView) != null) {
+                return ks;
+            }
+            return keySetView = new KeySet<>(this);
+        }
+        
+        public NavigableSet<K> navigableKeySet() {
+            return keySet();
+        }
+        
+        public Collection<V> values() {
+            Values<K, V> vs;
+            if((vs = valuesView) != null) {
+                return vs;
+            }
+            return valuesView = new Values<>(this);
+        }
+        
+        public Set<Map.Entry<K, V>> entrySet() {
+            EntrySet<K, V> es;
+            if((es = entrySetView) != null) {
+                return es;
+            }
+            return entrySetView = new EntrySet<K, V>(this);
+        }
+        
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+    }
+    
+}
@@ -244,6 +244,36 @@ public class Executors {
         return new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
     }
 
+    /**
+     * Creates a thread pool that reuses a fixed number of threads
+     * operating off a {@link WorkStealingBlockingQueue}: each thread
+     * submits to and takes from its own sub-queue, and steals from the
+     * others when that sub-queue is empty.  Apart from the queue, the pool
+     * behaves like one created by {@link #newFixedThreadPool(int)}, but
+     * submissions and takes from many threads no longer serialize on the
+     * locks of a single {@link LinkedBlockingQueue}.
+     *
+     * @param nThreads the number of threads in the pool
+     *
+     * @return the newly created thread pool
+     *
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @since 11
+     */
+    /*
+     *【固定容量线程池】，每个工作线程拥有本地子队列，并可相互窃取任务
+     *
+     * 线程池中常驻线程数量为nThreads
+     *
+     * 配置：
+     * - 阻塞队列   : WorkStealingBlockingQueue
+     * -【核心阙值】: nThreads
+     * -【最大阙值】: nThreads
+     */
+    public static ExecutorService newWorkStealingFixedThreadPool(int nThreads) {
+        return new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new WorkStealingBlockingQueue<Runnable>(nThreads));
+    }
+    
     /**
      * Creates a thread pool that reuses a fixed number of threads
      * operating off a shared unbounded queue, using the provided
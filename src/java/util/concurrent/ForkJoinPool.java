@@ -792,6 +792,19 @@ public class ForkJoinPool extends AbstractExecutorService {
     // 各线程累计的任务窃取数量
     volatile long stealCount;            // collects worker nsteals
     
+    // 已移除的【工作队列】累计的分发、本地获取、park、扫描落空次数，在deregisterWorker中汇总
+    volatile long retiredPushCount;      // collects worker npushes
+    volatile long retiredPopCount;       // collects worker npops
+    volatile long retiredParkCount;      // collects worker nparks
+    volatile long retiredScanFailureCount; // collects worker nscanFails
+    
+    // tryCompensate中为补偿阻塞的【工作线程】而新建的【工作线程】数量
+    volatile long compensationCreationCount;
+    // tryCompensate中为补偿阻塞的【工作线程】而唤醒的空闲【工作线程】数量
+    volatile long compensationReleaseCount;
+    // tryCompensate中以临时降低活跃度代替补偿的次数
+    volatile long compensationReductionCount;
+    
     final long keepAlive;                // milliseconds before dropping if idle
     
     // 魔数，辅助生成【工作队列】的ID
@@ -883,6 +896,9 @@ public class ForkJoinPool extends AbstractExecutorService {
     // VarHandle mechanics
     private static final VarHandle CTL;
     private static final VarHandle MODE;
+    private static final VarHandle COMPENSATION_CREATIONS;
+    private static final VarHandle COMPENSATION_RELEASES;
+    private static final VarHandle COMPENSATION_REDUCTIONS;
     static final VarHandle QA;
     
     static {
@@ -890,6 +906,9 @@ public class ForkJoinPool extends AbstractExecutorService {
             MethodHandles.Lookup l = MethodHandles.lookup();
             CTL = l.findVarHandle(ForkJoinPool.class, "ctl", long.class);
             MODE = l.findVarHandle(ForkJoinPool.class, "mode", int.class);
+            COMPENSATION_CREATIONS = l.findVarHandle(ForkJoinPool.class, "compensationCreationCount", long.class);
+            COMPENSATION_RELEASES = l.findVarHandle(ForkJoinPool.class, "compensationReleaseCount", long.class);
+            COMPENSATION_REDUCTIONS = l.findVarHandle(ForkJoinPool.class, "compensationReductionCount", long.class);
             QA = MethodHandles.arrayElementVarHandle(ForkJoinTask[].class);
         } catch(ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
@@ -2104,6 +2123,12 @@ public class ForkJoinPool extends AbstractExecutorService {
                     
                     // 移除该【工作队列】时，需要统计其中包含的窃取来的任务数量
                     stealCount += ns;
+                    
+                    // 同时汇总该【工作队列】的其它计数
+                    retiredPushCount += (long) wq.npushes & 0xffffffffL;
+                    retiredPopCount += (long) wq.npops & 0xffffffffL;
+                    retiredParkCount += (long) wq.nparks & 0xffffffffL;
+                    retiredScanFailureCount += (long) wq.nscanFails & 0xffffffffL;
                 }
             }
             
@@ -2245,6 +2270,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                 
                 // 如果窃取过程中没有发现排队任务
             } else {
+                // 记录扫描落空的次数
+                ++wq.nscanFails;
+                
                 // enqueue, then rescan
                 int pase = wq.phase;
                 
@@ -2300,6 +2328,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                         
                         long d = keepAlive + System.currentTimeMillis();
                         
+                        ++wq.nparks;
+                        
                         // 休眠一段时间后自动醒来
                         LockSupport.parkUntil(this, d);
                         
@@ -2311,6 +2341,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                             break;
                         }
                     } else if(wq.phase<0) {
+                        ++wq.nparks;
                         LockSupport.park(this);       // OK if spuriously woken
                     }
                     
@@ -2475,6 +2506,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                             LockSupport.unpark(vt);
                         }
                         
+                        COMPENSATION_RELEASES.getAndAdd(this, 1L);
+                        
                         /*
                          * wp<0时，说明上一个转为park的【工作线程】就是当前线程，
                          * 此时返回-1，代表后续不需要调整活跃度了，因为上面已经补偿过了
@@ -2496,7 +2529,12 @@ public class ForkJoinPool extends AbstractExecutorService {
                 long nc = (((c - RC_UNIT) & RC_MASK) | (~RC_MASK & c));
                 
                 // 返回1表示成功减少了一个活跃度，后续需要加回来
-                return CTL.compareAndSet(this, c, nc) ? 1 : 0;
+                if(CTL.compareAndSet(this, c, nc)) {
+                    COMPENSATION_REDUCTIONS.getAndAdd(this, 1L);
+                    return 1;
+                }
+                
+                return 0;
             }
             
             /* validate */
@@ -2549,7 +2587,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         // 增加【工作线程】总量上限
         long nc = ((c + TC_UNIT) & TC_MASK) | (c & ~TC_MASK); // expand pool
         
-        return CTL.compareAndSet(this, c, nc) && createWorker() ? 1 : 0;
+        if(CTL.compareAndSet(this, c, nc) && createWorker()) {
+            COMPENSATION_CREATIONS.getAndAdd(this, 1L);
+            return 1;
+        }
+        
+        return 0;
     }
     
     /*▲ 工作线程 ████████████████████████████████████████████████████████████████████████████████┛ */
@@ -3046,6 +3089,80 @@ rescan:
         return count;
     }
     
+    /**
+     * Returns a snapshot of the counters this pool maintains for its
+     * queues and workers: tasks pushed to, popped from and stolen out of
+     * each queue, worker parks and failed scans, and the activity of the
+     * compensation mechanism used when workers block in {@link
+     * ForkJoinTask#join} or {@link #managedBlock}.
+     *
+     * <p>Counters are written by their owning threads without
+     * synchronization and are read here in a single unsynchronized pass,
+     * so the snapshot is only an estimate while the pool is running.
+     * Counts accumulated by workers that have since terminated are
+     * included in the pool-wide totals but not in {@link
+     * Metrics#getQueueMetrics}. The returned snapshot is not updated
+     * afterwards; comparing two snapshots gives the activity in between.
+     *
+     * @return a snapshot of this pool's counters
+     * @since 11
+     */
+    // 返回当前工作池中各【队列】与【工作线程】计数的快照（近似值）
+    public Metrics getMetrics() {
+        int md = mode; // read volatile fields first
+        long c = ctl;
+        
+        long steals = stealCount;
+        long pushes = retiredPushCount;
+        long pops = retiredPopCount;
+        long parks = retiredParkCount;
+        long scanFails = retiredScanFailureCount;
+        long qt = 0L, qs = 0L;
+        int rc = 0;
+        
+        List<QueueMetrics> queues = new ArrayList<>();
+        
+        WorkQueue[] ws = workQueues;
+        
+        VarHandle.acquireFence();
+        
+        if(ws != null) {
+            for(int i = 0; i<ws.length; ++i) {
+                WorkQueue w = ws[i];
+                if(w == null) {
+                    continue;
+                }
+                
+                QueueMetrics q = new QueueMetrics(w, i);
+                queues.add(q);
+                
+                pushes += q.pushCount;
+                pops += q.popCount;
+                
+                // 偶数插槽上是【共享队列】
+                if((i & 1) == 0) {
+                    qs += q.queuedTaskCount;
+                } else {
+                    qt += q.queuedTaskCount;
+                    steals += q.stealCount;
+                    parks += q.parkCount;
+                    scanFails += q.scanFailureCount;
+                    if(w.isApparentlyUnblocked()) {
+                        ++rc;
+                    }
+                }
+            }
+        }
+        
+        int pc = md & SMASK;
+        int tc = pc + (short) (c >>> TC_SHIFT);
+        int ac = pc + (int) (c >> RC_SHIFT);
+        
+        return new Metrics(pc, tc, Math.max(ac, 0), rc, qt, qs, steals, pushes, pops, parks, scanFails,
+            compensationCreationCount, compensationReleaseCount, compensationReductionCount,
+            Collections.unmodifiableList(queues));
+    }
+    
     /**
      * Returns an estimate of the total number of tasks currently held
      * in queues by worker threads (but not including tasks submitted
@@ -3557,6 +3674,12 @@ rescan:
         
         int nsteals;               // 记录【工作队列】从其它【队列】中窃取了多少任务
         
+        // 以下计数只由owner（或持有锁的【提交线程】）写入，其它线程读取的是近似值
+        int npushes;               // 记录有多少任务被分发到该【队列】
+        int npops;                 // 记录owner从自身【工作队列】中取出了多少[本地任务]
+        int nparks;                // 记录owner转入park状态的次数
+        int nscanFails;            // 记录owner扫描【工作组】却未发现任务的次数
+        
         /*
          * 【工作队列】的ID(>0)
          * 前16位是模式标记，后16位是【工作队列】在【工作组】上的索引
@@ -3669,6 +3792,8 @@ rescan:
                 // top游标+1
                 top = top + 1;
                 
+                ++npushes;
+                
                 int count = top - (int) BASE.getAcquire(this);
                 
                 // 如果【工作队列】内只有1或2个任务，则唤醒【工作线程】
@@ -3710,6 +3835,8 @@ rescan:
                 // top游标+1
                 top = top + 1;
                 
+                ++npushes;
+                
                 /*
                  * 如果【共享队列】满了，则对【共享队列】扩容，
                  * 随后解除对【共享队列】的锁定
@@ -3756,6 +3883,7 @@ rescan:
                     if(popped){
                         // 更新top
                         TOP.setOpaque(this, s);
+                        ++npops;
                     }
                 }
             }
@@ -3891,6 +4019,10 @@ rescan:
                 
             }
             
+            if(task != null) {
+                ++npops;
+            }
+            
             return task;
         }
         
@@ -4260,6 +4392,384 @@ rescan:
     }
     
     
+    /**
+     * An immutable snapshot of the counters of a {@link ForkJoinPool},
+     * as returned by {@link ForkJoinPool#getMetrics}.
+     *
+     * <p>All values are estimates taken without stopping the pool.
+     * Monotonic counts (pushes, pops, steals, parks, scan failures and
+     * compensations) never decrease between snapshots of the same pool,
+     * apart from wrap-around of per-queue counts after 2<sup>32</sup>
+     * events.
+     *
+     * @since 11
+     */
+    // 工作池计数快照
+    public static final class Metrics {
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreadCount;
+        private final int runningThreadCount;
+        private final long queuedTaskCount;
+        private final long queuedSubmissionCount;
+        private final long stealCount;
+        private final long pushCount;
+        private final long popCount;
+        private final long parkCount;
+        private final long scanFailureCount;
+        private final long compensationCreationCount;
+        private final long compensationReleaseCount;
+        private final long compensationReductionCount;
+        private final List<QueueMetrics> queueMetrics;
+        
+        Metrics(int parallelism, int poolSize, int activeThreadCount, int runningThreadCount, long queuedTaskCount, long queuedSubmissionCount, long stealCount, long pushCount, long popCount, long parkCount, long scanFailureCount, long compensationCreationCount, long compensationReleaseCount, long compensationReductionCount, List<QueueMetrics> queueMetrics) {
+            this.parallelism = parallelism;
+            this.poolSize = poolSize;
+            this.activeThreadCount = activeThreadCount;
+            this.runningThreadCount = runningThreadCount;
+            this.queuedTaskCount = queuedTaskCount;
+            this.queuedSubmissionCount = queuedSubmissionCount;
+            this.stealCount = stealCount;
+            this.pushCount = pushCount;
+            this.popCount = popCount;
+            this.parkCount = parkCount;
+            this.scanFailureCount = scanFailureCount;
+            this.compensationCreationCount = compensationCreationCount;
+            this.compensationReleaseCount = compensationReleaseCount;
+            this.compensationReductionCount = compensationReductionCount;
+            this.queueMetrics = queueMetrics;
+        }
+        
+        /**
+         * Returns the targeted parallelism level of the pool.
+         *
+         * @return the parallelism level
+         */
+        // 并行度
+        public int getParallelism() {
+            return parallelism;
+        }
+        
+        /**
+         * Returns the number of worker threads that had started but not
+         * yet terminated, as by {@link ForkJoinPool#getPoolSize}.
+         *
+         * @return the number of worker threads
+         */
+        // 【工作线程】总数
+        public int getPoolSize() {
+            return poolSize;
+        }
+        
+        /**
+         * Returns the estimated number of active threads, as by
+         * {@link ForkJoinPool#getActiveThreadCount}.
+         *
+         * @return the number of active threads
+         */
+        // 活跃的【工作线程】数量
+        public int getActiveThreadCount() {
+            return activeThreadCount;
+        }
+        
+        /**
+         * Returns the estimated number of workers not blocked, as by
+         * {@link ForkJoinPool#getRunningThreadCount}.
+         *
+         * @return the number of running threads
+         */
+        // 未阻塞的【工作线程】数量
+        public int getRunningThreadCount() {
+            return runningThreadCount;
+        }
+        
+        /**
+         * Returns the number of tasks held in worker queues.
+         *
+         * @return the number of queued tasks
+         */
+        // 【工作队列】中排队的任务数
+        public long getQueuedTaskCount() {
+            return queuedTaskCount;
+        }
+        
+        /**
+         * Returns the number of tasks held in submission queues.
+         *
+         * @return the number of queued submissions
+         */
+        // 【共享队列】中排队的任务数
+        public long getQueuedSubmissionCount() {
+            return queuedSubmissionCount;
+        }
+        
+        /**
+         * Returns the total number of tasks taken by workers from queues
+         * other than their own, as by {@link ForkJoinPool#getStealCount}.
+         *
+         * @return the number of steals
+         */
+        // 累计窃取的任务数
+        public long getStealCount() {
+            return stealCount;
+        }
+        
+        /**
+         * Returns the total number of tasks pushed to worker queues by
+         * their owners (forks) and to submission queues by external
+         * threads.
+         *
+         * @return the number of pushed tasks
+         */
+        // 累计分发到各【队列】的任务数
+        public long getPushCount() {
+            return pushCount;
+        }
+        
+        /**
+         * Returns the total number of tasks that workers took back from
+         * their own queues, either to run them directly when joining or
+         * as the next local task.
+         *
+         * @return the number of locally popped tasks
+         */
+        // 累计从自身【工作队列】中取出的[本地任务]数
+        public long getPopCount() {
+            return popCount;
+        }
+        
+        /**
+         * Returns the total number of times workers parked for lack of
+         * work.
+         *
+         * @return the number of worker parks
+         */
+        // 累计【工作线程】转入park状态的次数
+        public long getParkCount() {
+            return parkCount;
+        }
+        
+        /**
+         * Returns the total number of full scans of the pool's queues
+         * in which a worker found no task to run.
+         *
+         * @return the number of failed scans
+         */
+        // 累计扫描落空的次数
+        public long getScanFailureCount() {
+            return scanFailureCount;
+        }
+        
+        /**
+         * Returns the number of spare worker threads created to maintain
+         * parallelism while other workers were blocked.
+         *
+         * @return the number of compensating workers created
+         */
+        // 累计为补偿阻塞而新建的【工作线程】数量
+        public long getCompensationCreationCount() {
+            return compensationCreationCount;
+        }
+        
+        /**
+         * Returns the number of idle workers released to maintain
+         * parallelism while other workers were blocked.
+         *
+         * @return the number of idle workers released
+         */
+        // 累计为补偿阻塞而唤醒的空闲【工作线程】数量
+        public long getCompensationReleaseCount() {
+            return compensationReleaseCount;
+        }
+        
+        /**
+         * Returns the number of times a blocking worker was allowed to
+         * block without compensation, temporarily reducing the number of
+         * active workers.
+         *
+         * @return the number of uncompensated blocks
+         */
+        // 累计以降低活跃度代替补偿的次数
+        public long getCompensationReductionCount() {
+            return compensationReductionCount;
+        }
+        
+        /**
+         * Returns per-queue snapshots of the queues present in the pool
+         * when the snapshot was taken, in pool index order.
+         *
+         * @return an unmodifiable list of queue snapshots
+         */
+        // 各【队列】的计数快照
+        public List<QueueMetrics> getQueueMetrics() {
+            return queueMetrics;
+        }
+        
+        /**
+         * Returns a string summarizing these counts.
+         *
+         * @return a string summarizing these counts
+         */
+        public String toString() {
+            return "ForkJoinPool.Metrics[parallelism = " + parallelism +
+                ", size = " + poolSize +
+                ", active = " + activeThreadCount +
+                ", running = " + runningThreadCount +
+                ", tasks = " + queuedTaskCount +
+                ", submissions = " + queuedSubmissionCount +
+                ", pushes = " + pushCount +
+                ", pops = " + popCount +
+                ", steals = " + stealCount +
+                ", parks = " + parkCount +
+                ", scanFailures = " + scanFailureCount +
+                ", compensationCreations = " + compensationCreationCount +
+                ", compensationReleases = " + compensationReleaseCount +
+                ", compensationReductions = " + compensationReductionCount +
+                "]";
+        }
+    }
+    
+    /**
+     * An immutable snapshot of the counters of a single queue of a
+     * {@link ForkJoinPool}, as returned by {@link Metrics#getQueueMetrics}.
+     * A queue is either a worker queue, owned by a worker thread, or a
+     * shared submission queue used by external threads, for which the
+     * steal, park and scan failure counts are always zero.
+     *
+     * @since 11
+     */
+    // 单个【队列】的计数快照
+    public static final class QueueMetrics {
+        final int index;
+        final String ownerName;
+        final int queuedTaskCount;
+        final long pushCount;
+        final long popCount;
+        final long stealCount;
+        final long parkCount;
+        final long scanFailureCount;
+        
+        QueueMetrics(WorkQueue w, int index) {
+            this.index = index;
+            this.ownerName = (w.owner == null) ? null : w.owner.getName();
+            this.queuedTaskCount = w.queueSize();
+            this.pushCount = (long) w.npushes & 0xffffffffL;
+            this.popCount = (long) w.npops & 0xffffffffL;
+            this.stealCount = (long) w.nsteals & 0xffffffffL;
+            this.parkCount = (long) w.nparks & 0xffffffffL;
+            this.scanFailureCount = (long) w.nscanFails & 0xffffffffL;
+        }
+        
+        /**
+         * Returns the index of the queue in the pool's queue array.
+         * Worker queues have odd indices, submission queues even ones.
+         *
+         * @return the queue index
+         */
+        // 【队列】在【工作组】中的索引
+        public int getIndex() {
+            return index;
+        }
+        
+        /**
+         * Returns {@code true} if this is a shared submission queue.
+         *
+         * @return {@code true} if this is a submission queue
+         */
+        // 是否为【共享队列】
+        public boolean isShared() {
+            return (index & 1) == 0;
+        }
+        
+        /**
+         * Returns the name of the owning worker thread, or {@code null}
+         * for a submission queue.
+         *
+         * @return the owner name, or {@code null}
+         */
+        // 【工作线程】的名称，【共享队列】返回null
+        public String getOwnerName() {
+            return ownerName;
+        }
+        
+        /**
+         * Returns the number of tasks held in the queue.
+         *
+         * @return the number of queued tasks
+         */
+        // 排队的任务数
+        public int getQueuedTaskCount() {
+            return queuedTaskCount;
+        }
+        
+        /**
+         * Returns the number of tasks pushed to the queue.
+         *
+         * @return the number of pushed tasks
+         */
+        // 分发到该【队列】的任务数
+        public long getPushCount() {
+            return pushCount;
+        }
+        
+        /**
+         * Returns the number of tasks the owner took back from the queue.
+         *
+         * @return the number of locally popped tasks
+         */
+        // owner从该【队列】中取出的[本地任务]数
+        public long getPopCount() {
+            return popCount;
+        }
+        
+        /**
+         * Returns the number of tasks the owner stole from other queues.
+         *
+         * @return the number of steals
+         */
+        // owner从其它【队列】中窃取的任务数
+        public long getStealCount() {
+            return stealCount;
+        }
+        
+        /**
+         * Returns the number of times the owner parked for lack of work.
+         *
+         * @return the number of parks
+         */
+        // owner转入park状态的次数
+        public long getParkCount() {
+            return parkCount;
+        }
+        
+        /**
+         * Returns the number of scans in which the owner found no task.
+         *
+         * @return the number of failed scans
+         */
+        // owner扫描落空的次数
+        public long getScanFailureCount() {
+            return scanFailureCount;
+        }
+        
+        /**
+         * Returns a string summarizing these counts.
+         *
+         * @return a string summarizing these counts
+         */
+        public String toString() {
+            return "ForkJoinPool.QueueMetrics[index = " + index +
+                (ownerName == null ? ", shared" : ", owner = " + ownerName) +
+                ", tasks = " + queuedTaskCount +
+                ", pushes = " + pushCount +
+                ", pops = " + popCount +
+                ", steals = " + stealCount +
+                ", parks = " + parkCount +
+                ", scanFailures = " + scanFailureCount +
+                "]";
+        }
+    }
+    
     /**
      * Factory for creating new {@link ForkJoinWorkerThread}s.
      * A {@code ForkJoinWorkerThreadFactory} must be defined and used
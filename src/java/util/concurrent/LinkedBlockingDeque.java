@@ -351,6 +351,40 @@ public class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Blocking
         putLast(e);
     }
     
+    /**
+     * Inserts all elements of the specified collection at the end of this
+     * deque, waiting for space to become available as necessary.  Nodes
+     * are allocated before the lock is taken; as many of them as fit are
+     * then linked in under a single lock hold, and waiting consumers are
+     * signalled once per such batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 从队尾批量入队，线程安全。队满时阻塞，每次持锁时尽可能多地入队
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        linkLastAll(c, false, 0L);
+    }
+    
+    /**
+     * Inserts elements of the specified collection at the end of this
+     * deque, waiting up to the specified wait time in total for space to
+     * become available.  Nodes are allocated before the lock is taken; as
+     * many of them as fit are then linked in under a single lock hold, and
+     * waiting consumers are signalled once per such batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 从队尾批量入队，线程安全。队满时阻塞一段时间，返回成功入队的元素数量
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        return linkLastAll(c, true, unit.toNanos(timeout));
+    }
+    
     
     /**
      * @throws IllegalStateException if this deque is full
@@ -1217,6 +1251,92 @@ public class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Blocking
         return true;
     }
     
+    /**
+     * Links the elements of {@code c} at the end, blocking while the deque
+     * is full, at most for {@code nanos} if {@code timed}.
+     */
+    // 将容器中的元素批量插入到队列尾部，线程安全。返回成功入队的元素数量
+    private int linkLastAll(Collection<? extends E> c, boolean timed, long nanos) throws InterruptedException {
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        // 在锁外创建双向结点链，同时拒绝null元素
+        Node<E> head = null, tail = null;
+        int size = 0;
+        for(E e : c) {
+            Node<E> node = new Node<E>(Objects.requireNonNull(e));
+            if(head == null) {
+                head = node;
+            } else {
+                tail.next = node;
+                node.prev = tail;
+            }
+            tail = node;
+            size++;
+        }
+        
+        if(size == 0) {
+            return 0;
+        }
+        
+        int inserted = 0;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            Node<E> cur = head;
+            
+            while(inserted<size) {
+                int room = capacity - count;
+                
+                // 队满时阻塞
+                if(room<=0) {
+                    if(!timed) {
+                        notFull.await();
+                    } else if(nanos<=0L) {
+                        break;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                    continue;
+                }
+                
+                // 截取本批次可以入队的结点
+                int n = Math.min(room, size - inserted);
+                Node<E> end = cur;
+                for(int k = 1; k<n; k++) {
+                    end = end.next;
+                }
+                Node<E> next = end.next;
+                end.next = null;
+                
+                // 整段链接到队尾
+                Node<E> l = last;
+                cur.prev = l;
+                last = end;
+                if(first == null) {
+                    first = cur;
+                } else {
+                    l.next = cur;
+                }
+                count += n;
+                inserted += n;
+                cur = next;
+                
+                // 出队操作不会级联唤醒，故批量入队时唤醒所有等待者
+                if(n == 1) {
+                    notEmpty.signal();
+                } else {
+                    notEmpty.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        return inserted;
+    }
+    
     /**
      * Removes and returns first element, or null if empty.
      */
@@ -400,6 +400,40 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         }
     }
     
+    /**
+     * Inserts all elements of the specified collection at the tail of this
+     * queue, waiting for space to become available as necessary.  Nodes
+     * are allocated before the put lock is taken; as many of them as fit
+     * are then linked in under a single lock hold, and the count is
+     * updated once per such batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，队满时线程被阻塞，每次持锁时尽可能多地入队
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        insertAll(c, false, 0L);
+    }
+    
+    /**
+     * Inserts elements of the specified collection at the tail of this
+     * queue, waiting up to the specified wait time in total for space to
+     * become available.  Nodes are allocated before the put lock is taken;
+     * as many of them as fit are then linked in under a single lock hold,
+     * and the count is updated once per such batch.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，队满时阻塞一段时间，返回成功入队的元素数量
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        return insertAll(c, true, unit.toNanos(timeout));
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -1065,6 +1099,93 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         last = last.next = node;
     }
     
+    /**
+     * Inserts the elements of {@code c}, blocking while the queue is full,
+     * at most for {@code nanos} if {@code timed}.
+     */
+    // 批量入队，返回成功入队的元素数量
+    private int insertAll(Collection<? extends E> c, boolean timed, long nanos) throws InterruptedException {
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        // 在锁外创建结点链，同时拒绝null元素
+        Node<E> first = null, tail = null;
+        int size = 0;
+        for(E e : c) {
+            Node<E> node = new Node<E>(Objects.requireNonNull(e));
+            if(first == null) {
+                first = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+        
+        if(size == 0) {
+            return 0;
+        }
+        
+        int inserted = 0;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            Node<E> cur = first;
+            
+            while(inserted<size) {
+                int room = capacity - count.get();
+                
+                // 如果队列已满，则当前线程陷入阻塞
+                if(room == 0) {
+                    if(!timed) {
+                        notFull.await();
+                    } else if(nanos<=0L) {
+                        break;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                    continue;
+                }
+                
+                // 截取本批次可以入队的结点
+                int n = Math.min(room, size - inserted);
+                Node<E> end = cur;
+                for(int k = 1; k<n; k++) {
+                    end = end.next;
+                }
+                Node<E> next = end.next;
+                end.next = null;
+                
+                // 整段入队
+                last.next = cur;
+                last = end;
+                int c0 = count.getAndAdd(n);
+                inserted += n;
+                cur = next;
+                
+                /*
+                 * 如果队列之前为空，需立即唤醒"出队"线程，因为接下来可能要等待出队线程腾出空间。
+                 * 出队线程会级联唤醒其它出队线程，故只需唤醒一次。
+                 * 持有putLock时获取takeLock与fullyLock()的加锁顺序一致。
+                 */
+                if(c0 == 0) {
+                    signalNotEmpty();
+                }
+            }
+            
+            // 如果现在至少还剩一个空槽，唤醒可能阻塞的"入队"线程
+            if(count.get()<capacity) {
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        
+        return inserted;
+    }
+    
     /**
      * Removes a node from head of queue.
      *
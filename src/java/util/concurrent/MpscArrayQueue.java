@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A bounded lock-free queue backed by a power-of-two sized array, for any
+ * number of producer threads but a <em>single consumer</em> thread at a
+ * time.
+ *
+ * <p>Producers claim a slot by a CAS on the producer index and then
+ * publish the element into it with a release store; the consumer sees an
+ * element once its slot becomes non-null.  Producers cache a lower bound of
+ * the consumer index, so that in the common, non-full case they do not
+ * touch the cache line written by the consumer.  The consumer owns the
+ * consumer index and advances it with a release store only, never with an
+ * atomic read-modify-write instruction.
+ *
+ * <p>The removal methods {@link #poll}, {@link #peek}, {@link #remove()},
+ * {@link #drain}, {@link #clear} and the {@link #iterator() iterator}
+ * must only be used by one thread at a time.  This is not checked.
+ * {@link #offer}, {@link #isEmpty} and {@link #size} may be called from
+ * any thread.
+ *
+ * <p>This class does not permit {@code null} elements.
+ *
+ * @param <E> the type of elements held in this queue
+ *
+ * @see MpscLinkedQueue
+ * @see ArrayBlockingQueue
+ * @since 11
+ */
+// 多生产者单消费者的有界环形数组队列：生产者CAS占据槽位，消费者使用普通读写出队
+public class MpscArrayQueue<E> extends AbstractQueue<E> {
+    
+    /** The queued items; length is a power of two. */
+    private final Object[] buffer;  // 环形数组，容量为2的幂
+    
+    /** buffer.length - 1 */
+    private final int mask;
+    
+    /** The next index to claim; updated by CAS from producers. */
+    @jdk.internal.vm.annotation.Contended
+    private volatile long producerIndex;    // 生产者游标
+    
+    /** Cached {@code consumerIndex + capacity}, read by producers. */
+    @jdk.internal.vm.annotation.Contended
+    private volatile long producerLimit;    // 生产者缓存的写入上限，避免频繁读取消费者游标
+    
+    /** The next index to consume; written only by the consumer. */
+    @jdk.internal.vm.annotation.Contended
+    private volatile long consumerIndex;    // 消费者游标
+    
+    
+    // VarHandle mechanics
+    private static final VarHandle P_INDEX;
+    private static final VarHandle P_LIMIT;
+    private static final VarHandle C_INDEX;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            P_INDEX = l.findVarHandle(MpscArrayQueue.class, "producerIndex", long.class);
+            P_LIMIT = l.findVarHandle(MpscArrayQueue.class, "producerLimit", long.class);
+            C_INDEX = l.findVarHandle(MpscArrayQueue.class, "consumerIndex", long.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates an {@code MpscArrayQueue} with at least the given capacity.
+     * The capacity is rounded up to the next power of two.
+     *
+     * @param capacity the requested capacity of this queue
+     *
+     * @throws IllegalArgumentException if {@code capacity < 2} or
+     *                                  {@code capacity > 2^30}
+     */
+    public MpscArrayQueue(int capacity) {
+        if(capacity<2 || capacity>(1 << 30)) {
+            throw new IllegalArgumentException();
+        }
+        
+        int n = 1 << -Integer.numberOfLeadingZeros(capacity - 1);
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+        P_LIMIT.setRelease(this, (long) n);
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity, returning
+     * {@code true} upon success and {@code false} if this queue is full.
+     * May be called by any thread.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，队列已满时返回false，任意线程均可调用
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        
+        long limit = producerLimit;
+        long p;
+        
+        do {
+            p = producerIndex;
+            if(p >= limit) {
+                // 缓存的上限已耗尽，重新读取消费者游标
+                limit = consumerIndex + buffer.length;
+                if(p >= limit) {
+                    return false;
+                }
+                producerLimit = limit;
+            }
+        } while(!P_INDEX.compareAndSet(this, p, p + 1));
+        
+        // 槽位已被本线程独占，发布元素
+        SLOT.setRelease(buffer, (int) p & mask, e);
+        
+        return true;
+    }
+    
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code null}
+     * if this queue is empty.  Consumer thread only.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    // 出队，仅限消费者调用
+    public E poll() {
+        long c = (long) C_INDEX.get(this);
+        int i = (int) c & mask;
+        
+        E e = elementAt(i, c);
+        if(e == null) {
+            return null;
+        }
+        
+        // 先清空槽位，再发布新的消费者游标，生产者据此判断槽位可用
+        SLOT.set(buffer, i, null);
+        C_INDEX.setRelease(this, c + 1);
+        
+        return e;
+    }
+    
+    /**
+     * Removes up to {@code limit} elements from this queue, in order, and
+     * passes each to {@code action}.  The consumer index is published once
+     * per call.  If {@code action} throws, the element it was given has
+     * already been removed and the exception is relayed to the caller.
+     * Consumer thread only.
+     *
+     * @param action the action to perform on each removed element
+     * @param limit  the maximum number of elements to remove
+     *
+     * @return the number of elements removed
+     *
+     * @throws NullPointerException if the specified action is null
+     */
+    // 批量出队，最多移除limit个元素并交给action处理，返回移除的元素数量，仅限消费者调用
+    public int drain(Consumer<? super E> action, int limit) {
+        Objects.requireNonNull(action);
+        
+        final long c = (long) C_INDEX.get(this);
+        int n = 0;
+        
+        try {
+            while(n<limit) {
+                long index = c + n;
+                int i = (int) index & mask;
+                
+                E e = elementAt(i, index);
+                if(e == null) {
+                    break;
+                }
+                
+                // 先计数再回调，action抛出异常时已清空的槽位也会被计入消费者游标
+                SLOT.set(buffer, i, null);
+                n++;
+                action.accept(e);
+            }
+        } finally {
+            if(n != 0) {
+                C_INDEX.setRelease(this, c + n);
+            }
+        }
+        
+        return n;
+    }
+    
+    /**
+     * Removes all of the elements from this queue.  Consumer thread only.
+     */
+    // 清空队列，仅限消费者调用
+    public void clear() {
+        while(poll() != null) {
+        }
+    }
+    
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty.  Consumer thread only.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    // 获取队头元素，不移除，仅限消费者调用
+    public E peek() {
+        long c = (long) C_INDEX.get(this);
+        return elementAt((int) c & mask, c);
+    }
+    
+    /**
+     * Returns the number of elements in this queue.
+     * May be called by any thread; the result is only an estimate if
+     * elements are concurrently added or removed.
+     *
+     * @return the number of elements in this queue
+     */
+    // 返回队列中的元素数量
+    public int size() {
+        long c = consumerIndex;
+        for(; ; ) {
+            long p = producerIndex;
+            long c2 = consumerIndex;
+            if(c == c2) {
+                return (int) Math.min(Math.max(p - c, 0L), buffer.length);
+            }
+            c = c2;
+        }
+    }
+    
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     * May be called by any thread.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    // 判断队列是否为空
+    public boolean isEmpty() {
+        return consumerIndex == producerIndex;
+    }
+    
+    /**
+     * Returns the capacity of this queue.
+     *
+     * @return the capacity of this queue
+     */
+    // 返回队列容量
+    public int capacity() {
+        return buffer.length;
+    }
+    
+    /**
+     * Returns an iterator over the elements in this queue in proper
+     * sequence.  The iterator does not support {@code remove}.
+     * Consumer thread only.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    // 返回迭代器，不支持移除，仅限消费者调用
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Returns the element at slot {@code i} for logical position
+     * {@code index}, or {@code null} if that position has not been claimed.
+     * If a producer has claimed it but not stored its element yet, spins
+     * until the element appears, so that a non-empty queue never looks
+     * empty.
+     */
+    // 返回index处的元素，如果该槽位已被生产者占据但尚未写入，则自旋等待
+    @SuppressWarnings("unchecked")
+    private E elementAt(int i, long index) {
+        Object e = SLOT.getAcquire(buffer, i);
+        if(e == null && index != producerIndex) {
+            while((e = SLOT.getAcquire(buffer, i)) == null) {
+                Thread.onSpinWait();
+            }
+        }
+        return (E) e;
+    }
+    
+    
+    
+    // 迭代器，仅限消费者调用
+    private class Itr implements Iterator<E> {
+        private long index = (long) C_INDEX.get(MpscArrayQueue.this);
+        private final long end = producerIndex;   // 创建迭代器时的生产者游标，防止在队列满时绕回
+        
+        public boolean hasNext() {
+            return index<end;
+        }
+        
+        public E next() {
+            if(index >= end) {
+                throw new NoSuchElementException();
+            }
+            E e = elementAt((int) index & mask, index);
+            index++;
+            return e;
+        }
+    }
+    
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * An unbounded lock-free queue based on linked nodes, for any number of
+ * producer threads but a <em>single consumer</em> thread at a time.
+ *
+ * <p>Producers append with one atomic {@code getAndSet} of the tail, as in
+ * the intrusive MPSC queue of D. Vyukov; unlike {@link ConcurrentLinkedQueue}
+ * no CAS retry loop is needed.  The consumer owns the head and removes
+ * elements with acquire reads and plain or release-mode writes, so consuming
+ * involves neither an atomic instruction nor a full volatile store.  Head and tail are kept on separate cache lines to
+ * avoid false sharing between the consumer and producers.
+ *
+ * <p>The removal methods {@link #poll}, {@link #peek}, {@link #remove()},
+ * {@link #drain}, {@link #clear} and the {@link #iterator() iterator}
+ * must only be used by one thread at a time, typically a thread that owns
+ * the queue such as an event loop.  This is not checked.  {@link #offer},
+ * {@link #isEmpty} and {@link #size} may be called from any thread.
+ *
+ * <p>Elements are ordered FIFO per producer; elements of different
+ * producers are ordered by the linearization of their insertions.  A
+ * {@code poll} that races with an insertion in progress waits for that
+ * insertion to complete rather than spuriously returning {@code null}.
+ *
+ * <p>This class does not permit {@code null} elements.
+ *
+ * @param <E> the type of elements held in this queue
+ *
+ * @see MpscArrayQueue
+ * @see ConcurrentLinkedQueue
+ * @since 11
+ */
+// 多生产者单消费者的无界链式队列：生产者通过对队尾的getAndSet入队，消费者使用acquire读和普通/release写出队
+public class MpscLinkedQueue<E> extends AbstractQueue<E> {
+    
+    /** The consumer's stub node; its successor holds the first element. */
+    @jdk.internal.vm.annotation.Contended
+    private Node<E> head;   // 队头（哨兵结点），只由消费者写入
+    
+    /** The last node; swapped by producers. */
+    @jdk.internal.vm.annotation.Contended
+    private volatile Node<E> tail;  // 队尾，由生产者原子地交换
+    
+    
+    // VarHandle mechanics
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(MpscLinkedQueue.class, "head", Node.class);
+            TAIL = l.findVarHandle(MpscLinkedQueue.class, "tail", Node.class);
+            NEXT = l.findVarHandle(Node.class, "next", Node.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates an initially empty {@code MpscLinkedQueue}.
+     */
+    public MpscLinkedQueue() {
+        Node<E> stub = new Node<>(null);
+        head = stub;
+        tail = stub;
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Inserts the specified element at the tail of this queue.
+     * As the queue is unbounded, this method will never return {@code false}.
+     * May be called by any thread.
+     *
+     * @return {@code true} (as specified by {@link java.util.Queue#offer})
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，任意线程均可调用
+    public boolean offer(E e) {
+        Node<E> node = new Node<>(Objects.requireNonNull(e));
+        
+        // 先原子地占据队尾，再链接前驱；两步之间消费者会短暂地看到断开的链
+        @SuppressWarnings("unchecked")
+        Node<E> prev = (Node<E>) TAIL.getAndSet(this, node);
+        NEXT.setRelease(prev, node);
+        
+        return true;
+    }
+    
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code null}
+     * if this queue is empty.  Consumer thread only.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    // 出队，仅限消费者调用
+    public E poll() {
+        Node<E> h = head;
+        Node<E> next = nextOf(h);
+        if(next == null) {
+            return null;
+        }
+        
+        E item = next.item;
+        next.item = null;   // next成为新的哨兵结点
+        HEAD.setRelease(this, next);
+        NEXT.setRelease(h, h);  // 辅助GC；next是volatile字段，直接赋值会成为完整的volatile写
+        
+        return item;
+    }
+    
+    /**
+     * Removes up to {@code limit} elements from this queue, in order, and
+     * passes each to {@code action}.  If {@code action} throws, the element
+     * it was given has already been removed and the exception is relayed to
+     * the caller.  Consumer thread only.
+     *
+     * @param action the action to perform on each removed element
+     * @param limit  the maximum number of elements to remove
+     *
+     * @return the number of elements removed
+     *
+     * @throws NullPointerException if the specified action is null
+     */
+    // 批量出队，最多移除limit个元素并交给action处理，返回移除的元素数量，仅限消费者调用
+    public int drain(Consumer<? super E> action, int limit) {
+        Objects.requireNonNull(action);
+        
+        int n = 0;
+        Node<E> h = head;
+        
+        while(n<limit) {
+            Node<E> next = nextOf(h);
+            if(next == null) {
+                break;
+            }
+            
+            E item = next.item;
+            next.item = null;
+            HEAD.setRelease(this, next);
+            NEXT.setRelease(h, h);
+            h = next;
+            n++;
+            
+            action.accept(item);
+        }
+        
+        return n;
+    }
+    
+    /**
+     * Removes all of the elements from this queue.  Consumer thread only.
+     */
+    // 清空队列，仅限消费者调用
+    public void clear() {
+        while(poll() != null) {
+        }
+    }
+    
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty.  Consumer thread only.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    // 获取队头元素，不移除，仅限消费者调用
+    public E peek() {
+        Node<E> next = nextOf(head);
+        return next == null ? null : next.item;
+    }
+    
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     * May be called by any thread; the result is only an estimate if
+     * elements are concurrently added or removed.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    // 判断队列是否为空
+    public boolean isEmpty() {
+        return tail == headVolatile();
+    }
+    
+    /**
+     * Returns the number of elements in this queue.  This requires a
+     * traversal and, like {@link ConcurrentLinkedQueue#size}, is only an
+     * estimate if elements are concurrently added or removed.
+     *
+     * @return the number of elements in this queue
+     */
+    // 返回队列中的元素数量，需要遍历队列
+    public int size() {
+        int n = 0;
+        Node<E> p = headVolatile();
+        Node<E> last = tail;
+        
+        while(p != last && n<Integer.MAX_VALUE) {
+            @SuppressWarnings("unchecked")
+            Node<E> next = (Node<E>) NEXT.getAcquire(p);
+            if(next == null || next == p) {
+                // 插入尚未完成，或结点已被消费
+                break;
+            }
+            p = next;
+            n++;
+        }
+        
+        return n;
+    }
+    
+    /**
+     * Returns an iterator over the elements in this queue in proper
+     * sequence.  The iterator does not support {@code remove}.
+     * Consumer thread only.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    // 返回迭代器，不支持移除，仅限消费者调用
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Returns the successor of {@code h}, or {@code null} if there is none.
+     * If a producer has swapped the tail but not linked its node yet, spins
+     * until the link appears, so that a non-empty queue never looks empty.
+     */
+    // 返回h的后继，如果生产者正处于入队的两步之间，则自旋等待链接完成
+    @SuppressWarnings("unchecked")
+    private Node<E> nextOf(Node<E> h) {
+        Node<E> next = (Node<E>) NEXT.getAcquire(h);
+        if(next == null && h != tail) {
+            while((next = (Node<E>) NEXT.getAcquire(h)) == null) {
+                Thread.onSpinWait();
+            }
+        }
+        return next;
+    }
+    
+    // 供非消费者线程读取队头
+    @SuppressWarnings("unchecked")
+    private Node<E> headVolatile() {
+        return (Node<E>) HEAD.getAcquire(this);
+    }
+    
+    
+    
+    static final class Node<E> {
+        E item;
+        volatile Node<E> next;
+        
+        Node(E item) {
+            this.item = item;
+        }
+    }
+    
+    // 迭代器，仅限消费者调用
+    private class Itr implements Iterator<E> {
+        private Node<E> p = head;
+        
+        public boolean hasNext() {
+            return nextOf(p) != null;
+        }
+        
+        public E next() {
+            Node<E> next = nextOf(p);
+            if(next == null) {
+                throw new NoSuchElementException();
+            }
+            p = next;
+            return next.item;
+        }
+    }
+    
+}
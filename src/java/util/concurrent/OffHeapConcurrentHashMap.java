@@ -0,0 +1,868 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import jdk.internal.misc.JavaNioAccess;
+import jdk.internal.misc.SharedSecrets;
+import jdk.internal.misc.Unsafe;
+import jdk.internal.ref.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A concurrent hash map whose keys and values are byte sequences stored
+ * outside of the Java heap.  The bytes of each key and of each value are
+ * copied into blocks of native memory; the heap only holds the index over
+ * them, so the bulk of the data is invisible to the garbage collector.
+ *
+ * <p>The index is a {@link ConcurrentHashMap}, so lookups and updates
+ * follow its bin locking, cooperative resizing and {@code CounterCell}-based
+ * size counting unchanged.  Every mapping costs three small heap objects
+ * whatever the sizes of its key and value: the {@code ConcurrentHashMap}
+ * node, a header of the key block and a header of the value block, about
+ * 100 bytes together with compressed references.
+ *
+ * <p>Native memory is released eagerly.  The block of a value is freed as
+ * soon as the value has been replaced or removed and no retrieval that was
+ * reading it is still in progress, and the block of a key when its mapping
+ * has been removed.  Native memory is reserved like the memory of direct
+ * buffers, so it counts against the limit set by
+ * {@code -XX:MaxDirectMemorySize}, and an update that would exceed that
+ * limit throws {@link OutOfMemoryError}.
+ *
+ * <p>A map that is no longer needed should be {@linkplain #close closed},
+ * which releases the native memory of all its mappings at once.  A map that
+ * becomes unreachable without having been closed is cleaned up like a
+ * direct buffer, once the garbage collector notices that it is unreachable;
+ * as that may happen arbitrarily late, or not at all while there is no
+ * pressure on the heap, maps should be closed explicitly.
+ *
+ * <p>Because blocks are freed eagerly, values are always copied out:
+ * retrieval methods copy the value into a caller-supplied buffer or into
+ * a new array, and {@link #forEach} passes copies held in buffers that are
+ * reused between calls.  Keys and values are likewise always copied in;
+ * changes to the argument buffers after a call returns have no effect on
+ * the map.  The position, limit and mark of argument buffers are not
+ * modified, except that retrieval advances the position of the destination
+ * buffer past the copied value.
+ *
+ * <p>Like {@code ConcurrentHashMap}, retrieval operations do not block and
+ * reflect the results of the most recently completed updates.
+ *
+ * @see ConcurrentHashMap
+ * @since 11
+ */
+// 堆外并发映射：key与value以字节序列形式复制到堆外内存中，堆内只保留索引(ConcurrentHashMap)与每个映射的小头部对象
+public class OffHeapConcurrentHashMap implements AutoCloseable {
+    
+    private static final Unsafe U = Unsafe.getUnsafe();
+    
+    private static final JavaNioAccess NIO_ACCESS = SharedSecrets.getJavaNioAccess();
+    
+    // VarHandle mechanics
+    private static final VarHandle REFS;
+    
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            REFS = l.findVarHandle(NativeBlock.class, "refs", int.class);
+        } catch(ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+    
+    /**
+     * The index.  Lookups use transient {@link Probe} keys that compare
+     * equal to the key block holding the same bytes.
+     */
+    private final ConcurrentHashMap<Object, ValueBlock> index;   // 索引，key是KeyBlock，value是ValueBlock
+    
+    /** The native memory of this map; must not refer back to the map. */
+    private final Memory memory;    // 堆外内存的簿记，不能引用映射本身，否则Cleaner无法触发
+    
+    /** Frees all mappings when the map is closed or becomes unreachable. */
+    private final Cleaner cleaner;  // 映射被关闭或不可达时释放所有映射的堆外内存
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     */
+    public OffHeapConcurrentHashMap() {
+        index = new ConcurrentHashMap<>();
+        memory = new Memory(index);
+        cleaner = Cleaner.create(this, memory);
+    }
+    
+    /**
+     * Creates a new, empty map with an initial table size accommodating
+     * the specified number of mappings without the need to dynamically
+     * resize.
+     *
+     * @param initialCapacity The implementation performs internal
+     *                        sizing to accommodate this many mappings.
+     *
+     * @throws IllegalArgumentException if the initial capacity of
+     *                                  elements is negative
+     */
+    public OffHeapConcurrentHashMap(int initialCapacity) {
+        index = new ConcurrentHashMap<>(initialCapacity);
+        memory = new Memory(index);
+        cleaner = Cleaner.create(this, memory);
+    }
+    
+    /**
+     * Creates a new, empty map with an initial table size based on the
+     * given number of mappings ({@code initialCapacity}), table density
+     * ({@code loadFactor}), and number of concurrently updating threads
+     * ({@code concurrencyLevel}), with the same meaning as in
+     * {@link ConcurrentHashMap#ConcurrentHashMap(int, float, int)}.
+     *
+     * @param initialCapacity  the initial capacity
+     * @param loadFactor       the load factor (table density) for
+     *                         establishing the initial table size
+     * @param concurrencyLevel the estimated number of concurrently
+     *                         updating threads
+     *
+     * @throws IllegalArgumentException if the initial capacity is
+     *                                  negative or the load factor or concurrencyLevel are
+     *                                  nonpositive
+     */
+    public OffHeapConcurrentHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        index = new ConcurrentHashMap<>(initialCapacity, loadFactor, concurrencyLevel);
+        memory = new Memory(index);
+        cleaner = Cleaner.create(this, memory);
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Maps the remaining bytes of {@code key} to the remaining bytes of
+     * {@code value}.  Both are copied into native memory.  The native
+     * memory of a replaced value is released.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return {@code true} if a previous value associated with {@code key}
+     * was replaced, {@code false} if there was no mapping for {@code key}
+     *
+     * @throws NullPointerException  if the specified key or value is null
+     * @throws OutOfMemoryError      if the native memory cannot be reserved
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 将指定的元素（key-value）复制到堆外并存入映射，返回是否替换了旧值
+    public boolean put(ByteBuffer key, ByteBuffer value) {
+        ensureOpen();
+        
+        Probe probe = new Probe(key);
+        ValueBlock valueBlock = allocateValue(value);
+        KeyBlock keyBlock = null;
+        boolean stored = false;
+        
+        try {
+            for(; ; ) {
+                // key已存在时只替换value，沿用原有的key块
+                ValueBlock old = replace(probe, valueBlock);
+                if(old != null) {
+                    stored = true;
+                    old.release(memory);
+                    recheckOpen();
+                    return true;
+                }
+                
+                if(keyBlock == null) {
+                    keyBlock = allocateKey(key, probe.hash);
+                }
+                valueBlock.key = keyBlock;
+                if(index.putIfAbsent(keyBlock, valueBlock) == null) {
+                    stored = true;
+                    keyBlock = null;
+                    recheckOpen();
+                    return false;
+                }
+                
+                // 与另一个插入操作竞争失败，重新尝试替换
+            }
+        } finally {
+            if(!stored) {
+                valueBlock.release(memory);
+            }
+            if(keyBlock != null) {
+                keyBlock.release(memory);
+            }
+        }
+    }
+    
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return {@code true} if the mapping was added, {@code false} if
+     * {@code key} was already mapped
+     *
+     * @throws NullPointerException  if the specified key or value is null
+     * @throws OutOfMemoryError      if the native memory cannot be reserved
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 仅在key不存在时存入映射，返回是否存入
+    public boolean putIfAbsent(ByteBuffer key, ByteBuffer value) {
+        Objects.requireNonNull(value);
+        ensureOpen();
+        
+        // 先查询一次，避免在key已存在时分配堆外内存
+        Probe probe = new Probe(key);
+        if(index.containsKey(probe)) {
+            return false;
+        }
+        
+        KeyBlock keyBlock = allocateKey(key, probe.hash);
+        ValueBlock valueBlock;
+        try {
+            valueBlock = allocateValue(value);
+        } catch(Throwable t) {
+            keyBlock.release(memory);
+            throw t;
+        }
+        
+        valueBlock.key = keyBlock;
+        if(index.putIfAbsent(keyBlock, valueBlock) == null) {
+            recheckOpen();
+            return true;
+        }
+        
+        valueBlock.release(memory);
+        keyBlock.release(memory);
+        return false;
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Copies the value to which the remaining bytes of {@code key} are
+     * mapped into {@code dst}, starting at its current position, and
+     * advances the position of {@code dst} past the copied bytes.  If the
+     * value does not fit into the remaining space of {@code dst}, nothing
+     * is copied and {@code dst} is left unchanged; the returned length is
+     * then greater than {@code dst.remaining()}.
+     *
+     * @param key the key whose associated value is to be copied
+     * @param dst the buffer into which the value is to be copied
+     *
+     * @return the length of the value, or {@code -1} if there is no
+     * mapping for {@code key}
+     *
+     * @throws NullPointerException    if the specified key or buffer is null
+     * @throws ReadOnlyBufferException if {@code dst} is read-only
+     * @throws IllegalStateException   if this map has been closed
+     */
+    // 将key对应的value复制到dst中，返回value的长度，不存在时返回-1
+    public int get(ByteBuffer key, ByteBuffer dst) {
+        if(dst.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        
+        ensureOpen();
+        
+        Probe probe = new Probe(key);
+        for(; ; ) {
+            ValueBlock block = index.get(probe);
+            if(block == null) {
+                return -1;
+            }
+            
+            // 该块已被替换或移除并释放，重新查找
+            if(!block.pin()) {
+                continue;
+            }
+            
+            try {
+                int length = block.length;
+                if(length<=dst.remaining()) {
+                    copyOut(block.address, dst, length);
+                }
+                return length;
+            } finally {
+                block.release(memory);
+            }
+        }
+    }
+    
+    /**
+     * Returns a copy of the value to which {@code key} is mapped, or
+     * {@code null} if there is no such mapping.
+     *
+     * @param key the key whose associated value is to be returned
+     *
+     * @return a copy of the value, or {@code null}
+     *
+     * @throws NullPointerException  if the specified key is null
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 返回key对应的value的副本
+    public byte[] get(byte[] key) {
+        ensureOpen();
+        
+        Probe probe = new Probe(ByteBuffer.wrap(key));
+        for(; ; ) {
+            ValueBlock block = index.get(probe);
+            if(block == null) {
+                return null;
+            }
+            
+            // 该块已被替换或移除并释放，重新查找
+            if(!block.pin()) {
+                continue;
+            }
+            
+            try {
+                byte[] value = new byte[block.length];
+                U.copyMemory(null, block.address, value, Unsafe.ARRAY_BYTE_BASE_OFFSET, value.length);
+                return value;
+            } finally {
+                block.release(memory);
+            }
+        }
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Removes the mapping for the remaining bytes of {@code key} and
+     * releases its native memory.
+     *
+     * @param key key whose mapping is to be removed from the map
+     *
+     * @return {@code true} if a mapping was removed
+     *
+     * @throws NullPointerException  if the specified key is null
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 移除key对应的映射，返回是否存在该映射
+    public boolean remove(ByteBuffer key) {
+        ensureOpen();
+        
+        ValueBlock old = index.remove(new Probe(key));
+        if(old == null) {
+            return false;
+        }
+        
+        old.key.release(memory);
+        old.release(memory);
+        return true;
+    }
+    
+    /**
+     * Removes all of the mappings from this map and releases their native
+     * memory.
+     */
+    // 清空映射，并释放堆外内存
+    public void clear() {
+        memory.clear();
+    }
+    
+    /**
+     * Closes this map, removing all of its mappings and releasing their
+     * native memory.  Blocks that retrievals in progress are still reading
+     * are released when those retrievals complete.  Once closed, methods
+     * that access mappings by key and {@link #forEach} throw
+     * {@link IllegalStateException}; {@link #size} and {@link #isEmpty}
+     * report an empty map.  Closing an already closed map has no effect.
+     */
+    // 关闭映射，移除所有映射并释放其堆外内存，重复关闭无副作用
+    @Override
+    public void close() {
+        cleaner.clean();
+    }
+    
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Tests if the remaining bytes of {@code key} are a key in this map.
+     *
+     * @param key possible key
+     *
+     * @return {@code true} if and only if the specified key is a key in this map
+     *
+     * @throws NullPointerException  if the specified key is null
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 判断映射中是否存在指定的key
+    public boolean containsKey(ByteBuffer key) {
+        ensureOpen();
+        return index.containsKey(new Probe(key));
+    }
+    
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Performs the given action for each mapping, passing read-only heap
+     * buffers holding copies of the key and the value.  The buffers are
+     * reused for the next mapping once the action returns, so the action
+     * must copy out whatever it needs to keep.  Iteration is weakly
+     * consistent, as for {@link ConcurrentHashMap#forEach(BiConsumer)}.
+     *
+     * @param action the action
+     *
+     * @throws NullPointerException  if the specified action is null
+     * @throws IllegalStateException if this map has been closed
+     */
+    // 遍历映射，向action传入key和value的副本，副本所在的缓冲区会被重复使用
+    public void forEach(BiConsumer<? super ByteBuffer, ? super ByteBuffer> action) {
+        Objects.requireNonNull(action);
+        ensureOpen();
+        
+        byte[] keyBytes = new byte[64];
+        byte[] valueBytes = new byte[64];
+        
+        for(Map.Entry<Object, ValueBlock> e : index.entrySet()) {
+            KeyBlock key = (KeyBlock) e.getKey();
+            ValueBlock value = e.getValue();
+            
+            // 映射已被移除，或value已被替换
+            if(!key.pin()) {
+                continue;
+            }
+            try {
+                if(!value.pin()) {
+                    continue;
+                }
+                try {
+                    if(keyBytes.length<key.length) {
+                        keyBytes = new byte[key.length];
+                    }
+                    if(valueBytes.length<value.length) {
+                        valueBytes = new byte[value.length];
+                    }
+                    U.copyMemory(null, key.address, keyBytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, key.length);
+                    U.copyMemory(null, value.address, valueBytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, value.length);
+                } finally {
+                    value.release(memory);
+                }
+            } finally {
+                key.release(memory);
+            }
+            
+            action.accept(ByteBuffer.wrap(keyBytes, 0, key.length).slice().asReadOnlyBuffer(), ByteBuffer.wrap(valueBytes, 0, value.length).slice().asReadOnlyBuffer());
+        }
+    }
+    
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the number of mappings, as {@link ConcurrentHashMap#mappingCount()}.
+     *
+     * @return the number of mappings
+     */
+    // 返回映射数量，由ConcurrentHashMap的CounterCell计数
+    public long size() {
+        return index.mappingCount();
+    }
+    
+    /**
+     * Returns {@code true} if this map contains no mappings.
+     *
+     * @return {@code true} if this map contains no mappings
+     */
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+    
+    /**
+     * Returns an estimate of the number of bytes of native memory held by
+     * this map, including blocks of replaced or removed values that are
+     * still being read and have not been released yet.
+     *
+     * @return the number of bytes of native memory allocated by this map
+     */
+    // 返回当前占用的堆外内存字节数
+    public long offHeapBytes() {
+        return memory.offHeapBytes.sum();
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 映射已关闭时抛出异常
+    private void ensureOpen() {
+        if(memory.closed) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+    
+    /*
+     * 存入映射后复查是否已关闭
+     *
+     * 与close竞争时，close的清理可能错过刚存入的映射，此时由存入者再清理一次，
+     * 保证关闭后不会残留任何映射
+     */
+    private void recheckOpen() {
+        if(memory.closed) {
+            memory.clear();
+            throw new IllegalStateException("map is closed");
+        }
+    }
+    
+    /*
+     * 尝试替换probe对应的value，返回被替换的value，不存在时返回null
+     * 新value沿用原有的key块，该字段在桶锁内设置，因此之后的移除操作一定能看到它
+     */
+    private ValueBlock replace(Probe probe, ValueBlock valueBlock) {
+        ValueBlock[] old = new ValueBlock[1];
+        index.computeIfPresent(probe, (k, v) -> {
+            valueBlock.key = v.key;
+            old[0] = v;
+            return valueBlock;
+        });
+        return old[0];
+    }
+    
+    // 分配堆外内存块，并将key复制进去
+    private KeyBlock allocateKey(ByteBuffer key, int hash) {
+        int length = key.remaining();
+        long address = allocate(key, length);
+        return new KeyBlock(address, length, hash, memory);
+    }
+    
+    // 分配堆外内存块，并将value复制进去
+    private ValueBlock allocateValue(ByteBuffer value) {
+        int length = value.remaining();
+        long address = allocate(value, length);
+        return new ValueBlock(address, length);
+    }
+    
+    // 预留直接内存后分配堆外内存块，并将src中剩余的字节复制进去
+    private long allocate(ByteBuffer src, int length) {
+        // 与直接缓冲区共享MaxDirectMemorySize限额，超限时会先尝试GC，仍不足则抛出OutOfMemoryError
+        NIO_ACCESS.reserveMemory(length, length);
+        
+        long address;
+        try {
+            address = U.allocateMemory(Math.max(length, 1L));
+        } catch(OutOfMemoryError x) {
+            NIO_ACCESS.unreserveMemory(length, length);
+            throw x;
+        }
+        memory.offHeapBytes.add(length);
+        
+        copyIn(src, address);
+        
+        return address;
+    }
+    
+    // 将src中剩余的字节复制到address处，不修改src的position
+    private static void copyIn(ByteBuffer src, long address) {
+        int pos = src.position();
+        int len = src.limit() - pos;
+        
+        if(src.hasArray()) {
+            U.copyMemory(src.array(), Unsafe.ARRAY_BYTE_BASE_OFFSET + src.arrayOffset() + pos, null, address, len);
+        } else if(src.isDirect()) {
+            U.copyMemory(((DirectBuffer) src).address() + pos, address, len);
+        } else {
+            // 只读的堆内缓冲区无法访问底层数组，只能逐字节复制
+            for(int i = 0; i<len; i++) {
+                U.putByte(address + i, src.get(pos + i));
+            }
+        }
+    }
+    
+    // 将address处的length个字节复制到dst的position处，并前移position
+    private static void copyOut(long address, ByteBuffer dst, int length) {
+        int pos = dst.position();
+        
+        if(dst.hasArray()) {
+            U.copyMemory(null, address, dst.array(), Unsafe.ARRAY_BYTE_BASE_OFFSET + dst.arrayOffset() + pos, length);
+        } else if(dst.isDirect()) {
+            U.copyMemory(address, ((DirectBuffer) dst).address() + pos, length);
+        } else {
+            for(int i = 0; i<length; i++) {
+                dst.put(pos + i, U.getByte(address + i));
+            }
+        }
+        
+        dst.position(pos + length);
+    }
+    
+    // 计算剩余字节的哈希值，与Arrays.hashCode(byte[])一致
+    private static int hash(ByteBuffer key) {
+        int h = 1;
+        for(int i = key.position(), lim = key.limit(); i<lim; i++) {
+            h = 31 * h + key.get(i);
+        }
+        return h;
+    }
+    
+    
+    
+    /**
+     * A block of native memory with a reference count.  The map holds one
+     * reference to each block it stores, and every retrieval that reads
+     * the block holds another while doing so; the memory is freed when the
+     * count drops to zero, after which the block can no longer be pinned.
+     */
+    // 带引用计数的堆外内存块
+    abstract static class NativeBlock {
+        final long address;
+        final int length;
+        volatile int refs = 1;  // 引用计数，初始时为映射持有的引用
+        
+        NativeBlock(long address, int length) {
+            this.address = address;
+            this.length = length;
+        }
+        
+        // 在读取前增加引用计数，块已被释放时返回false
+        final boolean pin() {
+            for(; ; ) {
+                int r = refs;
+                if(r == 0) {
+                    return false;
+                }
+                if(REFS.compareAndSet(this, r, r + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        // 减少引用计数，降为0时释放堆外内存
+        final void release(Memory memory) {
+            if((int) REFS.getAndAdd(this, -1) == 1) {
+                memory.free(address, length);
+            }
+        }
+    }
+    
+    /**
+     * The key of a mapping.  Equality is defined by the key bytes; the
+     * block is pinned while they are compared, because the index may
+     * compare against a key whose mapping is being removed concurrently.
+     */
+    // 映射的key块，基于字节内容比较
+    static final class KeyBlock extends NativeBlock {
+        final int hash;
+        final Memory memory;    // 比较时可能需要由该块释放内存
+        
+        KeyBlock(long address, int length, int hash, Memory memory) {
+            super(address, length);
+            this.hash = hash;
+            this.memory = memory;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if(o == this) {
+                return true;
+            }
+            
+            if(o instanceof Probe) {
+                return o.equals(this);
+            }
+            
+            if(!(o instanceof KeyBlock)) {
+                return false;
+            }
+            
+            KeyBlock k = (KeyBlock) o;
+            if(k.hash != hash || k.length != length) {
+                return false;
+            }
+            
+            // 已被释放的key块不再属于映射，不与任何key相等
+            if(!pin()) {
+                return false;
+            }
+            try {
+                if(!k.pin()) {
+                    return false;
+                }
+                try {
+                    for(int i = 0; i<length; i++) {
+                        if(U.getByte(k.address + i) != U.getByte(address + i)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                } finally {
+                    k.release(k.memory);
+                }
+            } finally {
+                release(memory);
+            }
+        }
+    }
+    
+    /**
+     * The value of a mapping.
+     */
+    // 映射的value块
+    static final class ValueBlock extends NativeBlock {
+        /**
+         * The key block of the mapping, set before the value is stored and
+         * read only under the bin lock of the index or after removal.
+         */
+        KeyBlock key;
+        
+        ValueBlock(long address, int length) {
+            super(address, length);
+        }
+    }
+    
+    /**
+     * The native memory of a map.  It is reachable from the blocks and from
+     * the cleaner, so it must not refer to the map itself, or an unclosed map
+     * could never become unreachable and be cleaned.
+     */
+    // 映射的堆外内存簿记，同时作为Cleaner的清理动作
+    static final class Memory implements Runnable {
+        final ConcurrentHashMap<Object, ValueBlock> index;
+        
+        /** Number of bytes of native memory currently allocated. */
+        final LongAdder offHeapBytes = new LongAdder(); // 已分配的堆外内存字节数（包括已移除但仍在被读取的块）
+        
+        volatile boolean closed;    // 映射是否已关闭
+        
+        Memory(ConcurrentHashMap<Object, ValueBlock> index) {
+            this.index = index;
+        }
+        
+        // 关闭映射并释放所有映射，由close()或Cleaner调用，且只会执行一次
+        public void run() {
+            closed = true;
+            clear();
+        }
+        
+        // 移除所有映射，并释放映射持有的引用
+        void clear() {
+            for(Object key : index.keySet()) {
+                ValueBlock old = index.remove(key);
+                if(old != null) {
+                    old.key.release(this);
+                    old.release(this);
+                }
+            }
+        }
+        
+        // 释放堆外内存块
+        void free(long address, int length) {
+            U.freeMemory(address);
+            NIO_ACCESS.unreserveMemory(length, length);
+            offHeapBytes.add(-length);
+        }
+    }
+    
+    /**
+     * A transient lookup key over the remaining bytes of a caller's buffer.
+     */
+    // 查询时使用的临时key，直接引用调用者的缓冲区
+    static final class Probe {
+        final ByteBuffer buf;
+        final int offset;
+        final int length;
+        final int hash;
+        
+        Probe(ByteBuffer buf) {
+            this.hash = hash(buf);
+            this.buf = buf;
+            this.offset = buf.position();
+            this.length = buf.remaining();
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof KeyBlock)) {
+                return o == this;
+            }
+            
+            KeyBlock k = (KeyBlock) o;
+            if(k.hash != hash || k.length != length) {
+                return false;
+            }
+            
+            // 已被释放的key块不再属于映射，不与任何key相等
+            if(!k.pin()) {
+                return false;
+            }
+            try {
+                for(int i = 0; i<length; i++) {
+                    if(buf.get(offset + i) != U.getByte(k.address + i)) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                k.release(k.memory);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,740 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, pre-allocated ring of mutable event slots shared between any
+ * number of producer threads and one or more consumer threads, in the
+ * style of the LMAX Disruptor.
+ *
+ * <p>All slots are created once, by the factory given to the constructor,
+ * and are reused for every lap around the ring, so publishing an event
+ * allocates nothing.  A producer first <em>claims</em> one or more
+ * consecutive sequence numbers with a single {@code getAndAdd} on a padded
+ * counter, then fills the slots returned by {@link #get(long)}, and finally
+ * <em>publishes</em> them.  Claiming never takes a lock; a producer only
+ * waits if the ring is full, that is if the slowest consumer has not yet
+ * moved past the slot that would be overwritten.
+ *
+ * <p>Each consumer tracks its progress in a {@link Sequence} and obtains
+ * events through a {@link Barrier}, which waits, with a pluggable
+ * {@link WaitStrategy}, until a given sequence is published (and, for
+ * pipelined consumers, processed by upstream consumers).  A barrier returns
+ * the highest available sequence, so a consumer that falls behind processes
+ * the backlog as one batch.  Consumer sequences must be registered with
+ * {@link #addGatingSequences} so that producers do not overwrite slots that
+ * are still being read.
+ *
+ * <p>A typical consumer loop looks like:
+ *
+ * <pre> {@code
+ * RingBuffer<Event> ring = new RingBuffer<>(1024, Event::new,
+ *                                           RingBuffer.WaitStrategy.spinWait());
+ * RingBuffer.Sequence consumed = new RingBuffer.Sequence();
+ * RingBuffer.Barrier barrier = ring.newBarrier();
+ * ring.addGatingSequences(consumed);
+ *
+ * long next = consumed.get() + 1;
+ * for(; ; ) {
+ *     long available = barrier.waitFor(next);
+ *     for(; next <= available; next++) {
+ *         handle(ring.get(next));
+ *     }
+ *     consumed.set(available);
+ * }}</pre>
+ *
+ * <p>and a producer:
+ *
+ * <pre> {@code
+ * long seq = ring.next();
+ * try {
+ *     ring.get(seq).setPrice(price);
+ * } finally {
+ *     ring.publish(seq);
+ * }}</pre>
+ *
+ * <p>Waiting consumers respond to interruption by throwing
+ * {@link InterruptedException}, which is the usual way to shut a consumer
+ * down.
+ *
+ * @param <E> the type of the event slots
+ *
+ * @see ArrayBlockingQueue
+ * @since 11
+ */
+// 预分配槽位的环形缓冲区，生产者通过getAndAdd批量申请序号，消费者通过序号屏障与可插拔的等待策略读取事件
+public final class RingBuffer<E> {
+    
+    /** The initial value of every sequence: nothing claimed or consumed. */
+    public static final long INITIAL_VALUE = -1L;
+    
+    /** The pre-allocated slots. */
+    private final Object[] entries;
+    
+    /** entries.length - 1 */
+    private final int mask;
+    
+    /** log2(entries.length) */
+    private final int indexShift;
+    
+    /**
+     * Per slot, the lap number of the sequence last published into it;
+     * a sequence is available when its slot holds its own lap number.
+     */
+    private final int[] available;  // 每个槽位最近一次发布的圈数，用于判断某个序号是否已发布
+    
+    /** The highest claimed sequence. */
+    private final Sequence cursor = new Sequence();  // 生产者已申请的最大序号
+    
+    /** Cached minimum of the gating sequences, read and written by producers. */
+    private final Sequence gatingCache = new Sequence();  // 缓存的最慢消费者的进度
+    
+    /** The sequences of the consumers that producers must not overtake. */
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+    
+    private final WaitStrategy waitStrategy;
+    
+    
+    // VarHandle mechanics
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a {@code RingBuffer} with the given number of slots, each
+     * created by {@code factory}.
+     *
+     * @param bufferSize   the number of slots, must be a power of two
+     * @param factory      creates the slots
+     * @param waitStrategy how consumers wait for events
+     *
+     * @throws IllegalArgumentException if {@code bufferSize} is not a
+     *                                  positive power of two
+     * @throws NullPointerException     if {@code factory} or
+     *                                  {@code waitStrategy} is null, or if
+     *                                  the factory returns null
+     */
+    public RingBuffer(int bufferSize, Supplier<? extends E> factory, WaitStrategy waitStrategy) {
+        if(bufferSize<1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.entries = new Object[bufferSize];
+        for(int i = 0; i<bufferSize; i++) {
+            entries[i] = Objects.requireNonNull(factory.get());
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.available = new int[bufferSize];
+        Arrays.fill(available, -1);
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 生产者 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Claims the next sequence, waiting if the ring is full.
+     *
+     * @return the claimed sequence
+     */
+    // 申请下一个序号，缓冲区已满时等待
+    public long next() {
+        return next(1);
+    }
+    
+    /**
+     * Claims the next {@code n} consecutive sequences with a single atomic
+     * increment, waiting if the ring has not enough free slots.
+     *
+     * @param n the number of sequences to claim
+     *
+     * @return the highest claimed sequence; the claimed range is
+     * {@code [result - n + 1, result]}
+     *
+     * @throws IllegalArgumentException if {@code n} is not in
+     *                                  {@code [1, bufferSize]}
+     */
+    // 一次申请n个连续的序号，返回其中最大的序号
+    public long next(int n) {
+        if(n<1 || n>entries.length) {
+            throw new IllegalArgumentException("n must be > 0 and <= bufferSize");
+        }
+        
+        long hi = cursor.getAndAdd(n) + n;
+        long wrapPoint = hi - entries.length;
+        
+        // 申请的槽位会覆盖最慢的消费者尚未处理的事件，需要等待
+        if(wrapPoint>gatingCache.get()) {
+            long min;
+            while(wrapPoint>(min = minimumGatingSequence(hi - n))) {
+                LockSupport.parkNanos(1L);
+            }
+            gatingCache.set(min);
+        }
+        
+        return hi;
+    }
+    
+    /**
+     * Tries to claim the next {@code n} consecutive sequences without
+     * waiting.
+     *
+     * @param n the number of sequences to claim
+     *
+     * @return the highest claimed sequence, or {@code -1} if the ring has
+     * not enough free slots
+     *
+     * @throws IllegalArgumentException if {@code n} is not in
+     *                                  {@code [1, bufferSize]}
+     */
+    // 尝试申请n个连续的序号，缓冲区空间不足时返回-1
+    public long tryNext(int n) {
+        if(n<1 || n>entries.length) {
+            throw new IllegalArgumentException("n must be > 0 and <= bufferSize");
+        }
+        
+        for(; ; ) {
+            long current = cursor.get();
+            long hi = current + n;
+            long wrapPoint = hi - entries.length;
+            if(wrapPoint>gatingCache.get()) {
+                long min = minimumGatingSequence(current);
+                gatingCache.set(min);
+                if(wrapPoint>min) {
+                    return -1L;
+                }
+            }
+            if(cursor.compareAndSet(current, hi)) {
+                return hi;
+            }
+        }
+    }
+    
+    /**
+     * Publishes the given sequence, making its slot visible to consumers.
+     *
+     * @param sequence a sequence claimed by the current thread
+     */
+    // 发布序号sequence
+    public void publish(long sequence) {
+        AVAILABLE.setRelease(available, (int) sequence & mask, (int) (sequence >>> indexShift));
+        waitStrategy.signalAllWhenBlocking();
+    }
+    
+    /**
+     * Publishes all sequences in {@code [lo, hi]}.
+     *
+     * @param lo the lowest sequence to publish
+     * @param hi the highest sequence to publish
+     */
+    // 批量发布[lo, hi]范围内的序号
+    public void publish(long lo, long hi) {
+        for(long s = lo; s<=hi; s++) {
+            AVAILABLE.setRelease(available, (int) s & mask, (int) (s >>> indexShift));
+        }
+        waitStrategy.signalAllWhenBlocking();
+    }
+    
+    /**
+     * Claims {@code n} slots at once, lets {@code translator} fill each of
+     * them, and publishes them together.  The translator is passed the
+     * slot and its sequence.
+     *
+     * @param n          the number of events to publish
+     * @param translator fills a slot
+     *
+     * @throws IllegalArgumentException if {@code n} is not in
+     *                                  {@code [1, bufferSize]}
+     */
+    // 批量申请n个槽位，由translator填充后一起发布
+    public void publishEvents(int n, ObjLongConsumer<? super E> translator) {
+        Objects.requireNonNull(translator);
+        
+        long hi = next(n);
+        long lo = hi - n + 1;
+        try {
+            for(long s = lo; s<=hi; s++) {
+                translator.accept(get(s), s);
+            }
+        } finally {
+            publish(lo, hi);
+        }
+    }
+    
+    /*▲ 生产者 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 消费者 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the slot for the given sequence.  The slot may only be written
+     * by the producer that claimed the sequence until it is published, and
+     * may only be read by consumers after that.
+     *
+     * @param sequence a claimed or published sequence
+     *
+     * @return the slot for the sequence
+     */
+    // 返回序号sequence对应的槽位
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+    
+    /**
+     * Creates a barrier that waits for published events which have also been
+     * processed by all of the given upstream consumers.
+     *
+     * @param dependencies the sequences of upstream consumers, if any
+     *
+     * @return a new barrier
+     */
+    // 创建一个序号屏障，可以依赖上游消费者的进度
+    public Barrier newBarrier(Sequence... dependencies) {
+        return new Barrier(dependencies.clone());
+    }
+    
+    /**
+     * Registers consumer sequences that producers must not overtake.
+     * A sequence should be registered before its consumer starts, and its
+     * value should be at least the current {@linkplain #getCursor cursor}
+     * if events have already been published.
+     *
+     * @param sequences the consumer sequences
+     */
+    // 注册消费者的序号，生产者不会覆盖这些消费者尚未处理的槽位
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] old = gatingSequences;
+        Sequence[] a = Arrays.copyOf(old, old.length + sequences.length);
+        for(int i = 0; i<sequences.length; i++) {
+            a[old.length + i] = Objects.requireNonNull(sequences[i]);
+        }
+        gatingSequences = a;
+    }
+    
+    /**
+     * Removes a consumer sequence registered with
+     * {@link #addGatingSequences}.
+     *
+     * @param sequence the sequence to remove
+     *
+     * @return {@code true} if the sequence was registered
+     */
+    // 移除已注册的消费者序号
+    public synchronized boolean removeGatingSequence(Sequence sequence) {
+        Sequence[] old = gatingSequences;
+        for(int i = 0; i<old.length; i++) {
+            if(old[i] == sequence) {
+                Sequence[] a = new Sequence[old.length - 1];
+                System.arraycopy(old, 0, a, 0, i);
+                System.arraycopy(old, i + 1, a, i, a.length - i);
+                gatingSequences = a;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*▲ 消费者 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the number of slots in this ring.
+     *
+     * @return the number of slots in this ring
+     */
+    public int getBufferSize() {
+        return entries.length;
+    }
+    
+    /**
+     * Returns the highest claimed sequence.  Sequences up to this value are
+     * not necessarily published yet.
+     *
+     * @return the highest claimed sequence
+     */
+    // 返回已申请的最大序号
+    public long getCursor() {
+        return cursor.get();
+    }
+    
+    /**
+     * Returns whether the given sequence has been published.
+     *
+     * @param sequence the sequence to check
+     *
+     * @return {@code true} if the sequence has been published
+     */
+    // 判断序号sequence是否已发布
+    public boolean isPublished(long sequence) {
+        return (int) AVAILABLE.getAcquire(available, (int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+    
+    /**
+     * Returns the number of slots that can be claimed without waiting.
+     *
+     * @return the number of free slots
+     */
+    // 返回剩余可用的槽位数量
+    public long remainingCapacity() {
+        long produced = cursor.get();
+        long consumed = minimumGatingSequence(produced);
+        return entries.length - (produced - consumed);
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 返回所有消费者中最慢的进度，没有消费者时返回defaultValue
+    private long minimumGatingSequence(long defaultValue) {
+        long min = defaultValue;
+        for(Sequence s : gatingSequences) {
+            min = Math.min(min, s.get());
+        }
+        return min;
+    }
+    
+    // 返回[lo, hi]范围内从lo开始连续发布的最大序号
+    private long highestPublished(long lo, long hi) {
+        for(long s = lo; s<=hi; s++) {
+            if(!isPublished(s)) {
+                return s - 1;
+            }
+        }
+        return hi;
+    }
+    
+    
+    
+    /**
+     * A padded, volatile sequence counter.  Each instance occupies its own
+     * cache lines, like the cells of {@link java.util.concurrent.atomic.LongAdder},
+     * so that the counters of producers and of different consumers do not
+     * falsely share.
+     */
+    // 带缓存行填充的序号
+    @jdk.internal.vm.annotation.Contended
+    public static class Sequence {
+        private volatile long value;
+        
+        // VarHandle mechanics
+        private static final VarHandle VALUE;
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                VALUE = l.findVarHandle(Sequence.class, "value", long.class);
+            } catch(ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
+        /**
+         * Creates a sequence with value {@link RingBuffer#INITIAL_VALUE}.
+         */
+        public Sequence() {
+            this(INITIAL_VALUE);
+        }
+        
+        /**
+         * Creates a sequence with the given value.
+         *
+         * @param initialValue the initial value
+         */
+        public Sequence(long initialValue) {
+            VALUE.setRelease(this, initialValue);
+        }
+        
+        /**
+         * Returns the current value, with acquire semantics.
+         *
+         * @return the current value
+         */
+        public long get() {
+            return (long) VALUE.getAcquire(this);
+        }
+        
+        /**
+         * Sets the value with release semantics.  This is the usual way for a
+         * consumer to publish its progress, and is cheaper than a volatile
+         * write.
+         *
+         * @param value the new value
+         */
+        public void set(long value) {
+            VALUE.setRelease(this, value);
+        }
+        
+        /**
+         * Sets the value with volatile semantics.
+         *
+         * @param value the new value
+         */
+        public void setVolatile(long value) {
+            this.value = value;
+        }
+        
+        /**
+         * Atomically sets the value to {@code update} if it is {@code expect}.
+         *
+         * @param expect the expected value
+         * @param update the new value
+         *
+         * @return {@code true} if successful
+         */
+        public boolean compareAndSet(long expect, long update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+        
+        /**
+         * Atomically adds {@code delta} to the value.
+         *
+         * @param delta the value to add
+         *
+         * @return the previous value
+         */
+        public long getAndAdd(long delta) {
+            return (long) VALUE.getAndAdd(this, delta);
+        }
+        
+        public String toString() {
+            return Long.toString(get());
+        }
+    }
+    
+    /**
+     * Tracks the published sequences of a {@link RingBuffer} and, optionally,
+     * the progress of upstream consumers, for one consumer.
+     */
+    // 序号屏障，消费者通过它等待事件可用
+    public final class Barrier {
+        private final Sequence dependency;
+        
+        Barrier(Sequence[] dependencies) {
+            this.dependency = dependencies.length == 0 ? cursor : new MinSequence(dependencies);
+        }
+        
+        /**
+         * Waits until {@code sequence} is available to this consumer and
+         * returns the highest available sequence, which may be greater than
+         * {@code sequence}.
+         *
+         * @param sequence the sequence to wait for
+         *
+         * @return the highest sequence that can be consumed, at least
+         * {@code sequence}
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         *                              while waiting
+         */
+        // 等待序号sequence可用，返回当前可用的最大序号
+        public long waitFor(long sequence) throws InterruptedException {
+            for(; ; ) {
+                long hi = waitStrategy.waitFor(sequence, dependency);
+                
+                // 已申请的序号不一定已发布，只返回连续发布的部分
+                long avail = highestPublished(sequence, hi);
+                if(avail >= sequence) {
+                    return avail;
+                }
+                
+                if(Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                Thread.onSpinWait();
+            }
+        }
+        
+        /**
+         * Returns the ring buffer of this barrier.
+         *
+         * @return the ring buffer of this barrier
+         */
+        public RingBuffer<E> ringBuffer() {
+            return RingBuffer.this;
+        }
+    }
+    
+    /** The minimum of a fixed group of sequences; read-only. */
+    // 一组序号中的最小值
+    private static final class MinSequence extends Sequence {
+        private final Sequence[] sequences;
+        
+        MinSequence(Sequence[] sequences) {
+            this.sequences = sequences;
+        }
+        
+        @Override
+        public long get() {
+            long min = Long.MAX_VALUE;
+            for(Sequence s : sequences) {
+                min = Math.min(min, s.get());
+            }
+            return min;
+        }
+        
+        @Override
+        public void set(long value) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void setVolatile(long value) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public boolean compareAndSet(long expect, long update) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public long getAndAdd(long delta) {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    /**
+     * How a consumer waits for a sequence to become available.
+     * Implementations must respond to interruption by throwing
+     * {@link InterruptedException}.
+     */
+    // 消费者的等待策略
+    public interface WaitStrategy {
+        
+        /**
+         * Waits until {@code dependency.get() >= sequence}.
+         *
+         * @param sequence   the sequence to wait for
+         * @param dependency the sequence to watch
+         *
+         * @return the observed value of {@code dependency}, at least
+         * {@code sequence}
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        long waitFor(long sequence, Sequence dependency) throws InterruptedException;
+        
+        /**
+         * Wakes up consumers blocked in {@link #waitFor}, if this strategy
+         * blocks.  Called by producers after each publication.
+         */
+        default void signalAllWhenBlocking() {
+        }
+        
+        /**
+         * Returns a strategy that spins in a tight loop.  Lowest latency, but
+         * burns a core per waiting consumer.
+         *
+         * @return a busy-spin wait strategy
+         */
+        // 忙等
+        static WaitStrategy busySpin() {
+            return (sequence, dependency) -> {
+                long v;
+                while((v = dependency.get())<sequence) {
+                    if(Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                return v;
+            };
+        }
+        
+        /**
+         * Returns a strategy that spins with {@link Thread#onSpinWait}
+         * hints, which lets the processor save power and yield pipeline
+         * resources to a sibling hyper-thread.
+         *
+         * @return a spin-wait wait strategy
+         */
+        // 带自旋提示的忙等
+        static WaitStrategy spinWait() {
+            return (sequence, dependency) -> {
+                long v;
+                while((v = dependency.get())<sequence) {
+                    if(Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    Thread.onSpinWait();
+                }
+                return v;
+            };
+        }
+        
+        /**
+         * Returns a strategy that spins briefly and then parks for
+         * {@code parkNanos} between checks.  Uses little CPU at the cost of
+         * latency.
+         *
+         * @param parkNanos the time to park between checks
+         *
+         * @return a parking wait strategy
+         *
+         * @throws IllegalArgumentException if {@code parkNanos <= 0}
+         */
+        // 先短暂自旋，然后每次阻塞parkNanos纳秒
+        static WaitStrategy parkNanos(long parkNanos) {
+            if(parkNanos<=0) {
+                throw new IllegalArgumentException();
+            }
+            return (sequence, dependency) -> {
+                long v;
+                int spins = 100;
+                while((v = dependency.get())<sequence) {
+                    if(Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if(spins>0) {
+                        spins--;
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(parkNanos);
+                    }
+                }
+                return v;
+            };
+        }
+    }
+    
+}
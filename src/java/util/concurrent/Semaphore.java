@@ -207,6 +207,33 @@ public class Semaphore implements Serializable {
         sync = fair ? new FairSync(permits) : new NonfairSync(permits);
     }
     
+    /**
+     * Creates a {@code Semaphore} with the given number of
+     * permits, the given fairness setting and, optionally, adaptive
+     * spinning.
+     *
+     * <p>With adaptive spinning, the thread at the head of the wait queue
+     * spins for a while before it parks, and the length of the spin adapts
+     * to how long permits have recently been held.  See
+     * {@link AbstractQueuedSynchronizer.AdaptiveSpin}.
+     *
+     * @param permits      the initial number of permits available.
+     *                     This value may be negative, in which case releases
+     *                     must occur before any acquires will be granted.
+     * @param fair         {@code true} if this semaphore will guarantee
+     *                     first-in first-out granting of permits under contention,
+     *                     else {@code false}
+     * @param adaptiveSpin {@code true} if queued threads should spin before parking
+     *
+     * @since 11
+     */
+    public Semaphore(int permits, boolean fair, boolean adaptiveSpin) {
+        this(permits, fair);
+        if(adaptiveSpin) {
+            sync.enableAdaptiveSpin();
+        }
+    }
+    
     /*▲ 构造方法 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -627,6 +654,22 @@ public class Semaphore implements Serializable {
         return sync.getQueueLength();
     }
     
+    /**
+     * Returns the adaptive spinning policy of this semaphore, which
+     * publishes the spin budget and the park and wakeup counts of waiting
+     * threads, or {@code null} if this semaphore was not created with
+     * adaptive spinning.  This method is designed for use in monitoring
+     * system state.
+     *
+     * @return the adaptive spinning policy, or {@code null}
+     *
+     * @since 11
+     */
+    // 返回自适应自旋策略（包含自旋预算与阻塞/唤醒次数的统计），未启用时返回null
+    public final AbstractQueuedSynchronizer.AdaptiveSpin getAdaptiveSpin() {
+        return sync.adaptiveSpin();
+    }
+    
     /**
      * Returns the current number of permits available in this semaphore.
      *
@@ -723,6 +766,16 @@ public class Semaphore implements Serializable {
             setState(permits);
         }
         
+        // 启用自适应自旋
+        final void enableAdaptiveSpin() {
+            setAdaptiveSpin(new AdaptiveSpin());
+        }
+        
+        // 返回自适应自旋策略
+        final AdaptiveSpin adaptiveSpin() {
+            return getAdaptiveSpin();
+        }
+        
         // 允许单个或多个线程多次申请锁（借出许可证）
         final int nonfairTryAcquireShared(int acquires) {
             for(; ; ) {
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An unbounded {@linkplain BlockingQueue blocking queue} split into
+ * independent lock-free sub-queues, intended as the work queue of a
+ * {@link ThreadPoolExecutor} with many workers.
+ *
+ * <p>A single {@link LinkedBlockingQueue} makes every {@code execute} and
+ * every worker's {@code take} contend on the same {@code putLock} and
+ * {@code takeLock}.  Here each thread is assigned a home sub-queue by its
+ * {@link ThreadLocalRandom} probe: a thread inserts into its home
+ * sub-queue and also removes from it first, so a worker that submits
+ * follow-up tasks usually runs them itself; a thread that finds its home
+ * sub-queue empty <em>steals</em> from the others in turn.  Locking is
+ * only involved when a taker has to block because all sub-queues are
+ * empty, and producers only touch that lock when they see a blocked
+ * taker.
+ *
+ * <p>Because {@code ThreadPoolExecutor} only interacts with its work queue
+ * through the {@code BlockingQueue} interface, passing an instance of this
+ * class to any of its constructors keeps the executor's
+ * {@link RejectedExecutionHandler}, {@code beforeExecute}/{@code afterExecute}
+ * hooks and core/maximum pool sizing unchanged.  As with any unbounded
+ * queue, the pool then never grows beyond its core size.
+ *
+ * <p>Elements are ordered FIFO within a sub-queue, but there is no global
+ * order across sub-queues.  {@code size} is an estimate that is exact in
+ * the absence of concurrent updates.  Iterators are <i>weakly consistent</i>.
+ *
+ * <p>This class does not permit {@code null} elements.
+ *
+ * @param <E> the type of elements held in this queue
+ *
+ * @see Executors#newWorkStealingFixedThreadPool(int)
+ * @since 11
+ */
+// 分段的无界阻塞队列：每个线程拥有一个“本地”子队列，本地子队列为空时从其它子队列中窃取元素
+public class WorkStealingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, java.io.Serializable {
+    
+    private static final long serialVersionUID = -1468203839291153548L;
+    
+    /** The maximum number of sub-queues. */
+    private static final int MAX_STRIPES = 1 << 16;
+    
+    /** The sub-queues; length is a power of two. */
+    private final ConcurrentLinkedQueue<E>[] stripes;   // 子队列
+    
+    /** Estimated number of elements. */
+    private final LongAdder count = new LongAdder();   // 元素数量的估计值
+    
+    /** Number of threads blocked, or about to block, waiting for an element. */
+    private final AtomicInteger waiters = new AtomicInteger();  // 正在（或即将）阻塞等待的线程数量
+    
+    /** Lock and condition used only by blocking takers and the producers waking them. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} with one sub-queue per
+     * available processor.
+     */
+    public WorkStealingBlockingQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} with at least the given
+     * number of sub-queues, normally the number of threads that will take
+     * from it.
+     *
+     * @param parallelism the expected number of consumer threads
+     *
+     * @throws IllegalArgumentException if {@code parallelism} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public WorkStealingBlockingQueue(int parallelism) {
+        if(parallelism<=0) {
+            throw new IllegalArgumentException();
+        }
+        
+        int n = parallelism >= MAX_STRIPES ? MAX_STRIPES : Integer.highestOneBit((parallelism << 1) - 1);
+        stripes = (ConcurrentLinkedQueue<E>[]) new ConcurrentLinkedQueue<?>[n];
+        for(int i = 0; i<n; i++) {
+            stripes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Inserts the specified element into the current thread's sub-queue.
+     * As the queue is unbounded, this method never returns {@code false}.
+     *
+     * @param e the element to add
+     *
+     * @return {@code true} (as specified by {@link java.util.Queue#offer})
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，插入到当前线程的本地子队列，永不阻塞
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        
+        stripes[homeIndex()].offer(e);
+        count.increment();
+        
+        // 只有存在等待者时才需要加锁唤醒
+        if(waiters.get()>0) {
+            signalNotEmpty();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Inserts the specified element into this queue.  As the queue is
+     * unbounded, this method never blocks.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     */
+    // 入队，永不阻塞
+    public void put(E e) {
+        offer(e);
+    }
+    
+    /**
+     * Inserts the specified element into this queue.  As the queue is
+     * unbounded, this method never blocks or returns {@code false}.
+     *
+     * @return {@code true} (as specified by
+     * {@link BlockingQueue#offer(Object, long, TimeUnit) BlockingQueue.offer})
+     *
+     * @throws NullPointerException {@inheritDoc}
+     */
+    // 入队，永不阻塞
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+    
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 出队，先访问本地子队列，再依次从其它子队列窃取，所有子队列都为空时返回null
+    public E poll() {
+        ConcurrentLinkedQueue<E>[] qs = stripes;
+        int mask = qs.length - 1;
+        int h = homeIndex();
+        
+        for(int i = 0; i<=mask; i++) {
+            E e = qs[(h + i) & mask].poll();
+            if(e != null) {
+                count.decrement();
+                return e;
+            }
+        }
+        
+        return null;
+    }
+    
+    // 出队，所有子队列都为空时阻塞
+    public E take() throws InterruptedException {
+        E e;
+        while((e = poll()) == null) {
+            awaitNotEmpty(0L, false);
+        }
+        return e;
+    }
+    
+    // 出队，所有子队列都为空时阻塞一段时间，超时后返回null
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        
+        E e;
+        while((e = poll()) == null) {
+            if(nanos<=0L) {
+                return null;
+            }
+            awaitNotEmpty(nanos, true);
+            nanos = deadline - System.nanoTime();
+        }
+        
+        return e;
+    }
+    
+    // 将队列中的元素移动到给定的容器当中
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+    
+    // 将队列中的元素移动到给定的容器当中，最多移动maxElements个
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        int n = 0;
+        E e;
+        while(n<maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        
+        return n;
+    }
+    
+    // 移除指定的元素
+    public boolean remove(Object o) {
+        if(o == null) {
+            return false;
+        }
+        
+        for(ConcurrentLinkedQueue<E> q : stripes) {
+            if(q.remove(o)) {
+                count.decrement();
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    // 清空队列
+    public void clear() {
+        while(poll() != null) {
+        }
+    }
+    
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 获取队首元素，不移除
+    public E peek() {
+        ConcurrentLinkedQueue<E>[] qs = stripes;
+        int mask = qs.length - 1;
+        int h = homeIndex();
+        
+        for(int i = 0; i<=mask; i++) {
+            E e = qs[(h + i) & mask].peek();
+            if(e != null) {
+                return e;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Returns {@code true} if no sub-queue holds an element.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    // 判断队列是否为空
+    public boolean isEmpty() {
+        for(ConcurrentLinkedQueue<E> q : stripes) {
+            if(!q.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the estimated number of elements in this queue.
+     *
+     * @return the estimated number of elements in this queue
+     */
+    // 返回队列中元素数量的估计值
+    public int size() {
+        long n = count.sum();
+        return n<0 ? 0 : (n >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n);
+    }
+    
+    /**
+     * Always returns {@code Integer.MAX_VALUE} because a
+     * {@code WorkStealingBlockingQueue} is not capacity constrained.
+     *
+     * @return {@code Integer.MAX_VALUE} (as specified by
+     * {@link BlockingQueue#remainingCapacity()})
+     */
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Returns a weakly consistent iterator over the elements of all
+     * sub-queues, one sub-queue after another.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    // 返回依次遍历各子队列的迭代器
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Returns the index of the current thread's home sub-queue.
+     */
+    // 返回当前线程的本地子队列下标
+    private int homeIndex() {
+        int h = ThreadLocalRandom.getProbe();
+        if(h == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        return h & (stripes.length - 1);
+    }
+    
+    /**
+     * Blocks until signalled, interrupted or timed out, unless an element
+     * shows up after registering as a waiter.  Registering before the
+     * final check pairs with producers reading {@code waiters} after
+     * inserting, so that either the producer sees the waiter or the
+     * waiter sees the element.
+     */
+    // 所有子队列都为空时阻塞等待
+    private void awaitNotEmpty(long nanos, boolean timed) throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waiters.incrementAndGet();
+            try {
+                if(!isEmpty()) {
+                    return;
+                }
+                
+                if(timed) {
+                    notEmpty.awaitNanos(nanos);
+                } else {
+                    notEmpty.await();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // 唤醒一个等待的出队者
+    private void signalNotEmpty() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    
+    
+    // 依次遍历各子队列的迭代器
+    private class Itr implements Iterator<E> {
+        int index;                  // 当前子队列下标
+        Iterator<E> it = stripes[0].iterator();
+        Iterator<E> lastIt;         // 上次返回元素所在子队列的迭代器
+        
+        public boolean hasNext() {
+            while(!it.hasNext()) {
+                if(++index >= stripes.length) {
+                    return false;
+                }
+                it = stripes[index].iterator();
+            }
+            return true;
+        }
+        
+        public E next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIt = it;
+            return it.next();
+        }
+        
+        public void remove() {
+            if(lastIt == null) {
+                throw new IllegalStateException();
+            }
+            lastIt.remove();
+            lastIt = null;
+            count.decrement();
+        }
+    }
+    
+}
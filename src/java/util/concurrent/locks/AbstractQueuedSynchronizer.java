@@ -42,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides a framework for implementing blocking locks and related
@@ -332,6 +333,23 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
     // 重入锁计数/许可证数量，在不同的锁中，使用方式有所不同
     private volatile int state;
 
+    /**
+     * The adaptive spinning policy, or null if queued threads park
+     * without spinning.
+     */
+    // 自适应自旋策略，为null时排队的线程直接阻塞
+    private transient volatile AdaptiveSpin adaptiveSpin;
+
+    /**
+     * The maximum spin budget of the adaptive spinning policy, or zero if
+     * spinning is disabled.  Unlike the policy itself, this is serialized,
+     * so that a deserialized synchronizer spins just like the original.
+     *
+     * @serial
+     */
+    // 自适应自旋策略的最大自旋预算，为0时表示未开启自旋；该字段会被序列化，用于在反序列化时重建自旋策略
+    private int adaptiveMaxSpins;
+
     // VarHandle mechanics
     private static final VarHandle STATE;   // 保存字段 state 的内存地址
     private static final VarHandle HEAD;    // 保存字段 head  的内存地址
@@ -481,6 +499,13 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
                 // 抢锁失败时，尝试为node的前驱设置阻塞标记（每个结点的阻塞标记设置在其前驱上）
                 if(shouldParkAfterFailedAcquire(p, node)) {
+                    // 启用了自适应自旋时，排在队首的结点先自旋等待，仍然失败才阻塞
+                    if(p == head && spinForAcquire(arg)) {
+                        setHead(node);
+                        p.next = null;
+                        return interrupted;
+                    }
+
                     /*
                      * 使线程陷入阻塞
                      *
@@ -566,6 +591,13 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
                 // 抢锁失败时，尝试为node的前驱设置阻塞标记（每个结点的阻塞标记设置在其前驱上）
                 if(shouldParkAfterFailedAcquire(p, node)) {
+                    // 启用了自适应自旋时，排在队首的结点先自旋等待，仍然失败才阻塞
+                    if(p == head && spinForAcquire(arg)) {
+                        setHead(node);
+                        p.next = null;
+                        return;
+                    }
+
                     // 设置当前线程进入阻塞状态，并清除当前线程的中断状态
                     if(parkAndCheckInterrupt()){
                         // 如果线程被唤醒时拥有中断标记（在阻塞期间设置的），这里抛出异常
@@ -858,6 +890,16 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
                 // 抢锁失败时，尝试为node的前驱设置阻塞标记（每个结点的阻塞标记设置在其前驱上）
                 if(shouldParkAfterFailedAcquire(p, node)) {
+                    // 启用了自适应自旋时，排在队首的结点先自旋等待，仍然失败才阻塞
+                    if(p == head) {
+                        int r = spinForAcquireShared(arg);
+                        if(r >= 0) {
+                            setHeadAndPropagate(node, r);
+                            p.next = null;
+                            return;
+                        }
+                    }
+
                     /*
                      * 如果首次到达这里时线程被标记为中断，则此步只是简单地清除中断标记，并返回true
                      * 接下来，通过死循环，线程再次来到这里，然后进入阻塞(park)...
@@ -941,6 +983,16 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
                 // 抢锁失败时，尝试为node的前驱设置阻塞标记（每个结点的阻塞标记设置在其前驱上）
                 if(shouldParkAfterFailedAcquire(p, node)) {
+                    // 启用了自适应自旋时，排在队首的结点先自旋等待，仍然失败才阻塞
+                    if(p == head) {
+                        int r = spinForAcquireShared(arg);
+                        if(r >= 0) {
+                            setHeadAndPropagate(node, r);
+                            p.next = null;
+                            return;
+                        }
+                    }
+
                     // 设置当前线程进入阻塞状态，并清除当前线程的中断状态
                     if(parkAndCheckInterrupt()){
                         // 如果线程被唤醒时拥有中断标记（在阻塞期间设置的），这里抛出异常
@@ -1234,6 +1286,69 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
 
 
+    /*▼ 自适应自旋 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Sets the adaptive spinning policy of this synchronizer.  When a policy
+     * is set, the first queued thread spins, retrying {@link #tryAcquire} or
+     * {@link #tryAcquireShared}, before it parks.  When {@code null}, the
+     * default, queued threads park as soon as they have made sure that they
+     * will be signalled.
+     *
+     * <p>Spinning only pays off when the synchronizer is typically held for
+     * less time than a park/unpark round trip takes, as with very short
+     * critical sections on a multiprocessor.  Timed acquires do not use the
+     * policy; they already spin for very short timeouts.
+     *
+     * @param spin the policy, or {@code null} to disable spinning
+     *
+     * @since 11
+     */
+    // 设置自适应自旋策略，为null时关闭自旋
+    protected final void setAdaptiveSpin(AdaptiveSpin spin) {
+        adaptiveMaxSpins = spin == null ? 0 : spin.maxSpins;
+        adaptiveSpin = spin;
+    }
+
+    /**
+     * Returns the adaptive spinning policy of this synchronizer, which also
+     * holds its spin and park statistics, or {@code null} if spinning is
+     * disabled.
+     *
+     * @return the adaptive spinning policy, or {@code null}
+     *
+     * @since 11
+     */
+    // 返回自适应自旋策略
+    protected final AdaptiveSpin getAdaptiveSpin() {
+        return adaptiveSpin;
+    }
+    
+    /**
+     * Reconstitutes this synchronizer from a stream, rebuilding the adaptive
+     * spinning policy with the same maximum budget.  The spin and park
+     * statistics of the policy are not serialized and start at zero.
+     *
+     * @param s the stream
+     *
+     * @throws ClassNotFoundException if the class of a serialized object
+     *                                could not be found
+     * @throws java.io.IOException    if an I/O error occurs
+     */
+    // 反序列化时，若原同步器开启了自适应自旋，则以相同的最大自旋预算重建自旋策略（统计数据从0开始）
+    private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int maxSpins = adaptiveMaxSpins;
+        if(maxSpins<0) {
+            throw new java.io.InvalidObjectException("negative spin budget: " + maxSpins);
+        }
+        adaptiveSpin = maxSpins == 0 ? null : new AdaptiveSpin(maxSpins);
+    }
+
+    /*▲ 自适应自旋 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
     /*▼ 同步队列 ████████████████████████████████████████████████████████████████████████████████┓ */
 
     /**
@@ -2040,13 +2155,76 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
      */
     // 设置线程进入阻塞状态，并清除线程的中断状态。返回值代表之前线程是否处于阻塞状态
     private final boolean parkAndCheckInterrupt() {
+        AdaptiveSpin spin = adaptiveSpin;
+        if(spin != null) {
+            spin.parks.increment();
+        }
+
         // 设置线程阻塞（对标记为中断的线程无效）
         // 线程执行到这，就被阻塞了。
         LockSupport.park(this);
+
+        if(spin != null) {
+            spin.wakeups.increment();
+        }
+
         //线程被唤醒时，接着执行以下代码。返回线程是否在阻塞期间被打上中断标签。
         return Thread.interrupted();
     }
 
+    /**
+     * Spins, if adaptive spinning is enabled, trying to acquire in
+     * exclusive mode for up to the current spin budget.
+     *
+     * @return {@code true} if acquired
+     */
+    // 在自旋预算内反复尝试申请独占锁，未启用自适应自旋时直接返回false
+    private boolean spinForAcquire(int arg) {
+        AdaptiveSpin spin = adaptiveSpin;
+        int budget;
+        if(spin == null || (budget = spin.budget()) == 0) {
+            return false;
+        }
+
+        for(int i = 1; i<=budget; i++) {
+            Thread.onSpinWait();
+            if(tryAcquire(arg)) {
+                spin.onSuccess(i);
+                return true;
+            }
+        }
+
+        spin.onFailure();
+        return false;
+    }
+
+    /**
+     * Shared-mode version of {@link #spinForAcquire}.
+     *
+     * @return the result of the successful {@link #tryAcquireShared},
+     * or a negative value if not acquired
+     */
+    // 在自旋预算内反复尝试申请共享锁，未启用自适应自旋时直接返回-1
+    private int spinForAcquireShared(int arg) {
+        AdaptiveSpin spin = adaptiveSpin;
+        int budget;
+        if(spin == null || (budget = spin.budget()) == 0) {
+            return -1;
+        }
+
+        for(int i = 1; i<=budget; i++) {
+            Thread.onSpinWait();
+            int r = tryAcquireShared(arg);
+            if(r >= 0) {
+                spin.onSuccess(i);
+                return r;
+            }
+        }
+
+        spin.onFailure();
+        return -1;
+    }
+
     /**
      * Cancels an ongoing attempt to acquire.
      *
@@ -2440,6 +2618,151 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
         }
     }
 
+    /**
+     * An adaptive spin-then-park policy for an
+     * {@code AbstractQueuedSynchronizer}, together with counters that
+     * describe how queued threads waited.
+     *
+     * <p>The first queued thread spins with {@link Thread#onSpinWait} for
+     * up to the current <em>spin budget</em>, retrying the acquire, before
+     * it parks.  The budget adapts to recent hold times: when an acquire
+     * succeeds after {@code n} spins, the synchronizer was released after
+     * about {@code n} spins, and the budget grows to at least {@code 2n};
+     * when the budget runs out, the synchronizer is being held for longer
+     * than spinning is worth, and the budget is halved.  Updates are racy,
+     * which only makes the budget a little less precise.  On a
+     * uniprocessor the budget is always zero.
+     *
+     * <p>The counters are updated with {@link LongAdder}s and may be read
+     * at any time for monitoring.
+     *
+     * @since 11
+     */
+    // 自适应自旋策略：排在队首的线程阻塞前先自旋，自旋预算根据最近的持有时间自动调整，同时统计阻塞与唤醒的次数
+    public static final class AdaptiveSpin {
+
+        /** The smallest budget the policy shrinks to. */
+        static final int MIN_SPINS = 1 << 4;
+
+        /** The default largest budget. */
+        static final int DEFAULT_MAX_SPINS = 1 << 12;
+
+        private static final boolean MP = Runtime.getRuntime().availableProcessors()>1;
+
+        private final int maxSpins;
+        private volatile int budget;   // 当前的自旋预算
+
+        final LongAdder parks = new LongAdder();         // 阻塞次数
+        final LongAdder wakeups = new LongAdder();       // 从阻塞中醒来的次数
+        final LongAdder spinAcquires = new LongAdder();  // 自旋期间申请成功的次数
+        final LongAdder spinFailures = new LongAdder();  // 自旋预算耗尽的次数
+
+        /**
+         * Creates a policy with the default maximum spin budget.
+         */
+        public AdaptiveSpin() {
+            this(DEFAULT_MAX_SPINS);
+        }
+
+        /**
+         * Creates a policy with the given maximum spin budget.
+         *
+         * @param maxSpins the maximum number of spins before parking
+         *
+         * @throws IllegalArgumentException if {@code maxSpins < 1}
+         */
+        public AdaptiveSpin(int maxSpins) {
+            if(maxSpins<1) {
+                throw new IllegalArgumentException();
+            }
+            this.maxSpins = maxSpins;
+            this.budget = Math.min(MIN_SPINS << 2, maxSpins);
+        }
+
+        /**
+         * Returns the current spin budget.
+         *
+         * @return the number of spins before the next park
+         */
+        public int getSpinBudget() {
+            return MP ? budget : 0;
+        }
+
+        /**
+         * Returns the number of times a queued thread parked.
+         *
+         * @return the park count
+         */
+        public long getParkCount() {
+            return parks.sum();
+        }
+
+        /**
+         * Returns the number of times a parked thread woke up, whether it
+         * was signalled, interrupted or woke spuriously.
+         *
+         * @return the wakeup count
+         */
+        public long getWakeupCount() {
+            return wakeups.sum();
+        }
+
+        /**
+         * Returns the number of acquires that succeeded while spinning,
+         * each of which avoided a park.
+         *
+         * @return the count of acquires while spinning
+         */
+        public long getSpinAcquireCount() {
+            return spinAcquires.sum();
+        }
+
+        /**
+         * Returns the number of times the spin budget ran out before the
+         * acquire succeeded.
+         *
+         * @return the count of failed spins
+         */
+        public long getSpinFailureCount() {
+            return spinFailures.sum();
+        }
+
+        /**
+         * Returns a string identifying this policy, as well as its budget and
+         * counters.
+         *
+         * @return a string identifying this policy
+         */
+        public String toString() {
+            return super.toString() + "[budget = " + getSpinBudget() + ", parks = " + getParkCount() + ", wakeups = " + getWakeupCount() + ", spinAcquires = " + getSpinAcquireCount() + ", spinFailures = " + getSpinFailureCount() + "]";
+        }
+
+        // 当前的自旋预算
+        int budget() {
+            return MP ? budget : 0;
+        }
+
+        // 自旋到第spins次时申请成功，预算至少增长到2*spins
+        void onSuccess(int spins) {
+            spinAcquires.increment();
+            int b = budget;
+            int nb = Math.min(maxSpins, Math.max(b, spins << 1));
+            if(nb != b) {
+                budget = nb;
+            }
+        }
+
+        // 自旋预算耗尽，预算减半
+        void onFailure() {
+            spinFailures.increment();
+            int b = budget;
+            int nb = Math.max(Math.min(MIN_SPINS, maxSpins), b >>> 1);
+            if(nb != b) {
+                budget = nb;
+            }
+        }
+    }
+
     /**
      * Condition implementation for a {@link AbstractQueuedSynchronizer}
      * serving as the basis of a {@link Lock} implementation.
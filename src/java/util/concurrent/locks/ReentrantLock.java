@@ -147,6 +147,29 @@ public class ReentrantLock implements Lock, Serializable {
         sync = fair ? new FairSync() : new NonfairSync();
     }
     
+    /**
+     * Creates an instance of {@code ReentrantLock} with the
+     * given fairness policy and, optionally, adaptive spinning.
+     *
+     * <p>With adaptive spinning, the thread at the head of the wait queue
+     * spins for a while before it parks, and the length of the spin adapts
+     * to how long the lock has recently been held.  This avoids the cost of
+     * a context switch when critical sections are very short.  See
+     * {@link AbstractQueuedSynchronizer.AdaptiveSpin}.
+     *
+     * @param fair         {@code true} if this lock should use a fair ordering policy
+     * @param adaptiveSpin {@code true} if queued threads should spin before parking
+     *
+     * @since 11
+     */
+    // 创建一个锁，fair决定锁是公平锁还是非公平锁，adaptiveSpin决定排队的线程在阻塞前是否先自适应地自旋
+    public ReentrantLock(boolean fair, boolean adaptiveSpin) {
+        this(fair);
+        if(adaptiveSpin) {
+            sync.setAdaptiveSpin(new AbstractQueuedSynchronizer.AdaptiveSpin());
+        }
+    }
+    
     /*▲ 构造方法 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -459,6 +482,21 @@ public class ReentrantLock implements Lock, Serializable {
         return sync.getQueueLength();
     }
     
+    /**
+     * Returns the adaptive spinning policy of this lock, which publishes
+     * the spin budget and the park and wakeup counts of waiting threads,
+     * or {@code null} if this lock was not created with adaptive spinning.
+     * This method is designed for use in monitoring system state.
+     *
+     * @return the adaptive spinning policy, or {@code null}
+     *
+     * @since 11
+     */
+    // 返回自适应自旋策略（包含自旋预算与阻塞/唤醒次数的统计），未启用时返回null
+    public final AbstractQueuedSynchronizer.AdaptiveSpin getAdaptiveSpin() {
+        return sync.getAdaptiveSpin();
+    }
+    
     /**
      * Queries the number of holds on this lock by the current thread.
      *
@@ -0,0 +1,684 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.concurrent.locks;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reentrant {@link ReadWriteLock} biased towards readers, whose read lock
+ * scales with the number of reader threads.
+ *
+ * <p>{@link ReentrantReadWriteLock} counts readers in the single
+ * synchronization state word, so every read acquisition and release is a
+ * CAS on one shared cache line.  This lock instead keeps a table of reader
+ * indicators, padded cells in the style of
+ * {@link java.util.concurrent.atomic.LongAdder}, sized to the number of
+ * processors.  Each thread is assigned one cell and a read acquisition
+ * only increments that cell, so readers on different cores do not contend.
+ * The price is paid by writers: a writer first announces itself, which
+ * diverts new readers to a slow path, and then waits until the sum over all
+ * cells drops to zero.  The lock therefore suits data that is read very
+ * often and written rarely.
+ *
+ * <p>This lock supports the same reentrancy as
+ * {@code ReentrantReadWriteLock}: both locks may be reacquired by their
+ * holders, and the writer may acquire the read lock, which allows
+ * downgrading from the write lock to the read lock.  Upgrading from the read
+ * lock to the write lock is not possible: the read holds of the requesting
+ * thread count like those of any other reader, so a thread that holds the
+ * read lock and calls {@code writeLock().lock()} waits for itself forever,
+ * and {@code writeLock().tryLock} fails or times out.  Meanwhile the pending
+ * writer keeps new readers out, as with {@code ReentrantReadWriteLock}.
+ *
+ * <p>The write lock supports {@link Condition}s with the same semantics
+ * as those of {@link ReentrantLock}.  The read lock does not support
+ * conditions.
+ *
+ * <p>If constructed as fair, writers, and readers that had to wait for a
+ * writer, are granted the lock in arrival order.  Readers that find no
+ * writer are admitted immediately, whatever the fairness policy.
+ *
+ * @see ReentrantReadWriteLock
+ * @see StampedLock
+ * @since 11
+ */
+// 读写锁，读锁使用按线程分散的计数单元表示，读线程之间不会竞争同一个缓存行，适合读多写少的场景
+public class StripedReadWriteLock implements ReadWriteLock {
+    
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    
+    /** Number of polls of the reader cells before a writer parks. */
+    private static final int WRITER_SPINS = (NCPU>1) ? 1 << 6 : 0;
+    
+    /** Serializes writers and readers that found a writer. */
+    private final ReentrantLock writerLock;
+    
+    /** The reader indicators; length is a power of two. */
+    private final Cell[] cells;
+    
+    /**
+     * Set while a writer holds, or is acquiring, the write lock.
+     * Readers that see it back off to the slow path.
+     */
+    private volatile boolean writerPending;    // 是否存在持有或正在申请写锁的线程
+    
+    /** The writer waiting for readers to drain, unparked by readers. */
+    private volatile Thread waitingWriter;      // 正在等待读线程退出的写线程
+    
+    /** Per-thread read hold counts and assigned cells. */
+    private final ThreadLocal<ReadHold> readHolds = new ThreadLocal<>();
+    
+    private final ReadLock readerLock = new ReadLock();
+    private final WriteLock writeLock = new WriteLock();
+    
+    
+    
+    /*▼ 构造方法 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a new {@code StripedReadWriteLock} with default (nonfair)
+     * ordering properties.
+     */
+    public StripedReadWriteLock() {
+        this(false);
+    }
+    
+    /**
+     * Creates a new {@code StripedReadWriteLock} with the given fairness
+     * policy.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     */
+    public StripedReadWriteLock(boolean fair) {
+        writerLock = new ReentrantLock(fair);
+        
+        int n = 1;
+        while(n<NCPU) {
+            n <<= 1;
+        }
+        cells = new Cell[n];
+        for(int i = 0; i<n; i++) {
+            cells[i] = new Cell();
+        }
+    }
+    
+    /*▲ 构造方法 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 读锁/写锁 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 返回读锁
+    public Lock readLock() {
+        return readerLock;
+    }
+    
+    // 返回写锁
+    public Lock writeLock() {
+        return writeLock;
+    }
+    
+    /*▲ 读锁/写锁 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 状态 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns {@code true} if this lock has fairness set true.
+     *
+     * @return {@code true} if this lock has fairness set true
+     */
+    public final boolean isFair() {
+        return writerLock.isFair();
+    }
+    
+    /**
+     * Queries the number of read locks held for this lock.  This requires
+     * summing all reader cells, and is designed for use in monitoring
+     * system state, not for synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    // 返回所有线程持有读锁的总次数
+    public int getReadLockCount() {
+        return (int) readerSum();
+    }
+    
+    /**
+     * Queries the number of reentrant read holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the read lock by the current thread
+     */
+    // 返回当前线程持有读锁的次数
+    public int getReadHoldCount() {
+        ReadHold h = readHolds.get();
+        return h == null ? 0 : h.count;
+    }
+    
+    /**
+     * Queries if the write lock is held by any thread.
+     *
+     * @return {@code true} if any thread holds the write lock
+     */
+    public boolean isWriteLocked() {
+        return writerLock.isLocked();
+    }
+    
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+    
+    /**
+     * Queries the number of reentrant write holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the write lock by the current thread
+     */
+    public int getWriteHoldCount() {
+        return writerLock.getHoldCount();
+    }
+    
+    /**
+     * Queries whether any threads are waiting to acquire the write lock, or
+     * the read lock behind a writer.
+     *
+     * @return {@code true} if there may be other threads waiting
+     */
+    public final boolean hasQueuedThreads() {
+        return writerLock.hasQueuedThreads();
+    }
+    
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        return super.toString() + "[Write locks = " + getWriteHoldCountOfOwner() + ", Read locks = " + getReadLockCount() + "]";
+    }
+    
+    /*▲ 状态 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 读锁实现 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 返回当前线程的读锁记录，首次调用时为其分配计数单元
+    private ReadHold readHold() {
+        ReadHold h = readHolds.get();
+        if(h == null) {
+            long id = Thread.currentThread().getId();
+            int i = (int) (id ^ id >>> 16) * 0x9E3779B9;
+            h = new ReadHold(cells[(i ^ i >>> 16) & (cells.length - 1)]);
+            readHolds.set(h);
+        }
+        return h;
+    }
+    
+    /**
+     * Fast path: admits a reader if no writer is present, or if the reader
+     * already holds the read or the write lock.
+     */
+    // 读锁的快速路径：没有写线程时只需在自己的计数单元上加1
+    private boolean tryAcquireShared(ReadHold h) {
+        h.cell.add(1L);
+        
+        // 先增加计数再检查写标记，与写线程的"先置标记再检查计数"配对
+        if(!writerPending || h.count>0 || writerLock.isHeldByCurrentThread()) {
+            h.count++;
+            return true;
+        }
+        
+        // 存在写线程，撤销计数，稍后走慢速路径
+        releaseCell(h.cell);
+        return false;
+    }
+    
+    /**
+     * Slow path, entered with the writer lock held: no writer can be
+     * pending, so the reader is admitted unconditionally.
+     */
+    // 读锁的慢速路径，调用时已持有writerLock，此时不会有写线程
+    private void acquireSharedLocked(ReadHold h) {
+        try {
+            h.cell.add(1L);
+            h.count++;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+    
+    // 释放读锁
+    private void releaseShared() {
+        ReadHold h = readHolds.get();
+        if(h == null || h.count == 0) {
+            throw new IllegalMonitorStateException("attempt to unlock read lock, not locked by current thread");
+        }
+        
+        h.count--;
+        releaseCell(h.cell);
+    }
+    
+    // 在计数单元上减1，如果有写线程在等待，则唤醒它重新检查
+    private void releaseCell(Cell cell) {
+        cell.add(-1L);
+        if(writerPending) {
+            Thread w = waitingWriter;
+            if(w != null) {
+                LockSupport.unpark(w);
+            }
+        }
+    }
+    
+    /*▲ 读锁实现 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 写锁实现 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Called with the writer lock newly acquired: announces the writer and
+     * waits until all readers have left.  Returns {@code false}, with the
+     * announcement withdrawn but the writer lock still held, if the wait
+     * is interrupted (when interruptible) or times out.
+     *
+     * @param interruptible whether to abort on interrupt
+     * @param deadline      the System.nanoTime() deadline, or 0 for none
+     */
+    // 写线程获取writerLock后，置位写标记并等待所有读线程退出
+    private boolean awaitReaders(boolean interruptible, long deadline) {
+        writerPending = true;   // volatile写，随后读取计数单元
+        
+        // 写线程自己持有的读锁同样需要等待（不支持锁升级），与ReentrantReadWriteLock一致
+        int spins = WRITER_SPINS;
+        while(readerSum() != 0L) {
+            if(spins>0) {
+                spins--;
+                Thread.onSpinWait();
+                continue;
+            }
+            
+            if(interruptible && Thread.interrupted()) {
+                writerPending = false;
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            
+            waitingWriter = Thread.currentThread();
+            // 发布waitingWriter后需要再次检查，避免丢失唤醒
+            if(readerSum() != 0L) {
+                if(deadline == 0L) {
+                    LockSupport.park(this);
+                } else {
+                    long nanos = deadline - System.nanoTime();
+                    if(nanos<=0L) {
+                        waitingWriter = null;
+                        writerPending = false;
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                }
+            }
+            waitingWriter = null;
+        }
+        
+        return true;
+    }
+    
+    // 释放写锁
+    private void releaseExclusive() {
+        if(!writerLock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException();
+        }
+        
+        // 完全释放写锁之前撤销写标记
+        if(writerLock.getHoldCount() == 1) {
+            writerPending = false;
+        }
+        writerLock.unlock();
+    }
+    
+    /*▲ 写锁实现 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 所有计数单元之和，即持有读锁的总次数
+    private long readerSum() {
+        long sum = 0L;
+        for(Cell c : cells) {
+            sum += c.value;
+        }
+        return sum;
+    }
+    
+    // 写锁持有者的重入次数（仅用于toString）
+    private int getWriteHoldCountOfOwner() {
+        return writerLock.isLocked() ? Math.max(1, writerLock.getHoldCount()) : 0;
+    }
+    
+    
+    
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    // 读锁，共享锁
+    private final class ReadLock implements Lock {
+        
+        /**
+         * Acquires the read lock, waiting while a writer holds or is
+         * acquiring the write lock (unless the current thread already holds
+         * the read lock or the write lock).
+         */
+        public void lock() {
+            ReadHold h = readHold();
+            if(!tryAcquireShared(h)) {
+                writerLock.lock();
+                acquireSharedLocked(h);
+            }
+        }
+        
+        public void lockInterruptibly() throws InterruptedException {
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ReadHold h = readHold();
+            if(!tryAcquireShared(h)) {
+                writerLock.lockInterruptibly();
+                acquireSharedLocked(h);
+            }
+        }
+        
+        /**
+         * Acquires the read lock only if no writer holds or is acquiring the
+         * write lock at the time of invocation.
+         */
+        public boolean tryLock() {
+            ReadHold h = readHold();
+            if(tryAcquireShared(h)) {
+                return true;
+            }
+            if(writerLock.tryLock()) {
+                acquireSharedLocked(h);
+                return true;
+            }
+            return false;
+        }
+        
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ReadHold h = readHold();
+            if(tryAcquireShared(h)) {
+                return true;
+            }
+            if(writerLock.tryLock(timeout, unit)) {
+                acquireSharedLocked(h);
+                return true;
+            }
+            return false;
+        }
+        
+        public void unlock() {
+            releaseShared();
+        }
+        
+        /**
+         * Throws {@code UnsupportedOperationException} because read locks
+         * do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+        
+        public String toString() {
+            return super.toString() + "[Read locks = " + getReadLockCount() + "]";
+        }
+    }
+    
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    // 写锁，独占锁
+    private final class WriteLock implements Lock {
+        
+        public void lock() {
+            if(writerLock.isHeldByCurrentThread()) {
+                writerLock.lock();
+                return;
+            }
+            writerLock.lock();
+            awaitReaders(false, 0L);
+        }
+        
+        public void lockInterruptibly() throws InterruptedException {
+            if(writerLock.isHeldByCurrentThread()) {
+                writerLock.lockInterruptibly();
+                return;
+            }
+            writerLock.lockInterruptibly();
+            if(!awaitReaders(true, 0L)) {
+                writerLock.unlock();
+                Thread.interrupted();
+                throw new InterruptedException();
+            }
+        }
+        
+        /**
+         * Acquires the write lock only if it is not held by another thread
+         * and no thread holds the read lock at the time of invocation.
+         */
+        public boolean tryLock() {
+            if(!writerLock.tryLock()) {
+                return false;
+            }
+            if(writerLock.getHoldCount()>1) {
+                return true;
+            }
+            
+            writerPending = true;
+            if(readerSum() == 0L) {
+                return true;
+            }
+            writerPending = false;
+            writerLock.unlock();
+            return false;
+        }
+        
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if(!writerLock.tryLock(timeout, unit)) {
+                return false;
+            }
+            if(writerLock.getHoldCount()>1) {
+                return true;
+            }
+            
+            if(!awaitReaders(true, deadline == 0L ? 1L : deadline)) {
+                writerLock.unlock();
+                if(Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                return false;
+            }
+            return true;
+        }
+        
+        public void unlock() {
+            releaseExclusive();
+        }
+        
+        /**
+         * Returns a {@link Condition} instance for use with this
+         * {@link Lock} instance, with the same semantics as a condition of
+         * {@link ReentrantLock}.  While waiting, the thread gives up the
+         * write lock, letting both readers and writers in.  Regaining it
+         * is an upgrade, so a thread that also holds the read lock must not
+         * wait on the condition.
+         */
+        public Condition newCondition() {
+            return new WriterCondition(writerLock.newCondition());
+        }
+        
+        public String toString() {
+            Thread o = writerLock.isHeldByCurrentThread() ? Thread.currentThread() : null;
+            return super.toString() + (writerLock.isLocked() ? ((o != null) ? "[Locked by thread " + o.getName() + "]" : "[Locked]") : "[Unlocked]");
+        }
+    }
+    
+    /**
+     * A condition of the write lock.  Awaiting releases the write lock, so
+     * the writer announcement must be withdrawn before waiting and renewed,
+     * waiting again for readers, after the underlying condition has
+     * reacquired the writer lock.
+     */
+    // 写锁的条件对象，等待前撤销写标记，被唤醒后重新置位写标记并等待读线程退出
+    private final class WriterCondition implements Condition {
+        private final Condition condition;
+        
+        WriterCondition(Condition condition) {
+            this.condition = condition;
+        }
+        
+        // 等待前调用
+        private void beforeWait() {
+            if(!writerLock.isHeldByCurrentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            writerPending = false;
+        }
+        
+        // 重新获取writerLock后调用
+        private void afterWait() {
+            awaitReaders(false, 0L);
+        }
+        
+        public void await() throws InterruptedException {
+            beforeWait();
+            try {
+                condition.await();
+            } finally {
+                afterWait();
+            }
+        }
+        
+        public void awaitUninterruptibly() {
+            beforeWait();
+            try {
+                condition.awaitUninterruptibly();
+            } finally {
+                afterWait();
+            }
+        }
+        
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            beforeWait();
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                afterWait();
+            }
+        }
+        
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            beforeWait();
+            try {
+                return condition.await(time, unit);
+            } finally {
+                afterWait();
+            }
+        }
+        
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            beforeWait();
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                afterWait();
+            }
+        }
+        
+        public void signal() {
+            condition.signal();
+        }
+        
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+    
+    /**
+     * A padded reader indicator.
+     */
+    // 读线程计数单元，使用缓存行填充避免伪共享
+    @jdk.internal.vm.annotation.Contended
+    static final class Cell {
+        volatile long value;
+        
+        // VarHandle mechanics
+        private static final VarHandle VALUE;
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                VALUE = l.findVarHandle(Cell.class, "value", long.class);
+            } catch(ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
+        // 原子地增加x，具有volatile语义（全屏障）
+        final void add(long x) {
+            VALUE.getAndAdd(this, x);
+        }
+    }
+    
+    /**
+     * Read hold count of a thread, and the cell assigned to it.  A thread
+     * always uses the same cell, so that the cell it scanned tells a writer
+     * exactly how many holds that thread has.
+     */
+    // 线程持有读锁的次数，以及分配给该线程的计数单元
+    static final class ReadHold {
+        final Cell cell;
+        int count;
+        
+        ReadHold(Cell cell) {
+            this.cell = cell;
+        }
+    }
+    
+}
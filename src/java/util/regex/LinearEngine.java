@@ -0,0 +1,1067 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern.CharPredicate;
+import java.util.regex.Pattern.Node;
+
+/**
+ * The execution engine used by patterns compiled with {@link Pattern#LINEAR}.
+ *
+ * The node tree produced by the Pattern parser is translated into a small
+ * Thompson program, which is then run by lazily built DFAs: the states are
+ * ordered lists of program counters, so the leftmost-first preferences of
+ * the backtracking engine are kept. A find runs a forward DFA to locate the
+ * end of the leftmost match and a reverse DFA to locate its start; the
+ * capturing groups, if there are any, are filled in by running the program
+ * once more over the matched range only. Every step of every automaton is
+ * bounded by the size of the program, so matching takes time linear in the
+ * input.
+ *
+ * An iteration of a repetition that matches the empty string ends the
+ * repetition; see the LOOP instruction. The backtracking engine does not
+ * apply this rule in exactly the same places, so for repeated groups that
+ * can match the empty string the two engines may pick different match
+ * boundaries, as documented for Pattern.LINEAR.
+ *
+ * DFA states are shared by all matchers of the pattern. They are interned in
+ * a concurrent map and published through final fields, so the transition
+ * tables may be filled in racily; once {@link #MAX_STATES} states exist new
+ * states are computed on the fly instead of being cached.
+ */
+final class LinearEngine {
+
+    /** Instruction opcodes of the Thompson program */
+    static final int CHAR = 0;      // 匹配一个满足断言的字符
+    static final int SPLIT = 1;     // 分叉，x分支优先于y分支
+    static final int JMP = 2;       // 跳转到x
+    static final int SAVE = 3;      // 记录捕获组位置到槽x
+    static final int ASSERT = 4;    // 零宽断言，x为探针索引
+    static final int MATCH = 5;     // 匹配成功
+    static final int LOOP = 6;      // 循环体结束，x为循环入口的SPLIT，y为后续指令
+
+    /** Upper bound of the program size, counted repetitions are expanded */
+    static final int MAX_INSTS = 1 << 16;
+
+    /** Upper bound of the (pc, position) pairs tracked by the backtracker */
+    static final int MAX_VISITED = 1 << 18;
+
+    /** Upper bound of the number of cached states of a single DFA */
+    static final int MAX_STATES = 1 << 12;
+
+    /** Upper bound of the cached non-ASCII transitions of a single state */
+    static final int MAX_WIDE = 1 << 6;
+
+    /** Terminal node for the assertion probes */
+    static final Node TRUE = new Node() {
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return true;
+        }
+    };
+
+    /** Matches any code point, used by the unanchored prefix */
+    static final CharPredicate ANY = ch -> true;
+
+    private final Node[] probes;          // 断言探针，next均指向TRUE
+    private final boolean endSensitive;   // 是否包含$或\b这类依赖后续输入的断言
+    private final int slotCount;          // 捕获组槽位数量
+
+    private final Prog anchored;          // 锚定的正向程序，也供Pike VM使用
+    private final DFA searchDFA;          // 非锚定的正向DFA，查找最左匹配的终点
+    private final DFA firstDFA;           // 锚定的正向DFA，优先级匹配
+    private final DFA longestDFA;         // 锚定的正向DFA，不截断低优先级线程
+    private final DFA reverseDFA;         // 反向DFA，查找匹配的起点
+
+    private LinearEngine(Translator t, Re re, int groupCount) {
+        probes = t.probes.toArray(new Node[0]);
+        endSensitive = t.endSensitive;
+        slotCount = groupCount * 2;
+
+        Prog search = new Prog(t.pattern).unanchored(re);
+        anchored = new Prog(t.pattern).anchored(re, false);
+        Prog reversed = new Prog(t.pattern).anchored(re, true);
+
+        searchDFA = new DFA(search, false);
+        firstDFA = new DFA(anchored, false);
+        longestDFA = new DFA(anchored, true);
+        reverseDFA = new DFA(reversed, true);
+    }
+
+    /**
+     * Translates the node tree of a pattern into a linear engine.
+     *
+     * @throws PatternSyntaxException if the pattern uses a construct that
+     *         needs backtracking, or if it is too large
+     */
+    // 将匹配树matchRoot翻译为线性引擎，遇到需要回溯的结构时抛异常
+    static LinearEngine compile(Pattern pattern, Node matchRoot, int flags) {
+        Translator t = new Translator(pattern.pattern());
+        if((flags & Pattern.CANON_EQ) != 0) {
+            throw t.unsupported("Canonical equivalence");
+        }
+        Re re = t.chain(matchRoot);
+        return new LinearEngine(t, re, pattern.capturingGroupCount);
+    }
+
+    /**
+     * Unanchored search, the counterpart of {@code root.match}.
+     */
+    // 从from处开始查找匹配
+    boolean search(Matcher matcher, int from) {
+        int end = forward(searchDFA, matcher, from, false);
+        if(end<0) {
+            return false;
+        }
+        int start = backward(reverseDFA, matcher, end, from);
+        if(start<0) {
+            start = from;
+        }
+        return accept(matcher, start, end);
+    }
+
+    /**
+     * Anchored match, the counterpart of {@code matchRoot.match}.
+     */
+    // 从from处开始锚定匹配，anchor为ENDANCHOR时要求匹配到达末尾
+    boolean match(Matcher matcher, int from, int anchor) {
+        boolean endAnchor = anchor == Matcher.ENDANCHOR;
+        int end = forward(endAnchor ? longestDFA : firstDFA, matcher, from, endAnchor);
+        if(end<0) {
+            return false;
+        }
+        return accept(matcher, from, end);
+    }
+
+    /**
+     * Records a match of [start, end) in the matcher. When there are
+     * capturing groups to fill in, the program is run again over the range:
+     * by a bounded backtracker if the range is short, by the Pike VM
+     * otherwise. Both only accept a MATCH at {@code end}, since the DFAs
+     * have already established that no preferred thread ends elsewhere.
+     */
+    // 记录匹配结果，必要时计算捕获组
+    private boolean accept(Matcher matcher, int start, int end) {
+        int[] groups = matcher.groups;
+        if(slotCount>2) {
+            int[] slots;
+            if((long) anchored.size * (end - start + 1)<=MAX_VISITED) {
+                slots = backtrack(matcher, start, end);
+            } else {
+                slots = pike(matcher, start, end);
+            }
+            if(slots != null) {
+                System.arraycopy(slots, 2, groups, 2, slotCount - 2);
+            }
+        }
+        if(endSensitive && end == matcher.to) {
+            matcher.requireEnd = true;
+        }
+        matcher.first = start;
+        matcher.last = end;
+        groups[0] = start;
+        groups[1] = end;
+        return true;
+    }
+
+    /**
+     * Runs a DFA forward from {@code i} and returns the end of the match it
+     * prefers, or -1 if there is none.
+     */
+    private int forward(DFA dfa, Matcher matcher, int i, boolean endAnchor) {
+        CharSequence seq = matcher.text;
+        int to = matcher.to;
+        int found = -1;
+        State s = dfa.start(mask(matcher, i));
+        for(; ; ) {
+            if(s.match && i<=to && (!endAnchor || i == to)) {
+                found = i;
+            }
+            if(i >= to) {
+                if(s.live>0 || endSensitive) {
+                    matcher.hitEnd = true;
+                }
+                return found;
+            }
+            if(s.live == 0) {
+                return found;
+            }
+            int c = codePointAt(seq, i, to);
+            i += Character.charCount(c);
+            s = dfa.next(s, c, mask(matcher, i));
+        }
+    }
+
+    /**
+     * Runs the reverse DFA backward from {@code i} down to {@code limit} and
+     * returns the leftmost position where it accepts, or -1.
+     */
+    private int backward(DFA dfa, Matcher matcher, int i, int limit) {
+        CharSequence seq = matcher.text;
+        int found = -1;
+        State s = dfa.start(mask(matcher, i));
+        for(; ; ) {
+            if(s.match) {
+                found = i;
+            }
+            if(i<=limit || s.live == 0) {
+                return found;
+            }
+            int c = seq.charAt(i - 1);
+            if(Character.isLowSurrogate((char) c) && i - 2 >= limit) {
+                char hi = seq.charAt(i - 2);
+                if(Character.isHighSurrogate(hi)) {
+                    c = Character.toCodePoint(hi, (char) c);
+                }
+            }
+            i -= Character.charCount(c);
+            s = dfa.next(s, c, mask(matcher, i));
+        }
+    }
+
+    /**
+     * Runs a backtracker over [start, end) that remembers every (pc, position)
+     * pair it has tried, so no pair is explored twice. Returns the capture
+     * slots of the preferred match, or null if there is none.
+     */
+    // 使用有界回溯计算捕获组
+    private int[] backtrack(Matcher matcher, int start, int end) {
+        Prog prog = anchored;
+        CharSequence seq = matcher.text;
+        int width = end - start + 1;
+        long[] visited = new long[(prog.size * width + 63) >>> 6];
+        int[] caps = new int[slotCount];
+        Arrays.fill(caps, -1);
+
+        // pairs of (pc, position); a negative pc restores slot ~pc to position
+        int[] jobs = new int[32];
+        int sp = 0;
+        jobs[sp++] = 0;
+        jobs[sp++] = start;
+        while(sp>0) {
+            int pos = jobs[--sp];
+            int pc = jobs[--sp];
+            if(pc<0) {
+                caps[~pc] = pos;
+                continue;
+            }
+            for(; ; ) {
+                int bit = pc * width + pos - start;
+                if((visited[bit >>> 6] & (1L << bit)) != 0) {
+                    break;
+                }
+                visited[bit >>> 6] |= 1L << bit;
+                int op = prog.op[pc];
+                if(op == CHAR) {
+                    if(pos >= end) {
+                        break;
+                    }
+                    int c = codePointAt(seq, pos, end);
+                    if(!prog.preds[pc].is(c)) {
+                        break;
+                    }
+                    pos += Character.charCount(c);
+                    pc++;
+                } else if(op == JMP) {
+                    pc = prog.x[pc];
+                } else if(op == SPLIT || op == SAVE) {
+                    if(sp + 2>jobs.length) {
+                        jobs = Arrays.copyOf(jobs, jobs.length * 2);
+                    }
+                    if(op == SPLIT) {
+                        jobs[sp++] = prog.y[pc];
+                        jobs[sp++] = pos;
+                        pc = prog.x[pc];
+                    } else {
+                        int slot = prog.x[pc];
+                        jobs[sp++] = ~slot;
+                        jobs[sp++] = caps[slot];
+                        caps[slot] = pos;
+                        pc++;
+                    }
+                } else if(op == LOOP) {
+                    // an iteration that consumed nothing leaves the loop
+                    int split = prog.x[pc];
+                    int exit = prog.exit(split);
+                    int b1 = split * width + pos - start;
+                    int b2 = exit * width + pos - start;
+                    boolean entered = (visited[b1 >>> 6] & (1L << b1)) != 0;
+                    boolean left = (visited[b2 >>> 6] & (1L << b2)) != 0;
+                    pc = entered && !left ? exit : prog.y[pc];
+                } else if(op == ASSERT) {
+                    if(!test(matcher, prog.x[pc], pos)) {
+                        break;
+                    }
+                    pc++;
+                } else {
+                    if(pos == end) {
+                        return caps;
+                    }
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the Pike VM over [start, end) and returns the capture slots of the
+     * preferred match, or null if there is none.
+     */
+    // 使用Pike VM计算捕获组
+    private int[] pike(Matcher matcher, int start, int end) {
+        Prog prog = anchored;
+        CharSequence seq = matcher.text;
+        int n = prog.size;
+        int[] cpcs = new int[n];
+        int[] npcs = new int[n];
+        int[][] ccaps = new int[n][];
+        int[][] ncaps = new int[n][];
+        int[] seen = new int[n];
+        int[] stackPc = new int[2 * n + 2];
+        int[][] stackCaps = new int[2 * n + 2][];
+        int gen = 1;
+
+        int[] init = new int[slotCount];
+        Arrays.fill(init, -1);
+        int count = addThread(matcher, 0, init, start, cpcs, ccaps, 0, seen, gen, stackPc, stackCaps);
+
+        int[] found = null;
+        int i = start;
+        while(count>0) {
+            int c = -1;
+            int cc = 0;
+            if(i<end) {
+                c = codePointAt(seq, i, end);
+                cc = Character.charCount(c);
+            }
+            gen++;
+            int ncount = 0;
+            for(int k = 0; k<count; k++) {
+                int pc = cpcs[k];
+                if(prog.op[pc] == MATCH) {
+                    if(i == end) {
+                        found = ccaps[k];
+                        break;  // lower priority threads are cut off
+                    }
+                } else if(c >= 0 && prog.preds[pc].is(c)) {
+                    ncount = addThread(matcher, pc + 1, ccaps[k], i + cc, npcs, ncaps, ncount, seen, gen, stackPc, stackCaps);
+                }
+            }
+            if(c<0) {
+                break;
+            }
+            int[] tp = cpcs;
+            cpcs = npcs;
+            npcs = tp;
+            int[][] tc = ccaps;
+            ccaps = ncaps;
+            ncaps = tc;
+            count = ncount;
+            i += cc;
+        }
+        return found;
+    }
+
+    /**
+     * Adds the thread at {@code pc0} and everything reachable from it
+     * through epsilon moves to the list, in priority order. The capture
+     * arrays are copied on write so threads may share them.
+     */
+    private int addThread(Matcher matcher, int pc0, int[] caps0, int pos, int[] pcs, int[][] caps, int count, int[] seen, int gen, int[] stackPc, int[][] stackCaps) {
+        Prog prog = anchored;
+        int sp = 0;
+        stackPc[sp] = pc0;
+        stackCaps[sp++] = caps0;
+        while(sp>0) {
+            int pc = stackPc[--sp];
+            int[] c = stackCaps[sp];
+            if(seen[pc] == gen) {
+                continue;
+            }
+            seen[pc] = gen;
+            switch(prog.op[pc]) {
+                case JMP:
+                    stackPc[sp] = prog.x[pc];
+                    stackCaps[sp++] = c;
+                    break;
+                case SPLIT:
+                    stackPc[sp] = prog.y[pc];
+                    stackCaps[sp++] = c;
+                    stackPc[sp] = prog.x[pc];
+                    stackCaps[sp++] = c;
+                    break;
+                case LOOP: {
+                    int split = prog.x[pc];
+                    int exit = prog.exit(split);
+                    stackPc[sp] = seen[split] == gen && seen[exit] != gen ? exit : prog.y[pc];
+                    stackCaps[sp++] = c;
+                    break;
+                }
+                case SAVE:
+                    c = c.clone();
+                    c[prog.x[pc]] = pos;
+                    stackPc[sp] = pc + 1;
+                    stackCaps[sp++] = c;
+                    break;
+                case ASSERT:
+                    if(test(matcher, prog.x[pc], pos)) {
+                        stackPc[sp] = pc + 1;
+                        stackCaps[sp++] = c;
+                    }
+                    break;
+                default:
+                    pcs[count] = pc;
+                    caps[count++] = c;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the code point at {@code i}, a surrogate pair is only combined
+     * if it lies entirely before {@code limit}.
+     */
+    static int codePointAt(CharSequence seq, int i, int limit) {
+        char c1 = seq.charAt(i);
+        if(Character.isHighSurrogate(c1) && i + 1<limit) {
+            char c2 = seq.charAt(i + 1);
+            if(Character.isLowSurrogate(c2)) {
+                return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c1;
+    }
+
+    /**
+     * Evaluates every assertion of the pattern at position {@code i}.
+     */
+    private int mask(Matcher matcher, int i) {
+        if(probes.length == 0) {
+            return 0;
+        }
+        int mask = 0;
+        for(int k = 0; k<probes.length; k++) {
+            if(test(matcher, k, i)) {
+                mask |= 1 << k;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Evaluates a single assertion, the end flags it may set are discarded
+     * because the automata probe positions the backtracker never visits.
+     */
+    private boolean test(Matcher matcher, int k, int i) {
+        boolean hitEnd = matcher.hitEnd;
+        boolean requireEnd = matcher.requireEnd;
+        boolean result = probes[k].match(matcher, i, matcher.text);
+        matcher.hitEnd = hitEnd;
+        matcher.requireEnd = requireEnd;
+        return result;
+    }
+
+
+    /**
+     * Regular expression tree that sits between the node tree and the
+     * program; it can be emitted forward and backward.
+     */
+    static final class Re {
+        static final int LIT = 0;
+        static final int CAT = 1;
+        static final int ALT = 2;
+        static final int REP = 3;
+        static final int SAVE = 4;
+        static final int ASSERT = 5;
+
+        static final Re EMPTY = new Re(CAT);
+
+        final int kind;
+        CharPredicate predicate;
+        Re[] subs;
+        int min, max;
+        int arg;
+        boolean greedy;
+
+        Re(int kind) {
+            this.kind = kind;
+        }
+
+        static Re lit(CharPredicate predicate) {
+            Re re = new Re(LIT);
+            re.predicate = predicate;
+            return re;
+        }
+
+        static Re cat(List<Re> list) {
+            if(list.size() == 1) {
+                return list.get(0);
+            }
+            Re re = new Re(CAT);
+            re.subs = list.toArray(new Re[0]);
+            return re;
+        }
+
+        static Re alt(Re[] subs) {
+            Re re = new Re(ALT);
+            re.subs = subs;
+            return re;
+        }
+
+        static Re rep(Re sub, int min, int max, boolean greedy) {
+            Re re = new Re(REP);
+            re.subs = new Re[]{sub};
+            re.min = min;
+            re.max = max;
+            re.greedy = greedy;
+            return re;
+        }
+
+        static Re save(int slot) {
+            Re re = new Re(SAVE);
+            re.arg = slot;
+            return re;
+        }
+
+        static Re assertion(int probe) {
+            Re re = new Re(ASSERT);
+            re.arg = probe;
+            return re;
+        }
+    }
+
+    /**
+     * Translates the node tree into a {@link Re}, rejecting the nodes that
+     * need backtracking.
+     */
+    static final class Translator {
+        final String pattern;
+        final List<Node> probes = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        boolean endSensitive;
+
+        Translator(String pattern) {
+            this.pattern = pattern;
+        }
+
+        // 翻译从node开始的结点链，遇到接受结点、分支汇合点或循环结点时结束
+        Re chain(Node node) {
+            List<Re> seq = new ArrayList<>();
+            for(; ; ) {
+                if(node == Pattern.accept || node instanceof Pattern.LastNode || node instanceof Pattern.BranchConn || node instanceof Pattern.Loop) {
+                    return Re.cat(seq);
+                }
+                if(node instanceof Pattern.SliceNode) {
+                    slice((Pattern.SliceNode) node, seq);
+                } else if(node instanceof Pattern.CharProperty) {
+                    seq.add(Re.lit(((Pattern.CharProperty) node).predicate));
+                } else if(node instanceof Pattern.CharPropertyGreedy) {
+                    Pattern.CharPropertyGreedy g = (Pattern.CharPropertyGreedy) node;
+                    seq.add(Re.rep(Re.lit(g.predicate), g.cmin, Pattern.MAX_REPS, true));
+                } else if(node instanceof Pattern.Curly) {
+                    Pattern.Curly c = (Pattern.Curly) node;
+                    seq.add(Re.rep(chain(c.atom), c.cmin, c.cmax, greedy(c.type)));
+                } else if(node instanceof Pattern.Ques) {
+                    Pattern.Ques q = (Pattern.Ques) node;
+                    seq.add(Re.rep(chain(q.atom), 0, 1, greedy(q.type)));
+                } else if(node instanceof Pattern.GroupCurly) {
+                    Pattern.GroupCurly g = (Pattern.GroupCurly) node;
+                    boolean greedy = greedy(g.type);
+                    Re body = chain(g.atom);
+                    if(g.capture) {
+                        body = Re.cat(List.of(Re.save(g.groupIndex), body));
+                    }
+                    seq.add(Re.rep(body, g.cmin, g.cmax, greedy));
+                } else if(node instanceof Pattern.Branch) {
+                    Pattern.Branch b = (Pattern.Branch) node;
+                    Re[] alts = new Re[b.size];
+                    for(int n = 0; n<b.size; n++) {
+                        alts[n] = b.atoms[n] == null ? Re.EMPTY : chain(b.atoms[n]);
+                    }
+                    seq.add(Re.alt(alts));
+                    node = b.conn.next;
+                    continue;
+                } else if(node instanceof Pattern.Prolog) {
+                    Pattern.Loop loop = ((Pattern.Prolog) node).loop;
+                    seq.add(Re.rep(chain(loop.body), loop.cmin, loop.cmax, !(loop instanceof Pattern.LazyLoop)));
+                    node = loop.next;
+                    continue;
+                } else if(node instanceof Pattern.GroupHead) {
+                    Pattern.GroupTail tail = ((Pattern.GroupHead) node).tail;
+                    if(tail.groupIndex>0) {
+                        seq.add(Re.save(tail.groupIndex));
+                    }
+                } else if(node instanceof Pattern.GroupTail) {
+                    int groupIndex = ((Pattern.GroupTail) node).groupIndex;
+                    if(groupIndex>0) {
+                        seq.add(Re.save(groupIndex + 1));
+                    }
+                } else if(node instanceof Pattern.LineEnding) {
+                    // (u+000Du+000A|[u+000Au+000Bu+000Cu+000Du+0085u+2028u+2029])
+                    Re crlf = Re.cat(List.of(Re.lit(ch -> ch == 0x0D), Re.lit(ch -> ch == 0x0A)));
+                    Re single = Re.lit(ch -> (ch >= 0x0A && ch<=0x0D) || ch == 0x85 || ch == 0x2028 || ch == 0x2029);
+                    seq.add(Re.alt(new Re[]{crlf, single}));
+                } else {
+                    seq.add(assertion(node));
+                }
+                node = node.next;
+            }
+        }
+
+        private boolean greedy(Pattern.Qtype type) {
+            if(type == Pattern.Qtype.GREEDY) {
+                return true;
+            }
+            if(type == Pattern.Qtype.LAZY) {
+                return false;
+            }
+            throw unsupported("Possessive quantifier or independent group");
+        }
+
+        // 将字面量序列拆分为单个字符
+        private void slice(Pattern.SliceNode node, List<Re> seq) {
+            Class<?> type = node.getClass();
+            for(int c : node.buffer) {
+                if(c >= Character.MIN_SURROGATE && c<=Character.MAX_SURROGATE) {
+                    throw unsupported("Unpaired surrogate");
+                }
+                CharPredicate predicate;
+                if(type == Pattern.Slice.class || type == Pattern.SliceS.class) {
+                    predicate = ch -> ch == c;
+                } else if(type == Pattern.SliceI.class || type == Pattern.SliceIS.class) {
+                    predicate = ch -> ch == c || ASCII.toLower(ch) == c;
+                } else if(type == Pattern.SliceU.class || type == Pattern.SliceUS.class) {
+                    predicate = ch -> ch == c || Character.toLowerCase(Character.toUpperCase(ch)) == c;
+                } else {
+                    throw unsupported(type.getSimpleName());
+                }
+                seq.add(Re.lit(predicate));
+            }
+        }
+
+        // 为零宽断言创建探针，相同的断言共享同一个探针
+        private Re assertion(Node node) {
+            Node probe;
+            String key;
+            if(node instanceof Pattern.Begin) {
+                probe = new Node() {
+                    boolean match(Matcher matcher, int i, CharSequence seq) {
+                        return i == (matcher.anchoringBounds ? matcher.from : 0);
+                    }
+                };
+                key = "A";
+            } else if(node instanceof Pattern.End) {
+                probe = new Pattern.End();
+                key = "z";
+            } else if(node instanceof Pattern.Caret) {
+                probe = new Pattern.Caret();
+                key = "^";
+            } else if(node instanceof Pattern.UnixCaret) {
+                probe = new Pattern.UnixCaret();
+                key = "^d";
+            } else if(node instanceof Pattern.Dollar) {
+                boolean multiline = ((Pattern.Dollar) node).multiline;
+                probe = new Pattern.Dollar(multiline);
+                key = multiline ? "$m" : "$";
+                endSensitive = true;
+            } else if(node instanceof Pattern.UnixDollar) {
+                boolean multiline = ((Pattern.UnixDollar) node).multiline;
+                probe = new Pattern.UnixDollar(multiline);
+                key = multiline ? "$dm" : "$d";
+                endSensitive = true;
+            } else if(node instanceof Pattern.Bound) {
+                Pattern.Bound b = (Pattern.Bound) node;
+                probe = new Pattern.Bound(b.type, b.useUWORD);
+                key = "b" + b.type + b.useUWORD;
+                endSensitive = true;
+            } else {
+                throw unsupported(node);
+            }
+            int index = keys.indexOf(key);
+            if(index<0) {
+                index = keys.size();
+                probe.next = TRUE;
+                probes.add(probe);
+                keys.add(key);
+            }
+            return Re.assertion(index);
+        }
+
+        private PatternSyntaxException unsupported(Node node) {
+            if(node instanceof Pattern.BackRef || node instanceof Pattern.CIBackRef || node instanceof Pattern.GroupRef) {
+                return unsupported("Back reference");
+            }
+            if(node instanceof Pattern.Pos || node instanceof Pattern.Neg || node instanceof Pattern.Behind || node instanceof Pattern.NotBehind) {
+                return unsupported("Lookaround");
+            }
+            if(node instanceof Pattern.LastMatch) {
+                return unsupported("\\G");
+            }
+            return unsupported(node.getClass().getSimpleName());
+        }
+
+        PatternSyntaxException unsupported(String what) {
+            return new PatternSyntaxException(what + " is not supported with the LINEAR flag", pattern, -1);
+        }
+    }
+
+    /**
+     * Thompson program. Instruction {@code pc} is {@code op[pc]} with the
+     * operands {@code x[pc]}, {@code y[pc]} and {@code preds[pc]}.
+     */
+    static final class Prog {
+        final String pattern;
+        int[] op = new int[16];
+        int[] x = new int[16];
+        int[] y = new int[16];
+        CharPredicate[] preds = new CharPredicate[16];
+        int size;
+
+        Prog(String pattern) {
+            this.pattern = pattern;
+        }
+
+        // 生成锚定程序，reverse为true时生成反向程序（不记录捕获组）
+        Prog anchored(Re re, boolean reverse) {
+            emit(re, reverse);
+            add(MATCH);
+            return this;
+        }
+
+        // 生成非锚定程序，相当于在前面加上(?s:.)*?
+        Prog unanchored(Re re) {
+            int split = add(SPLIT);
+            int any = add(CHAR);
+            preds[any] = ANY;
+            int jump = add(JMP);
+            x[jump] = split;
+            x[split] = size;
+            y[split] = split + 1;
+            emit(re, false);
+            add(MATCH);
+            return this;
+        }
+
+        private int add(int code) {
+            if(size == op.length) {
+                if(size >= MAX_INSTS) {
+                    throw new PatternSyntaxException("Pattern is too large for the LINEAR flag", pattern, -1);
+                }
+                int len = size * 2;
+                op = Arrays.copyOf(op, len);
+                x = Arrays.copyOf(x, len);
+                y = Arrays.copyOf(y, len);
+                preds = Arrays.copyOf(preds, len);
+            }
+            op[size] = code;
+            return size++;
+        }
+
+        private void emit(Re re, boolean reverse) {
+            switch(re.kind) {
+                case Re.LIT: {
+                    int pc = add(CHAR);
+                    preds[pc] = re.predicate;
+                    break;
+                }
+                case Re.CAT:
+                    if(re.subs != null) {
+                        int n = re.subs.length;
+                        for(int k = 0; k<n; k++) {
+                            emit(re.subs[reverse ? n - 1 - k : k], reverse);
+                        }
+                    }
+                    break;
+                case Re.ALT: {
+                    int n = re.subs.length;
+                    int[] jumps = new int[n - 1];
+                    for(int k = 0; k<n - 1; k++) {
+                        int split = add(SPLIT);
+                        x[split] = size;
+                        emit(re.subs[k], reverse);
+                        jumps[k] = add(JMP);
+                        y[split] = size;
+                    }
+                    emit(re.subs[n - 1], reverse);
+                    for(int jump : jumps) {
+                        x[jump] = size;
+                    }
+                    break;
+                }
+                case Re.REP: {
+                    Re sub = re.subs[0];
+                    for(int k = 0; k<re.min; k++) {
+                        emit(sub, reverse);
+                    }
+                    if(re.max == Pattern.MAX_REPS) {
+                        int split = add(SPLIT);
+                        emit(sub, reverse);
+                        int loop = add(LOOP);
+                        x[loop] = split;
+                        y[loop] = split;
+                        branch(split, split + 1, size, re.greedy);
+                    } else {
+                        int count = re.max - re.min;
+                        int[] splits = new int[Math.min(count, MAX_INSTS)];
+                        for(int k = 0; k<count; k++) {
+                            if(k>0) {
+                                int loop = add(LOOP);
+                                x[loop] = splits[k - 1];
+                                y[loop] = size;
+                            }
+                            splits[k] = add(SPLIT);
+                            emit(sub, reverse);
+                        }
+                        for(int split : splits) {
+                            branch(split, split + 1, size, re.greedy);
+                        }
+                    }
+                    break;
+                }
+                case Re.SAVE:
+                    if(!reverse) {
+                        int pc = add(SAVE);
+                        x[pc] = re.arg;
+                    }
+                    break;
+                case Re.ASSERT: {
+                    int pc = add(ASSERT);
+                    x[pc] = re.arg;
+                    break;
+                }
+                default:
+                    throw new InternalError();
+            }
+        }
+
+        // 循环入口split的退出分支
+        int exit(int split) {
+            return x[split] == split + 1 ? y[split] : x[split];
+        }
+
+        private void branch(int split, int body, int exit, boolean greedy) {
+            x[split] = greedy ? body : exit;
+            y[split] = greedy ? exit : body;
+        }
+    }
+
+    /**
+     * A DFA state: the program counters of the live threads in priority
+     * order. The assertions are already resolved, so a state only holds
+     * CHAR and MATCH instructions.
+     */
+    static final class State {
+        final int[] pcs;
+        final int hash;
+        final boolean match;    // 是否包含MATCH
+        final int live;         // 除MATCH外的线程数量
+        final boolean cached;   // 是否已放入DFA的状态缓存
+        final State[] next;     // 断言均不成立时ASCII字符的状态转移，未缓存的状态为null
+        final ConcurrentHashMap<Long, State> more;  // 其他状态转移，键由断言结果与字符组成
+
+        State(Prog prog, int[] pcs, boolean cached) {
+            this.pcs = pcs;
+            this.hash = Arrays.hashCode(pcs);
+            this.cached = cached;
+            boolean match = false;
+            for(int pc : pcs) {
+                if(prog.op[pc] == MATCH) {
+                    match = true;
+                }
+            }
+            this.match = match;
+            this.live = match ? pcs.length - 1 : pcs.length;
+            this.next = cached ? new State[128] : null;
+            this.more = cached ? new ConcurrentHashMap<>() : null;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof State && Arrays.equals(pcs, ((State) obj).pcs);
+        }
+    }
+
+    /**
+     * A lazily built DFA over a program. With {@code longest} false the
+     * threads behind a MATCH are dropped, which yields the leftmost-first
+     * match; otherwise every thread is kept until it dies.
+     *
+     * The assertions of the program are evaluated by the caller at the
+     * position a state is entered at, and passed in as a bit mask; for the
+     * common case of no assertion holding, the ASCII transitions are kept in
+     * a plain array.
+     */
+    static final class DFA {
+        final Prog prog;
+        final boolean longest;
+        final ConcurrentHashMap<State, State> cache = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, State> starts = new ConcurrentHashMap<>();
+
+        DFA(Prog prog, boolean longest) {
+            this.prog = prog;
+            this.longest = longest;
+        }
+
+        // 在断言结果为mask的位置上开始匹配时的初始状态
+        State start(int mask) {
+            State s = starts.get(mask);
+            if(s != null) {
+                return s;
+            }
+            Work w = new Work(prog.size);
+            closure(w, 0, mask);
+            s = intern(w);
+            if(s.cached) {
+                starts.putIfAbsent(mask, s);
+            }
+            return s;
+        }
+
+        // 状态r读入字符c，到达断言结果为mask的位置后的状态
+        State next(State r, int c, int mask) {
+            State t = null;
+            long key = ((long) mask << 32) | c;
+            if(r.cached) {
+                t = (mask == 0 && c<128) ? r.next[c] : r.more.get(key);
+            }
+            if(t != null) {
+                return t;
+            }
+            Work w = new Work(prog.size);
+            for(int pc : r.pcs) {
+                if(prog.op[pc] == MATCH) {
+                    if(!longest) {
+                        break;
+                    }
+                } else if(prog.preds[pc].is(c) && closure(w, pc + 1, mask)) {
+                    break;
+                }
+            }
+            t = intern(w);
+            if(r.cached && t.cached) {
+                if(mask == 0 && c<128) {
+                    r.next[c] = t;
+                } else if(r.more.size()<MAX_WIDE) {
+                    r.more.put(key, t);
+                }
+            }
+            return t;
+        }
+
+        /**
+         * Follows the epsilon moves from {@code pc0} at a position where the
+         * assertions in {@code mask} hold. Returns true if a MATCH cut off
+         * the remaining threads.
+         */
+        private boolean closure(Work w, int pc0, int mask) {
+            int[] stack = w.stack;
+            boolean[] seen = w.seen;
+            int sp = 0;
+            stack[sp++] = pc0;
+            while(sp>0) {
+                int pc = stack[--sp];
+                if(seen[pc]) {
+                    continue;
+                }
+                seen[pc] = true;
+                switch(prog.op[pc]) {
+                    case JMP:
+                        stack[sp++] = prog.x[pc];
+                        break;
+                    case SPLIT:
+                        stack[sp++] = prog.y[pc];
+                        stack[sp++] = prog.x[pc];
+                        break;
+                    case LOOP: {
+                        // an iteration that consumed nothing leaves the loop
+                        int split = prog.x[pc];
+                        int exit = prog.exit(split);
+                        stack[sp++] = seen[split] && !seen[exit] ? exit : prog.y[pc];
+                        break;
+                    }
+                    case SAVE:
+                        stack[sp++] = pc + 1;
+                        break;
+                    case ASSERT:
+                        if((mask & (1 << prog.x[pc])) != 0) {
+                            stack[sp++] = pc + 1;
+                        }
+                        break;
+                    case MATCH:
+                        w.add(pc);
+                        if(!longest) {
+                            return true;
+                        }
+                        break;
+                    default:
+                        w.add(pc);
+                }
+            }
+            return false;
+        }
+
+        private State intern(Work w) {
+            State s = new State(prog, Arrays.copyOf(w.list, w.size), false);
+            State old = cache.get(s);
+            if(old != null) {
+                return old;
+            }
+            if(cache.size() >= MAX_STATES) {
+                return s;
+            }
+            s = new State(prog, s.pcs, true);
+            old = cache.putIfAbsent(s, s);
+            return old != null ? old : s;
+        }
+    }
+
+    /**
+     * Scratch space for building a single state.
+     */
+    static final class Work {
+        final int[] list;
+        final boolean[] seen;
+        final int[] stack;
+        int size;
+
+        Work(int n) {
+            list = new int[n];
+            seen = new boolean[n];
+            stack = new int[2 * n + 2];
+        }
+
+        void add(int pc) {
+            list[size++] = pc;
+        }
+    }
+}
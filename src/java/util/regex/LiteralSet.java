@@ -0,0 +1,714 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable set of literal strings that can be searched for in a single
+ * pass over the input.
+ *
+ * <p> A {@code LiteralSet} is built once from its literals and can then be
+ * used to find occurrences of any of them in a {@link CharSequence}, or in
+ * a {@code byte[]} holding UTF-8 encoded text. The search does not depend
+ * on the number of literals: every character (or byte) of the input is
+ * examined exactly once, so looking for a few hundred keywords costs about
+ * as much as looking for one. This makes a {@code LiteralSet} preferable to
+ * a {@link Pattern} of the form {@code "kw1|kw2|...|kwN"}, whose matcher
+ * tries the alternatives one after another at every position.
+ *
+ * <p> The literals are compared char by char, or, when searching a
+ * {@code byte[]}, byte by byte against their UTF-8 encodings. The
+ * {@link Pattern#CASE_INSENSITIVE} flag enables case-insensitive matching
+ * of the US-ASCII letters only, as it does for patterns compiled without
+ * {@link Pattern#UNICODE_CASE}.
+ *
+ * <p> Occurrences are reported in the order of their end positions; of the
+ * occurrences ending at the same position the longest is reported first.
+ * Occurrences may overlap. The {@link MatchResult#group() group} of a
+ * reported occurrence is the matched input text, which differs from the
+ * literal only in case when {@code CASE_INSENSITIVE} is in effect.
+ *
+ * <p> Instances of this class are immutable and are safe for use by
+ * multiple concurrent threads.
+ *
+ * @see Pattern
+ * @since 11
+ */
+// 字面量集合，使用Aho-Corasick自动机在一趟扫描中查找多个字面量
+public final class LiteralSet {
+    
+    /**
+     * The literals of this set, in the order they were given.
+     */
+    private final String[] literals;
+    
+    /**
+     * The flags given when this set was built.
+     */
+    private final int flags;
+    
+    /**
+     * The automaton over the chars of the literals.
+     */
+    private final Automaton chars;
+    
+    /**
+     * The automaton over the UTF-8 encodings of the literals, built when
+     * a byte array is searched for the first time.
+     */
+    private volatile Automaton bytes;
+    
+    
+    
+    /*▼ 构造器/工厂方法 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    private LiteralSet(String[] literals, int flags) {
+        this.literals = literals;
+        this.flags = flags;
+        
+        int[][] keys = new int[literals.length][];
+        for(int i = 0; i<keys.length; i++) {
+            keys[i] = literals[i].chars().toArray();
+        }
+        this.chars = new Automaton(keys, 128, (flags & Pattern.CASE_INSENSITIVE) != 0);
+    }
+    
+    /**
+     * Returns a {@code LiteralSet} of the given literals.
+     *
+     * @param literals The literals to search for
+     *
+     * @return A set of the given literals
+     *
+     * @throws NullPointerException     If {@code literals} or any of its elements is {@code null}
+     * @throws IllegalArgumentException If any of the literals is empty
+     */
+    // 返回由给定字面量构成的集合
+    public static LiteralSet of(CharSequence... literals) {
+        return of(Arrays.asList(literals), 0);
+    }
+    
+    /**
+     * Returns a {@code LiteralSet} of the given literals.
+     *
+     * @param literals The literals to search for
+     *
+     * @return A set of the given literals
+     *
+     * @throws NullPointerException     If {@code literals} or any of its elements is {@code null}
+     * @throws IllegalArgumentException If any of the literals is empty
+     */
+    // 返回由给定字面量构成的集合
+    public static LiteralSet of(Collection<? extends CharSequence> literals) {
+        return of(literals, 0);
+    }
+    
+    /**
+     * Returns a {@code LiteralSet} of the given literals with the given flags.
+     *
+     * @param literals The literals to search for
+     * @param flags    Match flags, a bit mask that may include only
+     *                 {@link Pattern#CASE_INSENSITIVE}
+     *
+     * @return A set of the given literals
+     *
+     * @throws NullPointerException     If {@code literals} or any of its elements is {@code null}
+     * @throws IllegalArgumentException If any of the literals is empty, or if bit values
+     *                                  other than {@link Pattern#CASE_INSENSITIVE} are set in {@code flags}
+     */
+    // 返回由给定字面量构成的集合，flags只能包含CASE_INSENSITIVE标记
+    public static LiteralSet of(Collection<? extends CharSequence> literals, int flags) {
+        if((flags & ~Pattern.CASE_INSENSITIVE) != 0) {
+            throw new IllegalArgumentException("Unknown flag 0x" + Integer.toHexString(flags));
+        }
+        
+        String[] array = new String[literals.size()];
+        int i = 0;
+        for(CharSequence literal : literals) {
+            if(i == array.length) {
+                // 集合在遍历期间变大了
+                array = Arrays.copyOf(array, i + 1);
+            }
+            String s = literal.toString();
+            if(s.isEmpty()) {
+                throw new IllegalArgumentException("Empty literal at index " + i);
+            }
+            array[i++] = s;
+        }
+        
+        return new LiteralSet(i == array.length ? array : Arrays.copyOf(array, i), flags);
+    }
+    
+    /*▲ 构造器/工厂方法 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 查找 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Tells whether any of the literals occurs in the given input.
+     *
+     * @param input The character sequence to be searched
+     *
+     * @return {@code true} if, and only if, at least one of the literals occurs in the input
+     */
+    // 判断input中是否出现了任一字面量
+    public boolean containsAny(CharSequence input) {
+        return chars.find(input, 0, input.length()) >= 0;
+    }
+    
+    /**
+     * Tells whether any of the literals occurs in the given range of a byte
+     * array holding UTF-8 encoded text.
+     *
+     * @param input  The byte array to be searched
+     * @param offset The index of the first byte to search
+     * @param length The number of bytes to search
+     *
+     * @return {@code true} if, and only if, at least one of the literals occurs in the range
+     *
+     * @throws IndexOutOfBoundsException If {@code offset} or {@code length} is negative,
+     *                                   or if {@code offset + length} is greater than {@code input.length}
+     */
+    // 判断字节数组input的[offset, offset+length)范围内是否出现了任一字面量的UTF-8编码
+    public boolean containsAny(byte[] input, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, input.length);
+        return bytes().find(input, offset, offset + length) >= 0;
+    }
+    
+    /**
+     * Finds the first occurrence of any of the literals in the given input,
+     * starting at the given index.
+     *
+     * <p> The occurrence found is the one that ends first; if several
+     * occurrences end at that position the longest of them is returned.
+     *
+     * @param input     The character sequence to be searched
+     * @param fromIndex The index from which to start the search
+     *
+     * @return The occurrence found, or {@code null} if none of the literals
+     * occurs in the input at or after {@code fromIndex}
+     *
+     * @throws IndexOutOfBoundsException If {@code fromIndex} is negative or greater than the length of the input
+     */
+    // 从fromIndex处开始，查找input中第一个(结束位置最靠前)出现的字面量，未找到时返回null
+    public MatchResult find(CharSequence input, int fromIndex) {
+        int length = input.length();
+        Objects.checkIndex(fromIndex, length + 1);
+        
+        long found = chars.find(input, fromIndex, length);
+        if(found<0) {
+            return null;
+        }
+        
+        int end = (int) (found >>> 32);
+        int start = end - chars.length[(int) found];
+        return new Occurrence(input.subSequence(start, end).toString(), start, end);
+    }
+    
+    /**
+     * Finds the first occurrence of any of the literals in the given range
+     * of a byte array holding UTF-8 encoded text.
+     *
+     * <p> The occurrence found is the one that ends first; if several
+     * occurrences end at that position the longest of them is returned.
+     * The {@link MatchResult#start() start} and {@link MatchResult#end() end}
+     * of the returned occurrence are indices into {@code input}.
+     *
+     * @param input  The byte array to be searched
+     * @param offset The index of the first byte to search
+     * @param length The number of bytes to search
+     *
+     * @return The occurrence found, or {@code null} if none of the literals occurs in the range
+     *
+     * @throws IndexOutOfBoundsException If {@code offset} or {@code length} is negative,
+     *                                   or if {@code offset + length} is greater than {@code input.length}
+     */
+    // 在字节数组input的[offset, offset+length)范围内，查找第一个(结束位置最靠前)出现的字面量，未找到时返回null
+    public MatchResult find(byte[] input, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, input.length);
+        
+        Automaton automaton = bytes();
+        long found = automaton.find(input, offset, offset + length);
+        if(found<0) {
+            return null;
+        }
+        
+        int end = (int) (found >>> 32);
+        int start = end - automaton.length[(int) found];
+        return new Occurrence(new String(input, start, end - start, StandardCharsets.UTF_8), start, end);
+    }
+    
+    /**
+     * Returns a stream of all occurrences of the literals in the given input.
+     *
+     * <p> The occurrences are reported in the order of their end positions,
+     * the longest first among those ending at the same position, and may
+     * overlap. The input is scanned lazily as the stream is consumed; it
+     * should not be modified while the stream is in use.
+     *
+     * @param input The character sequence to be searched
+     *
+     * @return A sequential stream of the occurrences
+     */
+    // 返回input中所有出现的字面量构成的流(允许重叠)
+    public Stream<MatchResult> results(CharSequence input) {
+        Objects.requireNonNull(input);
+        return StreamSupport.stream(new OccurrenceSpliterator(chars, input), false);
+    }
+    
+    /*▲ 查找 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the number of literals in this set, including duplicates.
+     *
+     * @return The number of literals
+     */
+    // 返回字面量的数量
+    public int size() {
+        return literals.length;
+    }
+    
+    /**
+     * Returns the literal at the given index, in the order the literals were given.
+     *
+     * @param index The index of the literal
+     *
+     * @return The literal
+     *
+     * @throws IndexOutOfBoundsException If {@code index} is negative or not less than {@link #size()}
+     */
+    // 返回第index个字面量
+    public String get(int index) {
+        return literals[Objects.checkIndex(index, literals.length)];
+    }
+    
+    /**
+     * Returns the flags given when this set was built.
+     *
+     * @return The flags
+     */
+    // 返回构造集合时使用的标记
+    public int flags() {
+        return flags;
+    }
+    
+    /**
+     * Returns the string representation of this set: the list of its literals.
+     *
+     * @return The string representation of this set
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(literals);
+    }
+    
+    // 返回按UTF-8字节匹配的自动机，首次使用时构造
+    private Automaton bytes() {
+        Automaton automaton = bytes;
+        if(automaton == null) {
+            int[][] keys = new int[literals.length][];
+            for(int i = 0; i<keys.length; i++) {
+                byte[] encoded = literals[i].getBytes(StandardCharsets.UTF_8);
+                keys[i] = new int[encoded.length];
+                for(int j = 0; j<encoded.length; j++) {
+                    keys[i][j] = encoded[j] & 0xff;
+                }
+            }
+            // 并发时可能重复构造，但结果是相同的
+            bytes = automaton = new Automaton(keys, 256, (flags & Pattern.CASE_INSENSITIVE) != 0);
+        }
+        return automaton;
+    }
+    
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * An Aho-Corasick automaton over the symbols (chars or bytes) of the literals.
+     *
+     * The symbols are first mapped to equivalence classes: class 0 stands for
+     * every symbol that occurs in no literal, so it always leads back to the
+     * root, and each symbol that does occur gets a class of its own (an upper
+     * case ASCII letter shares the class of its lower case form when case is
+     * ignored). The states are the nodes of the trie of the literals. If the
+     * complete transition table, one row of classes per state, is small
+     * enough it is computed up front and a step is a single array access;
+     * otherwise only the trie edges are kept and a step follows the failure
+     * links, which is still linear in the length of the input overall.
+     */
+    // Aho-Corasick自动机
+    private static final class Automaton {
+        
+        /** The largest complete transition table that is computed, in entries */
+        private static final int MAX_TABLE = 1 << 20;
+        
+        private final int low;              // 小于low的符号直接查表获取其等价类
+        private final int[] lowClass;       // 小于low的符号的等价类
+        private final int[] wideSymbols;    // 字面量中出现的不小于low的符号，升序排列
+        private final int wideBase;         // wideSymbols[i]的等价类为wideBase+i
+        private final int width;            // 等价类的数量
+        
+        private final int[] delta;          // 完全转移表：状态*width+等价类 -> 状态，过大时为null
+        
+        private final int[] edgeStart;      // 状态s的trie边位于edgeClass/edgeTarget的[edgeStart[s], edgeStart[s+1])范围，按等价类升序排列
+        private final int[] edgeClass;
+        private final int[] edgeTarget;
+        private final int[] fail;           // 失配指针：指向当前状态的最长真后缀所在的状态
+        
+        private final int[] term;           // 以该状态结尾的字面量，不存在时为-1
+        private final int[] dict;           // 沿失配指针可到达的最近的term>=0的状态，不存在时为-1
+        
+        final int[] length;                 // 各字面量的符号数量
+        
+        Automaton(int[][] keys, int low, boolean ignoreCase) {
+            this.low = low;
+            this.length = new int[keys.length];
+            
+            /* 划分等价类 */
+            
+            lowClass = new int[low];
+            int classes = 1;
+            int wideCount = 0;
+            for(int[] key : keys) {
+                for(int i = 0; i<key.length; i++) {
+                    int c = ignoreCase ? ASCII.toLower(key[i]) : key[i];
+                    key[i] = c;
+                    if(c<low) {
+                        if(lowClass[c] == 0) {
+                            lowClass[c] = classes++;
+                        }
+                    } else {
+                        wideCount++;
+                    }
+                }
+            }
+            if(ignoreCase) {
+                for(int c = 'A'; c<='Z'; c++) {
+                    lowClass[c] = lowClass[ASCII.toLower(c)];
+                }
+            }
+            
+            int[] wide = new int[wideCount];
+            wideCount = 0;
+            for(int[] key : keys) {
+                for(int c : key) {
+                    if(c >= low) {
+                        wide[wideCount++] = c;
+                    }
+                }
+            }
+            Arrays.sort(wide);
+            int distinct = 0;
+            for(int i = 0; i<wide.length; i++) {
+                if(distinct == 0 || wide[distinct - 1] != wide[i]) {
+                    wide[distinct++] = wide[i];
+                }
+            }
+            wideSymbols = Arrays.copyOf(wide, distinct);
+            wideBase = classes;
+            width = classes + distinct;
+            
+            /* 构造trie */
+            
+            Map<Long, Integer> edges = new HashMap<>();
+            int[] termOf = new int[16];
+            Arrays.fill(termOf, -1);
+            int nodes = 1;
+            for(int k = 0; k<keys.length; k++) {
+                int s = 0;
+                for(int c : keys[k]) {
+                    long edge = ((long) s << 32) | classOf(c);
+                    Integer t = edges.get(edge);
+                    if(t == null) {
+                        t = nodes++;
+                        edges.put(edge, t);
+                        if(nodes>termOf.length) {
+                            termOf = Arrays.copyOf(termOf, termOf.length << 1);
+                            Arrays.fill(termOf, termOf.length >> 1, termOf.length, -1);
+                        }
+                    }
+                    s = t;
+                }
+                // 重复的字面量只记录第一个
+                if(termOf[s]<0) {
+                    termOf[s] = k;
+                }
+                length[k] = keys[k].length;
+            }
+            term = Arrays.copyOf(termOf, nodes);
+            
+            // 将trie边按起始状态和等价类排序后存放
+            long[] sorted = new long[edges.size()];
+            int n = 0;
+            for(Long edge : edges.keySet()) {
+                sorted[n++] = edge;
+            }
+            Arrays.sort(sorted);
+            edgeStart = new int[nodes + 1];
+            edgeClass = new int[sorted.length];
+            edgeTarget = new int[sorted.length];
+            for(int i = 0; i<sorted.length; i++) {
+                int from = (int) (sorted[i] >>> 32);
+                edgeStart[from + 1]++;
+                edgeClass[i] = (int) sorted[i];
+                edgeTarget[i] = edges.get(sorted[i]);
+            }
+            for(int s = 0; s<nodes; s++) {
+                edgeStart[s + 1] += edgeStart[s];
+            }
+            
+            /* 按广度优先的顺序计算失配指针，同时补全转移表 */
+            
+            fail = new int[nodes];
+            dict = new int[nodes];
+            delta = (long) nodes * width<=MAX_TABLE ? new int[nodes * width] : null;
+            
+            int[] queue = new int[nodes];
+            int head = 0, tail = 0;
+            dict[0] = -1;
+            queue[tail++] = 0;
+            while(head<tail) {
+                int u = queue[head++];
+                if(delta != null && u != 0) {
+                    // 先继承失配状态的转移，再由trie边覆盖
+                    System.arraycopy(delta, fail[u] * width, delta, u * width, width);
+                }
+                for(int e = edgeStart[u]; e<edgeStart[u + 1]; e++) {
+                    int v = edgeTarget[e];
+                    int f = u == 0 ? 0 : step(fail[u], edgeClass[e]);
+                    fail[v] = f;
+                    dict[v] = term[f] >= 0 ? f : dict[f];
+                    if(delta != null) {
+                        delta[u * width + edgeClass[e]] = v;
+                    }
+                    queue[tail++] = v;
+                }
+            }
+        }
+        
+        // 返回符号c的等价类
+        int classOf(int c) {
+            if(c<low) {
+                return lowClass[c];
+            }
+            int i = Arrays.binarySearch(wideSymbols, c);
+            return i<0 ? 0 : wideBase + i;
+        }
+        
+        // 返回状态s接收等价类为cls的符号后的状态
+        int step(int s, int cls) {
+            if(cls == 0) {
+                return 0;
+            }
+            if(delta != null) {
+                return delta[s * width + cls];
+            }
+            for(; ; ) {
+                int lo = edgeStart[s], hi = edgeStart[s + 1] - 1;
+                while(lo<=hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int c = edgeClass[mid];
+                    if(c<cls) {
+                        lo = mid + 1;
+                    } else if(c>cls) {
+                        hi = mid - 1;
+                    } else {
+                        return edgeTarget[mid];
+                    }
+                }
+                if(s == 0) {
+                    return 0;
+                }
+                s = fail[s];
+            }
+        }
+        
+        // 返回状态s处结束的最长字面量，不存在时返回-1
+        int longest(int s) {
+            if(term[s] >= 0) {
+                return term[s];
+            }
+            int d = dict[s];
+            return d<0 ? -1 : term[d];
+        }
+        
+        /*
+         * 在input的[from, to)范围内查找第一个结束的字面量，未找到时返回-1
+         * 找到时返回值的高32位为结束位置(不包含)，低32位为字面量的下标
+         */
+        long find(CharSequence input, int from, int to) {
+            int s = 0;
+            for(int i = from; i<to; i++) {
+                s = step(s, classOf(input.charAt(i)));
+                if(s != 0) {
+                    int k = longest(s);
+                    if(k >= 0) {
+                        return ((long) (i + 1) << 32) | k;
+                    }
+                }
+            }
+            return -1;
+        }
+        
+        /*
+         * 在input的[from, to)范围内查找第一个结束的字面量，未找到时返回-1
+         * 找到时返回值的高32位为结束位置(不包含)，低32位为字面量的下标
+         */
+        long find(byte[] input, int from, int to) {
+            int s = 0;
+            for(int i = from; i<to; i++) {
+                s = step(s, lowClass[input[i] & 0xff]);
+                if(s != 0) {
+                    int k = longest(s);
+                    if(k >= 0) {
+                        return ((long) (i + 1) << 32) | k;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+    
+    /**
+     * Lazily reports every occurrence of the literals in a character sequence.
+     */
+    // 逐个报告字面量在输入中的出现位置
+    private static final class OccurrenceSpliterator extends Spliterators.AbstractSpliterator<MatchResult> {
+        private final Automaton automaton;
+        private final CharSequence input;
+        private int pos;            // 下一个待读取的字符
+        private int state;          // 自动机的当前状态
+        private int pending = -1;   // 下一个待报告的状态，不存在时为-1
+        
+        OccurrenceSpliterator(Automaton automaton, CharSequence input) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.automaton = automaton;
+            this.input = input;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super MatchResult> action) {
+            Objects.requireNonNull(action);
+            
+            while(pending<0) {
+                if(pos >= input.length()) {
+                    return false;
+                }
+                state = automaton.step(state, automaton.classOf(input.charAt(pos++)));
+                pending = automaton.term[state] >= 0 ? state : automaton.dict[state];
+            }
+            
+            int k = automaton.term[pending];
+            pending = automaton.dict[pending];
+            int start = pos - automaton.length[k];
+            action.accept(new Occurrence(input.subSequence(start, pos).toString(), start, pos));
+            return true;
+        }
+    }
+    
+    /**
+     * An occurrence of a literal, as reported by a {@code LiteralSet}.
+     */
+    // 字面量的一次出现
+    private static final class Occurrence implements MatchResult {
+        private final String text;
+        private final int start;
+        private final int end;
+        
+        Occurrence(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        public int start() {
+            return start;
+        }
+        
+        @Override
+        public int start(int group) {
+            checkGroup(group);
+            return start;
+        }
+        
+        @Override
+        public int end() {
+            return end;
+        }
+        
+        @Override
+        public int end(int group) {
+            checkGroup(group);
+            return end;
+        }
+        
+        @Override
+        public String group() {
+            return text;
+        }
+        
+        @Override
+        public String group(int group) {
+            checkGroup(group);
+            return text;
+        }
+        
+        @Override
+        public int groupCount() {
+            return 0;
+        }
+        
+        @Override
+        public String toString() {
+            return "[" + start + "," + end + ") " + text;
+        }
+        
+        private static void checkGroup(int group) {
+            if(group != 0) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+        }
+    }
+
+}
@@ -1719,7 +1719,12 @@ public final class Matcher implements MatchResult {
             }
         }
         acceptMode = NOANCHOR;
-        boolean result = parentPattern.root.match(this, from, text);
+        boolean result;
+        if(parentPattern.linear != null) {
+            result = parentPattern.linear.search(this, from);
+        } else {
+            result = parentPattern.root.match(this, from, text);
+        }
         if(!result) {
             this.first = -1;
         }
@@ -1747,7 +1752,12 @@ public final class Matcher implements MatchResult {
             }
         }
         acceptMode = anchor;
-        boolean result = parentPattern.matchRoot.match(this, from, text);
+        boolean result;
+        if(parentPattern.linear != null) {
+            result = parentPattern.linear.match(this, from, anchor);
+        } else {
+            result = parentPattern.matchRoot.match(this, from, text);
+        }
         if(!result) {
             this.first = -1;
         }
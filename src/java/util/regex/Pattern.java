@@ -922,10 +922,42 @@ public final class Pattern implements Serializable {
      */
     public static final int UNICODE_CHARACTER_CLASS = 0x100;    // (?U)，启用对预定义字符和POSIX字符的Unicode支持(包含了(?u)的功能)
     
+    /**
+     * Enables linear-time matching.
+     *
+     * <p> When this flag is specified the pattern is not matched by
+     * backtracking. It is executed by finite automata instead, whose states
+     * are built lazily on first use and cached with the pattern, so they are
+     * shared by all the matchers created from it. The time taken by
+     * {@link Matcher#find()}, {@link Matcher#lookingAt()} and
+     * {@link Matcher#matches()} then grows linearly with the length of the
+     * input, whatever the shape of the expression.
+     *
+     * <p> Only constructs that do not need backtracking are accepted. Back
+     * references, lookahead and lookbehind, independent groups, possessive
+     * quantifiers, {@code \G}, {@code \X}, {@code {g}} and canonical
+     * equivalence cause a {@link PatternSyntaxException} to be thrown, as do
+     * counted repetitions that expand to an overly large automaton. Matches
+     * and capturing groups follow the same leftmost-first preferences as the
+     * default engine, with one exception: when a repeated group can match
+     * the empty string, the two engines may stop the repetition at different
+     * points, so the match itself, not only the captured groups, can start or
+     * end elsewhere. For instance {@code (\bc*){2}} with
+     * {@link #CASE_INSENSITIVE} and {@link #MULTILINE} finds {@code "cc"} at
+     * 3-5 in {@code " c ccA"} when this flag is set, but the empty string at
+     * 3-3 without it. {@link Matcher#hitEnd()} and
+     * {@link Matcher#requireEnd()} are reported conservatively.
+     *
+     * <p> There is no embedded flag character for linear-time matching.
+     *
+     * @since 11
+     */
+    public static final int LINEAR = 0x200;    // 线性时间匹配，使用惰性构造的DFA代替回溯，不支持需要回溯的结构
+    
     /**
      * Contains all possible flags for compile(regex, flags).
      */
-    private static final int ALL_FLAGS = CASE_INSENSITIVE | MULTILINE | DOTALL | UNICODE_CASE | CANON_EQ | UNIX_LINES | LITERAL | UNICODE_CHARACTER_CLASS | COMMENTS;
+    private static final int ALL_FLAGS = CASE_INSENSITIVE | MULTILINE | DOTALL | UNICODE_CASE | CANON_EQ | UNIX_LINES | LITERAL | UNICODE_CHARACTER_CLASS | COMMENTS | LINEAR;
     
     
     static final int MAX_REPS = 0x7FFFFFFF;
@@ -971,6 +1003,12 @@ public final class Pattern implements Serializable {
      */
     transient Node matchRoot;
     
+    /**
+     * The linear-time engine, only present if the pattern was compiled with
+     * the LINEAR flag.
+     */
+    transient LinearEngine linear;
+    
     /**
      * Temporary storage used by parsing pattern slice.
      */
@@ -1139,8 +1177,8 @@ public final class Pattern implements Serializable {
      * @param flags Match flags, a bit mask that may include
      *              {@link #CASE_INSENSITIVE}, {@link #MULTILINE}, {@link #DOTALL},
      *              {@link #UNICODE_CASE}, {@link #CANON_EQ}, {@link #UNIX_LINES},
-     *              {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS}
-     *              and {@link #COMMENTS}
+     *              {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS},
+     *              {@link #COMMENTS} and {@link #LINEAR}
      *
      * @return the given regular expression compiled into a pattern with the given flags
      *
@@ -2193,6 +2231,11 @@ loop:
             root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
         }
     
+        // Translate the object tree for the linear-time engine
+        if((flags & LINEAR) != 0) {
+            linear = LinearEngine.compile(this, matchRoot, flags);
+        }
+    
         // Optimize the greedy Loop to prevent exponential backtracking, IF there
         // is no group ref in this pattern. With a non-negative localTCNCount value,
         // the greedy type Loop, Curly will skip the backtracking for any starting
@@ -26,6 +26,10 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -143,6 +147,11 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
      */
     private boolean parallel;                       // 是否并行执行
     
+    /**
+     * The parallelism hint, or null if none; only valid for the source stage.
+     */
+    private ParallelismHint parallelismHint;        // 并行度提示
+    
     /**
      * The number of intermediate operations between this pipeline object
      * and the stream source if sequential, or the previous stateful if parallel.
@@ -648,6 +657,16 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         return (S) this;
     }
     
+    // 中间操作：将当前流设置为并行流，并指定并行度提示后返回
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ParallelismHint hint) {
+        Objects.requireNonNull(hint);
+        sourceStage.parallel = true;
+        sourceStage.parallelismHint = hint;
+        return (S) this;
+    }
+    
     /*▲ 中间操作 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -661,7 +680,6 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
      *
      * @return a flat array-backed Node that holds the collected output elements
      */
-    @SuppressWarnings("unchecked")
     final Node<E_OUT> evaluateToArrayNode(IntFunction<E_OUT[]> generator) {
         
         if(linkedOrConsumed) {
@@ -670,6 +688,17 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         
         linkedOrConsumed = true;
         
+        if(isParallel()) {
+            // 在并行度提示指定的线程池中执行
+            return invokeParallel(() -> evaluateToArrayNode0(generator));
+        }
+        
+        return evaluateToArrayNode0(generator);
+    }
+    
+    // 搜集当前阶段输出的元素
+    @SuppressWarnings("unchecked")
+    private Node<E_OUT> evaluateToArrayNode0(IntFunction<E_OUT[]> generator) {
         /*
          * If the last intermediate operation is stateful
          * then evaluate directly to avoid an extra collection step
@@ -728,9 +757,6 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         // 获取当前终端操作上的组合参数
         int terminalFlags = terminalOp.getOpFlags();
         
-        // 获取上个(depth==0)的流阶段的流迭代器
-        Spliterator<?> spliterator = sourceSpliterator(terminalFlags);
-        
         // 如果是并行流
         if(isParallel()) {
             /*
@@ -741,10 +767,15 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
              *
              * helper     : 某个流阶段，通常需要在当前终端操作中处理从helper阶段输出的数据
              * spliterator: 待处理的数据的源头，该流迭代器属于helper之前的(depth==0)的流阶段(包含helper阶段)
+             *
+             * 获取流迭代器时可能需要并行计算之前的有状态阶段，因此整个过程都在并行度提示指定的线程池中执行
              */
-            return terminalOp.evaluateParallel(this, spliterator);
+            return invokeParallel(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalFlags)));
         }
         
+        // 获取上个(depth==0)的流阶段的流迭代器
+        Spliterator<?> spliterator = sourceSpliterator(terminalFlags);
+        
         /*
          * 同步处理helper流阶段输出的元素，返回处理后的结果
          *
@@ -857,6 +888,35 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         return sourceStage.parallel;
     }
     
+    // 返回流的并行度提示，未指定时返回null
+    @Override
+    final ParallelismHint getParallelismHint() {
+        return sourceStage.parallelismHint;
+    }
+    
+    /**
+     * Runs a parallel evaluation in the pool named by the parallelism hint,
+     * if any and if not already running in it, so that its tasks are forked
+     * into that pool.  Otherwise runs it in the current thread, whose tasks
+     * go to the common pool unless it is a worker of another pool.
+     */
+    // 在并行度提示指定的线程池中执行并行计算
+    final <R> R invokeParallel(Supplier<R> evaluation) {
+        ParallelismHint hint = sourceStage.parallelismHint;
+        ForkJoinPool pool = (hint == null) ? null : hint.pool();
+        if(pool == null) {
+            return evaluation.get();
+        }
+        
+        Thread t = Thread.currentThread();
+        if(t instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) t).getPool() == pool) {
+            return evaluation.get();
+        }
+        
+        Callable<R> task = evaluation::get;
+        return pool.invoke(ForkJoinTask.adapt(task));
+    }
+    
     /**
      * Returns whether this operation is stateful or not.  If it is stateful,
      * then the method
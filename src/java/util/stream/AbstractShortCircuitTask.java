@@ -106,8 +106,8 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R, K extends AbstractShortC
          */
         long sizeEstimate = rs.estimateSize();
         
-        // 返回为目标结点分配的元素数量（建议值）
-        long sizeThreshold = getTargetSize(sizeEstimate);
+        // 初始化目标叶子大小，以及根据叶子任务耗时调整的自适应叶子大小
+        getTargetSize(sizeEstimate);
         
         boolean forkRight = false;
         
@@ -128,7 +128,8 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R, K extends AbstractShortC
             }
             
             // 如果待分割任务的数据量已满足要求，或者该任务无法再拆分，则直接生成结果
-            if(sizeEstimate<=sizeThreshold || (ls = rs.trySplit()) == null) {
+            // 短路的叶子任务可能提前结束，因此不记录其耗时
+            if(sizeEstimate<=task.currentTargetSize() || (ls = rs.trySplit()) == null) {
                 result = task.doLeaf();
                 break;
             }
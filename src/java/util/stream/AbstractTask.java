@@ -101,6 +101,9 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
     /** Target leaf size, common to all tasks in a computation */
     protected long targetSize;     // 目标叶子大小
     
+    /** Adaptive leaf size, common to all tasks in a computation, or null */
+    protected LeafSizePolicy sizePolicy;    // 自适应的叶子大小，数据量未知时为null
+    
     /**
      * The left child.
      * null if no children
@@ -145,6 +148,7 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
         this.spliterator = spliterator;
         this.helper = parent.helper;
         this.targetSize = parent.targetSize;
+        this.sizePolicy = parent.sizePolicy;
     }
     
     /**
@@ -182,8 +186,8 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
         // 获取right任务剩余元素数量
         long rightSplitSize = rightSplit.estimateSize();
     
-        // 返回为目标结点分配的元素数量（建议值）
-        long sizeThreshold = getTargetSize(rightSplitSize);
+        // 初始化目标叶子大小，以及根据叶子任务耗时调整的自适应叶子大小
+        getTargetSize(rightSplitSize);
     
         boolean forkRight = false;
     
@@ -192,8 +196,8 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
     
         while(true) {
         
-            // 如果right任务的数据量已经满足要求，则无需再拆分
-            if(rightSplitSize<=sizeThreshold) {
+            // 如果right任务的数据量已经满足要求，则无需再拆分（目标叶子大小会随已完成叶子任务的耗时调整）
+            if(rightSplitSize<=task.currentTargetSize()) {
                 break;
             }
         
@@ -231,8 +235,8 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
             rightSplitSize = rightSplit.estimateSize();
         }
     
-        // 当前线程直接执行最后剩余的子任务，并返回子任务的计算结果
-        R result = task.doLeaf();
+        // 当前线程直接执行最后剩余的子任务，并返回子任务的计算结果，同时记录其耗时
+        R result = task.timedLeaf();
     
         // 设置task任务的计算结果
         task.setLocalResult(result);
@@ -311,9 +315,39 @@ abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT,
         // 根据传入的元素总量，返回每个子任务(建议)包含的元素数量
         targetSize = suggestTargetSize(sizeEstimate);
         
+        sizePolicy = LeafSizePolicy.of(helper, sizeEstimate, targetSize);
+        
         return targetSize;
     }
     
+    /**
+     * Returns the current target leaf size: the targetSize, adjusted to the
+     * measured time per element of the leaves completed so far.
+     */
+    // 返回当前的目标叶子大小
+    protected final long currentTargetSize() {
+        LeafSizePolicy policy = sizePolicy;
+        return (policy == null) ? targetSize : policy.targetSize();
+    }
+    
+    /**
+     * Computes the result of this leaf task with {@link #doLeaf}, and
+     * reports its duration to the adaptive leaf size.
+     */
+    // 执行叶子任务，并记录处理的元素数量与耗时
+    protected final R timedLeaf() {
+        LeafSizePolicy policy = sizePolicy;
+        long n;
+        if(policy == null || (n = spliterator.getExactSizeIfKnown())<0L) {
+            return doLeaf();
+        }
+        
+        long start = System.nanoTime();
+        R result = doLeaf();
+        policy.record(n, System.nanoTime() - start);
+        return result;
+    }
+    
     /**
      * Returns the local result, if any. Subclasses should use
      * {@link #setLocalResult(Object)} and {@link #getLocalResult()} to manage
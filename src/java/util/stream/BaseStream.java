@@ -25,6 +25,7 @@
 package java.util.stream;
 
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 
 /**
@@ -133,6 +134,34 @@ public interface BaseStream<T, S extends BaseStream<T, S>> extends AutoCloseable
     // 中间操作：将当前流设置为并行流后返回
     S parallel();
     
+    /**
+     * Returns an equivalent stream that is parallel, and whose terminal
+     * operation is evaluated according to the given hint: in the
+     * {@link java.util.concurrent.ForkJoinPool} it names, if any, and with the
+     * source split according to its expected cost per element.  May return
+     * itself, either because the stream was already parallel, or because
+     * the underlying stream state was modified to be parallel.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation ignores the hint and returns
+     * {@link #parallel()}.
+     *
+     * @param hint the parallelism hint
+     *
+     * @return a parallel stream
+     *
+     * @throws NullPointerException if hint is null
+     * @since 11
+     */
+    // 中间操作：将当前流设置为并行流，并指定并行度提示（线程池与每个元素的预期开销）后返回
+    default S parallel(ParallelismHint hint) {
+        Objects.requireNonNull(hint);
+        return parallel();
+    }
+    
     /**
      * Returns an equivalent stream with an additional close handler.  Close
      * handlers are run when the {@link #close()} method
@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.IntSummaryStatistics;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LongObjectHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
@@ -1005,6 +1006,73 @@ public final class Collectors {
         return new CollectorImpl<>(supplier, accumulator, combiner, finisher, characteristics);
     }
     
+    /**
+     * Returns a {@code Collector} that produces, in a single pass, the sums of
+     * several long-valued functions applied to the input elements.  Element
+     * {@code i} of the resulting array is the sum of {@code mappers[i]}
+     * applied to every input element, or zero if no elements are present.
+     *
+     * <p>Unlike collecting with several {@link #summingLong(ToLongFunction)}
+     * collectors, no {@code Long} is created, neither per element nor for the
+     * results, which makes this collector suitable for rolling up several
+     * counters of the same records at once.
+     *
+     * @param <T>     the type of the input elements
+     * @param mappers the functions extracting the properties to be summed
+     *
+     * @return a {@code Collector} that produces the sums of the derived properties
+     *
+     * @throws NullPointerException if {@code mappers} or any of its elements is null
+     * @see #summingLong(ToLongFunction)
+     * @since 11
+     */
+    // 对每个元素同时计算多个long属性的和，结果数组的第i个元素是mappers[i]处理后的元素之和；不会装箱
+    @SafeVarargs
+    public static <T> Collector<T, ?, long[]> summingToLongArray(ToLongFunction<? super T>... mappers) {
+        // 复制到列表中，以免调用者修改数组，同时避免泛型数组逃逸出当前方法
+        List<ToLongFunction<? super T>> fs = new ArrayList<>(mappers.length);
+        for(ToLongFunction<? super T> f : mappers) {
+            fs.add(Objects.requireNonNull(f));
+        }
+        
+        final int n = fs.size();
+        
+        /*
+         * 1.容器工厂（该工厂用来构造收纳元素的容器）。
+         *   使用long数组，每个mapper对应一个和值。
+         */
+        Supplier<long[]> supplier = () -> new long[n];
+        
+        /*
+         * 2.择取元素（这是(子)任务中的择取操作，通常用于将元素添加到目标容器）。
+         *   将遇到的元素分别交给每个mapper转换为long类型的值，然后累加到对应的和值上。
+         */
+        BiConsumer<long[], T> accumulator = (array, e) -> {
+            for(int i = 0; i<n; i++) {
+                array[i] += fs.get(i).applyAsLong(e);
+            }
+        };
+        
+        /*
+         * 3.合并容器（这是合并操作，通常用于在并行流中合并子任务）。
+         *   将后一个容器中的和值逐个累加到前一个容器的和值上，并返回前一个容器。
+         */
+        BinaryOperator<long[]> combiner = (a, b) -> {
+            for(int i = 0; i<n; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        };
+        
+        /*
+         * 5.容器参数，指示容器的特征。
+         *   无需收尾。
+         */
+        Set<Characteristics> characteristics = CH_ID;
+        
+        return new CollectorImpl<>(supplier, accumulator, combiner, characteristics);
+    }
+    
     /*▲ 计数 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -1955,6 +2023,315 @@ public final class Collectors {
         }
     }
     
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * classification function, and returning the results in a {@code Map}
+     * whose hash table is split into independent partitions.
+     *
+     * <p>The result is the same as that of {@link #groupingBy(Function)}, but
+     * for parallel stream pipelines the per-thread maps are not merged
+     * pairwise while the pipeline is being reduced.  Instead they are merged
+     * once, at the end, partition by partition, with the partitions merged in
+     * parallel.  The encounter order of the elements in each {@code List} is
+     * preserved.
+     *
+     * <p>There are no guarantees on the type, serializability, or
+     * thread-safety of the {@code Map} or {@code List} objects returned.
+     *
+     * @param <T>        the type of the input elements
+     * @param <K>        the type of the keys
+     * @param classifier the classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} implementing the partitioned group-by operation
+     *
+     * @implSpec This produces a result similar to:
+     * <pre>{@code
+     *     groupingByPartitioned(classifier, toList());
+     * }</pre>
+     * @see #groupingBy(Function)
+     * @see #groupingByPartitioned(Function, int, Collector)
+     * @since 11
+     */
+    /*
+     * 对上游的数据进行分类，分类后的数据存储一个收集器中并将其返回，该收集器的容器是分区哈希表。
+     *
+     * classifier: 对key进行分类，入参是非空的key，返回值是分类后的特征值。
+     *
+     * 注：
+     * 1.这是groupingBy(Function)的分区版本，并行流中的子容器会在最后按分区并行合并。
+     */
+    public static <T, K> Collector<T, ?, Map<K, List<T>>> groupingByPartitioned(Function<? super T, ? extends K> classifier) {
+        return groupingByPartitioned(classifier, toList());
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to a
+     * classification function, performing a reduction operation on the values
+     * associated with a given key using the specified downstream
+     * {@code Collector}, and returning the results in a {@code Map} whose hash
+     * table is split into independent partitions.
+     *
+     * <p>The number of partitions is a small multiple of the parallelism of
+     * the {@linkplain java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+     *
+     * @param <T>        the type of the input elements
+     * @param <K>        the type of the keys
+     * @param <A>        the intermediate accumulation type of the downstream collector
+     * @param <D>        the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     *
+     * @return a {@code Collector} implementing the partitioned cascaded group-by operation
+     *
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingByPartitioned(Function, int, Collector)
+     * @since 11
+     */
+    /*
+     * 对上游的数据进行分类，分类后的数据存储一个收集器中并将其返回，该收集器的容器是分区哈希表，分区数量由公共池的并行度决定。
+     *
+     * classifier: 对key进行分类，入参是非空的key，返回值是分类后的特征值。
+     * downstream: 制定分类数据的操作流程以及提供存储分类后数据的容器。
+     */
+    public static <T, K, A, D> Collector<T, ?, Map<K, D>> groupingByPartitioned(Function<? super T, ? extends K> classifier, Collector<? super T, A, D> downstream) {
+        return groupingByPartitioned(classifier, PartitionedHashMap.defaultPartitions(), downstream);
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to a
+     * classification function, performing a reduction operation on the values
+     * associated with a given key using the specified downstream
+     * {@code Collector}, and returning the results in a {@code Map} whose hash
+     * table is split into the given number of independent partitions.
+     *
+     * <p>Each key belongs to exactly one partition, selected by its hash code.
+     * In a parallel stream pipeline every thread collects into its own
+     * partitioned map; combining two of them only queues one behind the other.
+     * The finisher then merges the queued maps into the first one partition by
+     * partition, in encounter order, with the downstream {@code combiner}, and
+     * applies the downstream {@code finisher}; different partitions are
+     * processed by different fork/join subtasks.  Compared to
+     * {@link #groupingBy(Function, Collector)} this removes the serial merge of
+     * whole maps at every level of the reduction, and avoids rehashing a
+     * single large table as the key set grows.
+     *
+     * <p>The returned {@code Map} is mutable and supports all optional
+     * {@code Map} operations; there are no guarantees on its type or
+     * thread-safety.
+     *
+     * @param <T>        the type of the input elements
+     * @param <K>        the type of the keys
+     * @param <A>        the intermediate accumulation type of the downstream collector
+     * @param <D>        the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param partitions the requested number of partitions; rounded up to a
+     *                   power of two and capped at an implementation limit
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     *
+     * @return a {@code Collector} implementing the partitioned cascaded group-by operation
+     *
+     * @throws IllegalArgumentException if {@code partitions} is not positive
+     * @apiNote Unlike the collectors returned by {@link #groupingByConcurrent(Function, Collector)}
+     * this collector is not {@code CONCURRENT}, so a downstream collector that
+     * is not thread-safe needs no synchronization and encounter order is kept.
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingByConcurrent(Function, Collector)
+     * @since 11
+     */
+    /*
+     * 对上游的数据进行分类，分类后的数据存储一个收集器中并将其返回，该收集器的容器是包含partitions个分区的分区哈希表。
+     *
+     * classifier: 对key进行分类，入参是非空的key，返回值是分类后的特征值。
+     * partitions: 分区数量，会向上取整为2的幂。
+     * downstream: 制定分类数据的操作流程以及提供存储分类后数据的容器。
+     *
+     * 注：
+     * 1.合并容器时只是将右侧容器排到左侧容器之后，直到收尾操作时才按分区并行合并。
+     * 2.分区之间没有相同的键，因此不同分区可以由不同的子任务合并。
+     */
+    public static <T, K, A, D> Collector<T, ?, Map<K, D>> groupingByPartitioned(Function<? super T, ? extends K> classifier, int partitions, Collector<? super T, A, D> downstream) {
+        if(partitions<=0) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        
+        /*
+         * 1.容器工厂（该工厂用来构造收纳元素的容器）。
+         *   使用分区哈希表。
+         */
+        Supplier<PartitionedHashMap<K, A>> supplier = () -> new PartitionedHashMap<>(partitions);
+        
+        /*
+         * 2.择取元素（这是(子)任务中的择取操作，通常用于将元素添加到目标容器）。
+         *   将遇到的key进行分类，并决定后续如何处理分类后的key和该key对应的值。
+         */
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<PartitionedHashMap<K, A>, T> accumulator = (map, t) -> {
+            // 使用classifier对key进行分类；如果key为null，则抛异常
+            K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+            
+            // 如果map中已经存在这个key了，则返回它的分类容器；否则，为其创建一个新的分类容器后返回(这个所谓的新容器获取自downstream中)
+            A container = map.computeIfAbsent(key, k -> downstreamSupplier.get());
+            
+            // 对指定的key做择取操作，通常是将该key对应的value存储到分类容器中
+            downstreamAccumulator.accept(container, t);
+        };
+        
+        /*
+         * 3.合并容器（这是合并操作，通常用于在并行流中合并子任务）。
+         *   只将右侧容器排到左侧容器之后，推迟到收尾操作时再合并。
+         */
+        BinaryOperator<PartitionedHashMap<K, A>> combiner = PartitionedHashMap::defer;
+        
+        /*
+         * 4.收尾操作（最后执行）。
+         *   按分区并行合并所有容器，然后使用downstream中的收尾操作处理容器中的元素。
+         */
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        @SuppressWarnings("unchecked")
+        Function<A, A> downstreamFinisher = downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH) ? null : (Function<A, A>) downstream.finisher();
+        Function<PartitionedHashMap<K, A>, Map<K, D>> finisher = intermediate -> {
+            intermediate.mergeDeferred(downstreamCombiner, downstreamFinisher);
+            
+            @SuppressWarnings("unchecked")
+            Map<K, D> castResult = (Map<K, D>) (Map<K, ?>) intermediate;
+            
+            return castResult;
+        };
+        
+        /*
+         * 5.容器参数，指示容器的特征。
+         *   需要收尾。
+         */
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher, CH_NOID);
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on input
+     * elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and returning the results
+     * in a {@link LongObjectHashMap} keyed by the classification values.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @implSpec This produces a result similar to:
+     * <pre>{@code
+     *     groupingByInt(classifier, toList());
+     * }</pre>
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 11
+     */
+    /*
+     * 对上游的数据按int特征值进行分类，分类后的数据存储一个收集器中并将其返回，该收集器的容器是LongObjectHashMap，键不会装箱。
+     *
+     * classifier: 对元素进行分类，返回值是分类后的int特征值。
+     */
+    public static <T> Collector<T, ?, LongObjectHashMap<List<T>>> groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.
+     *
+     * <p>The results are returned in a {@link LongObjectHashMap} whose keys
+     * are the classification values widened to {@code long}.  Unlike
+     * {@link #groupingBy(Function, Collector)} with a boxing classifier, no
+     * {@code Integer} key is created, neither per element nor per group.
+     * Combined with a primitive downstream collector such as
+     * {@link #summingToLongArray(ToLongFunction[])} a whole rollup can be
+     * computed without boxing.
+     *
+     * <p>There are no guarantees on the thread-safety of the
+     * {@code LongObjectHashMap} returned.
+     *
+     * @param <T>        the type of the input elements
+     * @param <A>        the intermediate accumulation type of the downstream collector
+     * @param <D>        the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     *
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @throws NullPointerException if the downstream finisher produces a null result
+     *                              (reported when the collector finishes)
+     * @see #groupingBy(Function, Collector)
+     * @since 11
+     */
+    /*
+     * 对上游的数据按int特征值进行分类，分类后的数据存储一个收集器中并将其返回，该收集器的容器是LongObjectHashMap，键不会装箱。
+     *
+     * classifier: 对元素进行分类，返回值是分类后的int特征值。
+     * downstream: 制定分类数据的操作流程以及提供存储分类后数据的容器。
+     */
+    public static <T, A, D> Collector<T, ?, LongObjectHashMap<D>> groupingByInt(ToIntFunction<? super T> classifier, Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        
+        /*
+         * 1.容器工厂（该工厂用来构造收纳元素的容器）。
+         *   使用LongObjectHashMap。
+         */
+        Supplier<LongObjectHashMap<A>> supplier = LongObjectHashMap::new;
+        
+        /*
+         * 2.择取元素（这是(子)任务中的择取操作，通常用于将元素添加到目标容器）。
+         *   将遇到的元素进行分类，并决定后续如何处理分类后的元素。
+         */
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<LongObjectHashMap<A>, T> accumulator = (map, t) -> {
+            // 使用classifier对元素进行分类
+            int key = classifier.applyAsInt(t);
+            
+            // 如果map中已经存在这个key了，则返回它的分类容器；否则，为其创建一个新的分类容器后返回(这个所谓的新容器获取自downstream中)
+            A container = map.computeIfAbsent(key, k -> downstreamSupplier.get());
+            
+            // 对指定的元素做择取操作，通常是将该元素存储到分类容器中
+            downstreamAccumulator.accept(container, t);
+        };
+        
+        /*
+         * 3.合并容器（这是合并操作，通常用于在并行流中合并子任务）。
+         *   合并相同类别的元素到同一个容器。
+         */
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BinaryOperator<LongObjectHashMap<A>> combiner = (m1, m2) -> {
+            m2.forEach((k, v) -> m1.merge(k, v, downstreamCombiner));
+            return m1;
+        };
+        
+        // 如果downstream指示不需要执行收尾操作，则这里可以直接构造收集器了
+        if(downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(supplier, accumulator, combiner, CH_ID);
+        }
+        
+        /*
+         * 4.收尾操作（可选，最后执行）。
+         *   使用downstream中的收尾操作处理容器中的元素。覆盖已有键的值不会改变映射的结构，因此可以在遍历时进行。
+         */
+        @SuppressWarnings("unchecked")
+        Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+        Function<LongObjectHashMap<A>, LongObjectHashMap<D>> finisher = intermediate -> {
+            intermediate.forEach((k, v) -> intermediate.put(k, downstreamFinisher.apply(v)));
+            
+            @SuppressWarnings("unchecked")
+            LongObjectHashMap<D> castResult = (LongObjectHashMap<D>) intermediate;
+            
+            return castResult;
+        };
+        
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher, CH_NOID);
+    }
+    
     /*▲ 分类 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -323,6 +323,7 @@ final class ForEachOps {
         private final PipelineHelper<T> helper;
         private Spliterator<S> spliterator;
         private long targetSize;
+        private LeafSizePolicy sizePolicy;
         
         ForEachTask(PipelineHelper<T> helper, Spliterator<S> spliterator, Sink<S> sink) {
             super(null);
@@ -337,6 +338,7 @@ final class ForEachOps {
             this.spliterator = spliterator;
             this.sink = parent.sink;
             this.targetSize = parent.targetSize;
+            this.sizePolicy = parent.sizePolicy;
             this.helper = parent.helper;
         }
         
@@ -349,8 +351,13 @@ final class ForEachOps {
             if((sizeThreshold = targetSize) == 0L) {
                 // 根据传入的元素总量，返回每个子任务(建议)包含的元素数量
                 targetSize = sizeThreshold = AbstractTask.suggestTargetSize(sizeEstimate);
+                
+                // 根据叶子任务耗时调整的自适应叶子大小
+                sizePolicy = LeafSizePolicy.of(helper, sizeEstimate, targetSize);
             }
             
+            LeafSizePolicy policy = sizePolicy;
+            
             // 获取helper流阶段的组合参数
             int streamAndOpFlags = helper.getStreamAndOpFlags();
             
@@ -362,9 +369,17 @@ final class ForEachOps {
             
             while(!isShortCircuit || !taskSink.cancellationRequested()) {
                 
+                if(policy != null) {
+                    sizeThreshold = policy.targetSize();
+                }
+                
                 // 如果任务已经没必要拆分，则可以直接执行
                 if(sizeEstimate<=sizeThreshold || (leftSplit = rightSplit.trySplit()) == null) {
                     
+                    // 短路操作可能提前结束，因此只记录非短路的叶子任务的耗时
+                    long n = (policy == null || isShortCircuit) ? -1L : rightSplit.getExactSizeIfKnown();
+                    long start = (n<0L) ? 0L : System.nanoTime();
+                    
                     /*
                      * 从taskSink开始顺着整个sink链条择取来自rightSplit中的数据，
                      * 该操作通常会依次执行每个sink上的begin()、accept()、end()方法。
@@ -373,6 +388,10 @@ final class ForEachOps {
                      */
                     task.helper.copyInto(taskSink, rightSplit);
                     
+                    if(n >= 0L) {
+                        policy.record(n, System.nanoTime() - start);
+                    }
+                    
                     break;
                 }
                 
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.stream;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sinks for the {@code map}, {@code filter} and {@code mapToLong} stages of
+ * reference pipelines, which fuse with the sink of the next stage when that
+ * stage is also one of these operations.
+ *
+ * <p>A pipeline is evaluated by wrapping the sink of the terminal operation
+ * in the sinks of the intermediate stages, from the last to the first.  When
+ * a {@code map} or {@code filter} stage wraps the plain sink of a following
+ * {@code map}, {@code filter} or {@code mapToLong} stage, it returns a single
+ * sink applying both functions instead of a chain of two, saving one
+ * interface call on {@link Sink#accept} per element, and one level of
+ * inlining depth for the JIT.  For example, {@code filter(p).map(f)} is
+ * evaluated by one sink doing
+ * <pre>{@code
+ *     if (p.test(t)) downstream.accept(f.apply(t));
+ * }</pre>
+ *
+ * <p>Fusion happens pairwise: the sink of a fused pair is not fused again,
+ * so longer runs of such stages are evaluated by about half as many sinks.
+ * It does not change the flags of any stage, and all other methods of the
+ * fused sink delegate to the downstream sink exactly as the chain would.
+ *
+ * @since 11
+ */
+// 可融合的流阶段sink：map、filter、mapToLong阶段的sink在下游是同类sink时，与下游sink合并为一个sink
+final class FusedSinks {
+    
+    private FusedSinks() {
+    }
+    
+    /**
+     * Returns the sink of a {@code map} stage, fused with the downstream sink
+     * if possible.
+     */
+    // 返回map阶段的sink
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T, R> Sink<T> map(Function<? super T, ? extends R> mapper, Sink<R> downSink) {
+        if(downSink instanceof MapSink) {
+            MapSink<R, ?> next = (MapSink<R, ?>) downSink;
+            return new MapMapSink(mapper, next.mapper, next.downstream);
+        }
+        if(downSink instanceof FilterSink) {
+            FilterSink<R> next = (FilterSink<R>) downSink;
+            return new MapFilterSink(mapper, next.predicate, next.downstream);
+        }
+        if(downSink instanceof MapToLongSink) {
+            MapToLongSink<R> next = (MapToLongSink<R>) downSink;
+            return new MapMapToLongSink(mapper, next.mapper, next.downstream);
+        }
+        return new MapSink<>(mapper, downSink);
+    }
+    
+    /**
+     * Returns the sink of a {@code filter} stage, fused with the downstream
+     * sink if possible.
+     */
+    // 返回filter阶段的sink
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Sink<T> filter(Predicate<? super T> predicate, Sink<T> downSink) {
+        if(downSink instanceof MapSink) {
+            MapSink<T, ?> next = (MapSink<T, ?>) downSink;
+            return new FilterMapSink(predicate, next.mapper, next.downstream);
+        }
+        if(downSink instanceof FilterSink) {
+            FilterSink<T> next = (FilterSink<T>) downSink;
+            return new FilterFilterSink<>(predicate, next.predicate, next.downstream);
+        }
+        if(downSink instanceof MapToLongSink) {
+            MapToLongSink<T> next = (MapToLongSink<T>) downSink;
+            return new FilterMapToLongSink<>(predicate, next.mapper, next.downstream);
+        }
+        return new FilterSink<>(predicate, downSink);
+    }
+    
+    /**
+     * Returns the sink of a {@code mapToLong} stage.
+     */
+    // 返回mapToLong阶段的sink
+    static <T> Sink<T> mapToLong(ToLongFunction<? super T> mapper, Sink<Long> downSink) {
+        return new MapToLongSink<>(mapper, downSink);
+    }
+    
+    
+    
+    /*▼ 单个阶段 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // map
+    static final class MapSink<T, R> extends Sink.ChainedReference<T, R> {
+        final Function<? super T, ? extends R> mapper;
+        
+        MapSink(Function<? super T, ? extends R> mapper, Sink<? super R> downSink) {
+            super(downSink);
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public void accept(T t) {
+            downstream.accept(mapper.apply(t));
+        }
+    }
+    
+    // filter
+    static final class FilterSink<T> extends Sink.ChainedReference<T, T> {
+        final Predicate<? super T> predicate;
+        
+        FilterSink(Predicate<? super T> predicate, Sink<? super T> downSink) {
+            super(downSink);
+            this.predicate = predicate;
+        }
+        
+        @Override
+        public void begin(long size) {
+            // 不清楚会过滤出多少个元素，所以这里传入-1
+            downstream.begin(-1);
+        }
+        
+        @Override
+        public void accept(T t) {
+            if(predicate.test(t)) {
+                downstream.accept(t);
+            }
+        }
+    }
+    
+    // mapToLong
+    static final class MapToLongSink<T> extends Sink.ChainedReference<T, Long> {
+        final ToLongFunction<? super T> mapper;
+        
+        MapToLongSink(ToLongFunction<? super T> mapper, Sink<? super Long> downSink) {
+            super(downSink);
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public void accept(T t) {
+            downstream.accept(mapper.applyAsLong(t));
+        }
+    }
+    
+    /*▲ 单个阶段 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 融合的阶段 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // map + map
+    static final class MapMapSink<T, U, R> extends Sink.ChainedReference<T, R> {
+        final Function<? super T, ? extends U> first;
+        final Function<? super U, ? extends R> second;
+        
+        MapMapSink(Function<? super T, ? extends U> first, Function<? super U, ? extends R> second, Sink<? super R> downSink) {
+            super(downSink);
+            this.first = first;
+            this.second = second;
+        }
+        
+        @Override
+        public void accept(T t) {
+            downstream.accept(second.apply(first.apply(t)));
+        }
+    }
+    
+    // map + filter
+    static final class MapFilterSink<T, U> extends Sink.ChainedReference<T, U> {
+        final Function<? super T, ? extends U> mapper;
+        final Predicate<? super U> predicate;
+        
+        MapFilterSink(Function<? super T, ? extends U> mapper, Predicate<? super U> predicate, Sink<? super U> downSink) {
+            super(downSink);
+            this.mapper = mapper;
+            this.predicate = predicate;
+        }
+        
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+        
+        @Override
+        public void accept(T t) {
+            U u = mapper.apply(t);
+            if(predicate.test(u)) {
+                downstream.accept(u);
+            }
+        }
+    }
+    
+    // map + mapToLong
+    static final class MapMapToLongSink<T, U> extends Sink.ChainedReference<T, Long> {
+        final Function<? super T, ? extends U> first;
+        final ToLongFunction<? super U> second;
+        
+        MapMapToLongSink(Function<? super T, ? extends U> first, ToLongFunction<? super U> second, Sink<? super Long> downSink) {
+            super(downSink);
+            this.first = first;
+            this.second = second;
+        }
+        
+        @Override
+        public void accept(T t) {
+            downstream.accept(second.applyAsLong(first.apply(t)));
+        }
+    }
+    
+    // filter + map
+    static final class FilterMapSink<T, R> extends Sink.ChainedReference<T, R> {
+        final Predicate<? super T> predicate;
+        final Function<? super T, ? extends R> mapper;
+        
+        FilterMapSink(Predicate<? super T> predicate, Function<? super T, ? extends R> mapper, Sink<? super R> downSink) {
+            super(downSink);
+            this.predicate = predicate;
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+        
+        @Override
+        public void accept(T t) {
+            if(predicate.test(t)) {
+                downstream.accept(mapper.apply(t));
+            }
+        }
+    }
+    
+    // filter + filter
+    static final class FilterFilterSink<T> extends Sink.ChainedReference<T, T> {
+        final Predicate<? super T> first;
+        final Predicate<? super T> second;
+        
+        FilterFilterSink(Predicate<? super T> first, Predicate<? super T> second, Sink<? super T> downSink) {
+            super(downSink);
+            this.first = first;
+            this.second = second;
+        }
+        
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+        
+        @Override
+        public void accept(T t) {
+            if(first.test(t) && second.test(t)) {
+                downstream.accept(t);
+            }
+        }
+    }
+    
+    // filter + mapToLong
+    static final class FilterMapToLongSink<T> extends Sink.ChainedReference<T, Long> {
+        final Predicate<? super T> predicate;
+        final ToLongFunction<? super T> mapper;
+        
+        FilterMapToLongSink(Predicate<? super T> predicate, ToLongFunction<? super T> mapper, Sink<? super Long> downSink) {
+            super(downSink);
+            this.predicate = predicate;
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+        
+        @Override
+        public void accept(T t) {
+            if(predicate.test(t)) {
+                downstream.accept(mapper.applyAsLong(t));
+            }
+        }
+    }
+    
+    /*▲ 融合的阶段 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+}
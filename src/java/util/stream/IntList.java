@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A growable list of primitive {@code int} values.  Unlike
+ * {@code ArrayList<Integer>}, no boxed {@code Integer} is allocated per
+ * element, and unlike a growable {@code int[]}, growing never copies the
+ * elements already added: the values are kept in a sequence of
+ * geometrically growing chunks, in the same way as the buffers used
+ * internally by primitive stream pipelines.
+ *
+ * <p>Appending a whole list with {@link #addAll(IntList)} adopts the chunks
+ * of the other list instead of copying them, so the partial lists built by
+ * the subtasks of a parallel pipeline are concatenated in time proportional
+ * to the number of chunks.  This is how
+ * {@link IntStream#collectToIntList()} combines partial results.
+ *
+ * <p>Indexes and sizes are {@code long}, since a list may hold more than
+ * {@code Integer.MAX_VALUE} values.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are not fail-fast;
+ * the list must not be structurally modified while they are in use.
+ *
+ * @see IntStream#collectToIntList()
+ * @since 11
+ */
+// 元素为int的可增长列表，基于弹性缓冲区实现，不会装箱
+public final class IntList {
+    
+    // 存储元素的弹性缓冲区
+    private final SpinedBuffer.OfInt buffer;
+    
+    /**
+     * Constructs an empty list.
+     */
+    public IntList() {
+        buffer = new SpinedBuffer.OfInt();
+    }
+    
+    /**
+     * Constructs an empty list with room for at least the given number of
+     * values in its first chunk.
+     *
+     * @param initialCapacity the initial capacity of the list
+     *
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public IntList(int initialCapacity) {
+        // 容量为0时SpinedBuffer的initialChunkPower会变成32，导致后续分块达到2^30个元素，因此改用默认容量
+        buffer = (initialCapacity == 0) ? new SpinedBuffer.OfInt() : new SpinedBuffer.OfInt(initialCapacity);
+    }
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Appends the given value to the end of this list.
+     *
+     * @param value the value to append
+     */
+    // 追加元素
+    public void add(int value) {
+        buffer.accept(value);
+    }
+    
+    /**
+     * Appends all values of {@code other} to the end of this list and leaves
+     * {@code other} empty.  The storage of {@code other} is transferred to
+     * this list whenever that is cheaper than copying its values.
+     *
+     * @param other the list whose values are moved to this list
+     *
+     * @throws NullPointerException if {@code other} is null
+     */
+    // 将other中的元素移动到当前列表末尾，并清空other；通常会直接接管other的存储，而不是复制元素
+    public void addAll(IntList other) {
+        buffer.appendAll(other.buffer);
+    }
+    
+    /**
+     * Replaces the value at the given index.
+     *
+     * @param index the index of the value to replace
+     * @param value the new value
+     *
+     * @return the value previously at the given index
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    // 将索引index处的元素替换为value，返回旧值
+    public int set(long index, int value) {
+        checkIndex(index);
+        return buffer.set(index, value);
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index the index of the value to return
+     *
+     * @return the value at the given index
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    // 返回索引index处的元素
+    public int get(long index) {
+        checkIndex(index);
+        return buffer.get(index);
+    }
+    
+    /**
+     * Returns a new array containing the values of this list, in order.
+     *
+     * @return an array containing the values of this list
+     *
+     * @throws IllegalArgumentException if this list has more values than an array can hold
+     */
+    // 返回包含当前列表所有元素的新数组
+    public int[] toArray() {
+        return buffer.asPrimitiveArray();
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Performs the given action for each value of this list, in order.
+     *
+     * @param action the action to be performed for each value
+     *
+     * @throws NullPointerException if the specified action is null
+     */
+    // 遍历列表中的元素，并在其上应用action函数
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        buffer.forEach(action);
+    }
+    
+    /**
+     * Returns an iterator over the values of this list, in order.
+     *
+     * @return an iterator over the values of this list
+     */
+    // 返回当前列表的迭代器
+    public PrimitiveIterator.OfInt iterator() {
+        return buffer.iterator();
+    }
+    
+    /**
+     * Returns a spliterator over the values of this list.  The spliterator
+     * reports {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED},
+     * {@link Spliterator#ORDERED} and {@link Spliterator#IMMUTABLE}, and
+     * splits along chunk boundaries.
+     *
+     * @return a spliterator over the values of this list
+     */
+    // 返回当前列表的流迭代器
+    public Spliterator.OfInt spliterator() {
+        return buffer.spliterator();
+    }
+    
+    /**
+     * Returns a sequential {@code IntStream} over the values of this list.
+     *
+     * @return a sequential {@code IntStream} over the values of this list
+     */
+    // 返回基于当前列表的顺序流
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+    
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Removes all values from this list.
+     */
+    // 清空列表
+    public void clear() {
+        buffer.clear();
+    }
+    
+    /**
+     * Returns the number of values in this list.
+     *
+     * @return the number of values in this list
+     */
+    // 返回元素数量
+    public long size() {
+        return buffer.count();
+    }
+    
+    /**
+     * Returns {@code true} if this list contains no values.
+     *
+     * @return {@code true} if this list contains no values
+     */
+    public boolean isEmpty() {
+        return buffer.count() == 0;
+    }
+    
+    /**
+     * Compares the specified object with this list for equality.  Returns
+     * {@code true} if the object is also an {@code IntList} holding the same
+     * values in the same order.
+     *
+     * @param o the object to be compared for equality with this list
+     *
+     * @return {@code true} if the specified object is equal to this list
+     */
+    @Override
+    public boolean equals(Object o) {
+        if(o == this) {
+            return true;
+        }
+        
+        if(!(o instanceof IntList)) {
+            return false;
+        }
+        
+        IntList other = (IntList) o;
+        if(size() != other.size()) {
+            return false;
+        }
+        
+        PrimitiveIterator.OfInt a = iterator(), b = other.iterator();
+        while(a.hasNext()) {
+            if(a.nextInt() != b.nextInt()) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the hash code of this list, computed in the same way as
+     * {@link Arrays#hashCode(int[])} on the values of this list.
+     *
+     * @return the hash code value for this list
+     */
+    @Override
+    public int hashCode() {
+        int[] h = {1};
+        buffer.forEach((IntConsumer) v -> h[0] = 31 * h[0] + v);
+        return h[0];
+    }
+    
+    /**
+     * Returns a string representation of this list, in the format of
+     * {@link Arrays#toString(int[])}.
+     *
+     * @return a string representation of this list
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        buffer.forEach((IntConsumer) v -> {
+            if(sb.length()>1) {
+                sb.append(", ");
+            }
+            sb.append(v);
+        });
+        return sb.append(']').toString();
+    }
+    
+    // 检查索引是否越界
+    private void checkIndex(long index) {
+        if(index<0 || index >= buffer.count()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + buffer.count());
+        }
+    }
+    
+}
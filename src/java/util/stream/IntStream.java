@@ -1005,6 +1005,30 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
     // 有初始状态的消费操作(int类型版本)
     <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner);
     
+    /**
+     * Collects the elements of this stream, in encounter order, into an
+     * {@link IntList}, without boxing them.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @return an {@code IntList} containing the elements of this stream
+     *
+     * @implSpec The default implementation is equivalent to:
+     * <pre>{@code
+     *     return collect(IntList::new, IntList::add, IntList::addAll);
+     * }</pre>
+     * Since {@link IntList#addAll(IntList)} adopts the storage of the list it
+     * appends, the partial results of a parallel execution are concatenated
+     * without copying their elements, unlike {@link #toArray()} followed by a
+     * copy into a growable container.
+     * @since 11
+     */
+    // 将流中的元素按遭遇顺序收集到IntList中，不会装箱
+    default IntList collectToIntList() {
+        return collect(IntList::new, IntList::add, IntList::addAll);
+    }
+    
     /**
      * Returns the count of elements in this stream.  This is a special case of
      * a <a href="package-summary.html#Reduction">reduction</a> and is
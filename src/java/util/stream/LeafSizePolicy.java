@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.stream;
+
+/**
+ * Adaptive leaf size of a parallel evaluation, shared by all of its tasks.
+ *
+ * <p>The base leaf size is the one given by
+ * {@link AbstractTask#suggestTargetSize}, about four leaves per thread.
+ * Leaf tasks report how many elements they processed and how long it
+ * took; from the running average time per element, the leaf size is set so
+ * that a leaf takes about {@link #TARGET_LEAF_NANOS}, within a factor of
+ * {@link #MAX_SHRINK} below and {@link #MAX_GROW} above the base size.  So
+ * cheap elements are not split into leaves whose task overhead dominates
+ * their work, and expensive elements are split further for better load
+ * balancing.  Tasks started later split according to the updated size.
+ *
+ * <p>Before the first report, the size depends on the
+ * {@link ParallelismHint.Cost} of the pipeline: the base size if unknown,
+ * the largest size if cheap, and the smallest size if expensive.
+ *
+ * <p>Sources of unknown size are split as before: their size estimates are
+ * not meaningful enough for a size threshold to be adjusted.
+ */
+// 并行计算中叶子任务的自适应大小，根据已完成的叶子任务测得的每个元素的平均耗时进行调整
+final class LeafSizePolicy {
+    
+    /** Desired duration of a leaf task. */
+    static final long TARGET_LEAF_NANOS = 500_000L;
+    
+    /** Bounds of the leaf size, relative to the base size. */
+    static final int MAX_SHRINK = 16;
+    static final int MAX_GROW = 4;
+    
+    private final long base, min, max;
+    
+    private final long initial;
+    
+    /** Running average of the time per element, in picoseconds, or 0 if no leaf reported yet. */
+    private volatile long picosPerElement;
+    
+    private LeafSizePolicy(long base, ParallelismHint.Cost cost) {
+        this.base = base;
+        this.min = Math.max(1L, base / MAX_SHRINK);
+        this.max = base * MAX_GROW;
+        switch(cost) {
+            case CHEAP:
+                this.initial = max;
+                break;
+            case EXPENSIVE:
+                this.initial = min;
+                break;
+            default:
+                this.initial = base;
+        }
+    }
+    
+    /**
+     * Returns the policy for an evaluation of the given pipeline, whose root
+     * has the given size estimate and base leaf size, or null if the size is
+     * unknown.
+     */
+    // 返回自适应策略，数据量未知时返回null
+    static LeafSizePolicy of(PipelineHelper<?> helper, long sizeEstimate, long base) {
+        if(sizeEstimate == Long.MAX_VALUE || base>Long.MAX_VALUE / MAX_GROW) {
+            return null;
+        }
+        ParallelismHint hint = helper.getParallelismHint();
+        return new LeafSizePolicy(base, hint == null ? ParallelismHint.Cost.UNKNOWN : hint.cost());
+    }
+    
+    /**
+     * Returns the current leaf size.
+     */
+    // 返回当前建议的叶子大小
+    long targetSize() {
+        long ps = picosPerElement;
+        if(ps == 0L) {
+            return initial;
+        }
+        
+        long size = TARGET_LEAF_NANOS * 1000L / ps;
+        return (size<min) ? min : (size>max) ? max : size;
+    }
+    
+    /**
+     * Records that a leaf processed the given number of elements in the
+     * given time.  Concurrent updates may be lost, which only slows the
+     * adjustment down.
+     */
+    // 记录叶子任务处理的元素数量与耗时
+    void record(long elements, long nanos) {
+        if(elements<=0L || nanos<=0L || nanos>Long.MAX_VALUE / 1000L) {
+            return;
+        }
+        
+        long ps = Math.max(1L, nanos * 1000L / elements);
+        long old = picosPerElement;
+        picosPerElement = (old == 0L) ? ps : old - (old >> 2) + (ps >> 2);
+    }
+    
+    public String toString() {
+        return "LeafSizePolicy[base=" + base + ", target=" + targetSize() + "]";
+    }
+    
+}
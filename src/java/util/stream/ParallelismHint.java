@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Advice on how a parallel stream should be evaluated, passed to
+ * {@link BaseStream#parallel(ParallelismHint)}.
+ *
+ * <p>A hint may name the {@link ForkJoinPool} in which the terminal
+ * operation runs, instead of the {@linkplain ForkJoinPool#commonPool()
+ * common pool}; the source is then split for the parallelism of that pool.
+ * It may also give the expected cost of processing each element, which
+ * sets how finely the source is split before any element has been
+ * processed:
+ * <ul>
+ * <li>{@link Cost#UNKNOWN}: the default size, about four leaf tasks per
+ * thread;</li>
+ * <li>{@link Cost#CHEAP}: larger leaves, down to one per thread, as the
+ * overhead of a task is significant compared to the work per element;</li>
+ * <li>{@link Cost#EXPENSIVE}: smaller leaves, for better load balancing
+ * when few elements take a long time each.</li>
+ * </ul>
+ * In all cases the leaf size is then adjusted to the measured time per
+ * element, as leaf tasks complete.
+ *
+ * <p>For example, to run a CPU-bound pipeline on a dedicated pool:
+ * <pre>{@code
+ *     ForkJoinPool pool = new ForkJoinPool(8);
+ *     long n = records.parallelStream()
+ *                     .parallel(ParallelismHint.of(pool, ParallelismHint.Cost.EXPENSIVE))
+ *                     .filter(Record::isValid)
+ *                     .count();
+ * }</pre>
+ *
+ * <p>Hints are immutable and may be shared between streams.
+ *
+ * @since 11
+ */
+// 并行度提示：指定并行流使用的线程池，以及处理每个元素的预期开销
+public final class ParallelismHint {
+    
+    /**
+     * The expected cost of processing one element.
+     */
+    // 处理每个元素的预期开销
+    public enum Cost {
+        /** Nothing is known about the cost of an element. */
+        UNKNOWN,
+        
+        /** Each element is cheap to process, for example a field access or arithmetic. */
+        CHEAP,
+        
+        /** Each element is expensive to process, for example a parse or a remote call. */
+        EXPENSIVE
+    }
+    
+    private static final ParallelismHint DEFAULT = new ParallelismHint(null, Cost.UNKNOWN);
+    
+    private final ForkJoinPool pool;
+    private final Cost cost;
+    
+    private ParallelismHint(ForkJoinPool pool, Cost cost) {
+        this.pool = pool;
+        this.cost = cost;
+    }
+    
+    /**
+     * Returns a hint to run in the common pool, with an unknown element cost.
+     *
+     * @return the default hint
+     */
+    public static ParallelismHint defaults() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Returns a hint to run in the given pool, with an unknown element cost.
+     *
+     * @param pool the pool in which to run the terminal operation
+     *
+     * @return a hint
+     *
+     * @throws NullPointerException if pool is null
+     */
+    public static ParallelismHint of(ForkJoinPool pool) {
+        return new ParallelismHint(Objects.requireNonNull(pool), Cost.UNKNOWN);
+    }
+    
+    /**
+     * Returns a hint to run in the common pool, with the given element cost.
+     *
+     * @param cost the expected cost of processing one element
+     *
+     * @return a hint
+     *
+     * @throws NullPointerException if cost is null
+     */
+    public static ParallelismHint of(Cost cost) {
+        return new ParallelismHint(null, Objects.requireNonNull(cost));
+    }
+    
+    /**
+     * Returns a hint to run in the given pool, with the given element cost.
+     *
+     * @param pool the pool in which to run the terminal operation
+     * @param cost the expected cost of processing one element
+     *
+     * @return a hint
+     *
+     * @throws NullPointerException if pool or cost is null
+     */
+    public static ParallelismHint of(ForkJoinPool pool, Cost cost) {
+        return new ParallelismHint(Objects.requireNonNull(pool), Objects.requireNonNull(cost));
+    }
+    
+    /**
+     * Returns the pool in which to run the terminal operation, or
+     * {@code null} for the common pool.
+     *
+     * @return the pool, or {@code null}
+     */
+    public ForkJoinPool pool() {
+        return pool;
+    }
+    
+    /**
+     * Returns the expected cost of processing one element.
+     *
+     * @return the element cost
+     */
+    public Cost cost() {
+        return cost;
+    }
+    
+    public String toString() {
+        return "ParallelismHint[pool=" + (pool == null ? "common" : pool.toString()) + ", cost=" + cost + "]";
+    }
+    
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package java.util.stream;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * A hash map split into a power-of-two number of independent {@link HashMap}
+ * partitions, selected by the high bits of a key's spread hash code.  It is
+ * the container and the result of the partitioned "group by" collectors of
+ * {@link Collectors}.
+ *
+ * <p>While collecting, combining two containers does not merge them;
+ * the right container is only queued behind the left one, in encounter order.
+ * {@link #mergeDeferred} later merges all queued containers partition by
+ * partition, and since partitions never share keys the partitions are merged
+ * by independent fork/join subtasks.  This replaces the serial, pairwise
+ * merging of whole maps at every level of the reduction tree by a single
+ * parallel merge at the root.
+ *
+ * <p>Partitions are created lazily, so a container of a small leaf only
+ * pays for the partitions it actually uses.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ */
+// 分区哈希表：由2的幂个独立的HashMap组成，键通过哈希值的高位选择分区
+final class PartitionedHashMap<K, V> extends AbstractMap<K, V> implements Serializable {
+    
+    private static final long serialVersionUID = 6188397213542957125L;
+    
+    /** The default upper bound on the number of partitions */
+    static final int MAX_PARTITIONS = 1 << 10;
+    
+    /** Below this number of mappings, deferred containers are merged sequentially */
+    private static final int PARALLEL_MERGE_THRESHOLD = 1 << 13;
+    
+    private final HashMap<K, V>[] partitions;   // 分区，按需创建
+    private final int shift;                    // 选择分区时，混合后的哈希值需要右移的位数
+    
+    // 合并时排在当前容器之后的其他容器，按遭遇顺序排列
+    private transient ArrayList<PartitionedHashMap<K, V>> deferred;
+    
+    private transient Set<Map.Entry<K, V>> entrySet;
+    
+    /**
+     * Creates an empty map with the given number of partitions, rounded up to
+     * a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    PartitionedHashMap(int partitions) {
+        int n = partitions<=1 ? 1 : Integer.highestOneBit(Math.min(partitions, MAX_PARTITIONS) - 1) << 1;
+        this.partitions = (HashMap<K, V>[]) new HashMap<?, ?>[n];
+        this.shift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+    
+    /**
+     * Returns the default number of partitions: a few partitions per
+     * worker of the common pool, so that merging them keeps every worker busy.
+     */
+    // 默认分区数量：公共池的每个工作线程分到若干个分区
+    static int defaultPartitions() {
+        return Math.min(MAX_PARTITIONS, Math.max(1, ForkJoinPool.getCommonPoolParallelism()) << 2);
+    }
+    
+    
+    
+    /*▼ 分区 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 返回key所在分区的索引
+    private int indexFor(Object key) {
+        if(shift == 32) {
+            return 0;
+        }
+        
+        int h = key == null ? 0 : key.hashCode();
+        
+        // HashMap使用哈希值的低位定位桶，这里使用混合后的高位选择分区，以免两者相关
+        return ((h ^ (h >>> 16)) * 0x9E3779B9) >>> shift;
+    }
+    
+    // 返回key所在的分区，如果不存在，返回null
+    private HashMap<K, V> partitionOf(Object key) {
+        return partitions[indexFor(key)];
+    }
+    
+    // 返回key所在的分区，如果不存在，则创建它
+    private HashMap<K, V> partitionFor(Object key) {
+        int i = indexFor(key);
+        HashMap<K, V> p = partitions[i];
+        if(p == null) {
+            p = partitions[i] = new HashMap<>();
+        }
+        return p;
+    }
+    
+    /*▲ 分区 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public V put(K key, V value) {
+        return partitionFor(key).put(key, value);
+    }
+    
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return partitionFor(key).putIfAbsent(key, value);
+    }
+    
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return partitionFor(key).computeIfAbsent(key, mappingFunction);
+    }
+    
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        HashMap<K, V> p = partitionOf(key);
+        return p == null ? null : p.computeIfPresent(key, remappingFunction);
+    }
+    
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return partitionFor(key).compute(key, remappingFunction);
+    }
+    
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return partitionFor(key).merge(key, value, remappingFunction);
+    }
+    
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public V get(Object key) {
+        HashMap<K, V> p = partitionOf(key);
+        return p == null ? null : p.get(key);
+    }
+    
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        HashMap<K, V> p = partitionOf(key);
+        return p == null ? defaultValue : p.getOrDefault(key, defaultValue);
+    }
+    
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public V remove(Object key) {
+        HashMap<K, V> p = partitionOf(key);
+        return p == null ? null : p.remove(key);
+    }
+    
+    @Override
+    public void clear() {
+        for(HashMap<K, V> p : partitions) {
+            if(p != null) {
+                p.clear();
+            }
+        }
+    }
+    
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public boolean containsKey(Object key) {
+        HashMap<K, V> p = partitionOf(key);
+        return p != null && p.containsKey(key);
+    }
+    
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 视图 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null) {
+            es = entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+                
+                @Override
+                public int size() {
+                    return PartitionedHashMap.this.size();
+                }
+                
+                @Override
+                public void clear() {
+                    PartitionedHashMap.this.clear();
+                }
+            };
+        }
+        return es;
+    }
+    
+    /*▲ 视图 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for(HashMap<K, V> p : partitions) {
+            if(p != null) {
+                p.forEach(action);
+            }
+        }
+    }
+    
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        for(HashMap<K, V> p : partitions) {
+            if(p != null) {
+                p.replaceAll(function);
+            }
+        }
+    }
+    
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    @Override
+    public int size() {
+        int size = 0;
+        for(HashMap<K, V> p : partitions) {
+            if(p != null) {
+                size += p.size();
+            }
+        }
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        for(HashMap<K, V> p : partitions) {
+            if(p != null && !p.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    
+    
+    /*▼ 合并 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Queues {@code other}, and every container queued behind it, behind the
+     * containers already queued behind this one, and returns this container.
+     * Both containers must have the same number of partitions.
+     */
+    // 将other(以及排在other之后的容器)排到当前容器之后，稍后由mergeDeferred()统一合并
+    PartitionedHashMap<K, V> defer(PartitionedHashMap<K, V> other) {
+        if(other == this) {
+            return this;
+        }
+        
+        if(deferred == null) {
+            deferred = new ArrayList<>();
+        }
+        deferred.add(other);
+        
+        if(other.deferred != null) {
+            deferred.addAll(other.deferred);
+            other.deferred = null;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Merges all deferred containers into this one, combining the values of
+     * equal keys with {@code combiner} in encounter order, and then replaces
+     * every value with the result of {@code finisher} (if non-null).
+     * Partitions are processed in parallel when there is enough work.
+     */
+    // 合并排在当前容器之后的所有容器，相同键的值使用combiner按遭遇顺序合并，随后对每个值应用finisher(如果存在)
+    void mergeDeferred(BinaryOperator<V> combiner, Function<V, V> finisher) {
+        ArrayList<PartitionedHashMap<K, V>> others = deferred;
+        deferred = null;
+        
+        if(others == null && finisher == null) {
+            return;
+        }
+        
+        long work = size();
+        if(others != null) {
+            for(PartitionedHashMap<K, V> other : others) {
+                work += other.size();
+            }
+        }
+        
+        boolean parallel = partitions.length>1 && work>=PARALLEL_MERGE_THRESHOLD;
+        
+        new MergeTask<>(this, others, combiner, finisher, parallel, 0, partitions.length).invoke();
+    }
+    
+    // 合并第i个分区
+    private void mergePartition(int i, ArrayList<PartitionedHashMap<K, V>> others, BinaryOperator<V> combiner, Function<V, V> finisher) {
+        HashMap<K, V> p = partitions[i];
+        
+        if(others != null) {
+            for(PartitionedHashMap<K, V> other : others) {
+                HashMap<K, V> q = other.partitions[i];
+                if(q == null || q.isEmpty()) {
+                    continue;
+                }
+                if(p == null || p.isEmpty()) {
+                    // 当前分区为空，直接接管对方的分区
+                    p = partitions[i] = q;
+                } else {
+                    for(Map.Entry<K, V> e : q.entrySet()) {
+                        p.merge(e.getKey(), e.getValue(), combiner);
+                    }
+                }
+                other.partitions[i] = null;
+            }
+        }
+        
+        if(finisher != null && p != null) {
+            p.replaceAll((k, v) -> finisher.apply(v));
+        }
+    }
+    
+    /*▲ 合并 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 并行合并分区[lo, hi)的任务
+    @SuppressWarnings("serial")
+    private static final class MergeTask<K, V> extends RecursiveAction {
+        private final PartitionedHashMap<K, V> map;
+        private final ArrayList<PartitionedHashMap<K, V>> others;
+        private final BinaryOperator<V> combiner;
+        private final Function<V, V> finisher;
+        private final boolean parallel; // 是否拆分为子任务
+        private final int lo, hi;
+        
+        private MergeTask<K, V> nextForked; // 同一个父任务中，上一个被拆分出的子任务
+        
+        MergeTask(PartitionedHashMap<K, V> map, ArrayList<PartitionedHashMap<K, V>> others, BinaryOperator<V> combiner, Function<V, V> finisher, boolean parallel, int lo, int hi) {
+            this.map = map;
+            this.others = others;
+            this.combiner = combiner;
+            this.finisher = finisher;
+            this.parallel = parallel;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute() {
+            int lo = this.lo, hi = this.hi;
+            
+            // 每次分出右半部分，当前任务处理剩余的第一个分区
+            MergeTask<K, V> forked = null;
+            while(parallel && hi - lo>1) {
+                int mid = (lo + hi) >>> 1;
+                MergeTask<K, V> right = new MergeTask<>(map, others, combiner, finisher, true, mid, hi);
+                right.nextForked = forked;
+                forked = right;
+                right.fork();
+                hi = mid;
+            }
+            
+            for(int i = lo; i<hi; i++) {
+                map.mergePartition(i, others, combiner, finisher);
+            }
+            
+            for(; forked != null; forked = forked.nextForked) {
+                forked.join();
+            }
+        }
+    }
+    
+    // 当前映射中所有分区的条目的迭代器
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int index;                          // 下一个待遍历的分区
+        private Iterator<Map.Entry<K, V>> current;  // 当前分区的迭代器
+        private Iterator<Map.Entry<K, V>> last;     // 上一个返回条目的迭代器
+        
+        @Override
+        public boolean hasNext() {
+            for(; ; ) {
+                if(current != null && current.hasNext()) {
+                    return true;
+                }
+                if(index>=partitions.length) {
+                    return false;
+                }
+                HashMap<K, V> p = partitions[index++];
+                current = p == null ? null : p.entrySet().iterator();
+            }
+        }
+        
+        @Override
+        public Map.Entry<K, V> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = current;
+            return current.next();
+        }
+        
+        @Override
+        public void remove() {
+            if(last == null) {
+                throw new IllegalStateException();
+            }
+            last.remove();
+            last = null;
+        }
+    }
+    
+}
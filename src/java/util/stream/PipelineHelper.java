@@ -289,4 +289,13 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract <P_IN> Spliterator<P_OUT> wrapSpliterator(Spliterator<P_IN> sourceSpliterator);
     
+    /**
+     * Returns the parallelism hint given to the pipeline with
+     * {@link BaseStream#parallel(ParallelismHint)}, or null if none.
+     *
+     * @return the parallelism hint, or null
+     */
+    // 返回流的并行度提示，未指定时返回null
+    abstract ParallelismHint getParallelismHint();
+    
 }
@@ -161,21 +161,8 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
             Sink<P_OUT> opWrapSink(int flags, Sink<P_OUT> downSink) {
         
                 // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedReference<>(downSink) {
-                    @Override
-                    public void begin(long size) {
-                        // 不清楚会过滤出多少个元素，所以这里重写begin方法，传入-1
-                        downstream.begin(-1);
-                    }
-            
-                    @Override
-                    public void accept(P_OUT u) {
-                        // 如果数据满足filter条件，则继续传下去
-                        if(predicate.test(u)) {
-                            downstream.accept(u);
-                        }
-                    }
-                };
+                // 如果下个流阶段也是map、filter或mapToLong，则与其sink融合为一个sink
+                return FusedSinks.filter(predicate, downSink);
             }
         };
     }
@@ -194,15 +181,8 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
             Sink<P_OUT> opWrapSink(int flags, Sink<R> downSink) {
         
                 // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedReference<>(downSink) {
-                    /* 可以使用默认的begin方法，因为这里要将所有数据传给下一个阶段 */
-            
-                    // 将数据用当前阶段的Sink择取，然后再传给下一个阶段的Sink（从前向后传输）
-                    @Override
-                    public void accept(P_OUT u) {
-                        downstream.accept(mapper.apply(u));
-                    }
-                };
+                // 如果下个流阶段也是map、filter或mapToLong，则与其sink融合为一个sink
+                return FusedSinks.map(mapper, downSink);
             }
         };
     }
@@ -245,12 +225,8 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
             Sink<P_OUT> opWrapSink(int flags, Sink<Long> downSink) {
         
                 // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedReference<>(downSink) {
-                    @Override
-                    public void accept(P_OUT u) {
-                        downstream.accept(mapper.applyAsLong(u));
-                    }
-                };
+                // 上个流阶段是map或filter时，该sink会被融合到上个阶段的sink中
+                return FusedSinks.mapToLong(mapper, downSink);
             }
         };
     }
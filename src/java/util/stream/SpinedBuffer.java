@@ -635,13 +635,24 @@ class SpinedBuffer<E> extends AbstractSpinedBuffer implements Consumer<E>, Itera
                     priorElementCount = Arrays.copyOf(priorElementCount, newSpineSize);
                 }
                 // 返回即将分配的chunk应当包含的元素个数
-                int nextChunkSize = chunkSize(i);
+                int nextChunkSize = nextChunkSize(i);
                 spine[i] = newArray(nextChunkSize);
                 priorElementCount[i] = priorElementCount[i - 1] + arrayLength(spine[i - 1]);
                 capacity += nextChunkSize;
             }
         }
     
+        /*
+         * 返回即将在spine[i]处分配的chunk的容量
+         *
+         * 通常与chunkSize(i)相同。但appendAll接管分块后spineIndex会跳跃，
+         * 此时chunkSize(i)可能远大于已有的块，因此新块最多只是前一个块的两倍
+         */
+        private int nextChunkSize(int i) {
+            long doubled = (long) arrayLength(spine[i - 1]) << 1;
+            return (int) Math.min(chunkSize(i), Math.max(1 << initialChunkPower, doubled));
+        }
+    
         // 将SpinedBuffer中的内容复制到数组array的offset偏移中
         public void copyInto(T_ARR array, int offset) {
             long finalOffset = offset + count();
@@ -698,6 +709,81 @@ class SpinedBuffer<E> extends AbstractSpinedBuffer implements Consumer<E>, Itera
             arrayForEach(curChunk, 0, elementIndex, consumer);
         }
     
+        /**
+         * Appends all elements of {@code other} to this buffer and leaves
+         * {@code other} empty.  The chunks of {@code other} are adopted rather
+         * than copied, unless copying the elements of {@code other} is cheaper
+         * than trimming the partially filled current chunk of this buffer.
+         */
+        // 将other中的元素追加到当前缓冲区，并清空other。优先直接接管other的分块，除非复制other的元素比截断当前块的代价更小
+        void appendAll(OfPrimitive<E, T_ARR, T_CONS> other) {
+            long otherCount = other.count();
+            if(otherCount == 0 || other == this) {
+                return;
+            }
+            
+            // other较小，或当前块剩余的空间足够容纳other时，直接复制
+            if(otherCount<=elementIndex || otherCount<=arrayLength(curChunk) - elementIndex) {
+                for(int j = 0; j<other.spineIndex; j++) {
+                    appendRange(other.spine[j], 0, other.arrayLength(other.spine[j]));
+                }
+                appendRange(other.curChunk, 0, other.elementIndex);
+                other.clear();
+                return;
+            }
+            
+            inflateSpine();
+            
+            // 截断当前块，使其成为一个已填满的块；当前块为空时直接丢弃它
+            int n = spineIndex;
+            if(elementIndex>0) {
+                if(elementIndex<arrayLength(curChunk)) {
+                    T_ARR trimmed = newArray(elementIndex);
+                    System.arraycopy(curChunk, 0, trimmed, 0, elementIndex);
+                    spine[n] = trimmed;
+                }
+                n++;
+            }
+            
+            // 接管other中已填满的块，以及other的当前块
+            for(int j = 0; j<=other.spineIndex; j++) {
+                T_ARR chunk = (j == other.spineIndex) ? other.curChunk : other.spine[j];
+                if(n >= spine.length) {
+                    int newSpineSize = spine.length * 2;
+                    spine = Arrays.copyOf(spine, newSpineSize);
+                    priorElementCount = Arrays.copyOf(priorElementCount, newSpineSize);
+                }
+                spine[n] = chunk;
+                priorElementCount[n] = (n == 0) ? 0 : priorElementCount[n - 1] + arrayLength(spine[n - 1]);
+                n++;
+            }
+            
+            // 丢弃预先分配的块，它们的priorElementCount已经失效
+            Arrays.fill(spine, n, spine.length, null);
+            
+            spineIndex = n - 1;
+            curChunk = spine[spineIndex];
+            elementIndex = other.elementIndex;
+            
+            // other的分块已被接管，因此other需要使用新的分块
+            other.spine = null;
+            other.priorElementCount = null;
+            other.curChunk = other.newArray(1 << other.initialChunkPower);
+            other.spineIndex = 0;
+            other.elementIndex = 0;
+        }
+        
+        // 将src[from, to)中的元素依次追加到当前缓冲区
+        private void appendRange(T_ARR src, int from, int to) {
+            while(from<to) {
+                preAccept();
+                int n = Math.min(to - from, arrayLength(curChunk) - elementIndex);
+                System.arraycopy(src, from, curChunk, elementIndex, n);
+                elementIndex += n;
+                from += n;
+            }
+        }
+    
         // 返回当前SpinedBuffer的容量
         protected long capacity() {
             return (spineIndex == 0)
@@ -960,6 +1046,23 @@ class SpinedBuffer<E> extends AbstractSpinedBuffer implements Consumer<E>, Itera
             }
         }
     
+        // 将索引index处的元素替换为value，返回旧值
+        int set(long index, int value) {
+            int ch = chunkFor(index);
+            int[] chunk;
+            int i;
+            if(spineIndex == 0 && ch == 0) {
+                chunk = curChunk;
+                i = (int) index;
+            } else {
+                chunk = spine[ch];
+                i = (int) (index - priorElementCount[ch]);
+            }
+            int old = chunk[i];
+            chunk[i] = value;
+            return old;
+        }
+        
         // 返回数组array的容量
         @Override
         protected int arrayLength(int[] array) {
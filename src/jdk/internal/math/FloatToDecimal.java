@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package jdk.internal.math;
+
+import java.io.IOException;
+
+import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.Math.multiplyHigh;
+import static jdk.internal.math.MathUtils.flog10pow2;
+import static jdk.internal.math.MathUtils.flog10threeQuartersPow2;
+import static jdk.internal.math.MathUtils.flog2pow10;
+import static jdk.internal.math.MathUtils.g1;
+import static jdk.internal.math.MathUtils.pow10;
+
+/**
+ * Renders a {@code float} as the shortest decimal that rounds back to it,
+ * in the format of {@link Float#toString(float)}.  The choice among the
+ * decimals that round to the argument is made as in
+ * {@link DoubleToDecimal}; only the upper 63 bits of the approximations of
+ * the powers of ten are needed.
+ *
+ * <p>The characters are produced into a buffer that belongs to the current
+ * thread, so {@link #appendTo} does not allocate.
+ */
+// 将float转换为能够还原为该值的最短十进制字符串，不使用大整数运算，追加到Appendable时不分配内存
+public final class FloatToDecimal {
+    
+    /** The precision in bits. */
+    static final int P = 24;
+    
+    /** Exponent width in bits. */
+    private static final int W = (Float.SIZE - 1) - (P - 1);
+    
+    /** Minimum value of the exponent: -(2^(W-1)) - P + 3. */
+    static final int Q_MIN = (-1 << W - 1) - P + 3;
+    
+    /** Threshold to detect tiny values: ceil(2^(-Q_MIN) 10^(K_MIN + 1)), with K_MIN = flog10pow2(Q_MIN). */
+    static final int C_TINY = 8;
+    
+    /** The number of decimal digits of the decimal significand after normalization: flog10pow2(P) + 2. */
+    static final int H = 9;
+    
+    /** Minimum value of the coefficient of a normalized value: 2^(P-1). */
+    private static final int C_MIN = 1 << P - 1;
+    
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final int T_MASK = (1 << P - 1) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+    
+    /** The maximum number of characters of a rendering, as in "-1.2345678E-38". */
+    public static final int MAX_CHARS = 1 + H + 1 + 2 + 2;
+    
+    // 以下返回值表示toDecimal(float)的结果是否需要由调用者使用常量字符串表示
+    private static final int NON_SPECIAL = 0;
+    private static final int PLUS_ZERO = 1;
+    private static final int MINUS_ZERO = 2;
+    private static final int PLUS_INF = 3;
+    private static final int MINUS_INF = 4;
+    private static final int NAN = 5;
+    
+    private static final ThreadLocal<FloatToDecimal> threadLocalInstance = new ThreadLocal<FloatToDecimal>() {
+        @Override
+        protected FloatToDecimal initialValue() {
+            return new FloatToDecimal();
+        }
+    };
+    
+    /** The characters of the rendering, valid in [0, index]. */
+    private final char[] chars = new char[MAX_CHARS];
+    
+    /** The index of the last character written. */
+    private int index;
+    
+    
+    
+    private FloatToDecimal() {
+    }
+    
+    
+    
+    /**
+     * Returns a string rendering of the {@code float} argument, as
+     * specified by {@link Float#toString(float)}.
+     *
+     * @param v the {@code float} to be rendered
+     *
+     * @return a string rendering of the argument
+     */
+    // 返回v的字符串表示
+    public static String toString(float v) {
+        FloatToDecimal fd = threadLocalInstance.get();
+        switch(fd.toDecimal(v)) {
+            case NON_SPECIAL:
+                return new String(fd.chars, 0, fd.index + 1);
+            case PLUS_ZERO:
+                return "0.0";
+            case MINUS_ZERO:
+                return "-0.0";
+            case PLUS_INF:
+                return "Infinity";
+            case MINUS_INF:
+                return "-Infinity";
+            default:
+                return "NaN";
+        }
+    }
+    
+    /**
+     * Appends the rendering of the {@code float} argument, as specified by
+     * {@link Float#toString(float)}, to {@code app}.  No objects are
+     * allocated; the characters are passed to {@code app} in one call if it
+     * is a {@link StringBuilder} or a {@link StringBuffer}, and one at a
+     * time otherwise.
+     *
+     * @param v   the {@code float} to be rendered
+     * @param app the {@link Appendable} to append to
+     *
+     * @throws IOException if {@code app} throws
+     */
+    // 将v的字符串表示追加到app中，不分配内存
+    public static void appendTo(float v, Appendable app) throws IOException {
+        FloatToDecimal fd = threadLocalInstance.get();
+        switch(fd.toDecimal(v)) {
+            case NON_SPECIAL:
+                fd.appendChars(app);
+                return;
+            case PLUS_ZERO:
+                app.append("0.0");
+                return;
+            case MINUS_ZERO:
+                app.append("-0.0");
+                return;
+            case PLUS_INF:
+                app.append("Infinity");
+                return;
+            case MINUS_INF:
+                app.append("-Infinity");
+                return;
+            default:
+                app.append("NaN");
+        }
+    }
+    
+    
+    
+    // 将缓冲区中的字符追加到app中
+    private void appendChars(Appendable app) throws IOException {
+        int len = index + 1;
+        if(app instanceof StringBuilder) {
+            ((StringBuilder) app).append(chars, 0, len);
+        } else if(app instanceof StringBuffer) {
+            ((StringBuffer) app).append(chars, 0, len);
+        } else {
+            for(int i = 0; i<len; i++) {
+                app.append(chars[i]);
+            }
+        }
+    }
+    
+    // 将v转换为字符存入缓冲区，对于0、无穷和NaN，只返回其类别
+    private int toDecimal(float v) {
+        int bits = floatToRawIntBits(v);
+        int t = bits & T_MASK;
+        int bq = (bits >>> P - 1) & BQ_MASK;
+        if(bq<BQ_MASK) {
+            index = -1;
+            if(bits<0) {
+                append('-');
+            }
+            if(bq != 0) {
+                // normal value; here mq = -q
+                int mq = -Q_MIN + 1 - bq;
+                int c = C_MIN | t;
+                // integers below 2^24 are rendered exactly
+                if(0<mq & mq<P) {
+                    int f = c >> mq;
+                    if(f << mq == c) {
+                        return toChars(f, 0);
+                    }
+                }
+                return toDecimal(-mq, c, 0);
+            }
+            if(t != 0) {
+                // subnormal value; tiny coefficients are scaled up by 10 so that s >= 10 below
+                return t<C_TINY ? toDecimal(Q_MIN, 10 * t, -1) : toDecimal(Q_MIN, t, 0);
+            }
+            return bits == 0 ? PLUS_ZERO : MINUS_ZERO;
+        }
+        if(t != 0) {
+            return NAN;
+        }
+        return bits>0 ? PLUS_INF : MINUS_INF;
+    }
+    
+    /*
+     * Renders v = c 2^q, as DoubleToDecimal.toDecimal(int, long, int) does,
+     * using g1(k) + 1 as a 63 bit approximation of 10^-k from above.
+     */
+    // 使用Schubfach算法将v=c*2^q转换为十进制
+    private int toDecimal(int q, int c, int dk) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        
+        if(c != C_MIN | q == Q_MIN) {
+            // regular spacing
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // irregular spacing: the predecessor of v is closer than its successor
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        
+        long g = g1(k) + 1;
+        
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+        
+        int s = vb >> 2;
+        if(s >= 100) {
+            // try one digit less: floor(s / 10) = floor(1_717_986_919 s / 2^34)
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out<=sp10 << 2;
+            boolean wpin = (tp10 << 2) + out<=vbr;
+            if(upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k);
+            }
+        }
+        
+        // s and t = s + 1 are the candidates of full length next to v
+        int t = s + 1;
+        boolean uin = vbl + out<=s << 2;
+        boolean win = (t << 2) + out<=vbr;
+        if(uin != win) {
+            return toChars(uin ? s : t, k + dk);
+        }
+        
+        // both are in the rounding interval: pick the one closer to v, or the even one on a tie
+        int cmp = vb - (s + t << 1);
+        return toChars(cmp<0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+    
+    /*
+     * Computes rop(cp g 2^-95), rounded to odd: the result is floor(x), with
+     * its least significant bit set if x is not an integer.
+     */
+    // 计算cp*g/2^95，并向奇数舍入
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+    
+    // 将十进制数f*10^e格式化到缓冲区中
+    private int toChars(int f, int e) {
+        // len is such that 10^(len-1) <= f < 10^len
+        int len = flog10pow2(Integer.SIZE - numberOfLeadingZeros(f));
+        if(f >= pow10(len)) {
+            len += 1;
+        }
+        
+        // normalize so that 10^(H-1) <= f < 10^H and the value is 0.f 10^e
+        f *= (int) pow10(H - len);
+        e += len;
+        
+        // split f into its most significant digit h and the last 8 digits l: floor(f / 10^8) = floor(1_441_151_881 f / 2^57)
+        int h = (int) (f * 1_441_151_881L >>> 57);
+        int l = f - 100_000_000 * h;
+        
+        if(0<e && e<=7) {
+            return toChars1(h, l, e);
+        }
+        if(-3<e && e<=0) {
+            return toChars2(h, l, e);
+        }
+        return toChars3(h, l, e);
+    }
+    
+    // 1 <= value < 10^7：不带前导零的普通格式
+    private int toChars1(int h, int l, int e) {
+        appendDigit(h);
+        int y = y(l);
+        int t;
+        int i = 1;
+        for(; i<e; ++i) {
+            t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+        append('.');
+        for(; i<=8; ++i) {
+            t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+        removeTrailingZeroes();
+        return NON_SPECIAL;
+    }
+    
+    // 10^-3 <= value < 1：带前导零的普通格式
+    private int toChars2(int h, int l, int e) {
+        appendDigit(0);
+        append('.');
+        for(; e<0; ++e) {
+            appendDigit(0);
+        }
+        appendDigit(h);
+        append8Digits(l);
+        removeTrailingZeroes();
+        return NON_SPECIAL;
+    }
+    
+    // 其他情形：科学计数法
+    private int toChars3(int h, int l, int e) {
+        appendDigit(h);
+        append('.');
+        append8Digits(l);
+        removeTrailingZeroes();
+        exponent(e - 1);
+        return NON_SPECIAL;
+    }
+    
+    // 从左到右追加m的8位数字，参见DoubleToDecimal.append8Digits
+    private void append8Digits(int m) {
+        int y = y(m);
+        for(int i = 0; i<8; ++i) {
+            int t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+    }
+    
+    // 移除末尾的0，但保留小数点后的第一个0
+    private void removeTrailingZeroes() {
+        while(chars[index] == '0') {
+            --index;
+        }
+        if(chars[index] == '.') {
+            ++index;
+        }
+    }
+    
+    // 返回floor((a + 1) 2^28 / 10^8) - 1，要求0<=a<10^8
+    private int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+    
+    // 追加指数部分，|e|<100
+    private void exponent(int e) {
+        append('E');
+        if(e<0) {
+            append('-');
+            e = -e;
+        }
+        if(e<10) {
+            appendDigit(e);
+            return;
+        }
+        // floor(e / 10) = floor(103 e / 2^10)
+        int d = e * 103 >>> 10;
+        appendDigit(d);
+        appendDigit(e - 10 * d);
+    }
+    
+    private void append(int c) {
+        chars[++index] = (char) c;
+    }
+    
+    private void appendDigit(int d) {
+        chars[++index] = (char) ('0' + d);
+    }
+    
+}
@@ -25,6 +25,8 @@
 
 package jdk.internal.math;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.regex.*;
 
@@ -62,40 +64,56 @@ public class FloatingDecimal{
 
     /**
      * Converts a double precision floating point value to a <code>String</code>.
+     * The shortest decimal that rounds to the value is produced by
+     * {@link DoubleToDecimal}.
      *
      * @param d The double precision value.
      * @return The value converted to a <code>String</code>.
      */
     public static String toJavaFormatString(double d) {
-        return getBinaryToASCIIConverter(d).toJavaFormatString();
+        return DoubleToDecimal.toString(d);
     }
 
     /**
      * Converts a single precision floating point value to a <code>String</code>.
+     * The shortest decimal that rounds to the value is produced by
+     * {@link FloatToDecimal}.
      *
      * @param f The single precision value.
      * @return The value converted to a <code>String</code>.
      */
     public static String toJavaFormatString(float f) {
-        return getBinaryToASCIIConverter(f).toJavaFormatString();
+        return FloatToDecimal.toString(f);
     }
 
     /**
-     * Appends a double precision floating point value to an <code>Appendable</code>.
+     * Appends a double precision floating point value to an <code>Appendable</code>,
+     * in the format of {@link #toJavaFormatString(double)}, without allocating.
      * @param d The double precision value.
      * @param buf The <code>Appendable</code> with the value appended.
+     * @throws UncheckedIOException If <code>buf</code> throws an <code>IOException</code>.
      */
     public static void appendTo(double d, Appendable buf) {
-        getBinaryToASCIIConverter(d).appendTo(buf);
+        try {
+            DoubleToDecimal.appendTo(d, buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
-     * Appends a single precision floating point value to an <code>Appendable</code>.
+     * Appends a single precision floating point value to an <code>Appendable</code>,
+     * in the format of {@link #toJavaFormatString(float)}, without allocating.
      * @param f The single precision value.
      * @param buf The <code>Appendable</code> with the value appended.
+     * @throws UncheckedIOException If <code>buf</code> throws an <code>IOException</code>.
      */
     public static void appendTo(float f, Appendable buf) {
-        getBinaryToASCIIConverter(f).appendTo(buf);
+        try {
+            FloatToDecimal.appendTo(f, buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -122,6 +140,107 @@ public class FloatingDecimal{
         return readJavaFormatString(s).floatValue();
     }
 
+    /**
+     * Converts the characters <code>s[start, end)</code> to a double
+     * precision floating point value, accepting the same syntax as
+     * {@link #parseDouble(String)}.
+     *
+     * Plain decimal input whose value is exactly the product or quotient
+     * of an integer below 2<sup>53</sup> and a power of ten not above
+     * 10<sup>22</sup> is converted directly from the characters without
+     * allocating; the result is exact, hence correctly rounded.  Any
+     * other input is copied to a <code>String</code> and converted by
+     * {@link #parseDouble(String)}.
+     *
+     * @param s The characters to convert.
+     * @param start The index of the first character, inclusive.
+     * @param end The index of the last character, exclusive.
+     * @return The double precision value.
+     * @throws NumberFormatException If the characters do not
+     * represent a properly formatted double precision value.
+     */
+    public static double parseDouble(CharSequence s, int start, int end) throws NumberFormatException {
+        int i = start;
+        boolean isNegative = false;
+        if (i < end) {
+            char c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                isNegative = (c == '-');
+                i++;
+            }
+        }
+        long significand = 0L;
+        int nDigits = 0;        // significant digits accumulated
+        int nFraction = 0;      // of which after the point
+        int nSeen = 0;          // all digits, including leading zeros
+        boolean decSeen = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                nSeen++;
+                if (nDigits > 0 || c != '0') {
+                    if (++nDigits > 18) {
+                        return parseDouble(s.subSequence(start, end).toString());
+                    }
+                    significand = significand * 10 + (c - '0');
+                }
+                if (decSeen) {
+                    nFraction++;
+                }
+            } else if (c == '.' && !decSeen) {
+                decSeen = true;
+            } else {
+                break;
+            }
+        }
+        int exp = 0;
+        if (nSeen > 0 && i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            int expStart = ++i;
+            boolean expNegative = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                expNegative = (s.charAt(i) == '-');
+                expStart = ++i;
+            }
+            for (; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9' || exp > 1000) {
+                    break;
+                }
+                exp = exp * 10 + (c - '0');
+            }
+            if (i == expStart) {
+                i = -1; // no exponent digits; let the slow path report it
+            }
+            if (expNegative) {
+                exp = -exp;
+            }
+        }
+        if (nSeen == 0 || i != end) {
+            // not a plain decimal: signs only, NaN, Infinity, hex,
+            // whitespace, type suffix, huge exponent or malformed input
+            return parseDouble(s.subSequence(start, end).toString());
+        }
+        exp -= nFraction;
+        double dValue;
+        if (significand == 0L) {
+            dValue = 0.0;
+        } else if (significand < (1L << 53)
+                && exp >= -ASCIIToBinaryBuffer.MAX_SMALL_TEN
+                && exp <= ASCIIToBinaryBuffer.MAX_SMALL_TEN) {
+            // both operands are exact, so the single rounding of the
+            // multiplication or division gives the correctly rounded value
+            dValue = (double) significand;
+            if (exp > 0) {
+                dValue *= ASCIIToBinaryBuffer.SMALL_10_POW[exp];
+            } else if (exp < 0) {
+                dValue /= ASCIIToBinaryBuffer.SMALL_10_POW[-exp];
+            }
+        } else {
+            return parseDouble(s.subSequence(start, end).toString());
+        }
+        return isNegative ? -dValue : dValue;
+    }
+
     /**
      * A converter which can process single or double precision floating point
      * values into an ASCII <code>String</code> representation.
@@ -1786,46 +1905,6 @@ public class FloatingDecimal{
         return buf;
     }
 
-    private static BinaryToASCIIConverter getBinaryToASCIIConverter(float f) {
-        int fBits = Float.floatToRawIntBits( f );
-        boolean isNegative = (fBits&FloatConsts.SIGN_BIT_MASK) != 0;
-        int fractBits = fBits&FloatConsts.SIGNIF_BIT_MASK;
-        int binExp = (fBits&FloatConsts.EXP_BIT_MASK) >> SINGLE_EXP_SHIFT;
-        // Discover obvious special cases of NaN and Infinity.
-        if ( binExp == (FloatConsts.EXP_BIT_MASK>>SINGLE_EXP_SHIFT) ) {
-            if ( fractBits == 0L ){
-                return isNegative ? B2AC_NEGATIVE_INFINITY : B2AC_POSITIVE_INFINITY;
-            } else {
-                return B2AC_NOT_A_NUMBER;
-            }
-        }
-        // Finish unpacking
-        // Normalize denormalized numbers.
-        // Insert assumed high-order bit for normalized numbers.
-        // Subtract exponent bias.
-        int  nSignificantBits;
-        if ( binExp == 0 ){
-            if ( fractBits == 0 ){
-                // not a denorm, just a 0!
-                return isNegative ? B2AC_NEGATIVE_ZERO : B2AC_POSITIVE_ZERO;
-            }
-            int leadingZeros = Integer.numberOfLeadingZeros(fractBits);
-            int shift = leadingZeros-(31-SINGLE_EXP_SHIFT);
-            fractBits <<= shift;
-            binExp = 1 - shift;
-            nSignificantBits =  32 - leadingZeros; // recall binExp is  - shift count.
-        } else {
-            fractBits |= SINGLE_FRACT_HOB;
-            nSignificantBits = SINGLE_EXP_SHIFT+1;
-        }
-        binExp -= FloatConsts.EXP_BIAS;
-        BinaryToASCIIBuffer buf = getBinaryToASCIIBuffer();
-        buf.setSign(isNegative);
-        // call the routine that actually does all the hard work.
-        buf.dtoa(binExp, ((long)fractBits)<<(EXP_SHIFT-SINGLE_EXP_SHIFT), nSignificantBits, true);
-        return buf;
-    }
-
     @SuppressWarnings("fallthrough")
     static ASCIIToBinaryConverter readJavaFormatString( String in ) throws NumberFormatException {
         boolean isNegative = false;
@@ -53,4 +53,18 @@ public interface JavaNioAccess {
      */
     void truncate(Buffer buf);
 
+    /**
+     * Reserves direct memory for an allocation of {@code size} bytes with
+     * a capacity of {@code cap} bytes, counted against the limit set by
+     * {@code -XX:MaxDirectMemorySize} like the memory of direct buffers.
+     *
+     * @throws OutOfMemoryError if the memory cannot be reserved
+     */
+    void reserveMemory(long size, int cap);
+
+    /**
+     * Releases direct memory previously reserved by {@link #reserveMemory}.
+     */
+    void unreserveMemory(long size, int cap);
+
 }
@@ -37,12 +37,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.MpscLinkedQueue;
 import java.util.concurrent.Flow;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -119,6 +121,11 @@ class Http2Connection  {
             Utils.getHpackLogger(this::dbgString, Utils.DEBUG_HPACK);
     static final ByteBuffer EMPTY_TRIGGER = ByteBuffer.allocate(0);
 
+    // When true, the tube subscriber buffers incoming data in a
+    // single-consumer MpscLinkedQueue instead of a ConcurrentLinkedQueue.
+    static final boolean USE_MPSC_READ_QUEUE =
+            Utils.getBooleanProperty("jdk.internal.httpclient.mpscReadQueue", false);
+
     static private final int MAX_CLIENT_STREAM_ID = Integer.MAX_VALUE; // 2147483647
     static private final int MAX_SERVER_STREAM_ID = Integer.MAX_VALUE - 1; // 2147483646
 
@@ -1255,8 +1262,12 @@ class Http2Connection  {
         private volatile boolean completed;
         private volatile boolean dropped;
         private volatile Throwable error;
-        private final ConcurrentLinkedQueue<ByteBuffer> queue
-                = new ConcurrentLinkedQueue<>();
+        // Filled by onNext from any thread, drained only by processQueue,
+        // which the sequential scheduler never runs concurrently, so a
+        // single-consumer queue may be used when USE_MPSC_READ_QUEUE is set.
+        private final Queue<ByteBuffer> queue = USE_MPSC_READ_QUEUE
+                ? new MpscLinkedQueue<>()
+                : new ConcurrentLinkedQueue<>();
         private final SequentialScheduler scheduler =
                 SequentialScheduler.synchronizedScheduler(this::processQueue);
         private final HttpClientImpl client;
@@ -0,0 +1,34 @@
+package test.kang.floatingdecimal;
+
+import java.io.StringWriter;
+
+// Double.toString/Float.toString输出能唯一还原原值的最短十进制，其中最接近原值者优先
+public class DoubleToStringTest01 {
+    public static void main(String[] args) {
+        System.out.println("\n## 1. 最短且可还原 ##");
+        System.out.println(Double.toString(2.0E23));                // 2.0E23，旧实现为1.9999999999999998E23
+        System.out.println(Double.toString(1.0E23));                // 1.0E23，旧实现为9.999999999999999E22
+        System.out.println(Double.toString(2 * Double.MIN_VALUE));  // 9.9E-324，旧实现为1.0E-323
+        System.out.println(Double.toString(Double.MIN_VALUE));      // 4.9E-324
+        System.out.println(Float.toString(Float.MAX_VALUE));        // 3.4028235E38
+        System.out.println(Float.toString(1.0E-5f));                // 1.0E-5
+        
+        System.out.println("\n## 2. 格式与旧实现一致 ##");
+        System.out.println(Double.toString(1.0));           // 1.0
+        System.out.println(Double.toString(0.001));         // 0.001
+        System.out.println(Double.toString(1.0E7));         // 1.0E7
+        System.out.println(Double.toString(123.456));       // 123.456
+        System.out.println(Double.toString(-0.0));          // -0.0
+        System.out.println(Double.toString(Double.NaN));    // NaN
+        System.out.println(Double.toString(Double.NEGATIVE_INFINITY));  // -Infinity
+        
+        System.out.println("\n## 3. 追加到StringBuilder与其他Appendable ##");
+        StringBuilder sb = new StringBuilder();
+        sb.append(0.1).append(' ').append(0.1f).append(' ').append(9007199254740993.0);
+        System.out.println(sb);     // 0.1 0.1 9.007199254740992E15
+        
+        StringWriter writer = new StringWriter();
+        jdk.internal.math.FloatingDecimal.appendTo(2.0E23, writer);
+        System.out.println(writer); // 2.0E23
+    }
+}
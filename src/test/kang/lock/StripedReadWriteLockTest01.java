@@ -0,0 +1,50 @@
+package test.kang.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StripedReadWriteLock;
+
+// StripedReadWriteLock不支持锁升级：持有读锁的线程无法获取写锁，行为与ReentrantReadWriteLock一致
+public class StripedReadWriteLockTest01 {
+    public static void main(String[] args) throws InterruptedException {
+        StripedReadWriteLock lock = new StripedReadWriteLock();
+        
+        System.out.println("\n## 1. 持有读锁时尝试获取写锁 ##");
+        lock.readLock().lock();
+        try {
+            System.out.println("tryLock()：" + lock.writeLock().tryLock());   // false
+            System.out.println("tryLock(50ms)：" + lock.writeLock().tryLock(50, TimeUnit.MILLISECONDS));  // false
+            System.out.println("写锁是否被持有：" + lock.isWriteLocked());    // false
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        System.out.println("\n## 2. 另一个读线程升级失败后，读锁不受影响 ##");
+        lock.readLock().lock();
+        Thread reader = new Thread(() -> {
+            lock.readLock().lock();
+            try {
+                try {
+                    System.out.println("读线程 tryLock(50ms)：" + lock.writeLock().tryLock(50, TimeUnit.MILLISECONDS));  // false
+                } catch(InterruptedException e) {
+                    e.printStackTrace();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+        reader.start();
+        reader.join();
+        lock.readLock().unlock();
+        System.out.println("读锁数量：" + lock.getReadLockCount());   // 0
+        
+        System.out.println("\n## 3. 锁降级：持有写锁时获取读锁，再释放写锁 ##");
+        lock.writeLock().lock();
+        lock.readLock().lock();
+        lock.writeLock().unlock();
+        System.out.println("当前线程持有读锁次数：" + lock.getReadHoldCount());   // 1
+        System.out.println("降级后 tryLock()：" + lock.writeLock().tryLock());    // false，重新获取写锁即为升级
+        lock.readLock().unlock();
+        System.out.println("释放读锁后 tryLock()：" + lock.writeLock().tryLock());  // true
+        lock.writeLock().unlock();
+    }
+}
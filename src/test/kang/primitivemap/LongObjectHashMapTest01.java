@@ -0,0 +1,41 @@
+package test.kang.primitivemap;
+
+import java.util.LongObjectHashMap;
+import java.util.PrimitiveIterator;
+
+// LongObjectHashMap的存取、合并与遍历，key全程不装箱
+public class LongObjectHashMapTest01 {
+    public static void main(String[] args) {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        
+        for(long i = 0; i<10; i++) {
+            map.put(i * 1_000_000_007L, "v" + i);
+        }
+        
+        System.out.println("元素数量：" + map.size());
+        System.out.println("get(3000000021)：" + map.get(3_000_000_021L));
+        System.out.println("getOrDefault(1)：" + map.getOrDefault(1L, "缺省值"));
+        
+        // 合并：已存在时拼接，结果为null时移除
+        map.merge(0L, "!", String::concat);
+        map.merge(1_000_000_007L, "x", (oldValue, value) -> null);
+        System.out.println("合并后key=0的值：" + map.get(0L));
+        System.out.println("合并后是否包含1000000007：" + map.containsKey(1_000_000_007L));
+        
+        // 遍历
+        map.forEach((key, value) -> System.out.print(key + "=" + value + "  "));
+        System.out.println();
+        
+        // 使用迭代器移除key为偶数倍的元素
+        PrimitiveIterator.OfLong it = map.keyIterator();
+        while(it.hasNext()) {
+            long key = it.nextLong();
+            if((key / 1_000_000_007L) % 2 == 0) {
+                it.remove();
+            }
+        }
+        System.out.println("移除后：" + map);
+        
+        System.out.println("key之和：" + map.keyStream().sum());
+    }
+}
@@ -0,0 +1,32 @@
+package test.kang.regex;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// LINEAR模式：对于可匹配空串的重复分组，匹配边界(不仅是分组内容)可能与默认的回溯引擎不同
+public class LinearPatternTest01 {
+    public static void main(String[] args) {
+        String regex = "(\\bc*){2}";
+        String input = " c ccA";
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.MULTILINE;
+        
+        System.out.println("\n## 1. 默认引擎 ##");
+        find(Pattern.compile(regex, flags), input);    // [1,2) [2,2) [3,3) [6,6)
+        
+        System.out.println("\n## 2. LINEAR引擎 ##");
+        find(Pattern.compile(regex, flags | Pattern.LINEAR), input);   // [1,2) [2,2) [3,5) [6,6)，第三个匹配的边界不同
+        
+        System.out.println("\n## 3. 不含可空重复分组时两者一致 ##");
+        find(Pattern.compile("\\bc+", flags), input);     // [1,2) [3,5)
+        find(Pattern.compile("\\bc+", flags | Pattern.LINEAR), input);    // [1,2) [3,5)
+    }
+    
+    private static void find(Pattern pattern, String input) {
+        Matcher matcher = pattern.matcher(input);
+        StringBuilder sb = new StringBuilder();
+        while(matcher.find()) {
+            sb.append("[").append(matcher.start()).append(",").append(matcher.end()).append(") ");
+        }
+        System.out.println(sb);
+    }
+}
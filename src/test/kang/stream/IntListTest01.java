@@ -0,0 +1,49 @@
+package test.kang.stream;
+
+import java.util.stream.IntList;
+import java.util.stream.IntStream;
+
+// IntList合并之后继续追加元素，新分配的块大小应与已有的块相当
+public class IntListTest01 {
+    public static void main(String[] args) {
+        System.out.println("\n## 1. 合并多个IntList后继续追加 ##");
+        IntList list = new IntList();
+        for(int k = 0; k<6; k++) {
+            IntList part = new IntList();
+            for(int i = 0; i<5_000; i++) {
+                part.add(k * 5_000 + i);
+            }
+            list.addAll(part);
+        }
+        for(int i = 0; i<10_000; i++) {
+            list.add(30_000 + i);
+        }
+        System.out.println("元素数量：" + list.size());
+        System.out.println("元素是否连续：" + check(list));
+        
+        System.out.println("\n## 2. 并行收集后继续追加 ##");
+        IntList collected = IntStream.range(0, 100_000).parallel().collectToIntList();
+        for(int i = 0; i<100_000; i++) {
+            collected.add(100_000 + i);
+        }
+        System.out.println("元素数量：" + collected.size());
+        System.out.println("元素是否连续：" + check(collected));
+        
+        System.out.println("\n## 3. 初始容量为0 ##");
+        IntList empty = new IntList(0);
+        for(int i = 0; i<3; i++) {
+            empty.add(i);
+        }
+        System.out.println(empty);
+    }
+    
+    // 检查list中的元素是否依次为0, 1, 2, ...
+    private static boolean check(IntList list) {
+        for(int i = 0; i<list.size(); i++) {
+            if(list.get(i) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+}